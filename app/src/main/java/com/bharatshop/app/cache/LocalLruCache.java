@@ -0,0 +1,162 @@
+package com.bharatshop.app.cache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded, weight-aware LRU map with a time-to-live per entry.
+ *
+ * Keys are spread over independently locked segments, each an access-ordered
+ * {@link LinkedHashMap} holding an equal share of the total weight budget, so
+ * concurrent readers of different keys rarely contend. When a segment goes
+ * over budget its least recently used entries are evicted.
+ */
+public class LocalLruCache<K, V> {
+
+    private final List<Segment> segments;
+    private final ToLongFunction<V> weigher;
+    private final long ttlMillis;
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder evictions = new LongAdder();
+
+    public LocalLruCache(long maxWeight, int segmentCount, long ttlMillis, ToLongFunction<V> weigher) {
+        if (maxWeight <= 0 || segmentCount <= 0) {
+            throw new IllegalArgumentException("maxWeight and segmentCount must be positive");
+        }
+        this.weigher = weigher;
+        this.ttlMillis = ttlMillis;
+        this.segments = new ArrayList<>(segmentCount);
+        long budget = Math.max(1, maxWeight / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new Segment(budget));
+        }
+    }
+
+    public V get(K key) {
+        return segmentFor(key).get(key, System.currentTimeMillis());
+    }
+
+    /**
+     * Store a value; values heavier than a whole segment are not kept.
+     */
+    public void put(K key, V value) {
+        long entryWeight = Math.max(1, weigher.applyAsLong(value));
+        segmentFor(key).put(key, new Entry<>(value, entryWeight, System.currentTimeMillis() + ttlMillis));
+    }
+
+    public void remove(K key) {
+        segmentFor(key).remove(key);
+    }
+
+    public void removeIf(Predicate<K> predicate) {
+        for (Segment segment : segments) {
+            segment.removeIf(predicate);
+        }
+    }
+
+    public void clear() {
+        removeIf(key -> true);
+    }
+
+    public long weight() {
+        return weight.get();
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment segmentFor(K key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments.get(Math.floorMod(hash, segments.size()));
+    }
+
+    private record Entry<T>(T value, long weight, long expiresAt) {
+    }
+
+    private final class Segment {
+        private final long budget;
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long segmentWeight;
+
+        Segment(long budget) {
+            this.budget = budget;
+        }
+
+        synchronized V get(K key, long now) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= now) {
+                discard(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(K key, Entry<V> entry) {
+            discard(key);
+            if (entry.weight > budget) {
+                return;
+            }
+            entries.put(key, entry);
+            adjustWeight(entry.weight);
+
+            Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+            while (segmentWeight > budget && eldest.hasNext()) {
+                Entry<V> evicted = eldest.next().getValue();
+                eldest.remove();
+                adjustWeight(-evicted.weight);
+                evictions.increment();
+            }
+        }
+
+        synchronized void remove(K key) {
+            discard(key);
+        }
+
+        synchronized void removeIf(Predicate<K> predicate) {
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> entry = iterator.next();
+                if (predicate.test(entry.getKey())) {
+                    iterator.remove();
+                    adjustWeight(-entry.getValue().weight);
+                }
+            }
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        private void discard(K key) {
+            Entry<V> previous = entries.remove(key);
+            if (previous != null) {
+                adjustWeight(-previous.weight);
+            }
+        }
+
+        private void adjustWeight(long delta) {
+            segmentWeight += delta;
+            weight.addAndGet(delta);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.bharatshop.app.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * One named cache of a {@link NearCacheManager}.
+ */
+class NearCache implements Cache {
+
+    private static final long MAX_TRACKED_MISSES = 10_000;
+    private static final long MISS_TTL_MILLIS = 60_000;
+
+    private final String name;
+    private final Cache remote;
+    private final LocalLruCache<NearCacheManager.LocalKey, Object> local;
+    private final NearCacheInvalidationBus bus;
+    private final ConcurrentMap<NearCacheManager.LocalKey, CompletableFuture<Object>> loading =
+            new ConcurrentHashMap<>();
+    // Keys that just missed in every tier; a put of one of them is a read-through fill
+    private final LocalLruCache<NearCacheManager.LocalKey, Boolean> misses =
+            new LocalLruCache<>(MAX_TRACKED_MISSES, 16, MISS_TTL_MILLIS, value -> 1);
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    NearCache(String name, Cache remote, LocalLruCache<NearCacheManager.LocalKey, Object> local,
+              NearCacheInvalidationBus bus, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.bus = bus;
+        this.l1Hits = counter(meterRegistry, "l1", "hit");
+        this.l1Misses = counter(meterRegistry, "l1", "miss");
+        this.l2Hits = counter(meterRegistry, "l2", "hit");
+        this.l2Misses = counter(meterRegistry, "l2", "miss");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote != null ? remote.getNativeCache() : local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        NearCacheManager.LocalKey localKey = localKey(key);
+        Object cached = local.get(localKey);
+        if (cached != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(fromStored(cached));
+        }
+        l1Misses.increment();
+        if (remote == null) {
+            misses.put(localKey, Boolean.TRUE);
+            return null;
+        }
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            l2Misses.increment();
+            misses.put(localKey, Boolean.TRUE);
+            return null;
+        }
+        l2Hits.increment();
+        local.put(localKey, toStored(wrapper.get()));
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        NearCacheManager.LocalKey localKey = localKey(key);
+        Object cached = local.get(localKey);
+        if (cached != null) {
+            l1Hits.increment();
+            return (T) fromStored(cached);
+        }
+        l1Misses.increment();
+
+        if (remote == null) {
+            return (T) load(key, localKey, valueLoader);
+        }
+        T value = remote.get(key, valueLoader);
+        local.put(localKey, toStored(value));
+        return value;
+    }
+
+    /**
+     * Run a local-only loader at most once per key at a time. Callers that
+     * miss while a load of the same key is running wait for its result;
+     * loads of other keys are not held up.
+     */
+    private Object load(Object key, NearCacheManager.LocalKey localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(localKey, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            Object cached = local.get(localKey);
+            Object value;
+            if (cached != null) {
+                // Stored by a load that finished after our first lookup
+                value = fromStored(cached);
+            } else {
+                value = valueLoader.call();
+                local.put(localKey, toStored(value));
+            }
+            load.complete(value);
+            return value;
+        } catch (Exception e) {
+            ValueRetrievalException failure = new ValueRetrievalException(key, valueLoader, e);
+            load.completeExceptionally(failure);
+            throw failure;
+        } catch (Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(localKey, load);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Store a value in both tiers. Other nodes are told to drop their copy
+     * unless this fills a key whose lookup just missed, as a read-through
+     * cache does after loading: a fill changes no data, and the writes that
+     * do are broadcast when they evict or put.
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (remote != null) {
+            remote.put(key, value);
+        }
+        NearCacheManager.LocalKey localKey = localKey(key);
+        local.put(localKey, toStored(value));
+        boolean fill = misses.get(localKey) != null;
+        misses.remove(localKey);
+        if (!fill) {
+            publishEvict(localKey);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (remote == null) {
+            ValueWrapper existing = get(key);
+            if (existing == null) {
+                put(key, value);
+            }
+            return existing;
+        }
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        local.remove(localKey(key));
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (remote != null) {
+            remote.evict(key);
+        }
+        NearCacheManager.LocalKey localKey = localKey(key);
+        local.remove(localKey);
+        publishEvict(localKey);
+    }
+
+    @Override
+    public void clear() {
+        if (remote != null) {
+            remote.clear();
+        }
+        local.removeIf(key -> key.cacheName().equals(name));
+        if (bus != null) {
+            bus.publishClear(name);
+        }
+    }
+
+    private void publishEvict(NearCacheManager.LocalKey localKey) {
+        if (bus != null) {
+            bus.publishEvict(name, localKey.key());
+        }
+    }
+
+    private NearCacheManager.LocalKey localKey(Object key) {
+        return new NearCacheManager.LocalKey(name, String.valueOf(key));
+    }
+
+    private static Object toStored(Object value) {
+        return value != null ? value : NearCacheManager.NULL_VALUE;
+    }
+
+    private static Object fromStored(Object stored) {
+        return stored == NearCacheManager.NULL_VALUE ? null : stored;
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("bharatshop.cache.gets")
+                .description("Cache lookups by tier and outcome")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
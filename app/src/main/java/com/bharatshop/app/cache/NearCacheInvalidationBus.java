@@ -0,0 +1,69 @@
+package com.bharatshop.app.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Redis pub/sub channel that tells other nodes to drop L1 entries.
+ *
+ * Messages are {@code node|op|cache|key} strings; a node ignores its own
+ * messages since it has already applied the change locally.
+ */
+@Slf4j
+public class NearCacheInvalidationBus implements MessageListener {
+
+    static final String EVICT = "E";
+    static final String CLEAR = "C";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private volatile NearCacheManager cacheManager;
+
+    public NearCacheInvalidationBus(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    void register(NearCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    void publishEvict(String cacheName, String key) {
+        publish(EVICT, cacheName, key);
+    }
+
+    void publishClear(String cacheName) {
+        publish(CLEAR, cacheName, "");
+    }
+
+    private void publish(String op, String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(channel, nodeId + "|" + op + "|" + cacheName + "|" + key);
+        } catch (Exception e) {
+            log.warn("Could not publish near cache invalidation for cache: {} key: {}", cacheName, key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length != 4 || nodeId.equals(parts[0]) || cacheManager == null) {
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cacheManager.dropLocal(parts[2]);
+        } else if (EVICT.equals(parts[1])) {
+            cacheManager.dropLocal(parts[2], parts[3]);
+        }
+    }
+}
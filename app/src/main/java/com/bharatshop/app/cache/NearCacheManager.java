@@ -0,0 +1,212 @@
+package com.bharatshop.app.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Hibernate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Slice;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Two-tier CacheManager: a bounded in-process LRU (L1) in front of a shared
+ * remote cache (L2, normally Redis).
+ *
+ * Reads are served from L1 when possible and fall through to L2 otherwise,
+ * filling L1 on the way back. Writes, evictions and clears go to both tiers
+ * and are broadcast over the {@link NearCacheInvalidationBus} so other nodes
+ * drop their L1 copies; filling a key that just missed is not broadcast.
+ * L1 is bounded by the estimated heap size of its values. Without an L2
+ * manager or bus the cache runs as a bounded local cache only.
+ */
+public class NearCacheManager implements CacheManager {
+
+    static final Object NULL_VALUE = new Object();
+
+    private static final int MAX_WEIGH_DEPTH = 4;
+    private static final int WEIGH_SAMPLE_SIZE = 16;
+    private static final long SHALLOW_OBJECT_BYTES = 48;
+
+    // Instance fields of a class and its superclasses that can be read reflectively
+    private static final ClassValue<List<Field>> FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers()) && field.trySetAccessible()) {
+                        fields.add(field);
+                    }
+                }
+            }
+            return List.copyOf(fields);
+        }
+    };
+
+    private final CacheManager remote;
+    private final NearCacheInvalidationBus bus;
+    private final MeterRegistry meterRegistry;
+    private final LocalLruCache<LocalKey, Object> local;
+    private final ConcurrentMap<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    public NearCacheManager(CacheManager remote, NearCacheInvalidationBus bus,
+                            NearCacheProperties properties, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.bus = bus;
+        this.meterRegistry = meterRegistry;
+        this.local = new LocalLruCache<>(properties.getMaxBytes(), properties.getSegments(),
+                properties.getLocalTtl().toMillis(), NearCacheManager::weigh);
+
+        Gauge.builder("bharatshop.cache.l1.weight", local, LocalLruCache::weight)
+                .description("Estimated bytes currently held in the in-process cache")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("bharatshop.cache.l1.size", local, LocalLruCache::size)
+                .description("Entries currently held in the in-process cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("bharatshop.cache.l1.evictions", local, LocalLruCache::evictionCount)
+                .description("Entries evicted from the in-process cache to stay within its weight budget")
+                .register(meterRegistry);
+
+        if (bus != null) {
+            bus.register(this);
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        NearCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = null;
+        if (remote != null) {
+            remoteCache = remote.getCache(name);
+            if (remoteCache == null) {
+                return null;
+            }
+        }
+        Cache l2 = remoteCache;
+        return caches.computeIfAbsent(name, key -> new NearCache(key, l2, local, bus, meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        if (remote == null) {
+            return Set.copyOf(caches.keySet());
+        }
+        return remote.getCacheNames();
+    }
+
+    /**
+     * Drop every L1 entry of a cache on this node.
+     */
+    void dropLocal(String cacheName) {
+        local.removeIf(key -> key.cacheName().equals(cacheName));
+    }
+
+    /**
+     * Drop one L1 entry on this node.
+     */
+    void dropLocal(String cacheName, String key) {
+        local.remove(new LocalKey(cacheName, key));
+    }
+
+    /**
+     * Estimated heap bytes of a value, so the L1 budget bounds memory rather
+     * than entry counts. Objects are walked a few levels deep through their
+     * fields; large collections are weighed from a sample of their elements,
+     * and lazy Hibernate proxies and collections are not initialised.
+     */
+    static long weigh(Object value) {
+        return estimateBytes(value, MAX_WEIGH_DEPTH);
+    }
+
+    private static long estimateBytes(Object value, int depth) {
+        if (value == null || value == NULL_VALUE) {
+            return 0;
+        }
+        if (value instanceof CharSequence text) {
+            return 40L + 2L * text.length();
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?> || value instanceof Temporal || value instanceof UUID) {
+            return 24;
+        }
+        if (value instanceof byte[] bytes) {
+            return 16L + bytes.length;
+        }
+        if (depth == 0 || !Hibernate.isInitialized(value)) {
+            return SHALLOW_OBJECT_BYTES;
+        }
+        if (value instanceof Slice<?> slice) {
+            return 64L + estimateBytes(slice.getContent(), depth - 1);
+        }
+        if (value instanceof Collection<?> collection) {
+            return 48L + 8L * collection.size() + sampledBytes(collection, collection.size(), depth - 1);
+        }
+        if (value instanceof Map<?, ?> map) {
+            return 48L + 32L * map.size()
+                    + sampledBytes(map.keySet(), map.size(), depth - 1)
+                    + sampledBytes(map.values(), map.size(), depth - 1);
+        }
+        if (value instanceof Object[] array) {
+            return 16L + 8L * array.length + sampledBytes(Arrays.asList(array), array.length, depth - 1);
+        }
+        if (value.getClass().isArray() || value.getClass().getName().startsWith("java.")) {
+            return SHALLOW_OBJECT_BYTES;
+        }
+
+        long bytes = 16;
+        for (Field field : FIELDS.get(value.getClass())) {
+            bytes += field.getType().isPrimitive() ? 8 : 8 + estimateBytes(read(field, value), depth - 1);
+        }
+        return bytes;
+    }
+
+    /**
+     * Weigh up to {@value #WEIGH_SAMPLE_SIZE} elements and scale to the full size
+     */
+    private static long sampledBytes(Iterable<?> elements, int size, int depth) {
+        if (size == 0) {
+            return 0;
+        }
+        long sampled = 0;
+        int count = 0;
+        for (Object element : elements) {
+            if (count == WEIGH_SAMPLE_SIZE) {
+                break;
+            }
+            sampled += estimateBytes(element, depth);
+            count++;
+        }
+        return count == 0 ? 0 : sampled * size / count;
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * L1 key; cache keys are compared in their string form, as Redis does.
+     */
+    record LocalKey(String cacheName, String key) {
+    }
+}
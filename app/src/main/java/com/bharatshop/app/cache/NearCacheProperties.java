@@ -0,0 +1,26 @@
+package com.bharatshop.app.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Configuration properties for the in-process (L1) tier of the cache
+ */
+@Data
+@ConfigurationProperties(prefix = "app.cache.near")
+public class NearCacheProperties {
+
+    /** Estimated heap bytes kept in memory across all caches */
+    private long maxBytes = 64L * 1024 * 1024;
+
+    /** Number of independently locked LRU segments */
+    private int segments = 16;
+
+    /** Upper bound on how long a node serves an entry without consulting Redis */
+    private Duration localTtl = Duration.ofMinutes(5);
+
+    /** Redis pub/sub channel used to drop L1 entries on other nodes */
+    private String invalidationChannel = "bharatshop:cache:invalidation";
+}
@@ -1,6 +1,14 @@
 package com.bharatshop.app.config;
 
+import com.bharatshop.app.cache.NearCacheInvalidationBus;
+import com.bharatshop.app.cache.NearCacheManager;
+import com.bharatshop.app.cache.NearCacheProperties;
+import com.bharatshop.shared.cache.CacheGenerations;
+import com.bharatshop.shared.cache.TenantScopedCacheManager;
+import com.bharatshop.shared.service.search.ProductSearchIndexService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -9,36 +17,51 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 /**
  * Redis Cache Configuration
- * 
- * This configuration provides caching capabilities with Redis when available,
- * and falls back to in-memory caching when Redis is not available.
+ *
+ * This configuration provides two-tier caching when Redis is available: a
+ * bounded in-process LRU in front of Redis, kept coherent across nodes through
+ * Redis pub/sub. When Redis is not available the bounded in-process tier is
+ * used on its own. Either way the cache is wrapped in
+ * {@link TenantScopedCacheManager} so entries are kept per tenant and can be
+ * invalidated per tenant.
  */
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(NearCacheProperties.class)
 public class CacheConfig {
 
     /**
-     * Redis-based cache manager - only active when Redis is available
+     * Redis-backed two-tier cache manager - only active when Redis is available
      */
     @Bean
     @Primary
     @ConditionalOnProperty(name = "spring.data.redis.host")
-    public CacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory) {
-        return RedisCacheManager
+    public CacheManager redisCacheManager(RedisConnectionFactory redisConnectionFactory,
+                                          NearCacheInvalidationBus nearCacheInvalidationBus,
+                                          NearCacheProperties nearCacheProperties,
+                                          CacheGenerations cacheGenerations,
+                                          MeterRegistry meterRegistry) {
+        RedisCacheManager redisCacheManager = RedisCacheManager
                 .RedisCacheManagerBuilder
                 .fromConnectionFactory(redisConnectionFactory)
                 .cacheDefaults(org.springframework.data.redis.cache.RedisCacheConfiguration.defaultCacheConfig()
                         .entryTtl(Duration.ofMinutes(30))
                         .disableCachingNullValues())
                 .build();
+        NearCacheManager nearCacheManager = new NearCacheManager(
+                redisCacheManager, nearCacheInvalidationBus, nearCacheProperties, meterRegistry);
+        return new TenantScopedCacheManager(nearCacheManager, cacheGenerations);
     }
 
     /**
@@ -46,15 +69,47 @@ public class CacheConfig {
      */
     @Bean
     @ConditionalOnProperty(name = "spring.data.redis.host", havingValue = "false", matchIfMissing = true)
-    public CacheManager inMemoryCacheManager() {
-        return new ConcurrentMapCacheManager(
-                "products", 
-                "categories", 
-                "users", 
-                "plans", 
-                "media",
-                "rate-limits"
-        );
+    public CacheManager inMemoryCacheManager(NearCacheProperties nearCacheProperties,
+                                             CacheGenerations cacheGenerations,
+                                             MeterRegistry meterRegistry) {
+        return new TenantScopedCacheManager(
+                new NearCacheManager(null, null, nearCacheProperties, meterRegistry), cacheGenerations);
+    }
+
+    /**
+     * Publishes and receives L1 invalidations - only when Redis is available
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.data.redis.host")
+    public NearCacheInvalidationBus nearCacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                                             NearCacheProperties nearCacheProperties) {
+        return new NearCacheInvalidationBus(stringRedisTemplate, nearCacheProperties.getInvalidationChannel());
+    }
+
+    /**
+     * Subscribes this node to L1 invalidations, tenant generation bumps and
+     * search index product changes
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.data.redis.host")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory redisConnectionFactory,
+            NearCacheInvalidationBus nearCacheInvalidationBus,
+            CacheGenerations cacheGenerations,
+            ProductSearchIndexService productSearchIndexService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(nearCacheInvalidationBus,
+                new ChannelTopic(nearCacheInvalidationBus.getChannel()));
+        container.addMessageListener(
+                (message, pattern) -> cacheGenerations.onRemoteBump(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CacheGenerations.CHANNEL));
+        container.addMessageListener(
+                (message, pattern) -> productSearchIndexService.onRemoteChange(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(ProductSearchIndexService.CHANNEL));
+        return container;
     }
 
     /**
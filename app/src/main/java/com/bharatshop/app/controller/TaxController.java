@@ -130,6 +130,7 @@ public class TaxController {
                 .build();
             
             TaxRate savedTaxRate = taxRateRepository.save(taxRate);
+            priceCalculationService.refreshTaxRates(savedTaxRate.getTenantId());
             TaxRateDto savedDto = TaxRateDto.fromEntity(savedTaxRate);
             
             return ResponseEntity.status(HttpStatus.CREATED)
@@ -163,6 +164,7 @@ public class TaxController {
             existingTaxRate.setCessRate(taxRateDto.getCessRate());
             
             TaxRate updatedTaxRate = taxRateRepository.save(existingTaxRate);
+            priceCalculationService.refreshTaxRates(tenantId);
             TaxRateDto updatedDto = TaxRateDto.fromEntity(updatedTaxRate);
             
             return ResponseEntity.ok(
@@ -188,6 +190,7 @@ public class TaxController {
             
             taxRate.setStatus(TaxRate.TaxRateStatus.INACTIVE);
             taxRateRepository.save(taxRate);
+            priceCalculationService.refreshTaxRates(tenantId);
             
             return ResponseEntity.ok(
                 ApiResponse.success("Deleted", "Tax rate deleted successfully")
@@ -333,6 +336,10 @@ public class TaxController {
                 }
             }
             
+            if (imported > 0) {
+                priceCalculationService.refreshTaxRates(tenantId);
+            }
+            
             String message = String.format("Bulk import completed. Imported: %d, Skipped: %d", imported, skipped);
             
             return ResponseEntity.ok(
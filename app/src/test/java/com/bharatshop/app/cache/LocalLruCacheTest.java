@@ -0,0 +1,75 @@
+package com.bharatshop.app.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for LocalLruCache
+ * Tests weight-bounded LRU eviction, expiry and bulk removal
+ */
+class LocalLruCacheTest {
+
+    @Test
+    @DisplayName("Should evict least recently used entries when over the weight budget")
+    void shouldEvictLeastRecentlyUsed() {
+        LocalLruCache<String, String> cache = new LocalLruCache<>(3, 1, 60_000, value -> 1);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+
+        cache.get("a");
+        cache.put("d", "D");
+
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isEqualTo("A");
+        assertThat(cache.get("d")).isEqualTo("D");
+        assertThat(cache.evictionCount()).isEqualTo(1);
+        assertThat(cache.weight()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should account for value weight and skip values larger than the budget")
+    void shouldAccountForValueWeight() {
+        LocalLruCache<String, List<Integer>> cache = new LocalLruCache<>(10, 1, 60_000, List::size);
+        cache.put("small", List.of(1, 2, 3));
+        cache.put("huge", List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11));
+        cache.put("medium", List.of(1, 2, 3, 4, 5, 6, 7, 8));
+
+        assertThat(cache.get("huge")).isNull();
+        assertThat(cache.get("small")).isNull();
+        assertThat(cache.get("medium")).hasSize(8);
+        assertThat(cache.weight()).isEqualTo(8);
+    }
+
+    @Test
+    @DisplayName("Should expire entries after their time to live")
+    void shouldExpireEntries() throws InterruptedException {
+        LocalLruCache<String, String> cache = new LocalLruCache<>(10, 1, 1, value -> 1);
+        cache.put("a", "A");
+
+        Thread.sleep(5);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should remove matching entries across segments")
+    void shouldRemoveMatchingEntries() {
+        LocalLruCache<String, String> cache = new LocalLruCache<>(100, 4, 60_000, value -> 1);
+        for (int i = 0; i < 20; i++) {
+            cache.put((i % 2 == 0 ? "even:" : "odd:") + i, "v" + i);
+        }
+
+        cache.removeIf(key -> key.startsWith("odd:"));
+
+        assertThat(cache.size()).isEqualTo(10);
+        assertThat(cache.weight()).isEqualTo(10);
+        assertThat(cache.get("even:4")).isEqualTo("v4");
+        assertThat(cache.get("odd:5")).isNull();
+    }
+}
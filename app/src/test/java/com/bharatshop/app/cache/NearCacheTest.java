@@ -0,0 +1,142 @@
+package com.bharatshop.app.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for NearCache
+ * Tests coalescing of concurrent local-only loads, invalidation broadcasts and value weighing
+ */
+class NearCacheTest {
+
+    private NearCache cache;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        LocalLruCache<NearCacheManager.LocalKey, Object> local = new LocalLruCache<>(100, 1, 60_000, value -> 1);
+        cache = new NearCache("products", null, local, null, new SimpleMeterRegistry());
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should run one loader for concurrent misses on the same key")
+    void shouldCoalesceLoadsOfSameKey() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+
+        Future<String> first = executor.submit(() -> cache.get("p1", () -> {
+            loads.incrementAndGet();
+            loaderStarted.countDown();
+            releaseLoader.await();
+            return "Product 1";
+        }));
+        assertThat(loaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<String> second = executor.submit(() -> cache.get("p1", () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+
+        releaseLoader.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("Product 1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("Product 1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should not hold up loads of other keys while a load is running")
+    void shouldLoadOtherKeysConcurrently() throws Exception {
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+
+        Future<String> slow = executor.submit(() -> cache.get("p1", () -> {
+            loaderStarted.countDown();
+            releaseLoader.await();
+            return "Product 1";
+        }));
+        assertThat(loaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        try {
+            assertThat(cache.get("p2", () -> "Product 2")).isEqualTo("Product 2");
+        } finally {
+            releaseLoader.countDown();
+        }
+        assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("Product 1");
+    }
+
+    @Test
+    @DisplayName("Should not cache a failed load")
+    void shouldRetryAfterFailedLoad() {
+        assertThatThrownBy(() -> cache.get("p1", () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(Cache.ValueRetrievalException.class);
+
+        assertThat(cache.get("p1", () -> "Product 1")).isEqualTo("Product 1");
+    }
+
+    @Test
+    @DisplayName("Should not broadcast an eviction when filling a key that just missed")
+    void shouldNotBroadcastReadThroughFill() {
+        NearCacheInvalidationBus bus = mock(NearCacheInvalidationBus.class);
+        NearCache twoTier = twoTierCache(bus);
+
+        assertThat(twoTier.get("p1")).isNull();
+        twoTier.put("p1", "Product 1");
+
+        assertThat(twoTier.get("p1").get()).isEqualTo("Product 1");
+        verify(bus, never()).publishEvict(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should broadcast an eviction when writing a key")
+    void shouldBroadcastWrite() {
+        NearCacheInvalidationBus bus = mock(NearCacheInvalidationBus.class);
+        NearCache twoTier = twoTierCache(bus);
+        twoTier.put("p1", "Product 1");
+
+        twoTier.put("p1", "Product 1 renamed");
+
+        verify(bus, times(2)).publishEvict("products", "p1");
+    }
+
+    @Test
+    @DisplayName("Should weigh values by their estimated size in bytes")
+    void shouldWeighValuesBySize() {
+        long shortName = NearCacheManager.weigh("Saree");
+        long longName = NearCacheManager.weigh("Saree".repeat(100));
+        long listing = NearCacheManager.weigh(Collections.nCopies(1000, "Saree"));
+
+        assertThat(longName).isGreaterThan(shortName + 900);
+        assertThat(listing).isGreaterThan(1000 * shortName);
+        assertThat(NearCacheManager.weigh(List.of())).isLessThan(shortName * 2);
+    }
+
+    private NearCache twoTierCache(NearCacheInvalidationBus bus) {
+        LocalLruCache<NearCacheManager.LocalKey, Object> local = new LocalLruCache<>(100, 1, 60_000, value -> 1);
+        return new NearCache("products", new ConcurrentMapCache("products"), local, bus, new SimpleMeterRegistry());
+    }
+}
@@ -201,6 +201,25 @@ public class AdminReservationController {
         }
     }
 
+    /**
+     * Reset reserved stock counters to the active reservations
+     */
+    @PostMapping("/reconcile-stock")
+    @Operation(summary = "Reconcile reserved stock", description = "Reset each variant's reserved stock to the sum of its active reservations (all tenants)")
+    public ResponseEntity<String> reconcileReservedStock() {
+        
+        try {
+            int corrected = reservationService.reconcileReservedStock();
+            
+            log.info("Manual reconciliation corrected reserved stock of {} variants", corrected);
+            return ResponseEntity.ok(String.format("Reconciliation completed. Corrected %d variants", corrected));
+            
+        } catch (Exception e) {
+            log.error("Failed to reconcile reserved stock", e);
+            return ResponseEntity.internalServerError().body("Failed to reconcile reserved stock: " + e.getMessage());
+        }
+    }
+
     /**
      * Get available stock for a product variant
      */
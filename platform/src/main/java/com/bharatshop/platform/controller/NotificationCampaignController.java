@@ -0,0 +1,69 @@
+package com.bharatshop.platform.controller;
+
+import com.bharatshop.platform.dto.NotificationCampaignDto;
+import com.bharatshop.platform.shared.ApiResponse;
+import com.bharatshop.shared.service.BulkNotificationService;
+import com.bharatshop.shared.service.BulkNotificationService.BulkNotificationResult;
+import com.bharatshop.shared.service.BulkNotificationService.BulkRecipient;
+import com.bharatshop.shared.tenant.TenantContext;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for notification campaigns such as abandoned-cart reminders and
+ * promotions. Sends go through {@link BulkNotificationService}, which loads
+ * preferences per chunk and uses provider batch APIs.
+ */
+@RestController
+@RequestMapping("/api/platform/notifications/campaigns")
+@RequiredArgsConstructor
+@Tag(name = "Notification Campaigns", description = "APIs for sending one notification event to many customers")
+public class NotificationCampaignController {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationCampaignController.class);
+
+    private final BulkNotificationService bulkNotificationService;
+
+    /**
+     * Send an event to every recipient on each channel they have enabled
+     * POST /api/platform/notifications/campaigns
+     */
+    @PostMapping
+    @Operation(summary = "Send campaign", description = "Send a notification event to many customers and report per-recipient outcomes")
+    public ResponseEntity<ApiResponse<BulkNotificationResult>> sendCampaign(
+            @Parameter(description = "Event type and recipients")
+            @Valid @RequestBody NotificationCampaignDto campaign) {
+
+        try {
+            Long tenantId = TenantContext.requireCurrentTenant();
+            List<BulkRecipient> recipients = campaign.getRecipients().stream()
+                    .map(recipient -> new BulkRecipient(recipient.getCustomerId(),
+                            recipient.getVariables() != null ? recipient.getVariables() : Map.of()))
+                    .toList();
+
+            BulkNotificationResult result = bulkNotificationService.sendBulk(
+                    String.valueOf(tenantId), campaign.getEventType(), recipients);
+            return ResponseEntity.ok(ApiResponse.success(result));
+
+        } catch (IllegalStateException e) {
+            log.warn("Campaign rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Error sending {} campaign", campaign.getEventType(), e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Error sending campaign: " + e.getMessage()));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.bharatshop.platform.controller;
 
 import com.bharatshop.platform.service.ProductImportExportService;
+import com.bharatshop.shared.entity.ProductImportJob;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
@@ -11,12 +12,15 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/platform/products")
@@ -25,26 +29,52 @@ public class ProductImportExportController {
 
     private final ProductImportExportService importExportService;
 
+    /**
+     * Stream all products as CSV, gzipped when gzip=true
+     */
     @GetMapping("/export/csv")
-    public ResponseEntity<Resource> exportProductsToCSV(Authentication authentication) {
-        try {
-            Long tenantId = getTenantIdFromAuth(authentication);
-            byte[] csvData = importExportService.exportProductsToCSVFile(tenantId);
-            
-            String filename = "products_export_" + 
-                    LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv";
-            
-            ByteArrayResource resource = new ByteArrayResource(csvData);
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .contentType(MediaType.parseMediaType("text/csv"))
-                    .contentLength(csvData.length)
-                    .body(resource);
-                    
-        } catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<StreamingResponseBody> exportProductsToCSV(
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication) {
+        return export(ProductImportExportService.ExportFormat.CSV, "csv", MediaType.parseMediaType("text/csv"),
+                gzip, authentication);
+    }
+
+    /**
+     * Stream all products with their variants and option values as
+     * newline-delimited JSON, gzipped when gzip=true
+     */
+    @GetMapping("/export/ndjson")
+    public ResponseEntity<StreamingResponseBody> exportProductsToNDJSON(
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication) {
+        return export(ProductImportExportService.ExportFormat.NDJSON, "ndjson",
+                MediaType.parseMediaType("application/x-ndjson"), gzip, authentication);
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(ProductImportExportService.ExportFormat format,
+                                                         String extension, MediaType mediaType, boolean gzip,
+                                                         Authentication authentication) {
+        Long tenantId = getTenantIdFromAuth(authentication);
+        String filename = "products_export_" + 
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + "." + extension +
+                (gzip ? ".gz" : "");
+        
+        // Written to the response as products are read, after this method returns
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                importExportService.exportProducts(tenantId, format, gzipOut);
+                gzipOut.finish();
+            } else {
+                importExportService.exportProducts(tenantId, format, out);
+            }
+        };
+        
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : mediaType)
+                .body(body);
     }
 
     @PostMapping("/import/csv")
@@ -93,6 +123,50 @@ public class ProductImportExportController {
         }
     }
 
+    /**
+     * Import a large CSV file in the background; poll the returned job for progress
+     */
+    @PostMapping("/import/csv/jobs")
+    public ResponseEntity<Map<String, Object>> startImportJob(
+            @RequestParam("file") MultipartFile file,
+            Authentication authentication) {
+        
+        try {
+            if (file.isEmpty()) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "File is empty");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            }
+            
+            if (!isCSVFile(file)) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "File must be a CSV file");
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+            }
+            
+            Long tenantId = getTenantIdFromAuth(authentication);
+            ProductImportJob job = importExportService.startImportJob(file, tenantId);
+            
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(importJobToMap(job));
+            
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Error starting import: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    @GetMapping("/import/csv/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getImportJob(
+            @PathVariable Long jobId,
+            Authentication authentication) {
+        
+        Long tenantId = getTenantIdFromAuth(authentication);
+        return importExportService.getImportJob(jobId, tenantId)
+                .map(job -> ResponseEntity.ok(importJobToMap(job)))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/import/csv/content")
     public ResponseEntity<Map<String, Object>> importProductsFromCSVContent(
             @RequestBody Map<String, String> request,
@@ -215,16 +289,32 @@ public class ProductImportExportController {
                (filename != null && filename.toLowerCase().endsWith(".csv"));
     }
 
+    private Map<String, Object> importJobToMap(ProductImportJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", job.getId());
+        response.put("status", job.getStatus());
+        response.put("filename", job.getFilename());
+        response.put("fileSize", job.getFileSize());
+        response.put("rowsProcessed", job.getRowsProcessed());
+        response.put("successCount", job.getSuccessCount());
+        response.put("errorCount", job.getErrorCount());
+        response.put("errors", job.getErrors() != null ? job.getErrors().lines().toList() : List.of());
+        response.put("failureReason", job.getFailureReason());
+        response.put("startedAt", job.getStartedAt());
+        response.put("completedAt", job.getCompletedAt());
+        return response;
+    }
+
     private Map<String, Object> getImportInstructions() {
         Map<String, Object> instructions = new HashMap<>();
         
         instructions.put("format", "CSV (Comma Separated Values)");
         instructions.put("encoding", "UTF-8");
-        instructions.put("maxFileSize", "10MB");
+        instructions.put("maxFileSize", "10MB; use /import/csv/jobs for larger files");
         
         Map<String, String> columns = new HashMap<>();
         columns.put("name", "Product name (required)");
-        columns.put("slug", "URL-friendly identifier (required, unique)");
+        columns.put("slug", "URL-friendly identifier (optional, generated from the name when empty)");
         columns.put("description", "Product description (optional)");
         columns.put("price", "Product price in decimal format (optional)");
         columns.put("stock", "Stock quantity as integer (optional)");
@@ -237,7 +327,7 @@ public class ProductImportExportController {
         notes.put("quotes", "Use double quotes for values containing commas or quotes");
         notes.put("escaping", "Escape quotes within quoted values by doubling them");
         notes.put("attributes", "Attributes should be valid JSON format");
-        notes.put("duplicates", "Products with duplicate slugs will be rejected");
+        notes.put("duplicates", "Slugs and SKUs already in use get a numeric suffix");
         
         instructions.put("notes", notes);
         
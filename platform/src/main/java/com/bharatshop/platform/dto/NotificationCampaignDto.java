@@ -0,0 +1,43 @@
+package com.bharatshop.platform.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "DTO for sending one notification event to many customers")
+public class NotificationCampaignDto {
+
+    @NotBlank(message = "Event type is required")
+    @Schema(description = "Notification event type whose templates are used", example = "AbandonedCart")
+    private String eventType;
+
+    @NotEmpty(message = "At least one recipient is required")
+    @Valid
+    @Schema(description = "Customers to notify, each with the variables for their message")
+    private List<Recipient> recipients;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Recipient {
+
+        @NotBlank(message = "Customer ID is required")
+        @Schema(description = "Customer ID", example = "c-1024")
+        private String customerId;
+
+        @Schema(description = "Template variables for this customer")
+        private Map<String, Object> variables;
+    }
+}
@@ -4,6 +4,7 @@ import com.bharatshop.shared.entity.Category;
 import com.bharatshop.shared.repository.CategoryRepository;
 import com.bharatshop.shared.service.CacheService;
 import com.bharatshop.shared.service.FeatureFlagService;
+import com.bharatshop.shared.service.search.AutocompleteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -27,6 +28,7 @@ public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final FeatureFlagService featureFlagService;
     private final CacheService cacheService;
+    private final AutocompleteService autocompleteService;
 
     public List<Category> getAllCategoriesByTenant(Long tenantId) {
         return categoryRepository.findByTenantIdAndDeletedAtIsNullOrderBySortOrderAsc(tenantId);
@@ -89,6 +91,7 @@ public class CategoryService {
         log.info("Creating category: {} for tenant: {}", category.getName(), tenantId);
         Category savedCategory = categoryRepository.save(category);
         cacheService.invalidateCategoryCaches();
+        autocompleteService.onCategorySaved(savedCategory);
         return savedCategory;
     }
 
@@ -134,6 +137,7 @@ public class CategoryService {
         log.info("Updating category: {} for tenant: {}", existingCategory.getName(), tenantId);
         Category updatedCategory = categoryRepository.save(existingCategory);
         cacheService.invalidateCategoryCaches();
+        autocompleteService.onCategorySaved(updatedCategory);
         return updatedCategory;
     }
 
@@ -153,6 +157,7 @@ public class CategoryService {
         log.info("Deleting category: {} for tenant: {}", category.getName(), tenantId);
         categoryRepository.save(category);
         cacheService.invalidateCategoryCaches();
+        autocompleteService.onCategoryDeleted(tenantId, id);
     }
 
     public Category updateCategoryStatus(Long id, Boolean isActive, Long tenantId) {
@@ -165,6 +170,7 @@ public class CategoryService {
         log.info("Updating category status: {} to {} for tenant: {}", category.getName(), isActive, tenantId);
         Category updatedCategory = categoryRepository.save(category);
         cacheService.invalidateCategoryCaches();
+        autocompleteService.onCategorySaved(updatedCategory);
         return updatedCategory;
     }
 
@@ -6,6 +6,8 @@ import com.bharatshop.shared.entity.ProductVariant;
 import com.bharatshop.shared.repository.ProductRepository;
 import com.bharatshop.shared.service.FeatureFlagService;
 import com.bharatshop.shared.service.CacheService;
+import com.bharatshop.shared.service.search.AutocompleteService;
+import com.bharatshop.shared.service.search.ProductSearchIndexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -29,6 +31,8 @@ public class PlatformProductService {
     private final FeatureFlagService featureFlagService;
     private final ProductVariantService productVariantService;
     private final CacheService cacheService;
+    private final ProductSearchIndexService productSearchIndexService;
+    private final AutocompleteService autocompleteService;
 
     public List<Product> getAllProductsByTenant(Long tenantId) {
         return productRepository.findByTenantIdAndDeletedAtIsNull(tenantId);
@@ -95,12 +99,16 @@ public class PlatformProductService {
             createDefaultVariant(savedProduct, tenantId);
         }
         
+        productSearchIndexService.onProductSaved(savedProduct);
+        autocompleteService.onProductSaved(savedProduct);
+        
         return savedProduct;
     }
 
     public Product updateProduct(Long id, Product productUpdates, Long tenantId) {
         Product existingProduct = productRepository.findByIdAndTenantIdAndDeletedAtIsNull(id, tenantId)
                 .orElseThrow(() -> new RuntimeException("Product not found with id: " + id));
+        String previousSlug = existingProduct.getSlug();
 
         validateProduct(productUpdates);
         
@@ -146,8 +154,10 @@ public class PlatformProductService {
         log.info("Updating product: {} for tenant: {}", existingProduct.getName(), tenantId);
         Product updatedProduct = productRepository.save(existingProduct);
         
-        // Invalidate product caches
-        cacheService.invalidateProductCaches();
+        // Invalidate this product's caches
+        cacheService.invalidateProduct(id, previousSlug, updatedProduct.getSlug());
+        productSearchIndexService.onProductSaved(updatedProduct);
+        autocompleteService.onProductSaved(updatedProduct);
         
         return updatedProduct;
     }
@@ -165,8 +175,10 @@ public class PlatformProductService {
         log.info("Deleting product: {} for tenant: {}", product.getName(), tenantId);
         productRepository.save(product);
         
-        // Invalidate product caches
-        cacheService.invalidateProductCaches();
+        // Invalidate this product's caches
+        cacheService.invalidateProduct(id, product.getSlug());
+        productSearchIndexService.onProductDeleted(tenantId, id);
+        autocompleteService.onProductDeleted(tenantId, id);
     }
 
     public Product updateProductStatus(Long id, Product.ProductStatus status, Long tenantId) {
@@ -177,7 +189,11 @@ public class PlatformProductService {
         product.setUpdatedAt(LocalDateTime.now());
         
         log.info("Updating product status: {} to {} for tenant: {}", product.getName(), status, tenantId);
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        cacheService.invalidateProduct(id, savedProduct.getSlug());
+        productSearchIndexService.onProductSaved(savedProduct);
+        autocompleteService.onProductSaved(savedProduct);
+        return savedProduct;
     }
 
     public long getProductCount(Long tenantId) {
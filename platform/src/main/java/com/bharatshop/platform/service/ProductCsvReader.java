@@ -0,0 +1,151 @@
+package com.bharatshop.platform.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming CSV record reader for product imports.
+ *
+ * Reads one record at a time, so memory use does not grow with the file.
+ * A quote toggles quoted mode and a doubled quote inside quotes is a literal
+ * quote, as before; quoted values may now also span lines. Blank records are
+ * skipped.
+ */
+final class ProductCsvReader implements Closeable {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private boolean started;
+
+    ProductCsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * A CSV record and the line it starts on
+     */
+    record Record(int lineNumber, String[] values) {
+    }
+
+    /**
+     * Next non-blank record, or null at the end of the input
+     */
+    Record next() throws IOException {
+        while (true) {
+            if (!started) {
+                started = true;
+                // Spreadsheet exports often start with a byte order mark
+                if (peek() == '\uFEFF') {
+                    position++;
+                }
+            }
+            if (peek() == EOF) {
+                return null;
+            }
+            int startLine = line;
+            String[] values = readValues();
+            if (!isBlank(values)) {
+                return new Record(startLine, values);
+            }
+        }
+    }
+
+    /**
+     * Read up to size records; fewer only at the end of the input
+     */
+    List<Record> next(int size) throws IOException {
+        List<Record> records = new ArrayList<>(size);
+        Record record;
+        while (records.size() < size && (record = next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * Skip records, e.g. those a resumed import already wrote; returns how many were skipped
+     */
+    int skip(int count) throws IOException {
+        int skipped = 0;
+        while (skipped < count && next() != null) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    private String[] readValues() throws IOException {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean inQuotes = false;
+
+        while (true) {
+            int c = read();
+            if (c == EOF) {
+                break;
+            }
+            if (c == '"') {
+                if (inQuotes && peek() == '"') {
+                    // Escaped quote
+                    value.append('"');
+                    position++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == ',' && !inQuotes) {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if ((c == '\n' || c == '\r') && !inQuotes) {
+                if (c == '\r' && peek() == '\n') {
+                    position++;
+                }
+                line++;
+                break;
+            } else {
+                if (c == '\n') {
+                    line++;
+                }
+                value.append((char) c);
+            }
+        }
+
+        values.add(value.toString());
+        return values.toArray(new String[0]);
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != EOF) {
+            position++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position];
+    }
+
+    private static boolean isBlank(String[] values) {
+        return values.length == 1 && values[0].trim().isEmpty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,21 +1,48 @@
 package com.bharatshop.platform.service;
 
 import com.bharatshop.shared.entity.Product;
+import com.bharatshop.shared.entity.ProductImportJob;
+import com.bharatshop.shared.entity.ProductVariant;
+import com.bharatshop.shared.entity.ProductVariantOptionValue;
+import com.bharatshop.shared.repository.OptionRepository;
+import com.bharatshop.shared.repository.OptionValueRepository;
+import com.bharatshop.shared.repository.ProductImportJobRepository;
 import com.bharatshop.shared.repository.ProductRepository;
-import com.bharatshop.platform.service.PlatformProductService;
+import com.bharatshop.shared.repository.ProductVariantOptionValueRepository;
+import com.bharatshop.shared.repository.ProductVariantRepository;
+import com.bharatshop.shared.tenant.TenantContext;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,72 +51,195 @@ import java.util.stream.Collectors;
 public class ProductImportExportService {
 
     private final ProductRepository productRepository;
-    private final PlatformProductService platformProductService;
+    private final ProductVariantRepository productVariantRepository;
+    private final ProductVariantOptionValueRepository productVariantOptionValueRepository;
+    private final OptionRepository optionRepository;
+    private final OptionValueRepository optionValueRepository;
+    private final ProductImportWriter productImportWriter;
+    private final ProductImportJobRepository productImportJobRepository;
     private final ObjectMapper objectMapper;
 
+    @Value("${app.export.page-size:500}")
+    private int exportPageSize;
+
+    @Value("${app.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.import.dir:uploads/imports}")
+    private String importDir;
+
+    @Value("${app.import.node-id:${HOSTNAME:local}}")
+    private String importNodeId;
+
+    @Value("${app.import.job-threads:2}")
+    private int jobThreads;
+
+    @Value("${app.import.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.import.lease:PT5M}")
+    private Duration importLease;
+
+    private ExecutorService importJobExecutor;
+
     private static final String CSV_HEADER = "name,slug,description,price,stock,status,attributes";
     private static final String CSV_SEPARATOR = ",";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     /**
-     * Export products to CSV format
+     * Export formats: CSV with one row per product, or NDJSON with one
+     * product per line including its variants and their option values
      */
-    public String exportProductsToCSV(Long tenantId) {
-        List<Product> products = productRepository.findByTenantIdAndDeletedAtIsNull(tenantId);
+    public enum ExportFormat {
+        CSV,
+        NDJSON
+    }
+
+    /**
+     * Stream the tenant's products to the output a page at a time, paging by
+     * id so each query starts where the last one stopped. Memory use depends
+     * on the page size, not the catalog size. The output is flushed but not
+     * closed.
+     */
+    public void exportProducts(Long tenantId, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        
+        Map<Long, String> optionNames = new HashMap<>();
+        Map<Long, String> optionValues = new HashMap<>();
+        long afterId = 0L;
+        int exported = 0;
+        List<Product> page;
+        do {
+            page = productRepository.findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(
+                    tenantId, afterId, PageRequest.of(0, exportPageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            
+            if (format == ExportFormat.CSV) {
+                for (Product product : page) {
+                    writer.write(productToCsvRow(product));
+                    writer.write('\n');
+                }
+            } else {
+                writeNdjsonPage(page, tenantId, writer, optionNames, optionValues);
+            }
+            // Send each page on to the client rather than holding it in buffers
+            writer.flush();
+            
+            exported += page.size();
+            afterId = page.get(page.size() - 1).getId();
+        } while (page.size() == exportPageSize);
         
-        StringBuilder csvContent = new StringBuilder();
-        csvContent.append(CSV_HEADER).append("\n");
+        writer.flush();
+        log.info("Exported {} products for tenant {} as {}", exported, tenantId, format);
+    }
+
+    private void writeNdjsonPage(List<Product> products, Long tenantId, Writer writer,
+                                 Map<Long, String> optionNames, Map<Long, String> optionValues) throws IOException {
+        List<Long> productIds = products.stream().map(Product::getId).toList();
+        Map<Long, List<ProductVariant>> variantsByProduct = productVariantRepository
+                .findActiveByProductIds(productIds, tenantId).stream()
+                .collect(Collectors.groupingBy(ProductVariant::getProductId));
+        
+        List<Long> variantIds = variantsByProduct.values().stream()
+                .flatMap(List::stream)
+                .map(ProductVariant::getId)
+                .toList();
+        Map<Long, List<ProductVariantOptionValue>> optionsByVariant = variantIds.isEmpty() ? Map.of()
+                : productVariantOptionValueRepository.findByVariantIds(variantIds, tenantId).stream()
+                        .collect(Collectors.groupingBy(ProductVariantOptionValue::getVariantId));
+        resolveOptionNames(optionsByVariant, optionNames, optionValues);
         
         for (Product product : products) {
-            csvContent.append(productToCsvRow(product)).append("\n");
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("id", product.getId());
+            node.put("name", product.getName());
+            node.put("slug", product.getSlug());
+            node.put("description", product.getDescription());
+            node.put("price", product.getPrice());
+            node.put("stock", product.getStock());
+            node.put("status", product.getStatus() != null ? product.getStatus().name() : null);
+            node.set("attributes", parseJson(product.getAttributes(), product.getId()));
+            
+            ArrayNode variants = node.putArray("variants");
+            for (ProductVariant variant : variantsByProduct.getOrDefault(product.getId(), List.of())) {
+                ObjectNode variantNode = variants.addObject();
+                variantNode.put("id", variant.getId());
+                variantNode.put("sku", variant.getSku());
+                variantNode.put("barcode", variant.getBarcode());
+                variantNode.put("price", variant.getPrice());
+                variantNode.put("salePrice", variant.getSalePrice());
+                variantNode.put("stock", variant.getStock());
+                variantNode.put("isDefault", variant.getIsDefault());
+                variantNode.put("status", variant.getStatus() != null ? variant.getStatus().name() : null);
+                variantNode.set("attributes", parseJson(variant.getAttributes(), product.getId()));
+                
+                ObjectNode options = variantNode.putObject("options");
+                for (ProductVariantOptionValue optionValue : optionsByVariant.getOrDefault(variant.getId(), List.of())) {
+                    options.put(optionNames.get(optionValue.getOptionId()), optionValues.get(optionValue.getOptionValueId()));
+                }
+            }
+            
+            writer.write(objectMapper.writeValueAsString(node));
+            writer.write('\n');
         }
-        
-        return csvContent.toString();
     }
 
     /**
-     * Export products to CSV file as byte array
+     * Load names for options and values not seen on earlier pages; a tenant has few of them
      */
-    public byte[] exportProductsToCSVFile(Long tenantId) {
-        String csvContent = exportProductsToCSV(tenantId);
-        return csvContent.getBytes(StandardCharsets.UTF_8);
+    private void resolveOptionNames(Map<Long, List<ProductVariantOptionValue>> optionsByVariant,
+                                    Map<Long, String> optionNames, Map<Long, String> optionValues) {
+        Set<Long> missingOptions = new HashSet<>();
+        Set<Long> missingValues = new HashSet<>();
+        for (List<ProductVariantOptionValue> values : optionsByVariant.values()) {
+            for (ProductVariantOptionValue value : values) {
+                if (!optionNames.containsKey(value.getOptionId())) {
+                    missingOptions.add(value.getOptionId());
+                }
+                if (!optionValues.containsKey(value.getOptionValueId())) {
+                    missingValues.add(value.getOptionValueId());
+                }
+            }
+        }
+        if (!missingOptions.isEmpty()) {
+            optionRepository.findAllById(missingOptions)
+                    .forEach(option -> optionNames.put(option.getId(), option.getName()));
+            missingOptions.forEach(id -> optionNames.putIfAbsent(id, String.valueOf(id)));
+        }
+        if (!missingValues.isEmpty()) {
+            optionValueRepository.findAllById(missingValues)
+                    .forEach(value -> optionValues.put(value.getId(), value.getValue()));
+            missingValues.forEach(id -> optionValues.putIfAbsent(id, null));
+        }
+    }
+
+    private JsonNode parseJson(String json, Long productId) {
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            log.warn("Exporting unparseable attributes of product {} as text", productId);
+            return TextNode.valueOf(json);
+        }
     }
 
     /**
-     * Import products from CSV file
+     * Import products from CSV file, streaming it in chunks
      */
     public ImportResult importProductsFromCSV(MultipartFile file, Long tenantId) {
         ImportResult result = new ImportResult();
         
-        try (BufferedReader reader = new BufferedReader(
+        try (ProductCsvReader reader = new ProductCsvReader(
                 new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            
-            String headerLine = reader.readLine();
-            if (headerLine == null || !isValidHeader(headerLine)) {
-                result.addError("Invalid CSV header. Expected: " + CSV_HEADER);
-                return result;
-            }
-            
-            String line;
-            int lineNumber = 1;
-            
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                
-                if (line.trim().isEmpty()) {
-                    continue;
-                }
-                
-                try {
-                    Product product = csvRowToProduct(line, tenantId);
-                    Product savedProduct = platformProductService.createProduct(product, tenantId);
-                    result.addSuccess(savedProduct.getName());
-                } catch (Exception e) {
-                    result.addError("Line " + lineNumber + ": " + e.getMessage());
-                    log.error("Error importing product at line {}: {}", lineNumber, e.getMessage());
-                }
-            }
-            
+            importRecords(reader, tenantId, result);
         } catch (IOException e) {
             result.addError("Error reading CSV file: " + e.getMessage());
             log.error("Error reading CSV file", e);
@@ -104,31 +254,171 @@ public class ProductImportExportService {
     public ImportResult importProductsFromCSVContent(String csvContent, Long tenantId) {
         ImportResult result = new ImportResult();
         
-        String[] lines = csvContent.split("\n");
+        try (ProductCsvReader reader = new ProductCsvReader(new StringReader(csvContent))) {
+            importRecords(reader, tenantId, result);
+        } catch (IOException e) {
+            result.addError("Error reading CSV content: " + e.getMessage());
+            log.error("Error reading CSV content", e);
+        }
         
-        if (lines.length == 0 || !isValidHeader(lines[0])) {
-            result.addError("Invalid CSV header. Expected: " + CSV_HEADER);
-            return result;
+        return result;
+    }
+
+    /**
+     * Start importing a CSV file in the background. The upload is spooled to
+     * this node's disk and imported chunk by chunk; poll the returned job for
+     * progress. The job stays with this node, which resumes it after a restart.
+     */
+    public ProductImportJob startImportJob(MultipartFile file, Long tenantId) throws IOException {
+        Path directory = Paths.get(importDir);
+        Files.createDirectories(directory);
+        Path spooled = directory.resolve(UUID.randomUUID() + ".csv");
+        try (InputStream in = file.getInputStream()) {
+            Files.copy(in, spooled);
+        }
+        
+        ProductImportJob job = productImportJobRepository.save(ProductImportJob.builder()
+                .tenantId(tenantId)
+                .filename(file.getOriginalFilename())
+                .filePath(spooled.toAbsolutePath().toString())
+                .fileSize(file.getSize())
+                .ownerNode(importNodeId)
+                .status(ProductImportJob.ImportStatus.QUEUED)
+                .rowsProcessed(0)
+                .successCount(0)
+                .errorCount(0)
+                .leaseUntil(LocalDateTime.now())
+                .build());
+        
+        log.info("Queued product import job {} for tenant {} ({} bytes)", job.getId(), tenantId, file.getSize());
+        submitImportJob(job.getId());
+        return job;
+    }
+
+    public Optional<ProductImportJob> getImportJob(Long jobId, Long tenantId) {
+        return productImportJobRepository.findByIdAndTenantId(jobId, tenantId);
+    }
+
+    /**
+     * Pick up this node's queued jobs the executor had no room for, and resume
+     * its jobs whose worker stopped (e.g. a restart) from their last committed chunk
+     */
+    @Scheduled(fixedDelayString = "${app.import.resume-interval-ms:60000}")
+    public void resumeImportJobs() {
+        for (Long jobId : productImportJobRepository.findClaimableJobIds(importNodeId, LocalDateTime.now())) {
+            submitImportJob(jobId);
+        }
+    }
+
+    private void submitImportJob(Long jobId) {
+        try {
+            importJobExecutor.execute(() -> runImportJob(jobId));
+        } catch (RejectedExecutionException e) {
+            log.info("Import queue is full, job {} will be picked up later", jobId);
+        }
+    }
+
+    void runImportJob(Long jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        // Only one worker of the owning node may run a job; the others find it claimed
+        if (productImportJobRepository.claim(jobId, importNodeId, now, now.plus(importLease)) == 0) {
+            return;
+        }
+        ProductImportJob job = productImportJobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return;
+        }
+        if (job.getStartedAt() == null) {
+            job.setStartedAt(now);
         }
         
-        for (int i = 1; i < lines.length; i++) {
-            String line = lines[i].trim();
+        TenantContext.setCurrentTenant(job.getTenantId());
+        try (ProductCsvReader reader = new ProductCsvReader(
+                Files.newBufferedReader(Paths.get(job.getFilePath()), StandardCharsets.UTF_8))) {
+            if (!readHeader(reader)) {
+                finishImportJob(job, ProductImportJob.ImportStatus.FAILED, "Invalid CSV header. Expected: " + CSV_HEADER);
+                return;
+            }
+            if (job.getRowsProcessed() > 0) {
+                reader.skip(job.getRowsProcessed());
+                log.info("Resuming product import job {} after {} rows", jobId, job.getRowsProcessed());
+            }
             
-            if (line.isEmpty()) {
-                continue;
+            ProductImportWriter.UniqueKeys uniqueKeys = productImportWriter.uniqueKeys(job.getTenantId());
+            List<ProductCsvReader.Record> records;
+            while (!(records = reader.next(chunkSize)).isEmpty()) {
+                job.setLeaseUntil(LocalDateTime.now().plus(importLease));
+                productImportWriter.writeChunk(job.getTenantId(), toRows(records, job.getTenantId()), uniqueKeys, job);
             }
+            finishImportJob(job, ProductImportJob.ImportStatus.COMPLETED, null);
             
+        } catch (Exception e) {
+            if (importJobExecutor.isShutdown()) {
+                // Left RUNNING; this node resumes it after restarting, once the lease runs out
+                log.info("Product import job {} interrupted by shutdown after {} rows", jobId, job.getRowsProcessed());
+                return;
+            }
+            log.error("Product import job {} failed after {} rows", jobId, job.getRowsProcessed(), e);
+            finishImportJob(job, ProductImportJob.ImportStatus.FAILED, e.getMessage());
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    private void finishImportJob(ProductImportJob job, ProductImportJob.ImportStatus status, String failureReason) {
+        job.setStatus(status);
+        job.setFailureReason(failureReason);
+        job.setCompletedAt(LocalDateTime.now());
+        productImportJobRepository.save(job);
+        
+        try {
+            Files.deleteIfExists(Paths.get(job.getFilePath()));
+        } catch (IOException e) {
+            log.warn("Failed to delete spooled import file {}: {}", job.getFilePath(), e.getMessage());
+        }
+        log.info("Product import job {} {}: {} imported, {} errors", job.getId(), status,
+                job.getSuccessCount(), job.getErrorCount());
+    }
+
+    private void importRecords(ProductCsvReader reader, Long tenantId, ImportResult result) throws IOException {
+        if (!readHeader(reader)) {
+            result.addError("Invalid CSV header. Expected: " + CSV_HEADER);
+            return;
+        }
+        
+        ProductImportWriter.UniqueKeys uniqueKeys = productImportWriter.uniqueKeys(tenantId);
+        List<ProductCsvReader.Record> records;
+        while (!(records = reader.next(chunkSize)).isEmpty()) {
             try {
-                Product product = csvRowToProduct(line, tenantId);
-                Product savedProduct = platformProductService.createProduct(product, tenantId);
-                result.addSuccess(savedProduct.getName());
+                ProductImportWriter.ChunkResult chunk =
+                        productImportWriter.writeChunk(tenantId, toRows(records, tenantId), uniqueKeys, null);
+                chunk.successfulImports().forEach(result::addSuccess);
+                chunk.errors().forEach(result::addError);
             } catch (Exception e) {
-                result.addError("Line " + (i + 1) + ": " + e.getMessage());
-                log.error("Error importing product at line {}: {}", i + 1, e.getMessage());
+                // The chunk's transaction rolled back; later chunks are still imported
+                int firstLine = records.get(0).lineNumber();
+                int lastLine = records.get(records.size() - 1).lineNumber();
+                result.addError("Lines " + firstLine + "-" + lastLine + ": " + e.getMessage());
+                log.error("Error importing products at lines {}-{}: {}", firstLine, lastLine, e.getMessage());
             }
         }
-        
-        return result;
+    }
+
+    private boolean readHeader(ProductCsvReader reader) throws IOException {
+        ProductCsvReader.Record header = reader.next();
+        return header != null && isValidHeader(String.join(CSV_SEPARATOR, header.values()));
+    }
+
+    private List<ProductImportWriter.Row> toRows(List<ProductCsvReader.Record> records, Long tenantId) {
+        List<ProductImportWriter.Row> rows = new ArrayList<>(records.size());
+        for (ProductCsvReader.Record record : records) {
+            try {
+                rows.add(new ProductImportWriter.Row(record.lineNumber(), csvRowToProduct(record.values(), tenantId), null));
+            } catch (IllegalArgumentException e) {
+                rows.add(new ProductImportWriter.Row(record.lineNumber(), null, e.getMessage()));
+            }
+        }
+        return rows;
     }
 
     /**
@@ -167,9 +457,7 @@ public class ProductImportExportService {
         return row.toString();
     }
 
-    private Product csvRowToProduct(String csvRow, Long tenantId) {
-        String[] values = parseCsvRow(csvRow);
-        
+    private Product csvRowToProduct(String[] values, Long tenantId) {
         if (values.length < 7) {
             throw new IllegalArgumentException("Invalid CSV row format. Expected 7 columns, got " + values.length);
         }
@@ -224,34 +512,6 @@ public class ProductImportExportService {
         return product;
     }
 
-    private String[] parseCsvRow(String csvRow) {
-        List<String> values = new ArrayList<>();
-        StringBuilder currentValue = new StringBuilder();
-        boolean inQuotes = false;
-        
-        for (int i = 0; i < csvRow.length(); i++) {
-            char c = csvRow.charAt(i);
-            
-            if (c == '"') {
-                if (inQuotes && i + 1 < csvRow.length() && csvRow.charAt(i + 1) == '"') {
-                    // Escaped quote
-                    currentValue.append('"');
-                    i++; // Skip next quote
-                } else {
-                    inQuotes = !inQuotes;
-                }
-            } else if (c == ',' && !inQuotes) {
-                values.add(currentValue.toString());
-                currentValue = new StringBuilder();
-            } else {
-                currentValue.append(c);
-            }
-        }
-        
-        values.add(currentValue.toString());
-        return values.toArray(new String[0]);
-    }
-
     private String escapeCsvValue(String value) {
         if (value == null) {
             return "";
@@ -268,6 +528,25 @@ public class ProductImportExportService {
         return CSV_HEADER.equals(header.trim());
     }
 
+    @PostConstruct
+    void startImportJobExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        importJobExecutor = new ThreadPoolExecutor(jobThreads, jobThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "product-import-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs resume from their last committed chunk
+        importJobExecutor.shutdownNow();
+    }
+
     /**
      * Result class for import operations
      */
@@ -0,0 +1,287 @@
+package com.bharatshop.platform.service;
+
+import com.bharatshop.shared.entity.Product;
+import com.bharatshop.shared.entity.ProductImportJob;
+import com.bharatshop.shared.repository.ProductImportJobRepository;
+import com.bharatshop.shared.repository.ProductRepository;
+import com.bharatshop.shared.repository.ProductVariantRepository;
+import com.bharatshop.shared.service.CacheService;
+import com.bharatshop.shared.service.FeatureFlagService;
+import com.bharatshop.shared.service.search.AutocompleteService;
+import com.bharatshop.shared.service.search.ProductSearchIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes one chunk of imported products per transaction.
+ *
+ * Validation, the plan limit check and slug and SKU resolution are done for
+ * the whole chunk, then products and their default variants are inserted with
+ * JDBC batches. Products use IDENTITY ids, which keeps Hibernate from batching
+ * their inserts. The search index and autocomplete are updated once the chunk
+ * has committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportWriter {
+
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (tenant_id, name, slug, description, price, stock, attributes, status, " +
+            "tax_preference, is_tax_inclusive, featured_in_sitemap, sitemap_priority, sitemap_change_frequency, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_VARIANT_SQL =
+            "INSERT INTO product_variants (tenant_id, product_id, sku, price, stock, reserved_stock, is_default, " +
+            "status, sort_order, created_at, updated_at) VALUES (?, ?, ?, ?, ?, 0, TRUE, 'ACTIVE', 0, ?, ?)";
+
+    private static final int MAX_SLUG_BASE_LENGTH = 240;
+    private static final int MAX_SKU_BASE_LENGTH = 20;
+    private static final int MAX_JOB_ERRORS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final ProductImportJobRepository productImportJobRepository;
+    private final FeatureFlagService featureFlagService;
+    private final CacheService cacheService;
+    private final ProductSearchIndexService productSearchIndexService;
+    private final AutocompleteService autocompleteService;
+
+    /**
+     * A CSV data row, parsed into a product or failed with an error
+     */
+    public record Row(int lineNumber, Product product, String error) {
+    }
+
+    /**
+     * Names of the products created and errors of the rows skipped
+     */
+    public record ChunkResult(List<String> successfulImports, List<String> errors) {
+    }
+
+    /**
+     * Allocators keeping slugs and SKUs unique across the chunks of one import
+     */
+    public UniqueKeys uniqueKeys(Long tenantId) {
+        return new UniqueKeys(
+                new UniqueKeyAllocator(productRepository::findExistingSlugs),
+                new UniqueKeyAllocator(skus -> productVariantRepository.findExistingSkus(tenantId, skus)));
+    }
+
+    public record UniqueKeys(UniqueKeyAllocator slugs, UniqueKeyAllocator skus) {
+    }
+
+    /**
+     * Insert a chunk of rows in one transaction. When a job is given, its
+     * progress is saved in the same transaction, so a resumed job continues
+     * after the last chunk committed.
+     */
+    @Transactional
+    public ChunkResult writeChunk(Long tenantId, List<Row> rows, UniqueKeys uniqueKeys, ProductImportJob job) {
+        List<String> errors = new ArrayList<>();
+        List<Product> products = new ArrayList<>(rows.size());
+
+        // The plan limit is checked once for the chunk instead of once per row
+        int maxProducts = featureFlagService.getFeatureLimit(tenantId, "maxProducts");
+        long available = maxProducts - productRepository.countByTenantId(tenantId);
+
+        for (Row row : rows) {
+            String error = row.error() != null ? row.error() : validate(row.product());
+            if (error == null && products.size() >= available) {
+                error = "Product limit exceeded. Current plan allows maximum " + maxProducts + " products.";
+            }
+            if (error != null) {
+                errors.add("Line " + row.lineNumber() + ": " + error);
+            } else {
+                products.add(row.product());
+            }
+        }
+
+        if (!products.isEmpty()) {
+            insertProducts(tenantId, products, uniqueKeys);
+            cacheService.invalidateProductCaches();
+        }
+
+        List<String> successfulImports = products.stream().map(Product::getName).toList();
+        if (job != null) {
+            checkpoint(job, rows.size(), successfulImports.size(), errors);
+        }
+        log.info("Imported {} products for tenant {} ({} rows skipped)", products.size(), tenantId, errors.size());
+        return new ChunkResult(successfulImports, errors);
+    }
+
+    private String validate(Product product) {
+        if (!StringUtils.hasText(product.getName())) {
+            return "Product name is required";
+        }
+        if (product.getPrice() == null || product.getPrice().compareTo(BigDecimal.ZERO) < 0) {
+            return "Product price must be non-negative";
+        }
+        if (product.getStock() == null || product.getStock() < 0) {
+            return "Product stock must be non-negative";
+        }
+        return null;
+    }
+
+    private void insertProducts(Long tenantId, List<Product> products, UniqueKeys uniqueKeys) {
+        List<String> slugs = uniqueKeys.slugs().allocate(products.stream()
+                .map(product -> slugBase(StringUtils.hasText(product.getSlug()) ? product.getSlug() : product.getName()))
+                .toList());
+        List<String> skus = uniqueKeys.skus().allocate(products.stream()
+                .map(product -> skuBase(product.getName()))
+                .toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            product.setTenantId(tenantId);
+            product.setSlug(slugs.get(i));
+            product.setCreatedAt(now);
+            product.setUpdatedAt(now);
+            product.setDeletedAt(null);
+            if (product.getStatus() == null) {
+                product.setStatus(Product.ProductStatus.DRAFT);
+            }
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_PRODUCT_SQL, new String[] {"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Product product = products.get(i);
+                        ps.setLong(1, tenantId);
+                        ps.setString(2, product.getName());
+                        ps.setString(3, product.getSlug());
+                        ps.setString(4, product.getDescription());
+                        ps.setBigDecimal(5, product.getPrice());
+                        ps.setInt(6, product.getStock());
+                        if (product.getAttributes() != null) {
+                            ps.setString(7, product.getAttributes());
+                        } else {
+                            ps.setNull(7, Types.VARCHAR);
+                        }
+                        ps.setString(8, product.getStatus().name());
+                        ps.setString(9, Objects.requireNonNullElse(
+                                product.getTaxPreference(), Product.DEFAULT_TAX_PREFERENCE).name());
+                        ps.setBoolean(10, Objects.requireNonNullElse(
+                                product.getIsTaxInclusive(), Product.DEFAULT_TAX_INCLUSIVE));
+                        ps.setBoolean(11, Objects.requireNonNullElse(
+                                product.getFeaturedInSitemap(), Product.DEFAULT_FEATURED_IN_SITEMAP));
+                        ps.setDouble(12, Objects.requireNonNullElse(
+                                product.getSitemapPriority(), Product.DEFAULT_SITEMAP_PRIORITY));
+                        ps.setString(13, Objects.requireNonNullElse(
+                                product.getSitemapChangeFrequency(), Product.DEFAULT_SITEMAP_CHANGE_FREQUENCY));
+                        ps.setTimestamp(14, timestamp);
+                        ps.setTimestamp(15, timestamp);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return products.size();
+                    }
+                },
+                keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != products.size()) {
+            throw new IllegalStateException("Expected " + products.size() + " generated product ids, got " + keys.size());
+        }
+        List<Object[]> variants = new ArrayList<>(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            // Drivers name the generated key column differently
+            product.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            variants.add(new Object[] {tenantId, product.getId(), skus.get(i), product.getPrice(),
+                    product.getStock(), timestamp, timestamp});
+        }
+        jdbcTemplate.batchUpdate(INSERT_VARIANT_SQL, variants);
+
+        // One callback for the chunk, run once the rows are visible to other readers
+        afterCommit(() -> {
+            productSearchIndexService.onProductsCommitted(products);
+            autocompleteService.onProductsCommitted(products);
+        });
+    }
+
+    private void checkpoint(ProductImportJob job, int rows, int successes, List<String> errors) {
+        job.setRowsProcessed(job.getRowsProcessed() + rows);
+        job.setSuccessCount(job.getSuccessCount() + successes);
+        job.setErrorCount(job.getErrorCount() + errors.size());
+
+        // Keep the first errors; the counts cover the rest
+        int kept = job.getErrors() == null ? 0 : (int) job.getErrors().lines().count();
+        if (kept < MAX_JOB_ERRORS && !errors.isEmpty()) {
+            List<String> added = errors.subList(0, Math.min(errors.size(), MAX_JOB_ERRORS - kept));
+            String joined = String.join("\n", added);
+            job.setErrors(job.getErrors() == null ? joined : job.getErrors() + "\n" + joined);
+        }
+        productImportJobRepository.save(job);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Same slug rules as products created one by one
+     */
+    static String slugBase(String value) {
+        String slug = value.toLowerCase()
+                .replaceAll("[^a-z0-9\\s-]", "")
+                .replaceAll("\\s+", "-")
+                .replaceAll("-+", "-")
+                .replaceAll("^-|-$", "");
+        if (slug.length() > MAX_SLUG_BASE_LENGTH) {
+            slug = slug.substring(0, MAX_SLUG_BASE_LENGTH);
+        }
+        return slug.isEmpty() ? "product" : slug;
+    }
+
+    /**
+     * Same SKU rules as default variants created one by one
+     */
+    static String skuBase(String productName) {
+        String sku = productName.toUpperCase()
+                .replaceAll("[^A-Z0-9\\s-]", "")
+                .replaceAll("\\s+", "-")
+                .replaceAll("-+", "-")
+                .replaceAll("^-|-$", "");
+        if (sku.length() > MAX_SKU_BASE_LENGTH) {
+            sku = sku.substring(0, MAX_SKU_BASE_LENGTH);
+        }
+        return sku.isEmpty() ? "PRODUCT" : sku;
+    }
+}
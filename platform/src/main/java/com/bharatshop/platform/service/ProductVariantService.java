@@ -8,6 +8,7 @@ import com.bharatshop.shared.mapper.ProductVariantMapper;
 import com.bharatshop.shared.mapper.ProductVariantOptionValueMapper;
 import com.bharatshop.shared.repository.ProductVariantRepository;
 import com.bharatshop.shared.repository.ProductVariantOptionValueRepository;
+import com.bharatshop.shared.service.StockLedger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -34,6 +35,7 @@ public class ProductVariantService {
     private final ProductVariantMapper productVariantMapper;
     private final ProductVariantOptionValueMapper productVariantOptionValueMapper;
     private final ProductVariantOptionValueService variantOptionValueService;
+    private final StockLedger stockLedger;
 
 
 
@@ -204,6 +206,7 @@ public class ProductVariantService {
         
         log.info("Updating variant with SKU: {} for tenant: {}", existingVariant.getSku(), tenantId);
         ProductVariant savedVariant = productVariantRepository.save(existingVariant);
+        stockLedger.invalidate(tenantId, id);
         
         // Update option values if provided
         if (optionValueMap != null && !optionValueMap.isEmpty()) {
@@ -240,6 +243,7 @@ public class ProductVariantService {
         
         log.info("Deleting variant with SKU: {} for tenant: {}", variant.getSku(), tenantId);
         productVariantRepository.save(variant);
+        stockLedger.invalidate(tenantId, id);
     }
 
     public void deleteVariantsByProduct(Long productId, Long tenantId) {
@@ -256,6 +260,7 @@ public class ProductVariantService {
         
         log.info("Soft deleting all variants for product: {} and tenant: {}", productId, tenantId);
         productVariantRepository.softDeleteByProductIdAndTenantId(productId, tenantId);
+        variantIds.forEach(variantId -> stockLedger.invalidate(tenantId, variantId));
     }
 
     public ProductVariantDto updateVariantStock(Long id, Integer stock, Long tenantId) {
@@ -271,6 +276,7 @@ public class ProductVariantService {
         
         log.info("Updating variant stock: {} to {} for tenant: {}", variant.getSku(), stock, tenantId);
         ProductVariant savedVariant = productVariantRepository.save(variant);
+        stockLedger.invalidate(tenantId, id);
         return productVariantMapper.toDtoWithComputedFields(savedVariant);
     }
 
@@ -283,6 +289,7 @@ public class ProductVariantService {
         if (updatedRows == 0) {
             throw new RuntimeException("Variant not found with id: " + id);
         }
+        stockLedger.invalidate(tenantId, id);
         
         ProductVariant variant = productVariantRepository.findActiveByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new RuntimeException("Variant not found with id: " + id));
@@ -300,6 +307,7 @@ public class ProductVariantService {
         if (updatedRows == 0) {
             throw new RuntimeException("Variant not found or insufficient stock for id: " + id);
         }
+        stockLedger.invalidate(tenantId, id);
         
         ProductVariant variant = productVariantRepository.findActiveByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new RuntimeException("Variant not found with id: " + id));
@@ -336,6 +344,7 @@ public class ProductVariantService {
         
         log.info("Updated variant stock: {} to {} for tenant: {}", variant.getSku(), stock, tenantId);
         ProductVariant savedVariant = productVariantRepository.save(variant);
+        stockLedger.invalidate(tenantId, variantId);
         return productVariantMapper.toDtoWithComputedFields(savedVariant);
     }
 
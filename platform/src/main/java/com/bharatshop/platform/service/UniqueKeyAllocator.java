@@ -0,0 +1,112 @@
+package com.bharatshop.platform.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Allocates unique keys such as slugs and SKUs for a batch of new rows.
+ *
+ * A key is its base, or the base with a "-N" suffix when taken, as when
+ * products are created one by one. Taken keys are looked up in bulk: one
+ * query per round for the whole batch, with the number of suffixes probed for
+ * a base doubling each round it stays unresolved. Keys handed out are
+ * remembered, so later batches of the same import never reuse them.
+ */
+final class UniqueKeyAllocator {
+
+    private static final int MAX_KEYS_PER_LOOKUP = 1000;
+
+    private final Function<Collection<String>, Collection<String>> existingKeys;
+    private final Set<String> taken = new HashSet<>();
+    // Next suffix to try per base; 0 is the bare base
+    private final Map<String, Integer> nextSuffix = new HashMap<>();
+
+    /**
+     * @param existingKeys returns which of the given keys are already taken
+     */
+    UniqueKeyAllocator(Function<Collection<String>, Collection<String>> existingKeys) {
+        this.existingKeys = existingKeys;
+    }
+
+    /**
+     * A unique key for each base, in order; bases may repeat
+     */
+    List<String> allocate(List<String> bases) {
+        String[] keys = new String[bases.size()];
+        Map<String, List<Integer>> pending = new LinkedHashMap<>();
+        for (int i = 0; i < bases.size(); i++) {
+            pending.computeIfAbsent(bases.get(i), base -> new ArrayList<>()).add(i);
+        }
+
+        Map<String, Integer> window = new HashMap<>();
+        while (!pending.isEmpty()) {
+            Map<String, List<Integer>> candidates = new LinkedHashMap<>();
+            Set<String> probe = new LinkedHashSet<>();
+            for (Map.Entry<String, List<Integer>> entry : pending.entrySet()) {
+                String base = entry.getKey();
+                int size = Math.max(entry.getValue().size(), window.getOrDefault(base, 1));
+                List<Integer> suffixes = new ArrayList<>(size);
+                for (int suffix = nextSuffix.getOrDefault(base, 0); suffixes.size() < size; suffix++) {
+                    if (!taken.contains(key(base, suffix))) {
+                        suffixes.add(suffix);
+                        probe.add(key(base, suffix));
+                    }
+                }
+                candidates.put(base, suffixes);
+                window.put(base, size * 2);
+            }
+            lookup(probe);
+
+            Map<String, List<Integer>> unresolved = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Integer>> entry : pending.entrySet()) {
+                String base = entry.getKey();
+                List<Integer> rows = entry.getValue();
+                List<Integer> suffixes = candidates.get(base);
+                int row = 0;
+                int last = -1;
+                for (int suffix : suffixes) {
+                    if (row == rows.size()) {
+                        break;
+                    }
+                    last = suffix;
+                    String key = key(base, suffix);
+                    if (taken.add(key)) {
+                        keys[rows.get(row++)] = key;
+                    }
+                }
+                nextSuffix.put(base, last + 1);
+                if (row < rows.size()) {
+                    unresolved.put(base, rows.subList(row, rows.size()));
+                }
+            }
+            pending = unresolved;
+        }
+        return List.of(keys);
+    }
+
+    private void lookup(Set<String> keys) {
+        List<String> batch = new ArrayList<>(Math.min(keys.size(), MAX_KEYS_PER_LOOKUP));
+        for (String key : keys) {
+            batch.add(key);
+            if (batch.size() == MAX_KEYS_PER_LOOKUP) {
+                taken.addAll(existingKeys.apply(batch));
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            taken.addAll(existingKeys.apply(batch));
+        }
+    }
+
+    private static String key(String base, int suffix) {
+        return suffix == 0 ? base : base + "-" + suffix;
+    }
+}
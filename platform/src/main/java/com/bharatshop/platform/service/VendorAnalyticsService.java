@@ -4,15 +4,18 @@ import com.bharatshop.shared.dto.VendorAnalyticsDto;
 import com.bharatshop.shared.entity.Product;
 import com.bharatshop.shared.repository.ProductRepository;
 import com.bharatshop.shared.entity.Orders;
-import com.bharatshop.shared.repository.OrderRepository;
-import com.bharatshop.shared.repository.OrderItemRepository;
+import com.bharatshop.shared.repository.VendorDailyCustomerRollupRepository;
+import com.bharatshop.shared.repository.VendorDailyOrderRollupRepository;
+import com.bharatshop.shared.repository.VendorDailyProductRollupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
@@ -22,6 +25,10 @@ import java.util.stream.Collectors;
 /**
  * Service for calculating vendor analytics and dashboard metrics.
  * Provides comprehensive analytics data for vendor dashboard.
+ *
+ * Order metrics are read from the daily rollups kept by
+ * VendorAnalyticsRollupService, so a dashboard costs the same handful of
+ * queries however long the order history is. Date ranges cover whole days.
  */
 @Service
 @RequiredArgsConstructor
@@ -29,38 +36,57 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class VendorAnalyticsService {
     
+    private static final int HISTORY_MONTHS = 12;
+    private static final int TOP_PRODUCTS = 10;
+    
     private final ProductRepository productRepository;
-    private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
+    private final VendorDailyOrderRollupRepository orderRollupRepository;
+    private final VendorDailyProductRollupRepository productRollupRepository;
+    private final VendorDailyCustomerRollupRepository customerRollupRepository;
     
     /**
      * Get comprehensive analytics data for vendor dashboard.
      */
     public VendorAnalyticsDto getVendorAnalytics(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate) {
         log.info("Generating analytics for tenant: {} from {} to {}", tenantId, fromDate, toDate);
+        LocalDate from = fromDate.toLocalDate();
+        LocalDate to = toDate.toLocalDate();
+        
+        Long totalProducts = productRepository.countByTenantId(tenantId);
+        Long activeProducts = productRepository.countByTenantIdAndStatus(tenantId, Product.ProductStatus.ACTIVE);
+        
+        OrderTotals totals = getOrderTotals(tenantId, from, to);
+        List<VendorAnalyticsDto.MonthlyRevenueData> history = getMonthlyRevenueHistory(tenantId, HISTORY_MONTHS);
+        BigDecimal monthlyRevenue = history.get(history.size() - 1).getRevenue();
+        BigDecimal previousMonthRevenue = history.get(history.size() - 2).getRevenue();
+        long[] customers = getCustomerCounts(tenantId, from, to);
         
         return VendorAnalyticsDto.builder()
-                .totalProducts(getTotalProducts(tenantId))
-                .totalActiveProducts(getTotalActiveProducts(tenantId))
-                .totalInactiveProducts(getTotalInactiveProducts(tenantId))
-                .ordersByStatus(getOrdersByStatus(tenantId, fromDate, toDate))
-                .totalOrders(getTotalOrders(tenantId, fromDate, toDate))
-                .pendingOrders(getOrdersByStatus(tenantId, Orders.OrderStatus.PENDING_PAYMENT, fromDate, toDate))
-                .processingOrders(getOrdersByStatus(tenantId, Orders.OrderStatus.CONFIRMED, fromDate, toDate))
-                .shippedOrders(getOrdersByStatus(tenantId, Orders.OrderStatus.SHIPPED, fromDate, toDate))
-                .deliveredOrders(getOrdersByStatus(tenantId, Orders.OrderStatus.DELIVERED, fromDate, toDate))
-                .cancelledOrders(getOrdersByStatus(tenantId, Orders.OrderStatus.CANCELLED, fromDate, toDate))
-                .totalRevenue(getTotalRevenue(tenantId, fromDate, toDate))
-                .monthlyRevenue(getMonthlyRevenue(tenantId))
-                .previousMonthRevenue(getPreviousMonthRevenue(tenantId))
-                .revenueGrowthPercentage(calculateRevenueGrowth(tenantId))
-                .monthlyRevenueHistory(getMonthlyRevenueHistory(tenantId, 12))
-                .topProductsByRevenue(getTopProductsByRevenue(tenantId, fromDate, toDate, 10))
-                .topProductsByQuantity(getTopProductsByQuantity(tenantId, fromDate, toDate, 10))
-                .averageOrderValue(getAverageOrderValue(tenantId, fromDate, toDate))
-                .totalCustomers(getTotalCustomers(tenantId, fromDate, toDate))
-                .repeatCustomers(getRepeatCustomers(tenantId, fromDate, toDate))
-                .customerRetentionRate(calculateCustomerRetentionRate(tenantId, fromDate, toDate))
+                .totalProducts(totalProducts)
+                .totalActiveProducts(activeProducts)
+                .totalInactiveProducts(totalProducts - activeProducts)
+                .ordersByStatus(totals.ordersByStatus())
+                .totalOrders(totals.totalOrders())
+                .pendingOrders(totals.count(Orders.OrderStatus.PENDING_PAYMENT))
+                .processingOrders(totals.count(Orders.OrderStatus.CONFIRMED))
+                .shippedOrders(totals.count(Orders.OrderStatus.SHIPPED))
+                .deliveredOrders(totals.count(Orders.OrderStatus.DELIVERED))
+                .cancelledOrders(totals.count(Orders.OrderStatus.CANCELLED))
+                .totalRevenue(totals.revenue())
+                .monthlyRevenue(monthlyRevenue)
+                .previousMonthRevenue(previousMonthRevenue)
+                .revenueGrowthPercentage(calculateRevenueGrowth(monthlyRevenue, previousMonthRevenue))
+                .monthlyRevenueHistory(history)
+                .topProductsByRevenue(mapToTopProducts(productRollupRepository
+                        .findTopProductsByRevenue(tenantId, from, to, PageRequest.of(0, TOP_PRODUCTS))))
+                .topProductsByQuantity(mapToTopProducts(productRollupRepository
+                        .findTopProductsByQuantity(tenantId, from, to, PageRequest.of(0, TOP_PRODUCTS))))
+                .averageOrderValue(averageOrderValue(totals.revenue(), totals.paidOrders()))
+                .totalCustomers(customers[0])
+                .repeatCustomers(customers[1])
+                .customerRetentionRate(customers[0] > 0
+                        ? BigDecimal.valueOf(customers[1] * 100.0 / customers[0]).setScale(2, RoundingMode.HALF_UP).doubleValue()
+                        : 0.0)
                 .fromDate(fromDate)
                 .toDate(toDate)
                 .generatedAt(LocalDateTime.now())
@@ -68,88 +94,42 @@ public class VendorAnalyticsService {
     }
     
     /**
-     * Get total products count for tenant.
-     */
-    private Long getTotalProducts(Long tenantId) {
-        return productRepository.countByTenantId(tenantId);
-    }
-    
-    /**
-     * Get total active products count for tenant.
+     * Order counts by status, paid orders and revenue over the range.
      */
-    private Long getTotalActiveProducts(Long tenantId) {
-        return productRepository.countByTenantIdAndStatus(tenantId, Product.ProductStatus.ACTIVE);
-    }
-    
-    /**
-     * Get total inactive products count for tenant.
-     */
-    private Long getTotalInactiveProducts(Long tenantId) {
-        Long total = getTotalProducts(tenantId);
-        Long active = getTotalActiveProducts(tenantId);
-        return total - active;
+    private record OrderTotals(Map<String, Long> ordersByStatus, long totalOrders, long paidOrders, BigDecimal revenue) {
+        
+        Long count(Orders.OrderStatus status) {
+            return ordersByStatus.get(status.name());
+        }
     }
     
     /**
-     * Get orders grouped by status.
+     * Get orders grouped by status, and revenue, in one query.
      */
-    private Map<String, Long> getOrdersByStatus(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate) {
+    private OrderTotals getOrderTotals(Long tenantId, LocalDate from, LocalDate to) {
         Map<String, Long> ordersByStatus = new HashMap<>();
         for (Orders.OrderStatus status : Orders.OrderStatus.values()) {
-            ordersByStatus.put(status.name(), orderRepository.countByTenantIdAndStatus(tenantId, status));
+            ordersByStatus.put(status.name(), 0L);
         }
-        return ordersByStatus;
-    }
-    
-    /**
-     * Get total orders count.
-     */
-    private Long getTotalOrders(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate) {
-        return orderRepository.countByTenantId(tenantId);
-    }
-    
-    /**
-     * Get orders count by specific status.
-     */
-    private Long getOrdersByStatus(Long tenantId, Orders.OrderStatus status, LocalDateTime fromDate, LocalDateTime toDate) {
-        return orderRepository.countByTenantIdAndStatus(tenantId, status);
-    }
-    
-    /**
-     * Get total revenue for the period.
-     */
-    private BigDecimal getTotalRevenue(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate) {
-        BigDecimal revenue = orderRepository.getRevenueByTenantAndDateRange(tenantId, fromDate, toDate);
-        return revenue != null ? revenue : BigDecimal.ZERO;
-    }
-    
-    /**
-     * Get current month revenue.
-     */
-    private BigDecimal getMonthlyRevenue(Long tenantId) {
-        YearMonth currentMonth = YearMonth.now();
-        LocalDateTime startOfMonth = currentMonth.atDay(1).atStartOfDay();
-        LocalDateTime endOfMonth = currentMonth.atEndOfMonth().atTime(23, 59, 59);
-        return getTotalRevenue(tenantId, startOfMonth, endOfMonth);
-    }
-    
-    /**
-     * Get previous month revenue.
-     */
-    private BigDecimal getPreviousMonthRevenue(Long tenantId) {
-        YearMonth previousMonth = YearMonth.now().minusMonths(1);
-        LocalDateTime startOfMonth = previousMonth.atDay(1).atStartOfDay();
-        LocalDateTime endOfMonth = previousMonth.atEndOfMonth().atTime(23, 59, 59);
-        return getTotalRevenue(tenantId, startOfMonth, endOfMonth);
+        long totalOrders = 0;
+        long paidOrders = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        
+        for (Object[] row : orderRollupRepository.sumByStatus(tenantId, from, to)) {
+            long orders = toLong(row[1]);
+            ordersByStatus.put((String) row[0], orders);
+            totalOrders += orders;
+            paidOrders += toLong(row[2]);
+            revenue = revenue.add(toBigDecimal(row[3]));
+        }
+        
+        return new OrderTotals(ordersByStatus, totalOrders, paidOrders, revenue);
     }
     
     /**
      * Calculate revenue growth percentage.
      */
-    private BigDecimal calculateRevenueGrowth(Long tenantId) {
-        BigDecimal currentRevenue = getMonthlyRevenue(tenantId);
-        BigDecimal previousRevenue = getPreviousMonthRevenue(tenantId);
-        
+    private BigDecimal calculateRevenueGrowth(BigDecimal currentRevenue, BigDecimal previousRevenue) {
         if (previousRevenue.compareTo(BigDecimal.ZERO) == 0) {
             return currentRevenue.compareTo(BigDecimal.ZERO) > 0 ? new BigDecimal("100") : BigDecimal.ZERO;
         }
@@ -161,27 +141,30 @@ public class VendorAnalyticsService {
     }
     
     /**
-     * Get monthly revenue history for the last N months.
+     * Get monthly revenue history for the last N months, ending with the current month, in one query.
      */
     private List<VendorAnalyticsDto.MonthlyRevenueData> getMonthlyRevenueHistory(Long tenantId, int months) {
-        List<VendorAnalyticsDto.MonthlyRevenueData> history = new ArrayList<>();
         YearMonth currentMonth = YearMonth.now();
+        YearMonth firstMonth = currentMonth.minusMonths(months - 1);
         
-        for (int i = months - 1; i >= 0; i--) {
-            YearMonth month = currentMonth.minusMonths(i);
-            LocalDateTime startOfMonth = month.atDay(1).atStartOfDay();
-            LocalDateTime endOfMonth = month.atEndOfMonth().atTime(23, 59, 59);
-            
-            BigDecimal revenue = getTotalRevenue(tenantId, startOfMonth, endOfMonth);
-            Long orderCount = getTotalOrders(tenantId, startOfMonth, endOfMonth);
-            Double avgOrderValue = orderCount > 0 ? revenue.divide(BigDecimal.valueOf(orderCount), 2, RoundingMode.HALF_UP).doubleValue() : 0.0;
+        Map<YearMonth, Object[]> rowsByMonth = new HashMap<>();
+        for (Object[] row : orderRollupRepository.sumByMonth(tenantId, firstMonth.atDay(1), currentMonth.atEndOfMonth())) {
+            rowsByMonth.put(YearMonth.of((int) toLong(row[0]), (int) toLong(row[1])), row);
+        }
+        
+        List<VendorAnalyticsDto.MonthlyRevenueData> history = new ArrayList<>();
+        for (YearMonth month = firstMonth; !month.isAfter(currentMonth); month = month.plusMonths(1)) {
+            Object[] row = rowsByMonth.get(month);
+            long orderCount = row != null ? toLong(row[2]) : 0L;
+            long paidOrders = row != null ? toLong(row[3]) : 0L;
+            BigDecimal revenue = row != null ? toBigDecimal(row[4]) : BigDecimal.ZERO;
             
             history.add(VendorAnalyticsDto.MonthlyRevenueData.builder()
                     .month(month.format(DateTimeFormatter.ofPattern("yyyy-MM")))
                     .monthName(month.format(DateTimeFormatter.ofPattern("MMMM yyyy")))
                     .revenue(revenue)
                     .orderCount(orderCount)
-                    .averageOrderValue(avgOrderValue)
+                    .averageOrderValue(averageOrderValue(revenue, paidOrders))
                     .build());
         }
         
@@ -189,23 +172,10 @@ public class VendorAnalyticsService {
     }
     
     /**
-     * Get top products by revenue.
+     * Map top product rows: id, name, SKU, revenue, units sold, orders, image URL.
      */
-    private List<VendorAnalyticsDto.TopProductData> getTopProductsByRevenue(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate, int limit) {
-        List<Object[]> results = orderItemRepository.findTopSellingProductsByRevenue(tenantId);
+    private List<VendorAnalyticsDto.TopProductData> mapToTopProducts(List<Object[]> results) {
         return results.stream()
-                .limit(limit)
-                .map(this::mapToTopProductData)
-                .collect(Collectors.toList());
-    }
-    
-    /**
-     * Get top products by quantity sold.
-     */
-    private List<VendorAnalyticsDto.TopProductData> getTopProductsByQuantity(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate, int limit) {
-        List<Object[]> results = orderItemRepository.findTopSellingProductsByQuantity(tenantId);
-        return results.stream()
-                .limit(limit)
                 .map(this::mapToTopProductData)
                 .collect(Collectors.toList());
     }
@@ -214,53 +184,53 @@ public class VendorAnalyticsService {
      * Map database result to TopProductData.
      */
     private VendorAnalyticsDto.TopProductData mapToTopProductData(Object[] result) {
+        BigDecimal revenue = toBigDecimal(result[3]);
+        long quantitySold = toLong(result[4]);
         return VendorAnalyticsDto.TopProductData.builder()
-                .productId((Long) result[0])
+                .productId(toLong(result[0]))
                 .productName((String) result[1])
                 .productSku((String) result[2])
-                .revenue((BigDecimal) result[3])
-                .quantitySold((Long) result[4])
-                .orderCount((Long) result[5])
-                .averagePrice((BigDecimal) result[6])
-                .imageUrl((String) result[7])
+                .revenue(revenue)
+                .quantitySold(quantitySold)
+                .orderCount(toLong(result[5]))
+                .averagePrice(quantitySold > 0
+                        ? revenue.divide(BigDecimal.valueOf(quantitySold), 2, RoundingMode.HALF_UP)
+                        : BigDecimal.ZERO)
+                .imageUrl((String) result[6])
                 .build();
     }
     
     /**
-     * Get average order value.
+     * Average value of paid orders.
      */
-    private Double getAverageOrderValue(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate) {
-        BigDecimal totalRevenue = getTotalRevenue(tenantId, fromDate, toDate);
-        Long totalOrders = getTotalOrders(tenantId, fromDate, toDate);
-        
-        if (totalOrders == 0) {
+    private Double averageOrderValue(BigDecimal revenue, long paidOrders) {
+        if (paidOrders == 0) {
             return 0.0;
         }
         
-        return totalRevenue.divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP).doubleValue();
+        return revenue.divide(BigDecimal.valueOf(paidOrders), 2, RoundingMode.HALF_UP).doubleValue();
     }
     
     /**
-     * Get total unique customers (simplified).
+     * Distinct customers with paid orders in the range, and those with more than one.
      */
-    private Long getTotalCustomers(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate) {
-        // Simplified - just return total orders for now
-        return orderRepository.countByTenantId(tenantId);
+    private long[] getCustomerCounts(Long tenantId, LocalDate from, LocalDate to) {
+        List<Object[]> rows = customerRollupRepository.countCustomers(tenantId, from, to);
+        if (rows.isEmpty()) {
+            return new long[] {0L, 0L};
+        }
+        return new long[] {toLong(rows.get(0)[0]), toLong(rows.get(0)[1])};
     }
     
-    /**
-     * Get repeat customers count (simplified).
-     */
-    private Long getRepeatCustomers(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate) {
-        // Simplified - return 0 for now
-        return 0L;
+    // Native aggregates come back as Long, BigInteger or BigDecimal depending on the database
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
     }
     
-    /**
-     * Calculate customer retention rate (simplified).
-     */
-    private Double calculateCustomerRetentionRate(Long tenantId, LocalDateTime fromDate, LocalDateTime toDate) {
-        // Simplified - return 0 for now
-        return 0.0;
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
     }
-}
\ No newline at end of file
+}
@@ -23,6 +23,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -113,7 +114,7 @@ class CacheInvalidationIntegrationTest extends BaseIntegrationTest {
         platformProductService.updateProduct(testProduct.getId(), updateRequest, tenantId);
         
         // Then
-        verify(cacheService, times(1)).invalidateProductCaches();
+        verify(cacheService, times(1)).invalidateProduct(eq(testProduct.getId()), any(String[].class));
     }
 
     @Test
@@ -123,7 +124,7 @@ class CacheInvalidationIntegrationTest extends BaseIntegrationTest {
         platformProductService.deleteProduct(testProduct.getId(), tenantId);
         
         // Then
-        verify(cacheService, times(1)).invalidateProductCaches();
+        verify(cacheService, times(1)).invalidateProduct(eq(testProduct.getId()), any(String[].class));
     }
 
     @Test
@@ -0,0 +1,60 @@
+package com.bharatshop.platform.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ProductCsvReader
+ * Tests quoted values across lines, escaped quotes, blank records, chunked reads and skipping
+ */
+class ProductCsvReaderTest {
+
+    @Test
+    @DisplayName("Should read quoted values spanning lines with their starting line numbers")
+    void shouldReadQuotedValuesAcrossLines() throws IOException {
+        String csv = "name,slug,description\r\n"
+                + "Kurta,kurta,\"Cotton kurta,\nhand stitched\"\r\n"
+                + "\n"
+                + "Saree,,\"Silk \"\"Banarasi\"\" saree\"";
+
+        try (ProductCsvReader reader = new ProductCsvReader(new StringReader(csv))) {
+            assertThat(reader.next().values()).containsExactly("name", "slug", "description");
+
+            ProductCsvReader.Record kurta = reader.next();
+            assertThat(kurta.lineNumber()).isEqualTo(2);
+            assertThat(kurta.values()).containsExactly("Kurta", "kurta", "Cotton kurta,\nhand stitched");
+
+            ProductCsvReader.Record saree = reader.next();
+            assertThat(saree.lineNumber()).isEqualTo(5);
+            assertThat(saree.values()).containsExactly("Saree", "", "Silk \"Banarasi\" saree");
+
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read in chunks and skip rows already imported")
+    void shouldReadChunksAndSkip() throws IOException {
+        StringBuilder csv = new StringBuilder("\uFEFFname,price\n");
+        for (int i = 1; i <= 7; i++) {
+            csv.append("Product ").append(i).append(',').append(i * 10).append('\n');
+        }
+
+        try (ProductCsvReader reader = new ProductCsvReader(new StringReader(csv.toString()))) {
+            assertThat(reader.next().values()).containsExactly("name", "price");
+            assertThat(reader.skip(2)).isEqualTo(2);
+
+            List<ProductCsvReader.Record> chunk = reader.next(3);
+            assertThat(chunk).extracting(record -> record.values()[0])
+                    .containsExactly("Product 3", "Product 4", "Product 5");
+            assertThat(reader.next(3)).hasSize(2);
+            assertThat(reader.next(3)).isEmpty();
+        }
+    }
+}
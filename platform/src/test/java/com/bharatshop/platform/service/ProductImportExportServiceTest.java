@@ -0,0 +1,132 @@
+package com.bharatshop.platform.service;
+
+import com.bharatshop.shared.entity.Option;
+import com.bharatshop.shared.entity.OptionValue;
+import com.bharatshop.shared.entity.Product;
+import com.bharatshop.shared.entity.ProductVariant;
+import com.bharatshop.shared.entity.ProductVariantOptionValue;
+import com.bharatshop.shared.repository.*;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ProductImportExportService
+ * Tests streaming CSV and NDJSON exports paged by product id
+ */
+@ExtendWith(MockitoExtension.class)
+class ProductImportExportServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductVariantRepository productVariantRepository;
+
+    @Mock
+    private ProductVariantOptionValueRepository productVariantOptionValueRepository;
+
+    @Mock
+    private OptionRepository optionRepository;
+
+    @Mock
+    private OptionValueRepository optionValueRepository;
+
+    @Mock
+    private ProductImportWriter productImportWriter;
+
+    @Mock
+    private ProductImportJobRepository productImportJobRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private ProductImportExportService service;
+
+    private final Long tenantId = 1L;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "exportPageSize", 2);
+    }
+
+    @Test
+    @DisplayName("Should export CSV page by page, each page starting after the last id")
+    void shouldExportCsvByKeysetPages() throws Exception {
+        when(productRepository.findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(tenantId), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(product(1L, "Kurta"), product(2L, "Saree, silk")));
+        when(productRepository.findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(tenantId), eq(2L), any(Pageable.class)))
+                .thenReturn(List.of(product(3L, "Dupatta")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportProducts(tenantId, ProductImportExportService.ExportFormat.CSV, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n")).containsExactly(
+                "name,slug,description,price,stock,status,attributes",
+                "Kurta,kurta-1,,499.00,10,ACTIVE,",
+                "\"Saree, silk\",saree-silk-2,,499.00,10,ACTIVE,",
+                "Dupatta,dupatta-3,,499.00,10,ACTIVE,");
+        // A short page is the last one
+        verify(productRepository, times(2))
+                .findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(anyLong(), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should export NDJSON with variants and their option values")
+    void shouldExportNdjsonWithVariants() throws Exception {
+        Product kurta = product(1L, "Kurta");
+        kurta.setAttributes("{\"fabric\":\"cotton\"}");
+        when(productRepository.findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(eq(tenantId), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(kurta));
+        when(productVariantRepository.findActiveByProductIds(List.of(1L), tenantId)).thenReturn(List.of(
+                ProductVariant.builder().id(11L).productId(1L).sku("KURTA-M").price(new BigDecimal("499.00"))
+                        .stock(4).isDefault(true).status(ProductVariant.VariantStatus.ACTIVE).build()));
+        when(productVariantOptionValueRepository.findByVariantIds(List.of(11L), tenantId)).thenReturn(List.of(
+                ProductVariantOptionValue.builder().variantId(11L).optionId(5L).optionValueId(9L).build()));
+        when(optionRepository.findAllById(any())).thenReturn(List.of(Option.builder().id(5L).name("Size").build()));
+        when(optionValueRepository.findAllById(any())).thenReturn(List.of(OptionValue.builder().id(9L).value("M").build()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.exportProducts(tenantId, ProductImportExportService.ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(1);
+        JsonNode product = objectMapper.readTree(lines[0]);
+        assertThat(product.get("name").asText()).isEqualTo("Kurta");
+        assertThat(product.at("/attributes/fabric").asText()).isEqualTo("cotton");
+        assertThat(product.at("/variants/0/sku").asText()).isEqualTo("KURTA-M");
+        assertThat(product.at("/variants/0/stock").asInt()).isEqualTo(4);
+        assertThat(product.at("/variants/0/options/Size").asText()).isEqualTo("M");
+    }
+
+    private Product product(Long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTenantId(tenantId);
+        product.setName(name);
+        product.setSlug(name.toLowerCase().replaceAll("[^a-z]+", "-") + "-" + id);
+        product.setPrice(new BigDecimal("499.00"));
+        product.setStock(10);
+        product.setStatus(Product.ProductStatus.ACTIVE);
+        return product;
+    }
+}
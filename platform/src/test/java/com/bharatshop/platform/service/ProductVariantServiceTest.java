@@ -4,6 +4,7 @@ import com.bharatshop.shared.dto.ProductVariantDto;
 import com.bharatshop.shared.entity.*;
 import com.bharatshop.shared.mapper.ProductVariantMapper;
 import com.bharatshop.shared.repository.*;
+import com.bharatshop.shared.service.StockLedger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
@@ -44,6 +45,9 @@ class ProductVariantServiceTest {
     @Mock
     private ProductVariantOptionValueService variantOptionValueService;
 
+    @Mock
+    private StockLedger stockLedger;
+
     @InjectMocks
     private ProductVariantService productVariantService;
 
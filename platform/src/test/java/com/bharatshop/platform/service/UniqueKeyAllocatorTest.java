@@ -0,0 +1,53 @@
+package com.bharatshop.platform.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for UniqueKeyAllocator
+ * Tests suffixing against existing keys and within a batch, and the number of bulk lookups
+ */
+class UniqueKeyAllocatorTest {
+
+    @Test
+    @DisplayName("Should suffix keys taken in the database or earlier in the import")
+    void shouldAllocateUniqueKeys() {
+        Set<String> existing = Set.of("kurta", "kurta-1", "saree");
+        List<Collection<String>> lookups = new ArrayList<>();
+        UniqueKeyAllocator allocator = new UniqueKeyAllocator(keys -> {
+            lookups.add(List.copyOf(keys));
+            return keys.stream().filter(existing::contains).toList();
+        });
+
+        assertThat(allocator.allocate(List.of("kurta", "saree", "kurta", "dupatta", "dupatta")))
+                .containsExactly("kurta-2", "saree-1", "kurta-3", "dupatta", "dupatta-1");
+        // A later chunk of the same import continues after the keys handed out
+        assertThat(allocator.allocate(List.of("kurta", "dupatta"))).containsExactly("kurta-4", "dupatta-2");
+        assertThat(lookups).hasSizeLessThanOrEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Should resolve a chunk of distinct keys with a single lookup")
+    void shouldLookUpInBulk() {
+        List<Collection<String>> lookups = new ArrayList<>();
+        UniqueKeyAllocator allocator = new UniqueKeyAllocator(keys -> {
+            lookups.add(List.copyOf(keys));
+            return List.of();
+        });
+        List<String> bases = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            bases.add("product-" + i);
+        }
+
+        assertThat(allocator.allocate(bases)).isEqualTo(bases);
+        assertThat(lookups).hasSize(1);
+        assertThat(lookups.get(0)).hasSize(500);
+    }
+}
@@ -0,0 +1,103 @@
+package com.bharatshop.platform.service;
+
+import com.bharatshop.shared.dto.VendorAnalyticsDto;
+import com.bharatshop.shared.entity.Product;
+import com.bharatshop.shared.repository.ProductRepository;
+import com.bharatshop.shared.repository.VendorDailyCustomerRollupRepository;
+import com.bharatshop.shared.repository.VendorDailyOrderRollupRepository;
+import com.bharatshop.shared.repository.VendorDailyProductRollupRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for VendorAnalyticsService
+ * Tests building the dashboard from daily rollup rows
+ */
+@ExtendWith(MockitoExtension.class)
+class VendorAnalyticsServiceTest {
+
+    private static final Long TENANT_ID = 1L;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private VendorDailyOrderRollupRepository orderRollupRepository;
+
+    @Mock
+    private VendorDailyProductRollupRepository productRollupRepository;
+
+    @Mock
+    private VendorDailyCustomerRollupRepository customerRollupRepository;
+
+    @InjectMocks
+    private VendorAnalyticsService vendorAnalyticsService;
+
+    @Test
+    @DisplayName("Should build dashboard metrics from rollup rows")
+    void shouldBuildAnalyticsFromRollups() {
+        LocalDateTime toDate = LocalDateTime.now();
+        LocalDateTime fromDate = toDate.minusMonths(12);
+        YearMonth currentMonth = YearMonth.now();
+        YearMonth previousMonth = currentMonth.minusMonths(1);
+
+        when(productRepository.countByTenantId(TENANT_ID)).thenReturn(10L);
+        when(productRepository.countByTenantIdAndStatus(TENANT_ID, Product.ProductStatus.ACTIVE)).thenReturn(7L);
+        when(orderRollupRepository.sumByStatus(TENANT_ID, fromDate.toLocalDate(), toDate.toLocalDate()))
+                .thenReturn(List.of(
+                        new Object[] {"DELIVERED", 3L, 3L, new BigDecimal("300.00")},
+                        new Object[] {"PENDING_PAYMENT", BigInteger.TWO, 0L, BigDecimal.ZERO}));
+        when(orderRollupRepository.sumByMonth(eq(TENANT_ID), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(List.of(
+                        new Object[] {previousMonth.getYear(), previousMonth.getMonthValue(), 1L, 1L, new BigDecimal("100.00")},
+                        new Object[] {currentMonth.getYear(), currentMonth.getMonthValue(), 4L, 2L, new BigDecimal("150.00")}));
+        when(productRollupRepository.findTopProductsByRevenue(eq(TENANT_ID), any(), any(), any()))
+                .thenReturn(List.<Object[]>of(
+                        new Object[] {5L, "Kurta", "KURTA", new BigDecimal("200.00"), 4L, 2L, "kurta.jpg"}));
+        when(productRollupRepository.findTopProductsByQuantity(eq(TENANT_ID), any(), any(), any()))
+                .thenReturn(List.of());
+        when(customerRollupRepository.countCustomers(eq(TENANT_ID), any(), any()))
+                .thenReturn(List.<Object[]>of(new Object[] {4L, 1L}));
+
+        VendorAnalyticsDto analytics = vendorAnalyticsService.getVendorAnalytics(TENANT_ID, fromDate, toDate);
+
+        assertThat(analytics.getTotalInactiveProducts()).isEqualTo(3L);
+        assertThat(analytics.getTotalOrders()).isEqualTo(5L);
+        assertThat(analytics.getDeliveredOrders()).isEqualTo(3L);
+        assertThat(analytics.getPendingOrders()).isEqualTo(2L);
+        assertThat(analytics.getCancelledOrders()).isZero();
+        assertThat(analytics.getTotalRevenue()).isEqualByComparingTo("300.00");
+        assertThat(analytics.getAverageOrderValue()).isEqualTo(100.0);
+
+        assertThat(analytics.getMonthlyRevenueHistory()).hasSize(12);
+        assertThat(analytics.getMonthlyRevenueHistory().get(0).getRevenue()).isEqualByComparingTo("0");
+        assertThat(analytics.getMonthlyRevenue()).isEqualByComparingTo("150.00");
+        assertThat(analytics.getPreviousMonthRevenue()).isEqualByComparingTo("100.00");
+        assertThat(analytics.getRevenueGrowthPercentage()).isEqualByComparingTo("50.00");
+
+        VendorAnalyticsDto.TopProductData top = analytics.getTopProductsByRevenue().get(0);
+        assertThat(top.getProductName()).isEqualTo("Kurta");
+        assertThat(top.getQuantitySold()).isEqualTo(4L);
+        assertThat(top.getAveragePrice()).isEqualByComparingTo("50.00");
+        assertThat(top.getImageUrl()).isEqualTo("kurta.jpg");
+
+        assertThat(analytics.getTotalCustomers()).isEqualTo(4L);
+        assertThat(analytics.getRepeatCustomers()).isEqualTo(1L);
+        assertThat(analytics.getCustomerRetentionRate()).isEqualTo(25.0);
+    }
+}
@@ -0,0 +1,116 @@
+package com.bharatshop.shared.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Version counters that namespace cached entries per tenant and cache group.
+ *
+ * Every tenant-scoped cache key embeds the current generation of its tenant
+ * and of its group, so invalidating a tenant (or one kind of data for that
+ * tenant) is a single counter increment: entries written under the old
+ * generation are never read again and age out with the cache TTL.
+ *
+ * Counters live in Redis so that all nodes agree on them. Each node memoises
+ * the values it has read for {@link #REFRESH_INTERVAL_MILLIS}, which keeps the
+ * hot read path in memory; a bump made on this node is visible here at once,
+ * and is published on {@link #CHANNEL} so subscribed nodes see it without
+ * waiting for their memo to expire.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheGenerations {
+
+    /** Redis pub/sub channel carrying {@code key=generation} bump notifications. */
+    public static final String CHANNEL = "bharatshop:cache:generations";
+
+    static final long REFRESH_INTERVAL_MILLIS = 1000;
+
+    private static final String KEY_PREFIX = "cache-gen:";
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ConcurrentMap<String, Generation> generations = new ConcurrentHashMap<>();
+
+    /**
+     * Current generation of a group for a tenant ({@code null} for global data).
+     */
+    public long current(Long tenantId, String group) {
+        String key = key(tenantId, group);
+        Generation generation = generations.get(key);
+        long now = System.currentTimeMillis();
+        if (generation != null && now - generation.readAt < REFRESH_INTERVAL_MILLIS) {
+            return generation.value;
+        }
+
+        long value = generation != null ? generation.value : 0L;
+        try {
+            String stored = redisTemplate.opsForValue().get(key);
+            // Never step backwards past a bump this node made while Redis was unreachable
+            value = Math.max(value, stored != null ? Long.parseLong(stored) : 0L);
+        } catch (Exception e) {
+            log.debug("Using last known cache generation for {}: {}", key, e.getMessage());
+        }
+        generations.put(key, new Generation(value, now));
+        return value;
+    }
+
+    /**
+     * Move a tenant's group to a new generation, orphaning its cached entries.
+     */
+    public long bump(Long tenantId, String group) {
+        String key = key(tenantId, group);
+        long now = System.currentTimeMillis();
+        try {
+            Long value = redisTemplate.opsForValue().increment(key);
+            if (value != null) {
+                generations.put(key, new Generation(value, now));
+                publish(key, value);
+                return value;
+            }
+        } catch (Exception e) {
+            log.warn("Could not store cache generation for {}, invalidating locally only", key, e);
+        }
+        return generations.compute(key, (k, previous) ->
+                new Generation(previous != null ? previous.value + 1 : 1L, now)).value;
+    }
+
+    /**
+     * Apply a bump published by another node.
+     */
+    public void onRemoteBump(String message) {
+        int separator = message.lastIndexOf('=');
+        if (separator <= 0) {
+            return;
+        }
+        try {
+            long value = Long.parseLong(message.substring(separator + 1));
+            long now = System.currentTimeMillis();
+            generations.merge(message.substring(0, separator), new Generation(value, now),
+                    (previous, bumped) -> bumped.value > previous.value ? bumped : previous);
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed cache generation message: {}", message);
+        }
+    }
+
+    private void publish(String key, long value) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, key + "=" + value);
+        } catch (Exception e) {
+            log.debug("Could not announce cache generation for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private String key(Long tenantId, String group) {
+        return KEY_PREFIX + (tenantId != null ? tenantId : "global") + ":" + group;
+    }
+
+    private record Generation(long value, long readAt) {
+    }
+}
@@ -0,0 +1,81 @@
+package com.bharatshop.shared.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps cache names onto the groups that are invalidated together.
+ *
+ * A cache may belong to several groups when its contents derive from more
+ * than one kind of data (the storefront category list depends on both
+ * categories and the products in them). Caches that are not listed form a
+ * group of their own, named after the cache.
+ *
+ * Caches holding one product per entry belong to {@link #PRODUCTS} only;
+ * caches whose entries list several products also belong to
+ * {@link #PRODUCT_LISTINGS}, so a change to one product can drop every
+ * listing while evicting just that product's own entries.
+ */
+public final class CacheGroups {
+
+    /** Group that every tenant-scoped cache belongs to. */
+    public static final String ALL = "all";
+
+    public static final String PRODUCTS = "products";
+    public static final String PRODUCT_LISTINGS = "product-listings";
+    public static final String CATEGORIES = "categories";
+    public static final String TEMPLATES = "templates";
+    public static final String PAGES = "pages";
+    public static final String IMAGES = "images";
+    public static final String TAX_RATES = "tax-rates";
+    public static final String NOTIFICATION_TEMPLATES = "notification-templates";
+
+    /** Platform-level caches that are shared by all tenants and never tenant-scoped. */
+    public static final Set<String> GLOBAL_CACHES = Set.of("tenants", "tenant");
+
+    private static final Map<String, List<String>> GROUPS_BY_CACHE = Map.ofEntries(
+            Map.entry("products", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("product", List.of(PRODUCTS)),
+            Map.entry("product-by-slug", List.of(PRODUCTS)),
+            Map.entry("productsByCategory", List.of(PRODUCTS, CATEGORIES, PRODUCT_LISTINGS)),
+            Map.entry("productsByBrand", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("productsByPriceRange", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("productsByRating", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("featuredProducts", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("brands", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:products", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:product", List.of(PRODUCTS)),
+            Map.entry("storefront:search", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:categorySearch", List.of(PRODUCTS, CATEGORIES, PRODUCT_LISTINGS)),
+            Map.entry("storefront:brandProducts", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:priceRangeProducts", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:featuredProducts", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:topRatedProducts", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:discountedProducts", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:inStockProducts", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:recommendations", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:brands", List.of(PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("storefront:categories", List.of(CATEGORIES, PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("categories", List.of(CATEGORIES, PRODUCTS, PRODUCT_LISTINGS)),
+            Map.entry("category-trees", List.of(CATEGORIES)),
+            Map.entry("templates", List.of(TEMPLATES)),
+            Map.entry("template-lists", List.of(TEMPLATES)),
+            Map.entry("pages", List.of(PAGES)),
+            Map.entry("page", List.of(PAGES)),
+            Map.entry("page-by-slug", List.of(PAGES)),
+            Map.entry("pagesByType", List.of(PAGES)),
+            Map.entry("images", List.of(IMAGES)),
+            Map.entry("image-variants", List.of(IMAGES))
+    );
+
+    private CacheGroups() {
+    }
+
+    /**
+     * Groups whose invalidation must also invalidate the given cache.
+     */
+    public static List<String> of(String cacheName) {
+        return GROUPS_BY_CACHE.getOrDefault(cacheName, List.of(cacheName));
+    }
+}
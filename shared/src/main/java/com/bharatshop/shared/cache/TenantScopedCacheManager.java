@@ -0,0 +1,133 @@
+package com.bharatshop.shared.cache;
+
+import com.bharatshop.shared.tenant.TenantContext;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * CacheManager decorator that places every entry in a generation-stamped
+ * tenant namespace.
+ *
+ * Keys passed to the delegate look like {@code t42:g3.7:<key>}: the tenant
+ * from {@link TenantContext} (or {@code global}), the tenant-wide generation
+ * and the generation of each group the cache belongs to. {@link Cache#clear()}
+ * therefore bumps the current tenant's generations instead of flushing the
+ * underlying cache for every tenant. Caches in {@link CacheGroups#GLOBAL_CACHES}
+ * are passed through unchanged.
+ */
+public class TenantScopedCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+    private final CacheGenerations generations;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public TenantScopedCacheManager(CacheManager delegate, CacheGenerations generations) {
+        this.delegate = delegate;
+        this.generations = generations;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> CacheGroups.GLOBAL_CACHES.contains(key)
+                ? target
+                : new TenantScopedCache(target, CacheGroups.of(key), generations));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    /**
+     * Cache view that rewrites keys into the current tenant's namespace.
+     */
+    static class TenantScopedCache implements Cache {
+
+        private final Cache target;
+        private final List<String> groups;
+        private final CacheGenerations generations;
+
+        TenantScopedCache(Cache target, List<String> groups, CacheGenerations generations) {
+            this.target = target;
+            this.groups = groups;
+            this.generations = generations;
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return target.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return target.get(scopedKey(key));
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return target.get(scopedKey(key), type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return target.get(scopedKey(key), valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            target.put(scopedKey(key), value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return target.putIfAbsent(scopedKey(key), value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            target.evict(scopedKey(key));
+        }
+
+        /**
+         * Invalidate this cache's groups for the current tenant only.
+         */
+        @Override
+        public void clear() {
+            Long tenantId = TenantContext.getCurrentTenant();
+            for (String group : groups) {
+                generations.bump(tenantId, group);
+            }
+        }
+
+        String scopedKey(Object key) {
+            Long tenantId = TenantContext.getCurrentTenant();
+            StringBuilder scoped = new StringBuilder(64)
+                    .append(tenantId != null ? "t" + tenantId : "global")
+                    .append(":g")
+                    .append(generations.current(tenantId, CacheGroups.ALL));
+            for (String group : groups) {
+                scoped.append('.').append(generations.current(tenantId, group));
+            }
+            return scoped.append(':').append(key).toString();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.bharatshop.shared.config;
 
-import com.bharatshop.shared.tenant.TenantContext;
+import com.bharatshop.shared.cache.CacheGenerations;
+import com.bharatshop.shared.cache.TenantScopedCacheManager;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.type.TypeFactory;
@@ -62,11 +63,11 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(CacheGenerations cacheGenerations) {
         // Default cache configuration
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
             .entryTtl(Duration.ofHours(1))
-            .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new TenantAwareKeySerializer()))
+            .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
             .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(createJsonSerializer()))
             .disableCachingNullValues();
 
@@ -93,10 +94,13 @@ public class RedisConfig {
         cacheConfigurations.put("images", defaultConfig.entryTtl(Duration.ofHours(24)));
         cacheConfigurations.put("image-variants", defaultConfig.entryTtl(Duration.ofHours(24)));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
             .cacheDefaults(defaultConfig)
             .withInitialCacheConfigurations(cacheConfigurations)
             .build();
+
+        // Tenant and generation are embedded in the key by the scoped manager
+        return new TenantScopedCacheManager(redisCacheManager, cacheGenerations);
     }
 
     private GenericJackson2JsonRedisSerializer createJsonSerializer() {
@@ -109,23 +113,4 @@ public class RedisConfig {
         );
         return new GenericJackson2JsonRedisSerializer(objectMapper);
     }
-
-    /**
-     * Custom key serializer that adds tenant context to cache keys
-     */
-    private static class TenantAwareKeySerializer extends StringRedisSerializer {
-        @Override
-        public byte[] serialize(String key) {
-            if (key == null) {
-                return new byte[0];
-            }
-            
-            Long tenantId = TenantContext.getCurrentTenant();
-            String tenantAwareKey = tenantId != null ? 
-                "tenant:" + tenantId + ":" + key : 
-                "global:" + key;
-            
-            return super.serialize(tenantAwareKey);
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.bharatshop.shared.controller;
+
+import com.bharatshop.shared.service.ImageProcessingService;
+import com.bharatshop.shared.service.SignedUrlService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Controller serving images and their variants through signed URLs
+ * Variants are rendered on first request and cached on disk
+ */
+@RestController
+@RequestMapping("/api/assets/images")
+@RequiredArgsConstructor
+public class ImageAssetController {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ImageAssetController.class);
+
+    private final SignedUrlService signedUrlService;
+    private final ImageProcessingService imageProcessingService;
+
+    /**
+     * Serve an image, or a variant of it when a size is given
+     * GET /api/assets/images/{category}/{filename}?size=&format=&expires=&signature=
+     */
+    @GetMapping("/{category}/{filename:.+}")
+    public ResponseEntity<Resource> getImage(
+            @PathVariable String category,
+            @PathVariable String filename,
+            @RequestParam Map<String, String> params) {
+
+        SignedUrlService.ValidationResult validation =
+                signedUrlService.validateSignedUrl("/images/" + category + "/" + filename, params);
+        if (!validation.isValid()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        try {
+            Integer size = params.containsKey("size") ? Integer.valueOf(params.get("size")) : null;
+            Optional<Resource> image = imageProcessingService.getVariant(category, filename, size, params.get("format"));
+            if (image.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Resource resource = image.get();
+            // Variant names end in their format, e.g. "400.jpeg"
+            MediaType contentType = MediaTypeFactory.getMediaType(resource)
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM);
+            // Image files never change under the same name, so browsers and CDNs may keep them
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePublic())
+                    .contentType(contentType)
+                    .body(resource);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (IOException e) {
+            log.error("Error serving image {}/{}: {}", category, filename, e.getMessage());
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.bharatshop.shared.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How far an analytics rollup has read its source table's changes.
+ */
+@Entity
+@Table(name = "analytics_rollup_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRollupCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    /**
+     * Source rows updated up to this time are reflected in the rollup
+     */
+    @Column(nullable = false)
+    private LocalDateTime processedUntil;
+}
@@ -20,7 +20,8 @@ import java.util.Set;
     @Index(name = "idx_order_tenant", columnList = "tenantId"),
     @Index(name = "idx_order_status", columnList = "status"),
     @Index(name = "idx_order_payment_status", columnList = "paymentStatus"),
-    @Index(name = "idx_order_created_at", columnList = "createdAt")
+    @Index(name = "idx_order_created_at", columnList = "createdAt"),
+    @Index(name = "idx_order_updated_at", columnList = "updatedAt")
 })
 @Data
 @Builder
@@ -26,6 +26,13 @@ import java.util.List;
 @SuperBuilder
 public class Product extends BaseEntity {
 
+    // Defaults for new products, also used by bulk inserts that bypass the entity
+    public static final TaxPreference DEFAULT_TAX_PREFERENCE = TaxPreference.TAXABLE;
+    public static final boolean DEFAULT_TAX_INCLUSIVE = false;
+    public static final boolean DEFAULT_FEATURED_IN_SITEMAP = true;
+    public static final double DEFAULT_SITEMAP_PRIORITY = 0.8;
+    public static final String DEFAULT_SITEMAP_CHANGE_FREQUENCY = "weekly";
+
     @Column(name = "name", nullable = false, length = 255)
     private String name;
 
@@ -95,10 +102,10 @@ public class Product extends BaseEntity {
 
     @Enumerated(EnumType.STRING)
     @Column(name = "tax_preference", nullable = false)
-    private TaxPreference taxPreference = TaxPreference.TAXABLE;
+    private TaxPreference taxPreference = DEFAULT_TAX_PREFERENCE;
 
     @Column(name = "is_tax_inclusive", nullable = false)
-    private Boolean isTaxInclusive = false;
+    private Boolean isTaxInclusive = DEFAULT_TAX_INCLUSIVE;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "status", nullable = false)
@@ -122,13 +129,13 @@ public class Product extends BaseEntity {
 
     // SEO flags
     @Column(name = "featured_in_sitemap")
-    private Boolean featuredInSitemap = true;
+    private Boolean featuredInSitemap = DEFAULT_FEATURED_IN_SITEMAP;
 
     @Column(name = "sitemap_priority", precision = 3, scale = 2)
-    private Double sitemapPriority = 0.8;
+    private Double sitemapPriority = DEFAULT_SITEMAP_PRIORITY;
 
     @Column(name = "sitemap_change_frequency", length = 20)
-    private String sitemapChangeFrequency = "weekly";
+    private String sitemapChangeFrequency = DEFAULT_SITEMAP_CHANGE_FREQUENCY;
 
     public enum ProductStatus {
         DRAFT,
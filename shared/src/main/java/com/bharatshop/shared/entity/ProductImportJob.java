@@ -0,0 +1,100 @@
+package com.bharatshop.shared.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A product CSV import running in the background. Progress is checkpointed
+ * with every committed chunk, so an interrupted import resumes after the
+ * last chunk it wrote. The upload is spooled to the local disk of the node
+ * that accepted it, so only that node runs or resumes the job.
+ */
+@Entity
+@Table(name = "product_import_jobs", indexes = {
+    @Index(name = "idx_product_import_job_tenant", columnList = "tenantId"),
+    @Index(name = "idx_product_import_job_owner_status_lease", columnList = "ownerNode, status, leaseUntil")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long tenantId;
+
+    private String filename;
+
+    /**
+     * Where the upload was spooled to on the owning node
+     */
+    @Column(nullable = false, length = 1024)
+    private String filePath;
+
+    private Long fileSize;
+
+    /**
+     * Node that spooled the upload; the only node that may run or resume the job
+     */
+    @Column(nullable = false, length = 128)
+    private String ownerNode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ImportStatus status;
+
+    /**
+     * Data rows consumed by committed chunks; a resumed job skips this many rows
+     */
+    @Column(nullable = false)
+    private Integer rowsProcessed;
+
+    @Column(nullable = false)
+    private Integer successCount;
+
+    @Column(nullable = false)
+    private Integer errorCount;
+
+    /**
+     * The first row errors, one per line
+     */
+    @Column(columnDefinition = "TEXT")
+    private String errors;
+
+    private String failureReason;
+
+    /**
+     * While RUNNING, when the worker is considered lost and the owning node may resume the job
+     */
+    @Column(nullable = false)
+    private LocalDateTime leaseUntil;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
+    public enum ImportStatus {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -56,7 +56,8 @@ public class ProductVariant extends BaseEntity {
     @Column(name = "stock", nullable = false)
     private Integer stock = 0;
 
-    @Column(name = "reserved_stock", nullable = false)
+    // Maintained only by conditional updates in StockLedger, never by entity saves
+    @Column(name = "reserved_stock", nullable = false, updatable = false)
     private Integer reservedStock = 0;
 
     @Column(name = "weight", precision = 8, scale = 3)
@@ -23,7 +23,8 @@ import java.util.List;
         @Index(name = "idx_shipment_tracking_number", columnList = "tracking_number"),
         @Index(name = "idx_shipment_carrier_code", columnList = "carrier_code"),
         @Index(name = "idx_shipment_status", columnList = "status"),
-        @Index(name = "idx_shipment_shipped_date", columnList = "shipped_date")
+        @Index(name = "idx_shipment_shipped_date", columnList = "shipped_date"),
+        @Index(name = "idx_shipment_status_next_poll", columnList = "status, next_poll_at")
 }, uniqueConstraints = {
         @UniqueConstraint(name = "uk_shipment_order_id", columnNames = {"order_id"}),
         @UniqueConstraint(name = "uk_shipment_tracking_number", columnNames = {"tracking_number"})
@@ -136,6 +137,12 @@ public class Shipment extends BaseEntity {
     @Column(name = "last_tracking_update")
     private LocalDateTime lastTrackingUpdate;
 
+    @Column(name = "next_poll_at")
+    private LocalDateTime nextPollAt; // When the carrier API should next be polled; null means due now
+
+    @Column(name = "last_webhook_at")
+    private LocalDateTime lastWebhookAt; // Last tracking event pushed by the carrier's webhook
+
     @Column(name = "current_location", length = 200)
     @Size(max = 200, message = "Current location must not exceed 200 characters")
     private String currentLocation;
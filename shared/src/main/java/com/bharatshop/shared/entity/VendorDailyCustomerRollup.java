@@ -0,0 +1,40 @@
+package com.bharatshop.shared.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Paid orders a customer placed with a tenant on one day. Kept per customer
+ * so distinct and repeat customers can be counted over any range of days.
+ */
+@Entity
+@Table(name = "vendor_daily_customer_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_vendor_daily_customer_rollup", columnNames = {"tenant_id", "stat_date", "customer_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorDailyCustomerRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(nullable = false)
+    private Long orderCount;
+}
@@ -0,0 +1,51 @@
+package com.bharatshop.shared.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Orders placed by a tenant on one day in one status, rebuilt from the orders
+ * table whenever an order of that day changes.
+ */
+@Entity
+@Table(name = "vendor_daily_order_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_vendor_daily_order_rollup", columnNames = {"tenant_id", "stat_date", "status"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorDailyOrderRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Orders.OrderStatus status;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    /**
+     * Orders whose payment completed; revenue covers only these
+     */
+    @Column(nullable = false)
+    private Long paidOrderCount;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+}
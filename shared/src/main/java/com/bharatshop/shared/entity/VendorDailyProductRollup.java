@@ -0,0 +1,52 @@
+package com.bharatshop.shared.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sales of one product in a tenant's paid orders placed on one day.
+ */
+@Entity
+@Table(name = "vendor_daily_product_rollups", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_vendor_daily_product_rollup", columnNames = {"tenant_id", "stat_date", "product_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VendorDailyProductRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    private String productName;
+
+    private String productSku;
+
+    private String productImageUrl;
+
+    @Column(nullable = false)
+    private Long unitsSold;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private Long orderCount;
+}
@@ -0,0 +1,89 @@
+package com.bharatshop.shared.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One webhook payload addressed to one endpoint, kept until it is delivered
+ * or gives up, so pending retries survive restarts.
+ */
+@Entity
+@Table(name = "webhook_deliveries", indexes = {
+    @Index(name = "idx_webhook_delivery_status_next", columnList = "status, nextAttemptAt"),
+    @Index(name = "idx_webhook_delivery_event", columnList = "eventId")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 1024)
+    private String endpoint;
+
+    @Column(nullable = false)
+    private String eventType;
+
+    @Column(nullable = false)
+    private String eventId;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(nullable = false)
+    private String signature;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DeliveryStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    /**
+     * When the next attempt is due; while SENDING, when the in-flight attempt
+     * is considered lost and may be retried
+     */
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    /**
+     * Token of the sweep that last claimed this delivery, to tell which of the
+     * rows it tried to claim it actually won
+     */
+    @Column(length = 36)
+    private String claimToken;
+
+    private Integer lastStatusCode;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    private LocalDateTime deliveredAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    public enum DeliveryStatus {
+        SENDING,    // An attempt is in flight
+        RETRY,      // Last attempt failed, waiting for nextAttemptAt
+        DELIVERED,  // Endpoint answered 2xx
+        DEAD        // Gave up after the maximum number of attempts
+    }
+}
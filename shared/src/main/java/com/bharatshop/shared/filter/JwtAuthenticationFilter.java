@@ -1,6 +1,7 @@
 package com.bharatshop.shared.filter;
 
 import com.bharatshop.shared.service.JwtService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -32,19 +33,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
             
             try {
-                String email = jwtService.extractUsername(token);
-                String role = jwtService.extractClaim(token, claims -> claims.get("role", String.class));
+                // One verification yields the subject and role; repeat requests hit the token cache
+                Claims claims = jwtService.verifyToken(token);
+                String email = claims.getSubject();
+                String role = claims.get("role", String.class);
                 
-                // Create a simple UserDetails for validation
-                org.springframework.security.core.userdetails.User userDetails = 
-                    new org.springframework.security.core.userdetails.User(
-                        email, 
-                        "", 
-                        List.of(new SimpleGrantedAuthority("ROLE_" + role))
-                    );
-                
-                // Validate token with key rotation support
-                if (jwtService.isTokenValidWithKeyRotation(token, userDetails)) {
+                if (email != null && !email.isEmpty()) {
                     UsernamePasswordAuthenticationToken authToken = 
                             new UsernamePasswordAuthenticationToken(
                                     email, 
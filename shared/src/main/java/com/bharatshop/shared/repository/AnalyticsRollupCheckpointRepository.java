@@ -0,0 +1,9 @@
+package com.bharatshop.shared.repository;
+
+import com.bharatshop.shared.entity.AnalyticsRollupCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AnalyticsRollupCheckpointRepository extends JpaRepository<AnalyticsRollupCheckpoint, String> {
+}
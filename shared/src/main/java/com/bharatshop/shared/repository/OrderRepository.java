@@ -158,4 +158,10 @@ public interface OrderRepository extends JpaRepository<Orders, Long> {
            "SUM(CASE WHEN payment_status = 'COMPLETED' THEN total_amount ELSE 0 END) " +
            "FROM orders WHERE tenant_id = :tenantId", nativeQuery = true)
     Object[] getOrderStatsByTenantId(@Param("tenantId") Long tenantId);
-}
\ No newline at end of file
+    
+    /**
+     * Tenants and days (by placement date) of orders updated after the given time
+     */
+    @Query(value = "SELECT DISTINCT tenant_id, CAST(created_at AS DATE) FROM orders WHERE updated_at > :since", nativeQuery = true)
+    List<Object[]> findTenantDaysUpdatedSince(@Param("since") LocalDateTime since);
+}
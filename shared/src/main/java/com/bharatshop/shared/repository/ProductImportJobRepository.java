@@ -0,0 +1,46 @@
+package com.bharatshop.shared.repository;
+
+import com.bharatshop.shared.entity.ProductImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for background product import jobs.
+ */
+@Repository
+public interface ProductImportJobRepository extends JpaRepository<ProductImportJob, Long> {
+
+    Optional<ProductImportJob> findByIdAndTenantId(Long id, Long tenantId);
+
+    /**
+     * Find a node's queued jobs and its running jobs whose worker's lease ran out
+     */
+    @Query("SELECT j.id FROM ProductImportJob j WHERE j.ownerNode = :ownerNode AND " +
+           "j.status IN (com.bharatshop.shared.entity.ProductImportJob.ImportStatus.QUEUED, " +
+           "com.bharatshop.shared.entity.ProductImportJob.ImportStatus.RUNNING) " +
+           "AND j.leaseUntil <= :now ORDER BY j.id ASC")
+    List<Long> findClaimableJobIds(@Param("ownerNode") String ownerNode, @Param("now") LocalDateTime now);
+
+    /**
+     * Claim a job for a worker of its owning node, leasing it until leaseUntil.
+     * Returns 0 when another worker holds it or the job belongs to another node.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE ProductImportJob j SET " +
+           "j.status = com.bharatshop.shared.entity.ProductImportJob.ImportStatus.RUNNING, " +
+           "j.leaseUntil = :leaseUntil, j.updatedAt = :now " +
+           "WHERE j.id = :id AND j.ownerNode = :ownerNode AND j.leaseUntil <= :now AND " +
+           "j.status IN (com.bharatshop.shared.entity.ProductImportJob.ImportStatus.QUEUED, " +
+           "com.bharatshop.shared.entity.ProductImportJob.ImportStatus.RUNNING)")
+    int claim(@Param("id") Long id, @Param("ownerNode") String ownerNode,
+              @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+}
@@ -4,8 +4,11 @@ import com.bharatshop.shared.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,12 +21,48 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Optional<Product> findByIdAndTenantIdAndDeletedAtIsNull(Long id, Long tenantId);
 
+    // Keyset pagination: the next page of products after afterId, in id order
+    List<Product> findByTenantIdAndDeletedAtIsNullAndIdGreaterThanOrderByIdAsc(Long tenantId, Long afterId, Pageable pageable);
+
     Optional<Product> findBySlugAndTenantIdAndDeletedAtIsNull(String slug, Long tenantId);
 
     List<Product> findByTenantIdAndStatusAndDeletedAtIsNull(Long tenantId, Product.ProductStatus status);
 
     Page<Product> findByTenantIdAndStatusAndDeletedAtIsNull(Long tenantId, Product.ProductStatus status, Pageable pageable);
 
+    /**
+     * Products of a tenant in a status with their variants fetched in the same
+     * query, for building the search index outside a persistence context
+     */
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.variants " +
+           "WHERE p.tenantId = :tenantId AND p.status = :status AND p.deletedAt IS NULL")
+    List<Product> findWithVariantsByTenantIdAndStatus(@Param("tenantId") Long tenantId,
+                                                      @Param("status") Product.ProductStatus status);
+
+    /**
+     * [product id, category id] pairs of a tenant's products in a status
+     */
+    @Query("SELECT p.id, c FROM Product p JOIN p.categories c " +
+           "WHERE p.tenantId = :tenantId AND p.status = :status AND p.deletedAt IS NULL")
+    List<Object[]> findCategoryIdsByTenantIdAndStatus(@Param("tenantId") Long tenantId,
+                                                      @Param("status") Product.ProductStatus status);
+
+    /**
+     * Products of a tenant by ID with their variants fetched in the same query
+     */
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.variants " +
+           "WHERE p.tenantId = :tenantId AND p.id IN :ids")
+    List<Product> findWithVariantsByTenantIdAndIdIn(@Param("tenantId") Long tenantId,
+                                                    @Param("ids") Collection<Long> ids);
+
+    /**
+     * [product id, category id] pairs of a tenant's products by ID
+     */
+    @Query("SELECT p.id, c FROM Product p JOIN p.categories c " +
+           "WHERE p.tenantId = :tenantId AND p.id IN :ids")
+    List<Object[]> findCategoryIdsByTenantIdAndIdIn(@Param("tenantId") Long tenantId,
+                                                    @Param("ids") Collection<Long> ids);
+
     // Simplified method name-based queries to avoid HQL validation issues
     long countByTenantIdAndDeletedAtIsNull(Long tenantId);
     
@@ -40,4 +79,8 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Page<Product> findByTenantIdAndFeaturedInSitemapTrueAndDeletedAtIsNull(Long tenantId, Pageable pageable);
     
     long countByTenantIdAndFeaturedInSitemapTrueAndDeletedAtIsNull(Long tenantId);
-}
\ No newline at end of file
+    
+    // Slugs are unique across all tenants, including deleted products
+    @Query("SELECT p.slug FROM Product p WHERE p.slug IN :slugs")
+    List<String> findExistingSlugs(@Param("slugs") Collection<String> slugs);
+}
@@ -11,6 +11,8 @@ import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -200,7 +202,65 @@ public interface ProductVariantRepository extends TenantAwareRepository<ProductV
     @Modifying
     @Query(value = "UPDATE product_variants SET stock = stock - ?3, updated_at = CURRENT_TIMESTAMP WHERE id = ?1 AND tenant_id = ?2 AND stock >= ?3", nativeQuery = true)
     int decrementStock(Long id, Long tenantId, Integer quantity);
-    
+
+    /**
+     * Reserve quantity of an active variant if stock minus reserved stock covers it
+     * Returns the number of rows updated; 0 means the variant cannot be reserved
+     */
+    @Modifying
+    @Query(value = "UPDATE product_variants SET reserved_stock = reserved_stock + ?3 " +
+           "WHERE id = ?2 AND tenant_id = ?1 AND status = 'ACTIVE' AND deleted_at IS NULL " +
+           "AND stock - reserved_stock >= ?3", nativeQuery = true)
+    int reserveStock(Long tenantId, Long id, Integer quantity);
+
+    /**
+     * Return reserved quantity of a variant, never going below zero
+     */
+    @Modifying
+    @Query(value = "UPDATE product_variants SET reserved_stock = " +
+           "CASE WHEN reserved_stock > ?2 THEN reserved_stock - ?2 ELSE 0 END " +
+           "WHERE id = ?1", nativeQuery = true)
+    int releaseReservedStock(Long id, Integer quantity);
+
+    /**
+     * Take reserved quantity of a variant out of its stock
+     * Returns the number of rows updated; 0 means stock would go negative
+     */
+    @Modifying
+    @Query(value = "UPDATE product_variants SET stock = stock - ?2, " +
+           "reserved_stock = CASE WHEN reserved_stock > ?2 THEN reserved_stock - ?2 ELSE 0 END, " +
+           "updated_at = ?3 WHERE id = ?1 AND stock >= ?2", nativeQuery = true)
+    int commitReservedStock(Long id, Integer quantity, LocalDateTime now);
+
+    /**
+     * [product id, available stock] of every product owning one of the given variants,
+     * summed over the product's variants
+     */
+    @Query(value = "SELECT product_id, SUM(CASE WHEN stock > reserved_stock THEN stock - reserved_stock ELSE 0 END) " +
+           "FROM product_variants WHERE deleted_at IS NULL AND product_id IN " +
+           "(SELECT product_id FROM product_variants WHERE id IN (?1)) GROUP BY product_id", nativeQuery = true)
+    List<Object[]> sumAvailableStockOfProductsWithVariants(Collection<Long> variantIds);
+
+    /**
+     * IDs of variants whose reserved stock differs from the sum of their active reservations
+     */
+    @Query(value = "SELECT v.id FROM product_variants v WHERE v.reserved_stock <> " +
+           "(SELECT COALESCE(SUM(r.quantity), 0) FROM reservations r " +
+           "WHERE r.product_variant_id = v.id AND r.status = 'ACTIVE') ORDER BY v.id", nativeQuery = true)
+    List<Long> findIdsWithUnreconciledReservedStock();
+
+    /**
+     * Reset one variant's reserved stock to the sum of its active reservations
+     * Returns 0 when the two already agree
+     */
+    @Modifying
+    @Query(value = "UPDATE product_variants SET reserved_stock = " +
+           "(SELECT COALESCE(SUM(r.quantity), 0) FROM reservations r " +
+           "WHERE r.product_variant_id = ?1 AND r.status = 'ACTIVE') " +
+           "WHERE id = ?1 AND reserved_stock <> (SELECT COALESCE(SUM(r.quantity), 0) FROM reservations r " +
+           "WHERE r.product_variant_id = ?1 AND r.status = 'ACTIVE')", nativeQuery = true)
+    int reconcileReservedStock(Long id);
+
     /**
      * Clear default variant for product
      */
@@ -297,4 +357,10 @@ public interface ProductVariantRepository extends TenantAwareRepository<ProductV
      * Check if barcode exists for tenant
      */
     boolean existsByBarcodeAndTenantId(String barcode, Long tenantId);
-}
\ No newline at end of file
+    
+    /**
+     * Find which of the given SKUs are taken for tenant, including deleted variants
+     */
+    @Query(value = "SELECT sku FROM product_variants WHERE tenant_id = :tenantId AND sku IN (:skus)", nativeQuery = true)
+    List<String> findExistingSkus(@Param("tenantId") Long tenantId, @Param("skus") Collection<String> skus);
+}
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -63,12 +64,73 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     );
     
     /**
-     * Bulk update expired reservations to RELEASED status
+     * Lock a batch of expired active reservations in ID order
+     * Returns rows of [id, tenant_id, product_variant_id, quantity]
+     */
+    @Query(value = "SELECT id, tenant_id, product_variant_id, quantity FROM reservations " +
+           "WHERE status = 'ACTIVE' AND expires_at <= ?1 " +
+           "ORDER BY id LIMIT ?2 FOR UPDATE", nativeQuery = true)
+    List<Object[]> findExpiredForRelease(LocalDateTime now, int limit);
+    
+    /**
+     * Lock a batch of expired active reservations of the given variants in ID order
+     * Returns rows of [id, tenant_id, product_variant_id, quantity]
+     */
+    @Query(value = "SELECT id, tenant_id, product_variant_id, quantity FROM reservations " +
+           "WHERE status = 'ACTIVE' AND product_variant_id IN (?1) AND expires_at <= ?2 " +
+           "ORDER BY id LIMIT ?3 FOR UPDATE", nativeQuery = true)
+    List<Object[]> findExpiredForRelease(Collection<Long> productVariantIds, LocalDateTime now, int limit);
+    
+    /**
+     * Lock a batch of stale active reservations (created before threshold) in ID order
+     * Returns rows of [id, tenant_id, product_variant_id, quantity]
+     */
+    @Query(value = "SELECT id, tenant_id, product_variant_id, quantity FROM reservations " +
+           "WHERE status = 'ACTIVE' AND created_at <= ?1 " +
+           "ORDER BY id LIMIT ?2 FOR UPDATE", nativeQuery = true)
+    List<Object[]> findStaleForRelease(LocalDateTime threshold, int limit);
+    
+    /**
+     * Release an active reservation
+     * Returns 0 if the reservation was already committed or released
+     */
+    @Modifying
+    @Query(value = "UPDATE reservations SET status = 'RELEASED', updated_at = ?2 " +
+           "WHERE id = ?1 AND status = 'ACTIVE'", nativeQuery = true)
+    int releaseReservation(Long id, LocalDateTime now);
+    
+    /**
+     * Bulk update active reservations to RELEASED status
+     */
+    @Modifying
+    @Query(value = "UPDATE reservations SET status = 'RELEASED', updated_at = ?2 " +
+           "WHERE id IN (?1) AND status = 'ACTIVE'", nativeQuery = true)
+    int releaseReservations(Collection<Long> reservationIds, LocalDateTime now);
+    
+    /**
+     * Find tenant, variant and expiry of all active reservations
+     * Returns rows of [tenantId, productVariantId, expiresAt]
+     */
+    @Query("SELECT r.tenantId, r.productVariantId, r.expiresAt FROM Reservation r " +
+           "WHERE r.status = com.bharatshop.shared.entity.Reservation.ReservationStatus.ACTIVE")
+    List<Object[]> findActiveReservationExpiries();
+    
+    /**
+     * Bulk update active reservations to COMMITTED status
+     */
+    @Modifying
+    @Query(value = "UPDATE reservations SET status = 'COMMITTED', updated_at = ?2 " +
+           "WHERE id IN (?1) AND status = 'ACTIVE'", nativeQuery = true)
+    int markCommitted(Collection<Long> reservationIds, LocalDateTime now);
+    
+    /**
+     * Commit an active reservation to an order
+     * Returns 0 if the reservation was already committed or released
      */
     @Modifying
-    @Query(value = "UPDATE reservations SET status = 'RELEASED', updated_at = ?1 " +
-           "WHERE status = 'ACTIVE' AND expires_at <= ?1", nativeQuery = true)
-    int releaseExpiredReservations(LocalDateTime now);
+    @Query(value = "UPDATE reservations SET status = 'COMMITTED', order_id = ?2, updated_at = ?3 " +
+           "WHERE id = ?1 AND status = 'ACTIVE'", nativeQuery = true)
+    int commitReservation(Long id, Long orderId, LocalDateTime now);
     
     /**
      * Find reservations by tenant and status
@@ -1,6 +1,7 @@
 package com.bharatshop.shared.repository;
 
 import com.bharatshop.shared.entity.Shipment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -48,16 +49,16 @@ public interface ShipmentRepository extends JpaRepository<Shipment, Long> {
     List<Shipment> findByStatusAndTenantId(Shipment.ShipmentStatus status, Long tenantId);
 
     /**
-     * Find active shipments for polling (used by tracking scheduler)
+     * Find active shipments whose next carrier poll is due, most overdue first
      */
     @Query("SELECT s FROM Shipment s WHERE s.status IN :statuses " +
-           "AND (s.lastTrackedAt IS NULL OR s.lastTrackedAt < :lastTrackedBefore) " +
+           "AND (s.nextPollAt IS NULL OR s.nextPollAt <= :now) " +
            "AND s.deletedAt IS NULL " +
-           "ORDER BY s.lastTrackedAt ASC NULLS FIRST")
-    List<Shipment> findActiveShipmentsForPolling(
+           "ORDER BY s.nextPollAt ASC NULLS FIRST")
+    List<Shipment> findShipmentsDueForPolling(
             @Param("statuses") List<Shipment.ShipmentStatus> statuses,
-            @Param("lastTrackedBefore") LocalDateTime lastTrackedBefore,
-            @Param("limit") int limit);
+            @Param("now") LocalDateTime now,
+            Pageable pageable);
 
     /**
      * Find shipments that need status sync with orders
@@ -67,6 +67,16 @@ public interface ShipmentTrackingRepository extends JpaRepository<ShipmentTracki
            "ORDER BY st.eventDate DESC")
     List<ShipmentTracking> findMilestonesByShipmentId(@Param("shipmentId") Long shipmentId);
 
+    /**
+     * Find the most recent milestone event for a shipment
+     */
+    @Query("SELECT st FROM ShipmentTracking st WHERE st.shipmentId = :shipmentId " +
+           "AND st.isMilestone = true " +
+           "AND st.deletedAt IS NULL " +
+           "ORDER BY st.eventDate DESC " +
+           "LIMIT 1")
+    Optional<ShipmentTracking> findLatestMilestoneByShipmentId(@Param("shipmentId") Long shipmentId);
+
     /**
      * Find exception events for a shipment
      */
@@ -0,0 +1,54 @@
+package com.bharatshop.shared.repository;
+
+import com.bharatshop.shared.entity.VendorDailyCustomerRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VendorDailyCustomerRollupRepository extends JpaRepository<VendorDailyCustomerRollup, Long> {
+
+    @Modifying
+    @Query(value = "DELETE FROM vendor_daily_customer_rollups WHERE tenant_id = :tenantId AND stat_date = :day", nativeQuery = true)
+    int deleteDay(@Param("tenantId") Long tenantId, @Param("day") LocalDate day);
+
+    /**
+     * Count paid orders per customer for one day of a tenant's orders, placed from start until end
+     */
+    @Modifying
+    @Query(value = "INSERT INTO vendor_daily_customer_rollups (tenant_id, stat_date, customer_id, order_count) " +
+           "SELECT o.tenant_id, :day, o.customer_id, COUNT(*) FROM orders o " +
+           "WHERE o.tenant_id = :tenantId AND o.payment_status = 'COMPLETED' " +
+           "AND o.created_at >= :start AND o.created_at < :end " +
+           "GROUP BY o.tenant_id, o.customer_id", nativeQuery = true)
+    int insertDay(@Param("tenantId") Long tenantId, @Param("day") LocalDate day,
+                  @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "DELETE FROM vendor_daily_customer_rollups", nativeQuery = true)
+    int deleteAllRollups();
+
+    @Modifying
+    @Query(value = "INSERT INTO vendor_daily_customer_rollups (tenant_id, stat_date, customer_id, order_count) " +
+           "SELECT o.tenant_id, CAST(o.created_at AS DATE), o.customer_id, COUNT(*) FROM orders o " +
+           "WHERE o.payment_status = 'COMPLETED' " +
+           "GROUP BY o.tenant_id, CAST(o.created_at AS DATE), o.customer_id", nativeQuery = true)
+    int insertAll();
+
+    /**
+     * Distinct customers and customers with more than one paid order over a range of days, as one row
+     */
+    @Query(value = "SELECT COUNT(*), COALESCE(SUM(CASE WHEN c.orders > 1 THEN 1 ELSE 0 END), 0) FROM (" +
+           "SELECT customer_id, SUM(order_count) AS orders FROM vendor_daily_customer_rollups " +
+           "WHERE tenant_id = :tenantId AND stat_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY customer_id) c", nativeQuery = true)
+    List<Object[]> countCustomers(@Param("tenantId") Long tenantId,
+                                  @Param("fromDate") LocalDate fromDate,
+                                  @Param("toDate") LocalDate toDate);
+}
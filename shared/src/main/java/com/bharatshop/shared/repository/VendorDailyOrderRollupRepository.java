@@ -0,0 +1,67 @@
+package com.bharatshop.shared.repository;
+
+import com.bharatshop.shared.entity.VendorDailyOrderRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VendorDailyOrderRollupRepository extends JpaRepository<VendorDailyOrderRollup, Long> {
+
+    @Modifying
+    @Query(value = "DELETE FROM vendor_daily_order_rollups WHERE tenant_id = :tenantId AND stat_date = :day", nativeQuery = true)
+    int deleteDay(@Param("tenantId") Long tenantId, @Param("day") LocalDate day);
+
+    /**
+     * Aggregate one day of a tenant's orders, placed from start until end
+     */
+    @Modifying
+    @Query(value = "INSERT INTO vendor_daily_order_rollups (tenant_id, stat_date, status, order_count, paid_order_count, revenue) " +
+           "SELECT o.tenant_id, :day, o.status, COUNT(*), " +
+           "SUM(CASE WHEN o.payment_status = 'COMPLETED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN o.payment_status = 'COMPLETED' THEN o.total_amount ELSE 0 END) " +
+           "FROM orders o WHERE o.tenant_id = :tenantId AND o.created_at >= :start AND o.created_at < :end " +
+           "GROUP BY o.tenant_id, o.status", nativeQuery = true)
+    int insertDay(@Param("tenantId") Long tenantId, @Param("day") LocalDate day,
+                  @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "DELETE FROM vendor_daily_order_rollups", nativeQuery = true)
+    int deleteAllRollups();
+
+    @Modifying
+    @Query(value = "INSERT INTO vendor_daily_order_rollups (tenant_id, stat_date, status, order_count, paid_order_count, revenue) " +
+           "SELECT o.tenant_id, CAST(o.created_at AS DATE), o.status, COUNT(*), " +
+           "SUM(CASE WHEN o.payment_status = 'COMPLETED' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN o.payment_status = 'COMPLETED' THEN o.total_amount ELSE 0 END) " +
+           "FROM orders o GROUP BY o.tenant_id, CAST(o.created_at AS DATE), o.status", nativeQuery = true)
+    int insertAll();
+
+    /**
+     * Per status: orders, paid orders and revenue over a range of days
+     */
+    @Query(value = "SELECT status, SUM(order_count), SUM(paid_order_count), SUM(revenue) " +
+           "FROM vendor_daily_order_rollups " +
+           "WHERE tenant_id = :tenantId AND stat_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY status", nativeQuery = true)
+    List<Object[]> sumByStatus(@Param("tenantId") Long tenantId,
+                               @Param("fromDate") LocalDate fromDate,
+                               @Param("toDate") LocalDate toDate);
+
+    /**
+     * Per month: year, month, orders, paid orders and revenue over a range of days
+     */
+    @Query(value = "SELECT YEAR(stat_date), MONTH(stat_date), SUM(order_count), SUM(paid_order_count), SUM(revenue) " +
+           "FROM vendor_daily_order_rollups " +
+           "WHERE tenant_id = :tenantId AND stat_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY YEAR(stat_date), MONTH(stat_date)", nativeQuery = true)
+    List<Object[]> sumByMonth(@Param("tenantId") Long tenantId,
+                              @Param("fromDate") LocalDate fromDate,
+                              @Param("toDate") LocalDate toDate);
+}
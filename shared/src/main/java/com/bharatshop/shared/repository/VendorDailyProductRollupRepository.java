@@ -0,0 +1,77 @@
+package com.bharatshop.shared.repository;
+
+import com.bharatshop.shared.entity.VendorDailyProductRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VendorDailyProductRollupRepository extends JpaRepository<VendorDailyProductRollup, Long> {
+
+    @Modifying
+    @Query(value = "DELETE FROM vendor_daily_product_rollups WHERE tenant_id = :tenantId AND stat_date = :day", nativeQuery = true)
+    int deleteDay(@Param("tenantId") Long tenantId, @Param("day") LocalDate day);
+
+    /**
+     * Aggregate product sales of one day of a tenant's paid orders, placed from start until end
+     */
+    @Modifying
+    @Query(value = "INSERT INTO vendor_daily_product_rollups (tenant_id, stat_date, product_id, product_name, product_sku, " +
+           "product_image_url, units_sold, revenue, order_count) " +
+           "SELECT o.tenant_id, :day, oi.product_id, MAX(oi.product_name), MAX(oi.product_sku), MAX(oi.product_image_url), " +
+           "SUM(oi.quantity), SUM(oi.price * oi.quantity), COUNT(DISTINCT o.id) " +
+           "FROM order_items oi JOIN orders o ON oi.order_id = o.id " +
+           "WHERE o.tenant_id = :tenantId AND o.payment_status = 'COMPLETED' " +
+           "AND o.created_at >= :start AND o.created_at < :end " +
+           "GROUP BY o.tenant_id, oi.product_id", nativeQuery = true)
+    int insertDay(@Param("tenantId") Long tenantId, @Param("day") LocalDate day,
+                  @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query(value = "DELETE FROM vendor_daily_product_rollups", nativeQuery = true)
+    int deleteAllRollups();
+
+    @Modifying
+    @Query(value = "INSERT INTO vendor_daily_product_rollups (tenant_id, stat_date, product_id, product_name, product_sku, " +
+           "product_image_url, units_sold, revenue, order_count) " +
+           "SELECT o.tenant_id, CAST(o.created_at AS DATE), oi.product_id, MAX(oi.product_name), MAX(oi.product_sku), " +
+           "MAX(oi.product_image_url), SUM(oi.quantity), SUM(oi.price * oi.quantity), COUNT(DISTINCT o.id) " +
+           "FROM order_items oi JOIN orders o ON oi.order_id = o.id " +
+           "WHERE o.payment_status = 'COMPLETED' " +
+           "GROUP BY o.tenant_id, CAST(o.created_at AS DATE), oi.product_id", nativeQuery = true)
+    int insertAll();
+
+    /**
+     * Top products over a range of days: product id, name, SKU, revenue,
+     * units sold, orders and image URL, by revenue
+     */
+    @Query(value = "SELECT product_id, MAX(product_name), MAX(product_sku), SUM(revenue), SUM(units_sold), " +
+           "SUM(order_count), MAX(product_image_url) " +
+           "FROM vendor_daily_product_rollups " +
+           "WHERE tenant_id = :tenantId AND stat_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY product_id ORDER BY SUM(revenue) DESC, product_id ASC", nativeQuery = true)
+    List<Object[]> findTopProductsByRevenue(@Param("tenantId") Long tenantId,
+                                            @Param("fromDate") LocalDate fromDate,
+                                            @Param("toDate") LocalDate toDate,
+                                            Pageable pageable);
+
+    /**
+     * Same columns as findTopProductsByRevenue, by units sold
+     */
+    @Query(value = "SELECT product_id, MAX(product_name), MAX(product_sku), SUM(revenue), SUM(units_sold), " +
+           "SUM(order_count), MAX(product_image_url) " +
+           "FROM vendor_daily_product_rollups " +
+           "WHERE tenant_id = :tenantId AND stat_date BETWEEN :fromDate AND :toDate " +
+           "GROUP BY product_id ORDER BY SUM(units_sold) DESC, product_id ASC", nativeQuery = true)
+    List<Object[]> findTopProductsByQuantity(@Param("tenantId") Long tenantId,
+                                             @Param("fromDate") LocalDate fromDate,
+                                             @Param("toDate") LocalDate toDate,
+                                             Pageable pageable);
+}
@@ -0,0 +1,56 @@
+package com.bharatshop.shared.repository;
+
+import com.bharatshop.shared.entity.WebhookDelivery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the webhook delivery retry queue.
+ */
+@Repository
+public interface WebhookDeliveryRepository extends JpaRepository<WebhookDelivery, Long> {
+
+    /**
+     * Find deliveries whose next attempt is due, including in-flight attempts whose lease ran out
+     */
+    @Query("SELECT d.id FROM WebhookDelivery d WHERE " +
+           "d.status IN (com.bharatshop.shared.entity.WebhookDelivery.DeliveryStatus.RETRY, " +
+           "com.bharatshop.shared.entity.WebhookDelivery.DeliveryStatus.SENDING) " +
+           "AND d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt ASC")
+    List<Long> findDueDeliveryIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Claim the given deliveries that are still due in one statement, leasing
+     * them until leaseUntil and tagging them with claimToken. Deliveries another
+     * node claimed first are left alone.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WebhookDelivery d SET " +
+           "d.status = com.bharatshop.shared.entity.WebhookDelivery.DeliveryStatus.SENDING, " +
+           "d.nextAttemptAt = :leaseUntil, d.claimToken = :claimToken, d.updatedAt = :now " +
+           "WHERE d.id IN :ids AND d.nextAttemptAt <= :now AND " +
+           "d.status IN (com.bharatshop.shared.entity.WebhookDelivery.DeliveryStatus.RETRY, " +
+           "com.bharatshop.shared.entity.WebhookDelivery.DeliveryStatus.SENDING)")
+    int claimAll(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken,
+                 @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Load the deliveries a sweep claimed
+     */
+    List<WebhookDelivery> findByIdInAndClaimToken(Collection<Long> ids, String claimToken);
+
+    /**
+     * Count deliveries by status
+     */
+    long countByStatus(WebhookDelivery.DeliveryStatus status);
+}
@@ -0,0 +1,46 @@
+package com.bharatshop.shared.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket limiting calls to one carrier's API. Allows a burst of up to one
+ * second's worth of requests, then spaces requests evenly at the configured rate.
+ */
+final class CarrierRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double maxPermits;
+    private double storedPermits;
+    private long lastRefillNanos;
+
+    CarrierRateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond must be positive");
+        }
+        this.permitsPerSecond = permitsPerSecond;
+        this.maxPermits = Math.max(1, permitsPerSecond);
+        this.storedPermits = maxPermits;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Wait until a request may be made
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take a permit, returning how long the caller must wait before using it
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        storedPermits = Math.min(maxPermits, storedPermits + (now - lastRefillNanos) * permitsPerSecond / 1e9);
+        lastRefillNanos = now;
+        storedPermits -= 1;
+        return storedPermits >= 0 ? 0 : (long) (-storedPermits / permitsPerSecond * 1e9);
+    }
+}
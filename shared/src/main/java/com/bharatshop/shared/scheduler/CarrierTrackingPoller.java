@@ -0,0 +1,189 @@
+package com.bharatshop.shared.scheduler;
+
+import com.bharatshop.shared.entity.Shipment;
+import com.bharatshop.shared.service.ShipmentTrackingService;
+import com.bharatshop.shared.service.ShipmentTrackingService.CarrierPolicy;
+import com.bharatshop.shared.service.ShipmentTrackingService.TrackingEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Polls carrier tracking APIs for many shipments concurrently.
+ *
+ * Shipments are grouped by carrier and packed into bulk requests of the
+ * carrier's batch size. Each carrier gets as many workers as its concurrency
+ * cap and a token bucket for its request rate, so one slow or strict carrier
+ * does not hold up the others. Batches are sent in order of the shipments'
+ * expected next scan, so the most overdue shipments are polled first if a run
+ * hits its time budget.
+ */
+@Component
+public class CarrierTrackingPoller {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CarrierTrackingPoller.class);
+
+    private final ShipmentTrackingService shipmentTrackingService;
+    private final ExecutorService executor;
+    private final long runTimeoutMillis;
+    private final ConcurrentMap<String, CarrierRateLimiter> rateLimiters = new ConcurrentHashMap<>();
+
+    public CarrierTrackingPoller(ShipmentTrackingService shipmentTrackingService,
+                                 @Value("${bharatshop.tracking.polling.threads:8}") int threads,
+                                 @Value("${bharatshop.tracking.polling.run-timeout:240000}") long runTimeoutMillis) {
+        this.shipmentTrackingService = shipmentTrackingService;
+        this.runTimeoutMillis = runTimeoutMillis;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "carrier-poller-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Poll tracking for the given shipments, returning once all batches are done
+     * or the run timeout has passed
+     */
+    public PollResult poll(List<Shipment> shipments) {
+        Map<String, List<Shipment>> byCarrier = new LinkedHashMap<>();
+        for (Shipment shipment : shipments) {
+            if (shipment.getCarrierName() == null || shipment.getTrackingNumber() == null) {
+                continue;
+            }
+            byCarrier.computeIfAbsent(shipment.getCarrierName().toLowerCase(), key -> new ArrayList<>()).add(shipment);
+        }
+
+        Tally tally = new Tally();
+        List<Future<?>> workers = new ArrayList<>();
+        byCarrier.forEach((carrier, carrierShipments) -> {
+            CarrierPolicy policy = shipmentTrackingService.getCarrierPolicy(carrier);
+            Queue<List<Shipment>> batches = new ConcurrentLinkedQueue<>(toBatches(carrierShipments, policy.bulkSize()));
+            CarrierRateLimiter rateLimiter = rateLimiters.computeIfAbsent(carrier,
+                    key -> new CarrierRateLimiter(policy.requestsPerSecond()));
+            int workerCount = Math.min(Math.max(1, policy.maxConcurrency()), batches.size());
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(executor.submit(() -> drain(policy.carrier(), batches, rateLimiter, tally)));
+            }
+        });
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(runTimeoutMillis);
+        for (Future<?> worker : workers) {
+            try {
+                worker.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                worker.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                workers.forEach(remaining -> remaining.cancel(true));
+                break;
+            } catch (Exception e) {
+                log.error("Carrier tracking worker failed: {}", e.getMessage(), e);
+            }
+        }
+
+        int polled = tally.updated.get() + tally.unchanged.get() + tally.errors.get();
+        return new PollResult(shipments.size(), tally.updated.get(), tally.errors.get(),
+                shipments.size() - polled, tally.requests.get());
+    }
+
+    private void drain(String carrier, Queue<List<Shipment>> batches, CarrierRateLimiter rateLimiter, Tally tally) {
+        List<Shipment> batch;
+        while (!Thread.currentThread().isInterrupted() && (batch = batches.poll()) != null) {
+            Map<String, List<TrackingEvent>> events;
+            try {
+                rateLimiter.acquire();
+                tally.requests.incrementAndGet();
+                events = shipmentTrackingService.fetchCarrierTracking(carrier,
+                        batch.stream().map(Shipment::getTrackingNumber).toList());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to fetch {} tracking for {} shipments: {}", carrier, batch.size(), e.getMessage());
+                tally.errors.addAndGet(batch.size());
+                continue;
+            }
+
+            for (Shipment shipment : batch) {
+                try {
+                    boolean updated = shipmentTrackingService.applyCarrierTracking(shipment,
+                            events.getOrDefault(shipment.getTrackingNumber(), List.of()));
+                    (updated ? tally.updated : tally.unchanged).incrementAndGet();
+                } catch (Exception e) {
+                    tally.errors.incrementAndGet();
+                    log.error("Failed to update tracking for shipment {}: {}", shipment.getTrackingNumber(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Split a carrier's shipments into bulk requests, most overdue first
+     */
+    static List<List<Shipment>> toBatches(List<Shipment> shipments, int bulkSize) {
+        List<Shipment> ordered = new ArrayList<>(shipments);
+        ordered.sort(Comparator.comparing(CarrierTrackingPoller::expectedNextScan));
+        int size = Math.max(1, bulkSize);
+        List<List<Shipment>> batches = new ArrayList<>();
+        for (int from = 0; from < ordered.size(); from += size) {
+            batches.add(ordered.subList(from, Math.min(from + size, ordered.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * When a carrier is next expected to have scanned the shipment: its scheduled
+     * poll time if it has one, otherwise estimated from its status (parcels out
+     * for delivery move within hours, parcels in transit between hubs much less often)
+     */
+    static LocalDateTime expectedNextScan(Shipment shipment) {
+        if (shipment.getNextPollAt() != null) {
+            return shipment.getNextPollAt();
+        }
+        if (shipment.getLastTrackingUpdate() == null) {
+            return LocalDateTime.MIN;
+        }
+        long hours = shipment.getStatus() == null ? 8 : switch (shipment.getStatus()) {
+            case OUT_FOR_DELIVERY -> 1;
+            case PICKED_UP -> 4;
+            default -> 8;
+        };
+        return shipment.getLastTrackingUpdate().plusHours(hours);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Outcome of a polling run; skipped shipments were not reached before the run timed out
+     */
+    public record PollResult(int shipments, int updated, int errors, int skipped, int requests) {
+    }
+
+    private static final class Tally {
+        private final AtomicInteger updated = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        private final AtomicInteger requests = new AtomicInteger();
+    }
+}
@@ -0,0 +1,102 @@
+package com.bharatshop.shared.scheduler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timing wheel holding items until their deadline.
+ *
+ * Deadlines are rounded up to whole ticks and hashed into a fixed ring of
+ * buckets; items more than one revolution away simply stay in their bucket
+ * until the wheel comes round to their tick. Scheduling is O(1) and each
+ * advance only touches the buckets of the ticks that elapsed, so expiring an
+ * item costs the same however many items are waiting.
+ *
+ * Items are never returned before their deadline and, as long as
+ * {@link #advance(long)} is called every tick, at most one tick after it.
+ */
+public class ExpiryWheel<T> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<List<Slot<T>>> buckets;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis resolution of the wheel
+     * @param wheelSize number of buckets, rounded up to a power of two
+     * @param startMillis current time; nothing is due before it
+     */
+    public ExpiryWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        }
+        int buckets = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = buckets - 1;
+        this.buckets = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            this.buckets.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Hold {@code item} until {@code deadlineMillis}. Items already past their
+     * deadline are returned by the next advance.
+     */
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long deadlineTick = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        buckets.get((int) (deadlineTick & mask)).add(new Slot<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Advance the wheel to {@code nowMillis} and return every item whose
+     * deadline has passed.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> due = new ArrayList<>();
+        if (targetTick <= currentTick) {
+            return due;
+        }
+        if (targetTick - currentTick >= buckets.size()) {
+            // Fell behind by a full revolution: sweep every bucket once
+            for (List<Slot<T>> bucket : buckets) {
+                drain(bucket, targetTick, due);
+            }
+        } else {
+            for (long tick = currentTick + 1; tick <= targetTick; tick++) {
+                drain(buckets.get((int) (tick & mask)), tick, due);
+            }
+        }
+        currentTick = targetTick;
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void drain(List<Slot<T>> bucket, long upToTick, List<T> due) {
+        Iterator<Slot<T>> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Slot<T> slot = iterator.next();
+            if (slot.deadlineTick() <= upToTick) {
+                iterator.remove();
+                due.add(slot.item());
+                size--;
+            }
+        }
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    private record Slot<T>(T item, long deadlineTick) {
+    }
+}
@@ -1,96 +1,121 @@
 package com.bharatshop.shared.scheduler;
 
 import com.bharatshop.shared.service.ReservationService;
+import com.bharatshop.shared.service.StockLedger;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
- * Scheduled job to automatically clean up expired reservations
- * Runs every 5 minutes to release expired reservations and prevent stock leakage
+ * Scheduled jobs to automatically release expired reservations
+ * Expiry deadlines are held on a timing wheel and released within a second of
+ * expiring; a batched sweep every 5 minutes catches anything the wheel missed
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class ReservationCleanupScheduler {
-    
+
     // Manual log field to bypass Lombok issues
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ReservationCleanupScheduler.class);
 
     private final ReservationService reservationService;
+    private final StockLedger stockLedger;
+    private final ReservationExpiryTracker reservationExpiryTracker;
+
+    /**
+     * Track the expiry of reservations that were active before this node started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void trackActiveReservations() {
+        try {
+            int tracked = reservationService.trackActiveReservations();
+            log.info("Tracking expiry of {} active reservations", tracked);
+        } catch (Exception e) {
+            log.error("Failed to load active reservations for expiry tracking", e);
+        }
+    }
 
     /**
-     * Clean up expired reservations every 5 minutes
-     * This prevents stock from being held indefinitely by abandoned carts
+     * Release reservations whose deadline passed in the last tick
+     */
+    @Scheduled(fixedRate = 1000) // 1 second in milliseconds
+    public void releaseDueReservations() {
+        List<ReservationExpiryTracker.Expiry> due = reservationExpiryTracker.pollDue();
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            int releasedCount = reservationService.releaseDueReservations(due);
+            reservationExpiryTracker.recordExpiredReleases(releasedCount);
+            log.debug("Released {} expired reservations ({} deadlines due)", releasedCount, due.size());
+        } catch (Exception e) {
+            log.error("Failed to release expired reservations; the next sweep will retry", e);
+        }
+    }
+
+    /**
+     * Sweep overdue reservations every 5 minutes
+     * This catches reservations the wheel does not know about, e.g. ones
+     * created on a node that has since gone away. Only reservations overdue by
+     * more than the wheel's horizon are swept, one batch per transaction
      */
     @Scheduled(fixedRate = 300000) // 5 minutes in milliseconds
     public void cleanupExpiredReservations() {
         try {
-            System.out.println("Starting cleanup of expired reservations");
-            
-            int releasedCount = reservationService.cleanupExpiredReservations();
-            
-            if (releasedCount > 0) {
-                System.out.println("Released " + releasedCount + " expired reservations");
-            } else {
-                System.out.println("No expired reservations found to release");
-            }
-            
+            LocalDateTime expiredBefore = LocalDateTime.now().minus(reservationExpiryTracker.horizon());
+            int releasedCount = 0;
+            int released;
+            do {
+                released = reservationService.releaseOverdueReservations(expiredBefore);
+                releasedCount += released;
+            } while (released == ReservationService.RELEASE_BATCH_SIZE);
+            reservationExpiryTracker.recordExpiredReleases(releasedCount);
         } catch (Exception e) {
-            System.out.println("Failed to cleanup expired reservations: " + e.getMessage());
+            log.error("Failed to cleanup expired reservations", e);
         }
     }
 
     /**
-     * Clean up stale reservations every hour
-     * This handles reservations that may have been missed by the regular cleanup
+     * Release stale reservations every hour
+     * This handles active reservations older than 2 hours in a single statement
      */
     @Scheduled(fixedRate = 3600000) // 1 hour in milliseconds
     public void cleanupStaleReservations() {
         try {
-            System.out.println("Starting cleanup of stale reservations");
-            
-            // Get stale reservations (older than 2 hours)
-            var staleReservations = reservationService.getStaleReservations(120); // 2 hours
-            
-            if (!staleReservations.isEmpty()) {
-                System.out.println("Found " + staleReservations.size() + " stale reservations older than 2 hours");
-                
-                // Release each stale reservation
-                int releasedCount = 0;
-                for (var reservation : staleReservations) {
-                    try {
-                        reservationService.releaseReservation(reservation.getTenantId(), reservation.getId());
-                        releasedCount++;
-                    } catch (Exception e) {
-                        System.out.println("Failed to release stale reservation " + reservation.getId() + ": " + e.getMessage());
-                    }
-                }
-                
-                System.out.println("Released " + releasedCount + " stale reservations");
-            } else {
-                System.out.println("No stale reservations found");
-            }
-            
+            int releasedCount = reservationService.releaseStaleReservations(120); // 2 hours
+            reservationExpiryTracker.recordStaleReleases(releasedCount);
         } catch (Exception e) {
-            System.out.println("Failed to cleanup stale reservations: " + e.getMessage());
+            log.error("Failed to cleanup stale reservations", e);
         }
     }
 
     /**
-     * Log reservation statistics every 30 minutes for monitoring
+     * Drop the stock ledger's cached availability every minute
+     * This bounds how stale availability reads are after changes on other nodes
      */
-    @Scheduled(fixedRate = 1800000) // 30 minutes in milliseconds
-    public void logReservationStatistics() {
+    @Scheduled(fixedRate = 60000) // 1 minute in milliseconds
+    public void reconcileStockLedger() {
         try {
-            // This is a simple monitoring task - in production you might want to
-            // send these metrics to a monitoring system like Prometheus
-            System.out.println("Reservation cleanup scheduler is running normally");
+            stockLedger.reconcile();
         } catch (Exception e) {
-            System.out.println("Failed to log reservation statistics: " + e.getMessage());
+            log.error("Failed to reconcile stock ledger", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Log reservation statistics every 30 minutes for monitoring
+     * The same figures are exported continuously as bharatshop.reservations.* metrics
+     */
+    @Scheduled(fixedRate = 1800000) // 30 minutes in milliseconds
+    public void logReservationStatistics() {
+        log.info("Reservation expiry tracking: {} deadlines scheduled, {} cached stock ledger entries",
+                reservationExpiryTracker.scheduledCount(), stockLedger.size());
+    }
+}
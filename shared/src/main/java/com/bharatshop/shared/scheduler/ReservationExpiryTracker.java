@@ -0,0 +1,114 @@
+package com.bharatshop.shared.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Tracks reservation expiry deadlines on a timing wheel so expired
+ * reservations can be released within a second of expiring instead of on
+ * the next bulk sweep, and publishes reservation metrics.
+ */
+@Component
+public class ReservationExpiryTracker {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 1024;
+
+    private final ExpiryWheel<Expiry> wheel;
+    private final Timer expiryLag;
+    private final Counter releasedExpired;
+    private final Counter releasedStale;
+
+    public ReservationExpiryTracker(MeterRegistry meterRegistry) {
+        this.wheel = new ExpiryWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+        Gauge.builder("bharatshop.reservations.scheduled", wheel, ExpiryWheel::size)
+                .description("Reservation expiry deadlines waiting on this node")
+                .register(meterRegistry);
+        this.expiryLag = Timer.builder("bharatshop.reservations.expiry.lag")
+                .description("Delay between a reservation expiring and its release being triggered")
+                .register(meterRegistry);
+        this.releasedExpired = releasedCounter(meterRegistry, "expired");
+        this.releasedStale = releasedCounter(meterRegistry, "stale");
+    }
+
+    /**
+     * Track the expiry of a reservation once the current transaction commits.
+     */
+    public void track(Long tenantId, Long productVariantId, LocalDateTime expiresAt) {
+        Expiry expiry = new Expiry(tenantId, productVariantId, expiresAt);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule(expiry);
+                }
+            });
+        } else {
+            schedule(expiry);
+        }
+    }
+
+    /**
+     * Expiries whose deadline has passed since the last call.
+     */
+    public List<Expiry> pollDue() {
+        long now = System.currentTimeMillis();
+        List<Expiry> due = wheel.advance(now);
+        for (Expiry expiry : due) {
+            expiryLag.record(Duration.ofMillis(Math.max(0, now - toEpochMillis(expiry.expiresAt()))));
+        }
+        return due;
+    }
+
+    public void recordExpiredReleases(int count) {
+        releasedExpired.increment(count);
+    }
+
+    public void recordStaleReleases(int count) {
+        releasedStale.increment(count);
+    }
+
+    public int scheduledCount() {
+        return wheel.size();
+    }
+
+    /**
+     * One revolution of the wheel. A reservation overdue by longer than this
+     * was not tracked by this node, e.g. because the node that created it has
+     * gone away.
+     */
+    public Duration horizon() {
+        return Duration.ofMillis(TICK_MILLIS * WHEEL_SIZE);
+    }
+
+    private void schedule(Expiry expiry) {
+        wheel.schedule(expiry, toEpochMillis(expiry.expiresAt()));
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static Counter releasedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("bharatshop.reservations.released")
+                .description("Reservations released by the cleanup scheduler")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Expiry deadline of one reservation.
+     */
+    public record Expiry(Long tenantId, Long productVariantId, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.bharatshop.shared.scheduler;
+
+import com.bharatshop.shared.entity.Shipment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Decides when each shipment's carrier tracking should next be polled, instead
+ * of polling every active shipment on the same fixed cadence.
+ *
+ * Parcels out for delivery are polled often. Parcels in transit are polled less
+ * often the longer they have gone without a new milestone, since a parcel
+ * sitting at a hub rarely moves within the hour, but more often again once
+ * their expected delivery date is close. While the carrier keeps pushing
+ * webhooks, polling only runs as a safety net. Delivered and other terminal
+ * shipments are not polled at all.
+ */
+@Component
+public class ShipmentPollSchedule {
+
+    private final Duration outForDeliveryInterval;
+    private final Duration minTransitInterval;
+    private final Duration maxInterval;
+    private final Duration nearDeliveryInterval;
+    private final Duration webhookGrace;
+    private final int defaultSlaDays;
+
+    public ShipmentPollSchedule(
+            @Value("${bharatshop.tracking.schedule.out-for-delivery-interval:PT30M}") Duration outForDeliveryInterval,
+            @Value("${bharatshop.tracking.schedule.min-transit-interval:PT2H}") Duration minTransitInterval,
+            @Value("${bharatshop.tracking.schedule.max-interval:PT12H}") Duration maxInterval,
+            @Value("${bharatshop.tracking.schedule.near-delivery-interval:PT2H}") Duration nearDeliveryInterval,
+            @Value("${bharatshop.tracking.schedule.webhook-grace:PT12H}") Duration webhookGrace,
+            @Value("${bharatshop.tracking.schedule.default-sla-days:5}") int defaultSlaDays) {
+        this.outForDeliveryInterval = outForDeliveryInterval;
+        this.minTransitInterval = minTransitInterval;
+        this.maxInterval = maxInterval;
+        this.nearDeliveryInterval = nearDeliveryInterval;
+        this.webhookGrace = webhookGrace;
+        this.defaultSlaDays = defaultSlaDays;
+    }
+
+    /**
+     * Next time to poll the carrier for a shipment, or null if it no longer needs polling.
+     *
+     * @param lastMilestoneAt event date of the shipment's latest milestone, if any
+     */
+    public LocalDateTime nextPollAt(Shipment shipment, LocalDateTime lastMilestoneAt, LocalDateTime now) {
+        Shipment.ShipmentStatus status = shipment.getStatus();
+        if (status == null || isTerminal(status)) {
+            return null;
+        }
+
+        Duration interval = switch (status) {
+            case OUT_FOR_DELIVERY -> outForDeliveryInterval;
+            case DELIVERY_FAILED -> nearDeliveryInterval;
+            default -> transitInterval(shipment, lastMilestoneAt, now);
+        };
+
+        LocalDateTime nextPoll = now.plus(interval).plus(jitter(shipment, interval));
+
+        // Carrier is pushing updates; poll only if it goes quiet
+        LocalDateTime lastWebhookAt = shipment.getLastWebhookAt();
+        if (lastWebhookAt != null && lastWebhookAt.plus(webhookGrace).isAfter(nextPoll)) {
+            nextPoll = lastWebhookAt.plus(webhookGrace);
+        }
+        return nextPoll;
+    }
+
+    /**
+     * A third of the time since the last sign of progress, within bounds,
+     * tightened once the shipment is due for delivery
+     */
+    private Duration transitInterval(Shipment shipment, LocalDateTime lastMilestoneAt, LocalDateTime now) {
+        LocalDateTime lastProgress = firstNonNull(lastMilestoneAt, shipment.getShippedDate(), shipment.getCreatedAt(), now);
+        Duration sinceProgress = Duration.between(lastProgress, now);
+        Duration interval = clamp(sinceProgress.dividedBy(3), minTransitInterval, maxInterval);
+
+        LocalDateTime expectedDelivery = expectedDelivery(shipment);
+        if (expectedDelivery != null && !now.plus(interval).isBefore(expectedDelivery)) {
+            interval = clamp(interval, minTransitInterval, nearDeliveryInterval);
+        }
+        return interval;
+    }
+
+    private LocalDateTime expectedDelivery(Shipment shipment) {
+        if (shipment.getEstimatedDeliveryDate() != null) {
+            return shipment.getEstimatedDeliveryDate();
+        }
+        return shipment.getShippedDate() != null ? shipment.getShippedDate().plusDays(defaultSlaDays) : null;
+    }
+
+    /**
+     * Spread shipments that became due together by up to a tenth of the interval,
+     * stable per shipment
+     */
+    private static Duration jitter(Shipment shipment, Duration interval) {
+        long bound = Math.max(1, interval.toMillis() / 10);
+        long seed = shipment.getId() != null ? shipment.getId() * 0x9E3779B97F4A7C15L : 0;
+        return Duration.ofMillis(Math.floorMod(seed >>> 16, bound));
+    }
+
+    private static boolean isTerminal(Shipment.ShipmentStatus status) {
+        return switch (status) {
+            case DELIVERED, RETURNED, CANCELLED, LOST, DAMAGED -> true;
+            default -> false;
+        };
+    }
+
+    private static Duration clamp(Duration value, Duration min, Duration max) {
+        if (value.compareTo(min) < 0) {
+            return min;
+        }
+        return value.compareTo(max) > 0 ? max : value;
+    }
+
+    @SafeVarargs
+    private static <T> T firstNonNull(T... values) {
+        for (T value : values) {
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
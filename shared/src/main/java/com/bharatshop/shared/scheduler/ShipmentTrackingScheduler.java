@@ -23,63 +23,55 @@ import java.util.List;
 public class ShipmentTrackingScheduler {
     
     private final ShipmentTrackingService shipmentTrackingService;
+    private final CarrierTrackingPoller carrierTrackingPoller;
     
     @Value("${bharatshop.tracking.polling.enabled:true}")
     private boolean pollingEnabled;
     
-    @Value("${bharatshop.tracking.polling.interval:900000}") // 15 minutes default
+    @Value("${bharatshop.tracking.polling.interval:300000}") // 5 minutes default
     private long pollingInterval;
     
     @Value("${bharatshop.tracking.batch-size:50}")
     private int batchSize;
     
+    @Value("${bharatshop.tracking.polling.max-shipments:5000}")
+    private int maxShipmentsPerRun;
+    
     @Value("${bharatshop.tracking.max-age-days:30}")
     private int maxAgeDays;
 
     /**
-     * Poll carrier APIs for tracking updates every 15 minutes
-     * Only processes active shipments that haven't been delivered yet
+     * Poll carrier APIs for tracking updates every 5 minutes
+     * Only processes active shipments whose next poll is due (see ShipmentPollSchedule);
+     * carriers are polled concurrently in bulk requests within their rate limits
      */
-    @Scheduled(fixedRateString = "${bharatshop.tracking.polling.interval:900000}") // 15 minutes
+    @Scheduled(fixedRateString = "${bharatshop.tracking.polling.interval:300000}") // 5 minutes
     public void pollCarrierTrackingUpdates() {
         if (!pollingEnabled) {
-            System.out.println("Carrier polling is disabled, skipping tracking update");
+            log.debug("Carrier polling is disabled, skipping tracking update");
             return;
         }
         
         try {
-            System.out.println("Starting carrier tracking polling job");
+            log.info("Starting carrier tracking polling job");
             
             // Get active shipments that need tracking updates
-            List<Shipment> activeShipments = shipmentTrackingService.getActiveShipmentsForPolling(batchSize);
+            List<Shipment> activeShipments = shipmentTrackingService.getActiveShipmentsForPolling(maxShipmentsPerRun);
             
             if (activeShipments.isEmpty()) {
-                System.out.println("No active shipments found for tracking updates");
+                log.info("No active shipments found for tracking updates");
                 return;
             }
             
-            System.out.println("Processing tracking updates for " + activeShipments.size() + " active shipments");
-            
-            int updatedCount = 0;
-            int errorCount = 0;
-            
-            for (Shipment shipment : activeShipments) {
-                try {
-                    boolean hasUpdates = shipmentTrackingService.pollCarrierTracking(shipment);
-                    if (hasUpdates) {
-                        updatedCount++;
-                        System.out.println("Updated tracking for shipment: " + shipment.getTrackingNumber());
-                    }
-                } catch (Exception e) {
-                    errorCount++;
-                    System.out.println("Failed to update tracking for shipment " + shipment.getTrackingNumber() + ": " + e.getMessage());
-                }
-            }
+            log.info("Processing tracking updates for {} active shipments", activeShipments.size());
+            
+            CarrierTrackingPoller.PollResult result = carrierTrackingPoller.poll(activeShipments);
             
-            System.out.println("Tracking polling completed - Updated: " + updatedCount + ", Errors: " + errorCount + ", Total: " + activeShipments.size());
+            log.info("Tracking polling completed - Updated: {}, Errors: {}, Skipped: {}, Carrier requests: {}, Total: {}",
+                    result.updated(), result.errors(), result.skipped(), result.requests(), result.shipments());
             
         } catch (Exception e) {
-            System.out.println("Failed to execute carrier tracking polling job: " + e.getMessage());
+            log.error("Failed to execute carrier tracking polling job: {}", e.getMessage(), e);
         }
     }
 
@@ -0,0 +1,171 @@
+package com.bharatshop.shared.scheduler;
+
+import com.bharatshop.shared.entity.AnalyticsRollupCheckpoint;
+import com.bharatshop.shared.repository.AnalyticsRollupCheckpointRepository;
+import com.bharatshop.shared.repository.OrderRepository;
+import com.bharatshop.shared.service.VendorAnalyticsRollupService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Keeps the daily vendor analytics rollups up to date with order changes.
+ *
+ * Every order change bumps its updated_at, whichever code path saved it, so
+ * each run asks the orders table which tenant days changed since the last run
+ * and rebuilds just those days. The very first run builds the rollups from the
+ * full order history in one pass.
+ *
+ * Hard-deleted orders leave no updated_at behind, so their days are not
+ * refreshed by the incremental runs; a full rebuild on
+ * {@code app.analytics.rollup.rebuild-cron} (nightly by default) drops them.
+ *
+ * Only one node runs at a time: each run holds a Redis lock for at most
+ * {@code app.analytics.rollup.lock-lease}, and a node that cannot take it, or
+ * cannot reach Redis, skips the run.
+ */
+@Component
+public class VendorAnalyticsRollupScheduler {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(VendorAnalyticsRollupScheduler.class);
+
+    static final String CHECKPOINT = "vendor-daily-rollups";
+
+    private static final String LOCK_KEY = "job-lock:" + CHECKPOINT;
+
+    // Delete the lock only while it still holds this run's token
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final VendorAnalyticsRollupService rollupService;
+    private final OrderRepository orderRepository;
+    private final AnalyticsRollupCheckpointRepository checkpointRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration overlap;
+    private final Duration lockLease;
+
+    public VendorAnalyticsRollupScheduler(VendorAnalyticsRollupService rollupService,
+                                          OrderRepository orderRepository,
+                                          AnalyticsRollupCheckpointRepository checkpointRepository,
+                                          StringRedisTemplate redisTemplate,
+                                          @Value("${app.analytics.rollup.overlap:PT5M}") Duration overlap,
+                                          @Value("${app.analytics.rollup.lock-lease:PT30M}") Duration lockLease) {
+        this.rollupService = rollupService;
+        this.orderRepository = orderRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.redisTemplate = redisTemplate;
+        this.overlap = overlap;
+        this.lockLease = lockLease;
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.rollup.interval-ms:60000}")
+    public void refreshRollups() {
+        withLock(this::refreshChangedDays);
+    }
+
+    /**
+     * Rebuild everything from the order history, dropping days whose orders were deleted
+     */
+    @Scheduled(cron = "${app.analytics.rollup.rebuild-cron:0 30 3 * * *}")
+    public void rebuildRollups() {
+        withLock(() -> {
+            LocalDateTime startedAt = LocalDateTime.now();
+            try {
+                rollupService.rebuildAll();
+                saveCheckpoint(startedAt);
+            } catch (RuntimeException e) {
+                log.error("Error rebuilding vendor analytics rollups", e);
+            }
+        });
+    }
+
+    private void refreshChangedDays() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            Optional<AnalyticsRollupCheckpoint> checkpoint = checkpointRepository.findById(CHECKPOINT);
+            if (checkpoint.isEmpty()) {
+                rollupService.rebuildAll();
+                saveCheckpoint(startedAt);
+                return;
+            }
+
+            // Re-read a little before the checkpoint: a transaction that committed after the
+            // last run may carry an updated_at from before it
+            LocalDateTime since = checkpoint.get().getProcessedUntil().minus(overlap);
+            List<Object[]> changedDays = orderRepository.findTenantDaysUpdatedSince(since);
+            int failed = 0;
+            for (Object[] changedDay : changedDays) {
+                Long tenantId = ((Number) changedDay[0]).longValue();
+                LocalDate day = toLocalDate(changedDay[1]);
+                try {
+                    rollupService.refreshDay(tenantId, day);
+                } catch (RuntimeException e) {
+                    failed++;
+                    log.warn("Failed to refresh analytics rollups of tenant {} for {}: {}", tenantId, day, e.getMessage());
+                }
+            }
+
+            // Failed days are retried by the next run, which reads from the same checkpoint
+            if (failed == 0) {
+                saveCheckpoint(startedAt);
+            }
+            if (!changedDays.isEmpty()) {
+                log.debug("Refreshed analytics rollups for {} tenant days ({} failed)", changedDays.size(), failed);
+            }
+        } catch (RuntimeException e) {
+            log.error("Error refreshing vendor analytics rollups", e);
+        }
+    }
+
+    private void withLock(Runnable run) {
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, lockLease))) {
+                log.debug("Vendor analytics rollups are being refreshed by another node");
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Skipping vendor analytics rollup run, lock unavailable: {}", e.getMessage());
+            return;
+        }
+        try {
+            run.run();
+        } finally {
+            try {
+                redisTemplate.execute(RELEASE_LOCK, List.of(LOCK_KEY), token);
+            } catch (RuntimeException e) {
+                // The lease expires on its own
+                log.debug("Could not release vendor analytics rollup lock: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void saveCheckpoint(LocalDateTime processedUntil) {
+        checkpointRepository.save(AnalyticsRollupCheckpoint.builder()
+                .name(CHECKPOINT)
+                .processedUntil(processedUntil)
+                .build());
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate date) {
+            return date;
+        }
+        if (value instanceof Date date) {
+            return date.toLocalDate();
+        }
+        return LocalDate.parse(value.toString());
+    }
+}
@@ -0,0 +1,308 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.dto.NotificationRequest;
+import com.bharatshop.shared.dto.NotificationResponse;
+import com.bharatshop.shared.entity.CustomerNotificationPreference;
+import com.bharatshop.shared.entity.NotificationTemplate;
+import com.bharatshop.shared.provider.EmailProvider;
+import com.bharatshop.shared.provider.NotificationProvider;
+import com.bharatshop.shared.provider.SmsProvider;
+import com.bharatshop.shared.repository.CustomerNotificationPreferenceRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fans one notification event out to many customers (abandoned-cart reminders,
+ * promotions).
+ *
+ * Recipients are processed in chunks: preferences for a chunk come from one
+ * query, templates are resolved once per channel and locale, and rendered
+ * messages are grouped by provider and handed to the provider's bulk API in
+ * batches. Each provider has a limit on batches in flight. Nothing runs inside
+ * a long transaction, and one failing batch or recipient does not stop the rest.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkNotificationService {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(BulkNotificationService.class);
+
+    private final CustomerNotificationPreferenceRepository preferenceRepository;
+    private final NotificationTemplateService templateService;
+    private final TemplateRenderingService renderingService;
+    private final ObjectProvider<NotificationProvider> notificationProviders;
+
+    @Value("${app.notifications.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.notifications.bulk.provider-batch-size:100}")
+    private int providerBatchSize;
+
+    @Value("${app.notifications.bulk.provider-concurrency:4}")
+    private int providerConcurrency;
+
+    private final ConcurrentMap<String, Semaphore> providerPermits = new ConcurrentHashMap<>();
+
+    /**
+     * Send an event to every recipient on each channel they have enabled.
+     * Blocks until all batches have been answered by their providers.
+     */
+    public BulkNotificationResult sendBulk(String tenantId, String eventType, List<BulkRecipient> recipients) {
+        log.info("Sending {} to {} customers for tenant {}", eventType, recipients.size(), tenantId);
+        Tally tally = new Tally();
+        Map<String, NotificationProvider> providersByChannel = availableProvidersByChannel();
+
+        for (int from = 0; from < recipients.size(); from += chunkSize) {
+            List<BulkRecipient> chunk = recipients.subList(from, Math.min(from + chunkSize, recipients.size()));
+            try {
+                sendChunk(tenantId, eventType, chunk, providersByChannel, tally);
+            } catch (Exception e) {
+                log.error("Failed to send bulk {} chunk starting at {}", eventType, from, e);
+                for (BulkRecipient recipient : chunk) {
+                    tally.fail(recipient.customerId(), null, "Bulk processing failed: " + e.getMessage());
+                }
+            }
+        }
+
+        BulkNotificationResult result = tally.result(recipients);
+        log.info("Bulk {} for tenant {} finished: {} sent, {} failed, {} skipped",
+                eventType, tenantId, result.sent(), result.failed(), result.skipped());
+        return result;
+    }
+
+    private void sendChunk(String tenantId, String eventType, List<BulkRecipient> chunk,
+                           Map<String, NotificationProvider> providersByChannel, Tally tally) {
+        Map<String, BulkRecipient> recipientsById = new LinkedHashMap<>();
+        for (BulkRecipient recipient : chunk) {
+            recipientsById.put(recipient.customerId(), recipient);
+        }
+
+        List<CustomerNotificationPreference> preferences = preferenceRepository.findEnabledPreferencesForCustomers(
+                tenantId, eventType, new ArrayList<>(recipientsById.keySet()));
+
+        Map<String, Optional<NotificationTemplate>> templates = new HashMap<>();
+        Map<NotificationProvider, List<Message>> messagesByProvider = new LinkedHashMap<>();
+        for (CustomerNotificationPreference preference : preferences) {
+            String customerId = preference.getCustomerId();
+            String channel = preference.getChannel();
+            if (!preference.isNotificationAllowedNow() || preference.getContactInfo() == null) {
+                tally.skip(customerId);
+                continue;
+            }
+
+            Optional<NotificationTemplate> template = templates.computeIfAbsent(channel + "|" + preference.getLocale(),
+                    key -> templateService.findTemplate(tenantId, eventType, channel, preference.getLocale()));
+            if (template.isEmpty()) {
+                tally.fail(customerId, channel, "Template not found");
+                continue;
+            }
+
+            NotificationProvider provider = providersByChannel.get(channel);
+            if (provider == null) {
+                tally.fail(customerId, channel, "Provider not available for channel: " + channel);
+                continue;
+            }
+
+            NotificationRequest request = render(tenantId, eventType, preference, template.get(),
+                    recipientsById.get(customerId).variables());
+            if (!provider.canHandle(request)) {
+                tally.fail(customerId, channel, "Provider cannot handle request");
+                continue;
+            }
+            messagesByProvider.computeIfAbsent(provider, key -> new ArrayList<>()).add(new Message(customerId, request));
+        }
+
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        messagesByProvider.forEach((provider, messages) -> {
+            for (int from = 0; from < messages.size(); from += providerBatchSize) {
+                batches.add(dispatch(provider, messages.subList(from, Math.min(from + providerBatchSize, messages.size())), tally));
+            }
+        });
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+    }
+
+    private NotificationRequest render(String tenantId, String eventType, CustomerNotificationPreference preference,
+                                       NotificationTemplate template, Map<String, Object> variables) {
+        return NotificationRequest.builder()
+                .notificationId(UUID.randomUUID().toString())
+                .tenantId(tenantId)
+                .eventType(eventType)
+                .channel(preference.getChannel())
+                .recipient(preference.getContactInfo())
+                .subject(renderingService.renderSubject(template, variables))
+                .body(renderingService.renderBody(template, variables))
+                .htmlBody(renderingService.renderHtmlBody(template, variables))
+                .recipientLocale(preference.getLocale())
+                .templateId(String.valueOf(template.getId()))
+                .templateVariables(variables)
+                .build();
+    }
+
+    /**
+     * Hand one batch to its provider, waiting while the provider already has
+     * its limit of batches in flight
+     */
+    private CompletableFuture<Void> dispatch(NotificationProvider provider, List<Message> batch, Tally tally) {
+        Semaphore permits = providerPermits.computeIfAbsent(provider.getProviderName(),
+                name -> new Semaphore(providerConcurrency));
+        permits.acquireUninterruptibly();
+
+        CompletableFuture<List<NotificationResponse>> responses;
+        try {
+            responses = sendBatch(provider, batch.stream().map(Message::request).toList());
+        } catch (Exception e) {
+            responses = CompletableFuture.failedFuture(e);
+        }
+
+        return responses.handle((sent, error) -> {
+            permits.release();
+            if (error != null) {
+                log.error("Provider {} failed a batch of {} notifications", provider.getProviderName(), batch.size(), error);
+            }
+            record(batch, error == null ? sent : List.of(), error, tally);
+            return null;
+        });
+    }
+
+    private CompletableFuture<List<NotificationResponse>> sendBatch(NotificationProvider provider,
+                                                                    List<NotificationRequest> requests) {
+        if (provider instanceof EmailProvider emailProvider) {
+            return emailProvider.sendBulkEmails(requests);
+        }
+        if (provider instanceof SmsProvider smsProvider) {
+            return smsProvider.sendBulkSms(requests);
+        }
+
+        List<CompletableFuture<NotificationResponse>> sends = requests.stream()
+                .map(provider::sendNotification)
+                .toList();
+        return CompletableFuture.allOf(sends.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> sends.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Match responses to messages by notification ID; providers need not
+     * answer in request order or for every request
+     */
+    private void record(List<Message> batch, List<NotificationResponse> responses, Throwable error, Tally tally) {
+        Map<String, NotificationResponse> responsesById = new HashMap<>();
+        for (NotificationResponse response : responses) {
+            if (response != null && response.getNotificationId() != null) {
+                responsesById.put(response.getNotificationId(), response);
+            }
+        }
+        for (Message message : batch) {
+            NotificationResponse response = responsesById.get(message.request().getNotificationId());
+            if (response != null && response.isSuccess()) {
+                tally.send(message.customerId());
+            } else {
+                String reason = response != null ? response.getErrorMessage()
+                        : error != null ? "Provider error: " + error.getMessage() : "No response from provider";
+                tally.fail(message.customerId(), message.request().getChannel(), reason);
+            }
+        }
+    }
+
+    private Map<String, NotificationProvider> availableProvidersByChannel() {
+        Map<String, NotificationProvider> providers = new HashMap<>();
+        notificationProviders.orderedStream()
+                .filter(NotificationProvider::isAvailable)
+                .forEach(provider -> providers.putIfAbsent(provider.getSupportedChannel(), provider));
+        return providers;
+    }
+
+    /**
+     * One customer to notify, with the variables for their message
+     */
+    public record BulkRecipient(String customerId, Map<String, Object> variables) {
+    }
+
+    /**
+     * Outcome of a bulk send. Counts are per recipient and add up to
+     * {@code recipients}: a recipient failed if any of their messages failed,
+     * was sent if at least one message went out and none failed, and was
+     * skipped otherwise (no enabled channel, quiet hours, frequency or missing
+     * contact details). {@code failures} lists every failed message.
+     */
+    public record BulkNotificationResult(int recipients, int sent, int failed, int skipped, List<Failure> failures) {
+    }
+
+    /**
+     * A message that could not be delivered; the channel is null when the
+     * whole recipient failed before channels were resolved
+     */
+    public record Failure(String customerId, String channel, String reason) {
+    }
+
+    private record Message(String customerId, NotificationRequest request) {
+    }
+
+    /**
+     * Per-recipient outcomes, in increasing precedence
+     */
+    private enum Outcome {
+        SKIPPED,
+        SENT,
+        FAILED
+    }
+
+    private static final class Tally {
+        private final ConcurrentMap<String, Outcome> outcomes = new ConcurrentHashMap<>();
+        private final Queue<Failure> failures = new ConcurrentLinkedQueue<>();
+
+        void send(String customerId) {
+            record(customerId, Outcome.SENT);
+        }
+
+        void skip(String customerId) {
+            record(customerId, Outcome.SKIPPED);
+        }
+
+        void fail(String customerId, String channel, String reason) {
+            failures.add(new Failure(customerId, channel, reason));
+            record(customerId, Outcome.FAILED);
+        }
+
+        private void record(String customerId, Outcome outcome) {
+            if (customerId == null) {
+                return;
+            }
+            outcomes.merge(customerId, outcome, (current, next) -> current.compareTo(next) >= 0 ? current : next);
+        }
+
+        /**
+         * Recipients without any enabled preference have no outcome and count as skipped
+         */
+        BulkNotificationResult result(List<BulkRecipient> recipients) {
+            int sent = 0;
+            int failed = 0;
+            int skipped = 0;
+            for (BulkRecipient recipient : recipients) {
+                switch (outcomes.getOrDefault(recipient.customerId(), Outcome.SKIPPED)) {
+                    case SENT -> sent++;
+                    case FAILED -> failed++;
+                    default -> skipped++;
+                }
+            }
+            return new BulkNotificationResult(recipients.size(), sent, failed, skipped, List.copyOf(failures));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.bharatshop.shared.service;
 
+import com.bharatshop.shared.cache.CacheGenerations;
+import com.bharatshop.shared.cache.CacheGroups;
 import com.bharatshop.shared.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,15 +9,25 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.stereotype.Service;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Service for managing Redis cache operations with tenant-aware keys.
  * Provides methods for caching, retrieving, and invalidating cached data.
+ *
+ * Cached entries are namespaced per tenant by generation (see
+ * {@link com.bharatshop.shared.cache.TenantScopedCacheManager}), so the
+ * invalidate methods bump one counter for the current tenant rather than
+ * clearing the cache for every tenant.
  */
 @Service
 @RequiredArgsConstructor
@@ -26,9 +38,12 @@ public class CacheService {
     
     private final CacheManager cacheManager;
     private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheGenerations cacheGenerations;
 
     // Cache names
     public static final String PRODUCTS_CACHE = "products";
+    public static final String PRODUCT_CACHE = "product";
+    public static final String STOREFRONT_PRODUCT_CACHE = "storefront:product";
     public static final String PRODUCT_BY_SLUG_CACHE = "product-by-slug";
     public static final String CATEGORIES_CACHE = "categories";
     public static final String CATEGORY_TREES_CACHE = "category-trees";
@@ -39,6 +54,8 @@ public class CacheService {
     public static final String IMAGES_CACHE = "images";
     public static final String IMAGE_VARIANTS_CACHE = "image-variants";
 
+    private static final int INVALIDATION_BATCH_SIZE = 500;
+
     /**
      * Get cached value by key
      */
@@ -79,7 +96,9 @@ public class CacheService {
     }
 
     /**
-     * Put value in cache with custom TTL
+     * Put value in cache with custom TTL.
+     * The entry bypasses the cache manager's generations; remove it with
+     * {@link #evict(String, String)} or {@link #invalidateByPattern(String)}.
      */
     public void put(String cacheName, String key, Object value, long timeout, TimeUnit timeUnit) {
         try {
@@ -108,7 +127,7 @@ public class CacheService {
     }
 
     /**
-     * Clear entire cache
+     * Clear cache for current tenant
      */
     public void clear(String cacheName) {
         try {
@@ -126,17 +145,34 @@ public class CacheService {
      * Invalidate all product-related caches for current tenant
      */
     public void invalidateProductCaches() {
-        clear(PRODUCTS_CACHE);
-        clear(PRODUCT_BY_SLUG_CACHE);
+        invalidateGroup(CacheGroups.PRODUCTS);
         log.info("Invalidated product caches for tenant: {}", TenantContext.getCurrentTenant());
     }
 
+    /**
+     * Invalidate one product's cached entries for current tenant.
+     * Entries of other products stay cached; every product listing is
+     * invalidated, since any of them may contain the product.
+     *
+     * @param slugs the product's current slug and, if it changed, the previous one
+     */
+    public void invalidateProduct(Long productId, String... slugs) {
+        invalidateGroup(CacheGroups.PRODUCT_LISTINGS);
+        evict(PRODUCT_CACHE, String.valueOf(productId));
+        for (String slug : slugs) {
+            if (slug != null) {
+                evict(PRODUCT_CACHE, "slug_" + slug);
+                evict(STOREFRONT_PRODUCT_CACHE, "slug_" + slug);
+            }
+        }
+        log.info("Invalidated caches of product {} for tenant: {}", productId, TenantContext.getCurrentTenant());
+    }
+
     /**
      * Invalidate all category-related caches for current tenant
      */
     public void invalidateCategoryCaches() {
-        clear(CATEGORIES_CACHE);
-        clear(CATEGORY_TREES_CACHE);
+        invalidateGroup(CacheGroups.CATEGORIES);
         log.info("Invalidated category caches for tenant: {}", TenantContext.getCurrentTenant());
     }
 
@@ -144,8 +180,7 @@ public class CacheService {
      * Invalidate all template-related caches for current tenant
      */
     public void invalidateTemplateCaches() {
-        clear(TEMPLATES_CACHE);
-        clear(TEMPLATE_LISTS_CACHE);
+        invalidateGroup(CacheGroups.TEMPLATES);
         log.info("Invalidated template caches for tenant: {}", TenantContext.getCurrentTenant());
     }
 
@@ -153,8 +188,7 @@ public class CacheService {
      * Invalidate all page-related caches for current tenant
      */
     public void invalidatePageCaches() {
-        clear(PAGES_CACHE);
-        clear(PAGE_BY_SLUG_CACHE);
+        invalidateGroup(CacheGroups.PAGES);
         log.info("Invalidated page caches for tenant: {}", TenantContext.getCurrentTenant());
     }
 
@@ -162,8 +196,7 @@ public class CacheService {
      * Invalidate all image-related caches for current tenant
      */
     public void invalidateImageCaches() {
-        clear(IMAGES_CACHE);
-        clear(IMAGE_VARIANTS_CACHE);
+        invalidateGroup(CacheGroups.IMAGES);
         log.info("Invalidated image caches for tenant: {}", TenantContext.getCurrentTenant());
     }
 
@@ -171,30 +204,63 @@ public class CacheService {
      * Invalidate all caches for current tenant
      */
     public void invalidateAllCaches() {
-        invalidateProductCaches();
-        invalidateCategoryCaches();
-        invalidateTemplateCaches();
-        invalidatePageCaches();
-        invalidateImageCaches();
+        invalidateGroup(CacheGroups.ALL);
         log.info("Invalidated all caches for tenant: {}", TenantContext.getCurrentTenant());
     }
 
     /**
-     * Invalidate caches by pattern (using Redis SCAN)
+     * Move the current tenant's cache group to a new generation
      */
-    public void invalidateByPattern(String pattern) {
+    private void invalidateGroup(String group) {
         try {
-            String tenantAwarePattern = getTenantAwareKey(pattern);
-            Set<String> keys = redisTemplate.keys(tenantAwarePattern);
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                log.debug("Invalidated {} keys matching pattern: {}", keys.size(), pattern);
+            cacheGenerations.bump(TenantContext.getCurrentTenant(), group);
+        } catch (Exception e) {
+            log.warn("Error invalidating cache group: {}", group, e);
+        }
+    }
+
+    /**
+     * Invalidate caches by pattern (using Redis SCAN).
+     * Walks the keyspace incrementally instead of using KEYS, and removes
+     * matches with UNLINK in bounded batches.
+     */
+    public void invalidateByPattern(String pattern) {
+        String tenantAwarePattern = getTenantAwareKey(pattern);
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(tenantAwarePattern)
+                .count(INVALIDATION_BATCH_SIZE)
+                .build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            long removed = unlinkInBatches(keys, key -> key);
+            if (removed > 0) {
+                log.debug("Invalidated {} keys matching pattern: {}", removed, pattern);
             }
         } catch (Exception e) {
             log.warn("Error invalidating keys by pattern: {}", pattern, e);
         }
     }
 
+    private <T> long unlinkInBatches(Iterator<T> cursor, Function<T, String> toKey) {
+        long removed = 0;
+        List<String> batch = new ArrayList<>(INVALIDATION_BATCH_SIZE);
+        while (cursor.hasNext()) {
+            batch.add(toKey.apply(cursor.next()));
+            if (batch.size() == INVALIDATION_BATCH_SIZE) {
+                removed += unlink(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            removed += unlink(batch);
+        }
+        return removed;
+    }
+
+    private long unlink(List<String> keys) {
+        Long removed = redisTemplate.unlink(keys);
+        return removed != null ? removed : 0;
+    }
+
     /**
      * Get tenant-aware cache key
      */
@@ -0,0 +1,133 @@
+package com.bharatshop.shared.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template string parsed once into literal text and variable references.
+ *
+ * Variables use the {{variableName}} syntax; dotted names such as
+ * {{customer.name}} resolve through nested maps. The dotted path is split at
+ * compile time, so rendering is a single pass that appends literals and
+ * looks up pre-split paths, with no regex or string splitting per message.
+ * Instances are immutable and safe to share between threads.
+ */
+public final class CompiledTemplate {
+
+    private static final Logger log = LoggerFactory.getLogger(CompiledTemplate.class);
+
+    private final String source;
+    // literals[i] precedes variables[i]; the last literal follows the last variable
+    private final String[] literals;
+    private final Variable[] variables;
+    private final int literalLength;
+
+    private CompiledTemplate(String source, String[] literals, Variable[] variables) {
+        this.source = source;
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse a template string. A placeholder is "{{", at least one character
+     * other than "}", then "}}"; anything else is literal text.
+     */
+    public static CompiledTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<Variable> variables = new ArrayList<>();
+        int literalStart = 0;
+        int index = source.indexOf("{{");
+        while (index >= 0) {
+            int nameStart = index + 2;
+            int nameEnd = source.indexOf('}', nameStart);
+            if (nameEnd > nameStart && source.startsWith("}}", nameEnd)) {
+                literals.add(source.substring(literalStart, index));
+                variables.add(Variable.of(source.substring(nameStart, nameEnd).trim()));
+                literalStart = nameEnd + 2;
+                index = source.indexOf("{{", literalStart);
+            } else {
+                index = source.indexOf("{{", index + 1);
+            }
+        }
+        literals.add(source.substring(literalStart));
+        return new CompiledTemplate(source,
+                literals.toArray(new String[0]), variables.toArray(new Variable[0]));
+    }
+
+    /**
+     * Render with the given variables; missing variables render as empty text
+     */
+    public String render(Map<String, Object> values) {
+        if (variables.length == 0) {
+            return source;
+        }
+        StringBuilder result = new StringBuilder(literalLength + variables.length * 16);
+        for (int i = 0; i < variables.length; i++) {
+            result.append(literals[i]);
+            Object value = variables[i].resolve(values);
+            if (value != null) {
+                result.append(value);
+            }
+        }
+        result.append(literals[variables.length]);
+        return result.toString();
+    }
+
+    /**
+     * Whether every variable referenced by the template resolves to a value
+     */
+    public boolean isSatisfiedBy(Map<String, Object> values) {
+        for (Variable variable : variables) {
+            if (variable.resolve(values) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    /**
+     * Names of the variables referenced by the template, in order of appearance
+     */
+    public List<String> variableNames() {
+        List<String> names = new ArrayList<>(variables.length);
+        for (Variable variable : variables) {
+            names.add(variable.name());
+        }
+        return names;
+    }
+
+    private record Variable(String name, String[] path) {
+
+        static Variable of(String name) {
+            return new Variable(name, name.split("\\.", -1));
+        }
+
+        Object resolve(Map<String, Object> values) {
+            Object value = values.get(path[0]);
+            for (int i = 1; i < path.length; i++) {
+                if (!(value instanceof Map<?, ?> nested)) {
+                    log.warn("Cannot resolve nested variable: {} (root value is not a map)", name);
+                    return null;
+                }
+                value = nested.get(path[i]);
+            }
+            if (value == null) {
+                log.warn("Variable '{}' not found in template variables", name);
+            }
+            return value;
+        }
+    }
+}
@@ -1,35 +1,65 @@
 package com.bharatshop.shared.service;
 
 import com.bharatshop.shared.tenant.TenantContext;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.imgscalr.Scalr;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * Service for processing images, generating thumbnails, and managing image variants.
  * Supports multiple thumbnail sizes and async processing.
+ *
+ * Uploads are decoded once, subsampled while decoding so a large photo never
+ * has to sit in memory at full resolution. Variants are then built from
+ * largest to smallest, each resized from the one before it, and encoded in
+ * parallel on a separate bounded pool while the next one is resized.
+ *
+ * Only the sizes in app.image.eager-variant-sizes are rendered at upload.
+ * Other variants are rendered the first time their signed URL is requested
+ * and kept in the {@link ImageVariantCache}.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ImageProcessingService {
 
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ImageProcessingService.class);
+
     private final CacheService cacheService;
-    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    private final SignedUrlService signedUrlService;
+    private final ImageVariantCache variantCache;
+    private final ExecutorService executorService;
+    private final ExecutorService encoderService;
 
     @Value("${app.image.upload-dir:uploads/images}")
     private String uploadDir;
@@ -40,60 +70,99 @@ public class ImageProcessingService {
     @Value("${app.image.max-file-size:10485760}") // 10MB
     private long maxFileSize;
 
+    @Value("${app.image.max-pixels:100000000}") // Reject larger images outright
+    private long maxPixels;
+
+    @Value("${app.image.max-decoded-pixels:16000000}") // Subsample larger images while decoding
+    private long maxDecodedPixels;
+
+    @Value("${app.image.eager-variant-sizes:}") // Rendered at upload; the rest on first request
+    private int[] eagerVariantSizes = {};
+
     // Standard thumbnail sizes
     private static final int[] THUMBNAIL_SIZES = {400, 800, 1200};
     private static final Set<String> SUPPORTED_FORMATS = Set.of("jpg", "jpeg", "png", "webp");
+    private static final Set<String> VARIANT_FORMATS = Set.of("jpg", "jpeg", "png");
+    private static final Pattern PATH_SEGMENT = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._-]*");
+
+    public ImageProcessingService(CacheService cacheService,
+                                  SignedUrlService signedUrlService,
+                                  ImageVariantCache variantCache,
+                                  @Value("${app.image.processing-threads:2}") int processingThreads,
+                                  @Value("${app.image.encoder-threads:4}") int encoderThreads,
+                                  @Value("${app.image.queue-capacity:50}") int queueCapacity) {
+        this.cacheService = cacheService;
+        this.signedUrlService = signedUrlService;
+        this.variantCache = variantCache;
+        // Each running upload holds its decoded image, so this pool also bounds image memory
+        this.executorService = boundedPool("image-processing-", processingThreads, queueCapacity,
+            new ThreadPoolExecutor.AbortPolicy());
+        // Encoding falls back to the uploading thread rather than queueing without limit
+        this.encoderService = boundedPool("image-encoder-", encoderThreads, encoderThreads * THUMBNAIL_SIZES.length,
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
 
     /**
      * Process uploaded image and generate variants
      */
     public CompletableFuture<ImageProcessingResult> processImage(MultipartFile file, String category) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                validateImage(file);
-                
-                String originalFilename = file.getOriginalFilename();
-                String fileExtension = getFileExtension(originalFilename);
-                String uniqueFilename = generateUniqueFilename(fileExtension);
-                
-                // Create tenant-specific directory
-                Path tenantDir = createTenantDirectory(category);
-                
-                // Save original image
-                Path originalPath = tenantDir.resolve(uniqueFilename);
-                file.transferTo(originalPath.toFile());
-                
-                // Load image for processing
-                BufferedImage originalImage = ImageIO.read(originalPath.toFile());
-                if (originalImage == null) {
-                    throw new IllegalArgumentException("Invalid image format");
+        // Worker threads do not inherit the caller's tenant
+        Long tenantId = TenantContext.getCurrentTenant();
+        String tenantPath = getTenantPath();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                TenantContext.setCurrentTenant(tenantId);
+                try {
+                    validateImage(file);
+                    
+                    String originalFilename = file.getOriginalFilename();
+                    String fileExtension = getFileExtension(originalFilename);
+                    String uniqueFilename = generateUniqueFilename(fileExtension);
+                    
+                    // Create tenant-specific directory
+                    Path tenantDir = createTenantDirectory(tenantPath, category);
+                    
+                    // Save original image
+                    Path originalPath = tenantDir.resolve(uniqueFilename);
+                    file.transferTo(originalPath.toFile());
+                    
+                    int[] dimensions = readDimensions(originalPath);
+                    if (dimensions == null) {
+                        throw new IllegalArgumentException("Invalid image format");
+                    }
+                    
+                    // Render eager variants now; the rest wait until someone asks for them
+                    String source = tenantPath + "/" + category + "/" + uniqueFilename;
+                    renderEagerVariants(originalPath, source, variantFormat(fileExtension));
+                    Map<Integer, String> thumbnails = variantUrls(category, uniqueFilename, dimensions[0], dimensions[1]);
+                    
+                    // Create result
+                    ImageProcessingResult result = ImageProcessingResult.builder()
+                        .originalUrl(buildUrl(tenantPath, category, uniqueFilename))
+                        .originalWidth(dimensions[0])
+                        .originalHeight(dimensions[1])
+                        .thumbnails(thumbnails)
+                        .fileSize(file.getSize())
+                        .contentType(file.getContentType())
+                        .filename(uniqueFilename)
+                        .build();
+                    
+                    // Cache the result
+                    cacheImageVariants(uniqueFilename, result);
+                    
+                    log.debug("Processed image {} with {} thumbnails", uniqueFilename, thumbnails.size());
+                    return result;
+                    
+                } catch (Exception e) {
+                    log.error("Error processing image: {}, {}", file.getOriginalFilename(), e.getMessage());
+                    throw new RuntimeException("Failed to process image", e);
+                } finally {
+                    TenantContext.clear();
                 }
-                
-                // Generate thumbnails
-                Map<Integer, String> thumbnails = generateThumbnails(originalImage, tenantDir, uniqueFilename, fileExtension);
-                
-                // Create result
-                ImageProcessingResult result = ImageProcessingResult.builder()
-                    .originalUrl(buildUrl(category, uniqueFilename))
-                    .originalWidth(originalImage.getWidth())
-                    .originalHeight(originalImage.getHeight())
-                    .thumbnails(thumbnails)
-                    .fileSize(file.getSize())
-                    .contentType(file.getContentType())
-                    .filename(uniqueFilename)
-                    .build();
-                
-                // Cache the result
-                cacheImageVariants(uniqueFilename, result);
-                
-                System.out.println("Successfully processed image: " + uniqueFilename + " with " + thumbnails.size() + " thumbnails");
-                return result;
-                
-            } catch (Exception e) {
-                System.out.println("Error processing image: " + file.getOriginalFilename() + ", " + e.getMessage());
-                throw new RuntimeException("Failed to process image", e);
-            }
-        }, executorService);
+            }, executorService);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Image processing queue is full", e));
+        }
     }
 
     /**
@@ -120,28 +189,19 @@ public class ImageProcessingService {
                 return Optional.empty();
             }
             
-            BufferedImage originalImage = ImageIO.read(originalPath.toFile());
-            if (originalImage == null) {
+            // Dimensions come from the image header; no need to decode the pixels
+            int[] dimensions = readDimensions(originalPath);
+            if (dimensions == null) {
                 return Optional.empty();
             }
             
-            // Check for existing thumbnails
-            Map<Integer, String> thumbnails = new HashMap<>();
-            String baseFilename = getBaseFilename(filename);
-            String extension = getFileExtension(filename);
-            
-            for (int size : THUMBNAIL_SIZES) {
-                String thumbnailName = baseFilename + "_" + size + "." + extension;
-                Path thumbnailPath = tenantDir.resolve(thumbnailName);
-                if (Files.exists(thumbnailPath)) {
-                    thumbnails.put(size, buildUrl("images", thumbnailName));
-                }
-            }
+            // Variants are rendered on request, so there is nothing more to check on disk
+            Map<Integer, String> thumbnails = variantUrls("images", filename, dimensions[0], dimensions[1]);
             
             ImageProcessingResult result = ImageProcessingResult.builder()
                 .originalUrl(buildUrl("images", filename))
-                .originalWidth(originalImage.getWidth())
-                .originalHeight(originalImage.getHeight())
+                .originalWidth(dimensions[0])
+                .originalHeight(dimensions[1])
                 .thumbnails(thumbnails)
                 .fileSize(Files.size(originalPath))
                 .filename(filename)
@@ -170,13 +230,14 @@ public class ImageProcessingService {
             // Delete original
             Files.deleteIfExists(tenantDir.resolve(filename));
             
-            // Delete thumbnails
+            // Delete thumbnails written at upload before variants were rendered on request
             for (int size : THUMBNAIL_SIZES) {
                 String thumbnailName = baseFilename + "_" + size + "." + extension;
                 Files.deleteIfExists(tenantDir.resolve(thumbnailName));
             }
             
             // Remove from cache
+            variantCache.evict(getTenantPath() + "/images/" + filename);
             cacheService.evict(CacheService.IMAGE_VARIANTS_CACHE, filename);
             
             System.out.println("Successfully deleted image and variants: " + filename);
@@ -188,6 +249,47 @@ public class ImageProcessingService {
         }
     }
 
+    /**
+     * Image for a variant request, rendering and caching the variant on first use.
+     * With no size the original is returned. Empty if the image does not exist.
+     * A variant is opened before it is returned, so it can be streamed even if
+     * it is evicted from the cache meanwhile; its filename ends in its format.
+     *
+     * @param format "jpeg" or "png"; defaults to the original's format
+     */
+    public Optional<Resource> getVariant(String category, String filename, Integer size, String format) throws IOException {
+        if (!PATH_SEGMENT.matcher(category).matches() || !PATH_SEGMENT.matcher(filename).matches()) {
+            return Optional.empty();
+        }
+        Path originalPath = getTenantDirectory(category).resolve(filename);
+        if (!Files.isRegularFile(originalPath)) {
+            return Optional.empty();
+        }
+        if (size == null) {
+            return Optional.of(new FileSystemResource(originalPath));
+        }
+        if (Arrays.stream(THUMBNAIL_SIZES).noneMatch(thumbnailSize -> thumbnailSize == size)) {
+            throw new IllegalArgumentException("Unsupported variant size: " + size);
+        }
+        if (format != null && !VARIANT_FORMATS.contains(format.toLowerCase())) {
+            throw new IllegalArgumentException("Unsupported variant format: " + format);
+        }
+        
+        String formatName = variantFormat(format != null ? format : getFileExtension(filename));
+        String source = getTenantPath() + "/" + category + "/" + filename;
+        String variant = size + "." + formatName;
+        FileChannel channel = variantCache.open(source, variant,
+            target -> renderVariant(originalPath, size, formatName, target));
+        return Optional.of(new OpenVariantResource(channel, variant));
+    }
+
+    /**
+     * Signed URL for a variant of an uploaded image
+     */
+    public String getVariantUrl(String category, String filename, int size) {
+        return signedUrlService.generateImageSignedUrl(category + "/" + filename, size);
+    }
+
     /**
      * Generate srcset string for responsive images
      */
@@ -237,49 +339,219 @@ public class ImageProcessingService {
         }
     }
 
-    private Map<Integer, String> generateThumbnails(BufferedImage originalImage, Path directory, 
-                                                   String filename, String extension) throws IOException {
+    private Map<Integer, String> variantUrls(String category, String filename, int width, int height) {
         Map<Integer, String> thumbnails = new HashMap<>();
-        String baseFilename = getBaseFilename(filename);
-        
         for (int size : THUMBNAIL_SIZES) {
             // Skip if original is smaller than thumbnail size
-            if (originalImage.getWidth() <= size && originalImage.getHeight() <= size) {
+            if (width > size || height > size) {
+                thumbnails.put(size, getVariantUrl(category, filename, size));
+            }
+        }
+        return thumbnails;
+    }
+
+    private void renderEagerVariants(Path originalPath, String source, String formatName) throws IOException {
+        int[] sizes = Arrays.stream(eagerVariantSizes)
+            .filter(size -> Arrays.stream(THUMBNAIL_SIZES).anyMatch(thumbnailSize -> thumbnailSize == size))
+            .distinct()
+            .sorted()
+            .toArray();
+        if (sizes.length == 0) {
+            return;
+        }
+        
+        // Decode once, at no more than the resolution the variants need
+        DecodedImage decoded = decodeImage(originalPath, sizes[sizes.length - 1]);
+        List<CompletableFuture<Path>> writes = new ArrayList<>();
+        
+        // Largest first, so each variant is resized from the previous one rather than the full image
+        BufferedImage resizeFrom = decoded.image();
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            int size = sizes[i];
+            // Skip if original is smaller than thumbnail size
+            if (decoded.originalWidth() <= size && decoded.originalHeight() <= size) {
                 continue;
             }
             
-            BufferedImage thumbnail = Scalr.resize(originalImage, 
-                Scalr.Method.QUALITY, 
-                Scalr.Mode.AUTOMATIC, 
-                size, 
-                size, 
-                Scalr.OP_ANTIALIAS);
-            
-            String thumbnailName = baseFilename + "_" + size + "." + extension;
-            Path thumbnailPath = directory.resolve(thumbnailName);
-            
-            ImageIO.write(thumbnail, extension.equals("jpg") ? "jpeg" : extension, thumbnailPath.toFile());
-            
-            thumbnails.put(size, buildUrl("images", thumbnailName));
+            BufferedImage thumbnail = fitWithin(resizeFrom, size);
+            writes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return variantCache.get(source, size + "." + formatName, target -> writeImage(thumbnail, formatName, target));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, encoderService));
+            resizeFrom = thumbnail;
         }
         
-        return thumbnails;
+        await(CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])));
     }
 
-    private Path createTenantDirectory(String category) throws IOException {
-        Long tenantId = TenantContext.getCurrentTenant();
-        String tenantPath = tenantId != null ? "tenant-" + tenantId : "global";
-        
+    /**
+     * Render one variant on the processing pool, which bounds how many decoded
+     * images are held in memory at once
+     */
+    private void renderVariant(Path originalPath, int size, String formatName, Path target) throws IOException {
+        CompletableFuture<Void> render;
+        try {
+            render = CompletableFuture.runAsync(() -> {
+                try {
+                    BufferedImage variant = fitWithin(decodeImage(originalPath, size).image(), size);
+                    writeImage(variant, formatName, target);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executorService);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Image processing queue is full", e);
+        }
+        await(render);
+    }
+
+    private static BufferedImage fitWithin(BufferedImage image, int size) {
+        if (image.getWidth() <= size && image.getHeight() <= size) {
+            return image;
+        }
+        return Scalr.resize(image, 
+            Scalr.Method.QUALITY, 
+            Scalr.Mode.AUTOMATIC, 
+            size, 
+            size, 
+            Scalr.OP_ANTIALIAS);
+    }
+
+    private static void await(CompletableFuture<?> future) throws IOException {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    private static void writeImage(BufferedImage image, String formatName, Path path) throws IOException {
+        BufferedImage output = image;
+        if (formatName.equals("jpeg") && image.getColorModel().hasAlpha()) {
+            // JPEG has no alpha channel; flatten onto white
+            output = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = output.createGraphics();
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+            graphics.dispose();
+        }
+        if (!ImageIO.write(output, formatName, path.toFile())) {
+            throw new IOException("No image writer for format: " + formatName);
+        }
+    }
+
+    /**
+     * ImageIO format name for variants of an image with the given extension;
+     * formats without a writer fall back to JPEG
+     */
+    private static String variantFormat(String extension) {
+        return extension.equalsIgnoreCase("png") ? "png" : "jpeg";
+    }
+
+    /**
+     * Decode the first image in a file, subsampling rows and columns while reading
+     * so the decoded image stays within the configured pixel budget
+     */
+    private DecodedImage decodeImage(Path path, int largestVariant) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            ImageReader reader = input != null ? firstReader(input) : null;
+            if (reader == null) {
+                throw new IllegalArgumentException("Invalid image format");
+            }
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IllegalArgumentException("Image dimensions exceed maximum allowed size");
+                }
+                
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsamplingFor(width, height, largestVariant, maxDecodedPixels);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return new DecodedImage(reader.read(0, param), width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private int[] readDimensions(Path path) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            ImageReader reader = input != null ? firstReader(input) : null;
+            if (reader == null) {
+                return null;
+            }
+            try {
+                reader.setInput(input, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReader firstReader(ImageInputStream input) {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        return readers.hasNext() ? readers.next() : null;
+    }
+
+    /**
+     * Largest subsampling step that still leaves twice the largest variant's
+     * resolution to downscale from, raised further if needed to stay within the
+     * decoded pixel budget
+     */
+    static int subsamplingFor(int width, int height, int largestVariant, long maxDecodedPixels) {
+        int subsampling = Math.max(1, Math.max(width, height) / (2 * largestVariant));
+        long pixels = (long) width * height;
+        while (pixels / ((long) subsampling * subsampling) > maxDecodedPixels) {
+            subsampling++;
+        }
+        return subsampling;
+    }
+
+    private static ExecutorService boundedPool(String namePrefix, int threads, int queueCapacity,
+                                               RejectedExecutionHandler rejectionHandler) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(Math.max(1, queueCapacity)),
+            runnable -> {
+                Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            rejectionHandler);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
+        encoderService.shutdownNow();
+    }
+
+    private Path createTenantDirectory(String tenantPath, String category) throws IOException {
         Path directory = Paths.get(uploadDir, tenantPath, category);
         Files.createDirectories(directory);
         return directory;
     }
 
-    private Path getTenantDirectory(String category) {
+    private String getTenantPath() {
         Long tenantId = TenantContext.getCurrentTenant();
-        String tenantPath = tenantId != null ? "tenant-" + tenantId : "global";
-        
-        return Paths.get(uploadDir, tenantPath, category);
+        return tenantId != null ? "tenant-" + tenantId : "global";
+    }
+
+    private Path getTenantDirectory(String category) {
+        return Paths.get(uploadDir, getTenantPath(), category);
     }
 
     private String generateUniqueFilename(String extension) {
@@ -297,9 +569,10 @@ public class ImageProcessingService {
     }
 
     private String buildUrl(String category, String filename) {
-        Long tenantId = TenantContext.getCurrentTenant();
-        String tenantPath = tenantId != null ? "tenant-" + tenantId : "global";
-        
+        return buildUrl(getTenantPath(), category, filename);
+    }
+
+    private String buildUrl(String tenantPath, String category, String filename) {
         return baseUrl + "/uploads/" + tenantPath + "/" + category + "/" + filename;
     }
 
@@ -307,6 +580,50 @@ public class ImageProcessingService {
         cacheService.put(CacheService.IMAGE_VARIANTS_CACHE, filename, result);
     }
 
+    /**
+     * A decoded, possibly subsampled, image along with the dimensions of the original
+     */
+    private record DecodedImage(BufferedImage image, int originalWidth, int originalHeight) {
+    }
+
+    /**
+     * A variant file that is already open, read once by the response
+     */
+    private static final class OpenVariantResource extends AbstractResource {
+        private final FileChannel channel;
+        private final String filename;
+
+        OpenVariantResource(FileChannel channel, String filename) {
+            this.channel = channel;
+            this.filename = filename;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return Channels.newInputStream(channel);
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public String getFilename() {
+            return filename;
+        }
+
+        @Override
+        public String getDescription() {
+            return "image variant [" + filename + "]";
+        }
+    }
+
     /**
      * Result class for image processing operations
      */
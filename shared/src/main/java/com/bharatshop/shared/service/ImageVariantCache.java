@@ -0,0 +1,292 @@
+package com.bharatshop.shared.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Disk-backed LRU cache of rendered image variants.
+ *
+ * Variant files live in one directory, with an in-memory index of their sizes
+ * in access order so lookups never touch the disk. When the total size goes
+ * over budget the least recently used variants are deleted. Concurrent
+ * requests for the same missing variant share a single render.
+ *
+ * Files are named by a hash of the source key, so distinct sources never
+ * share a file, followed by the variant. Variants being served are opened
+ * under the index lock, and files are only deleted under it once they have
+ * left the index, so an open file is never deleted before it is read.
+ */
+@Component
+public class ImageVariantCache {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(ImageVariantCache.class);
+
+    private static final Pattern VARIANT_NAME = Pattern.compile("[A-Za-z0-9._-]+");
+    private static final int MAX_OPEN_ATTEMPTS = 3;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // Guarded by this; file name to size, least recently used first
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    private final ConcurrentMap<String, CompletableFuture<Path>> rendering = new ConcurrentHashMap<>();
+
+    public ImageVariantCache(@Value("${app.image.variant-cache.dir:uploads/variant-cache}") String directory,
+                             @Value("${app.image.variant-cache.max-bytes:1073741824}") long maxBytes) throws IOException {
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directory);
+        loadIndex();
+    }
+
+    /**
+     * Writes a variant to the given file
+     */
+    @FunctionalInterface
+    public interface Renderer {
+        void render(Path target) throws IOException;
+    }
+
+    /**
+     * Open a cached variant for reading, rendering it first if it is not
+     * cached. The returned channel keeps the content readable even if the
+     * variant is evicted while it is being streamed.
+     */
+    public FileChannel open(String source, String variant, Renderer renderer) throws IOException {
+        String fileName = fileName(source, variant);
+        for (int attempt = 0; attempt < MAX_OPEN_ATTEMPTS; attempt++) {
+            get(source, variant, renderer);
+            FileChannel channel = openIndexed(fileName);
+            if (channel != null) {
+                return channel;
+            }
+            // Evicted between the render and the open; render it again
+        }
+        throw new IOException("Image variant " + fileName + " was evicted before it could be opened");
+    }
+
+    /**
+     * Cached variant file, rendering it first if it is not cached. The file
+     * may be evicted at any time; use {@link #open} to read it.
+     *
+     * @param source key of the original image, e.g. "tenant-1/products/abc.jpg"
+     * @param variant variant of that image, e.g. "400.jpeg"; used as the file suffix
+     */
+    public Path get(String source, String variant, Renderer renderer) throws IOException {
+        String fileName = fileName(source, variant);
+        Path cached = lookup(fileName);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Path> render = new CompletableFuture<>();
+        CompletableFuture<Path> inProgress = rendering.putIfAbsent(fileName, render);
+        if (inProgress != null) {
+            return await(inProgress);
+        }
+        try {
+            // Another render may have finished between the lookup and claiming this one
+            Path path = lookup(fileName);
+            if (path == null) {
+                path = store(fileName, renderer);
+            }
+            render.complete(path);
+            return path;
+        } catch (IOException | RuntimeException e) {
+            render.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(fileName, render);
+        }
+    }
+
+    public boolean contains(String source, String variant) {
+        synchronized (this) {
+            return index.containsKey(fileName(source, variant));
+        }
+    }
+
+    /**
+     * Delete all cached variants of an image
+     */
+    public void evict(String source) {
+        String prefix = hash(source) + "@";
+        List<String> removed = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> entries = index.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, Long> entry = entries.next();
+                if (entry.getKey().startsWith(prefix)) {
+                    totalBytes -= entry.getValue();
+                    removed.add(entry.getKey());
+                    entries.remove();
+                }
+            }
+        }
+        removed.forEach(this::delete);
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    private synchronized Path lookup(String fileName) {
+        return index.get(fileName) != null ? directory.resolve(fileName) : null;
+    }
+
+    private synchronized FileChannel openIndexed(String fileName) throws IOException {
+        if (index.get(fileName) == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(directory.resolve(fileName), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // Removed behind the cache's back; forget it so it is rendered again
+            Long size = index.remove(fileName);
+            totalBytes -= size != null ? size : 0;
+            return null;
+        }
+    }
+
+    private Path store(String fileName, Renderer renderer) throws IOException {
+        Path target = directory.resolve(fileName);
+        Path temp = Files.createTempFile(directory, ".render-", ".tmp");
+        try {
+            renderer.render(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        long size = Files.size(target);
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            Long previous = index.put(fileName, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(fileName)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        evicted.forEach(this::delete);
+        return target;
+    }
+
+    /**
+     * Delete a file that has left the index, unless it has been rendered again since
+     */
+    private synchronized void delete(String fileName) {
+        if (index.containsKey(fileName)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            log.warn("Failed to delete cached image variant {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the index from the cache directory, oldest files first
+     */
+    private void loadIndex() throws IOException {
+        record CachedFile(String name, long size, long modified) {
+        }
+        List<CachedFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String name = path.getFileName().toString();
+                try {
+                    if (name.startsWith(".render-")) {
+                        // Left over from a render interrupted by a shutdown
+                        Files.deleteIfExists(path);
+                        continue;
+                    }
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        files.add(new CachedFile(name, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    }
+                } catch (NoSuchFileException e) {
+                    // Removed while scanning
+                }
+            }
+        }
+        files.sort(Comparator.comparingLong(CachedFile::modified));
+        synchronized (this) {
+            for (CachedFile file : files) {
+                index.put(file.name(), file.size());
+                totalBytes += file.size();
+            }
+        }
+        log.info("Loaded {} cached image variants ({} bytes) from {}", files.size(), totalBytes, directory);
+    }
+
+    private static Path await(CompletableFuture<Path> render) throws IOException {
+        try {
+            return render.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new UncheckedIOException(new IOException(e.getCause()));
+        }
+    }
+
+    static String fileName(String source, String variant) {
+        if (!VARIANT_NAME.matcher(variant).matches()) {
+            throw new IllegalArgumentException("Invalid image variant: " + variant);
+        }
+        return hash(source) + "@" + variant;
+    }
+
+    private static String hash(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -218,16 +218,25 @@ public class InvoiceService {
         String sellerStateCode = "MH"; // TODO: Get from tenant settings
         String buyerStateCode = extractStateCodeFromOrder(order);
 
+        List<OrderItem> pricedItems = new ArrayList<>();
+        List<PriceCalculationService.PriceLine> priceLines = new ArrayList<>();
         for (OrderItem orderItem : orderItems) {
-            Product product = orderItem.getProduct();
-            if (product == null) {
+            if (orderItem.getProduct() == null) {
                 System.out.println("Product not found for order item " + orderItem.getId());
                 continue;
             }
+            pricedItems.add(orderItem);
+            priceLines.add(new PriceCalculationService.PriceLine(orderItem.getProduct(), orderItem.getPrice()));
+        }
 
-            // Calculate price with tax
-            PriceBreakdown priceBreakdown = priceCalculationService.calculatePrice(
-                    product, orderItem.getPrice(), buyerStateCode, sellerStateCode, tenantId);
+        // Calculate prices with tax for all lines at once
+        List<PriceBreakdown> priceBreakdowns = priceCalculationService.calculatePrices(
+                priceLines, buyerStateCode, sellerStateCode, tenantId);
+
+        for (int i = 0; i < pricedItems.size(); i++) {
+            OrderItem orderItem = pricedItems.get(i);
+            Product product = orderItem.getProduct();
+            PriceBreakdown priceBreakdown = priceBreakdowns.get(i);
 
             InvoiceItem invoiceItem = InvoiceItem.builder()
                     .tenantId(tenantId)
@@ -10,18 +10,29 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.crypto.SecretKey;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for JWT key rotation and management
  * Handles key generation, rotation, and cleanup with rolling upgrade support
+ *
+ * Keys valid for verification are kept in an in-memory key ring, so verifying
+ * a token needs no database access. The ring is reloaded after keys change on
+ * this instance, periodically to pick up rotations made elsewhere, and when a
+ * token names a key it does not hold.
  */
 @Service
 @RequiredArgsConstructor
@@ -30,8 +41,13 @@ public class JwtKeyRotationService {
     
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(JwtKeyRotationService.class);
     
+    // Unknown key IDs reload the ring at most this often, so forged tokens cannot hammer the database
+    private static final long MIN_KEY_RING_RELOAD_INTERVAL_MS = 1000;
+    
     private final JwksKeyRepository jwksKeyRepository;
     private final SecureRandom secureRandom = new SecureRandom();
+    private final Map<String, DerivedSecretKey> secretKeys = new ConcurrentHashMap<>();
+    private volatile KeyRing keyRing;
     
     @Value("${jwt.key-rotation.enabled:true}")
     private boolean keyRotationEnabled;
@@ -48,6 +64,18 @@ public class JwtKeyRotationService {
     @Value("${jwt.algorithm:HS256}")
     private String defaultAlgorithm;
     
+    @Value("${jwt.key-rotation.key-ring-refresh-ms:60000}")
+    private long keyRingRefreshMs;
+    
+    /**
+     * Keys valid for verification when loaded, by key ID
+     */
+    private record KeyRing(Map<String, JwksKey> keysByKid, List<JwksKey> keys, long loadedAtMillis) {
+    }
+    
+    private record DerivedSecretKey(String keyMaterial, SecretKey secretKey) {
+    }
+    
     /**
      * Get the current active signing key
      * Creates a new key if none exists
@@ -66,17 +94,27 @@ public class JwtKeyRotationService {
     }
     
     /**
-     * Get a key by its key ID for verification
+     * Get a key by its key ID for verification, from the key ring.
+     * Keys that were no longer valid for verification when the ring was
+     * loaded are not found.
      */
     public Optional<JwksKey> getKeyByKid(String kid) {
-        return jwksKeyRepository.findByKid(kid);
+        KeyRing ring = keyRing();
+        JwksKey key = ring.keysByKid().get(kid);
+        if (key == null && System.currentTimeMillis() - ring.loadedAtMillis() >= MIN_KEY_RING_RELOAD_INTERVAL_MS) {
+            // The key may have been created on another instance since the ring was loaded
+            key = reloadKeyRing(ring).keysByKid().get(kid);
+        }
+        return Optional.ofNullable(key);
     }
     
     /**
-     * Get all keys valid for verification (active + rolling upgrade window)
+     * Get all keys valid for verification (active + rolling upgrade window), from the key ring
      */
     public List<JwksKey> getValidVerificationKeys() {
-        return jwksKeyRepository.findValidVerificationKeys(LocalDateTime.now());
+        return keyRing().keys().stream()
+            .filter(this::isKeyValidForVerification)
+            .toList();
     }
     
     /**
@@ -127,6 +165,7 @@ public class JwtKeyRotationService {
             .build();
         
         JwksKey savedKey = jwksKeyRepository.save(newKey);
+        invalidateKeyRing();
         log.info("Created new signing key with ID: {}", kid);
         
         return savedKey;
@@ -151,14 +190,20 @@ public class JwtKeyRotationService {
     
     /**
      * Get key material as SecretKey for HMAC algorithms
+     * The key is derived once per key ID and reused
      */
     public SecretKey getSecretKey(JwksKey key) {
         if (!key.getAlg().startsWith("HS")) {
             throw new IllegalArgumentException("Key is not suitable for HMAC algorithms: " + key.getAlg());
         }
         
-        byte[] keyBytes = Decoders.BASE64.decode(key.getKeyMaterial());
-        return Keys.hmacShaKeyFor(keyBytes);
+        DerivedSecretKey derived = secretKeys.get(key.getKid());
+        if (derived == null || !derived.keyMaterial().equals(key.getKeyMaterial())) {
+            byte[] keyBytes = Decoders.BASE64.decode(key.getKeyMaterial());
+            derived = new DerivedSecretKey(key.getKeyMaterial(), Keys.hmacShaKeyFor(keyBytes));
+            secretKeys.put(key.getKid(), derived);
+        }
+        return derived.secretKey();
     }
     
     /**
@@ -177,6 +222,7 @@ public class JwtKeyRotationService {
         
         if (!expiredKeys.isEmpty()) {
             int deletedCount = jwksKeyRepository.deleteExpiredKeys(LocalDateTime.now());
+            invalidateKeyRing();
             log.info("Cleaned up {} expired JWT keys", deletedCount);
         } else {
             log.debug("No expired JWT keys found for cleanup");
@@ -199,6 +245,7 @@ public class JwtKeyRotationService {
         int expiredCount = jwksKeyRepository.expireOldRotatedKeys(expirationTime, cutoffTime);
         
         if (expiredCount > 0) {
+            invalidateKeyRing();
             log.info("Expired {} old rotated keys that exceeded rolling upgrade window", expiredCount);
         }
     }
@@ -268,10 +315,58 @@ public class JwtKeyRotationService {
         int scheduledCount = jwksKeyRepository.expireOldRotatedKeys(expirationTime, cutoffTime);
         
         if (scheduledCount > 0) {
+            invalidateKeyRing();
             log.info("Scheduled {} old rotated keys for expiration", scheduledCount);
         }
     }
     
+    /**
+     * Current key ring, reloaded once older than the refresh interval
+     */
+    private KeyRing keyRing() {
+        KeyRing ring = keyRing;
+        if (ring == null || System.currentTimeMillis() - ring.loadedAtMillis() >= keyRingRefreshMs) {
+            ring = reloadKeyRing(ring);
+        }
+        return ring;
+    }
+    
+    /**
+     * Reload the key ring, unless another thread replaced the given ring meanwhile
+     */
+    private synchronized KeyRing reloadKeyRing(KeyRing stale) {
+        KeyRing current = keyRing;
+        if (current != null && current != stale) {
+            return current;
+        }
+        
+        List<JwksKey> keys = jwksKeyRepository.findValidVerificationKeys(LocalDateTime.now());
+        KeyRing ring = new KeyRing(
+            keys.stream().collect(Collectors.toMap(JwksKey::getKid, Function.identity(), (a, b) -> a)),
+            List.copyOf(keys),
+            System.currentTimeMillis());
+        secretKeys.keySet().retainAll(ring.keysByKid().keySet());
+        keyRing = ring;
+        log.debug("Loaded JWT key ring with {} keys", keys.size());
+        return ring;
+    }
+    
+    /**
+     * Drop the key ring after keys change; within a transaction it is dropped
+     * again once it completes, so a ring loaded from uncommitted state is not kept
+     */
+    private void invalidateKeyRing() {
+        keyRing = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    keyRing = null;
+                }
+            });
+        }
+    }
+    
     /**
      * Key rotation statistics
      */
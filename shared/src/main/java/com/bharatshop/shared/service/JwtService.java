@@ -3,10 +3,16 @@ package com.bharatshop.shared.service;
 import com.bharatshop.shared.entity.JwksKey;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Header;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -21,7 +27,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
 
-
+/**
+ * Issues and verifies JWTs signed with rotating keys.
+ * Each token is verified with a single parse that picks the key from the
+ * in-memory key ring by key ID; verified tokens are cached until expiry.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -39,9 +49,29 @@ public class JwtService {
     
     @Value("${jwt.algorithm:HS256}")
     private String defaultAlgorithm;
+    
+    @Value("${jwt.token-cache.max-entries:10000}")
+    private int tokenCacheMaxEntries;
+    
+    private VerifiedTokenCache verifiedTokens;
+    
+    // Resolves the verification key from the token's key ID while parsing, so a token is parsed once
+    private final JwtParser keyRingParser = Jwts.parserBuilder()
+        .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                return resolveVerificationKey(header.getKeyId());
+            }
+        })
+        .build();
+    
+    @PostConstruct
+    void initTokenCache() {
+        verifiedTokens = new VerifiedTokenCache(tokenCacheMaxEntries, 16);
+    }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verifyToken(token).getSubject();
     }
     
     public String extractKeyId(String token) {
@@ -49,8 +79,7 @@ public class JwtService {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+        return claimsResolver.apply(verifyToken(token));
     }
     
 
@@ -89,8 +118,7 @@ public class JwtService {
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+            return userDetails.getUsername().equals(verifyToken(token).getSubject());
         } catch (Exception e) {
             log.debug("Token validation failed: {}", e.getMessage());
             return false;
@@ -98,104 +126,91 @@ public class JwtService {
     }
     
     public boolean isTokenValidWithKeyRotation(String token, UserDetails userDetails) {
-        try {
-            // Extract key ID from token header
-            String kid = extractKeyId(token);
-            
-            if (kid != null) {
-                // Try to validate with specific key
-                Optional<JwksKey> key = jwtKeyRotationService.getKeyByKid(kid);
-                if (key.isPresent() && jwtKeyRotationService.isKeyValidForVerification(key.get())) {
-                    return isTokenValidWithKey(token, userDetails, key.get());
-                }
+        return isTokenValid(token, userDetails);
+    }
+    
+    /**
+     * Verify a token's signature and expiry with one parse and return all of its claims.
+     * Verified tokens are cached until they expire, for as long as the key
+     * that verified them stays valid for verification.
+     *
+     * @throws JwtException when the token is malformed, expired or not signed by a valid key
+     */
+    public Claims verifyToken(String token) {
+        String digest = VerifiedTokenCache.digest(token);
+        VerifiedTokenCache.VerifiedToken cached = verifiedTokens.get(digest, System.currentTimeMillis());
+        if (cached != null) {
+            if (isKeyStillValid(cached.kid())) {
+                return cached.claims();
             }
-            
-            // Fallback: try all valid verification keys
-            return tryValidateWithAllKeys(token, userDetails);
-            
-        } catch (Exception e) {
-            log.debug("Token validation with key rotation failed: {}", e.getMessage());
-            return false;
+            verifiedTokens.remove(digest);
+        }
+        
+        VerifiedTokenCache.VerifiedToken verified = verify(token);
+        if (verified.expiresAtMillis() > 0) {
+            verifiedTokens.put(digest, verified);
         }
+        return verified.claims();
     }
     
-    private boolean isTokenValidWithKey(String token, UserDetails userDetails, JwksKey key) {
+    private VerifiedTokenCache.VerifiedToken verify(String token) {
         try {
-            SecretKey secretKey = jwtKeyRotationService.getSecretKey(key);
-            
-            Claims claims = Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-            
-            String username = claims.getSubject();
-            Date expiration = claims.getExpiration();
-            
-            return username.equals(userDetails.getUsername()) && 
-                   expiration.after(new Date());
-                   
-        } catch (Exception e) {
-            log.debug("Token validation failed with key {}: {}", key.getKid(), e.getMessage());
-            return false;
+            Jws<Claims> jws = keyRingParser.parseClaimsJws(token);
+            return verifiedToken(jws.getBody(), jws.getHeader().getKeyId());
+        } catch (UnknownSigningKeyException e) {
+            log.debug("Signing key {} not found, trying all valid keys", e.getMessage());
         }
-    }
-    
-    private boolean tryValidateWithAllKeys(String token, UserDetails userDetails) {
-        var validKeys = jwtKeyRotationService.getValidVerificationKeys();
         
-        for (JwksKey key : validKeys) {
-            if (isTokenValidWithKey(token, userDetails, key)) {
+        // Fallback: tokens without a known key ID are tried with every valid key
+        for (JwksKey key : jwtKeyRotationService.getValidVerificationKeys()) {
+            try {
+                Claims claims = Jwts.parserBuilder()
+                    .setSigningKey(jwtKeyRotationService.getSecretKey(key))
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
                 log.debug("Token validated successfully with key: {}", key.getKid());
-                return true;
+                return verifiedToken(claims, key.getKid());
+            } catch (JwtException | IllegalArgumentException e) {
+                log.debug("Failed to parse token with key {}: {}", key.getKid(), e.getMessage());
             }
         }
         
-        log.debug("Token validation failed with all available keys");
-        return false;
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        throw new UnknownSigningKeyException("Unable to parse token with any available key");
     }
-
-    private Claims extractAllClaims(String token) {
-        // Try with key rotation support first
-        String kid = extractKeyId(token);
-        
+    
+    /**
+     * Signing key named by the token's key ID, when it is valid for verification
+     */
+    private Key resolveVerificationKey(String kid) {
         if (kid != null) {
             Optional<JwksKey> key = jwtKeyRotationService.getKeyByKid(kid);
             if (key.isPresent() && jwtKeyRotationService.isKeyValidForVerification(key.get())) {
-                SecretKey secretKey = jwtKeyRotationService.getSecretKey(key.get());
-                return Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+                return jwtKeyRotationService.getSecretKey(key.get());
             }
         }
+        throw new UnknownSigningKeyException(kid);
+    }
+    
+    private boolean isKeyStillValid(String kid) {
+        return jwtKeyRotationService.getKeyByKid(kid)
+            .filter(jwtKeyRotationService::isKeyValidForVerification)
+            .isPresent();
+    }
+    
+    private static VerifiedTokenCache.VerifiedToken verifiedToken(Claims claims, String kid) {
+        Date expiration = claims.getExpiration();
+        return new VerifiedTokenCache.VerifiedToken(claims, kid, expiration != null ? expiration.getTime() : 0L);
+    }
+    
+    /**
+     * Thrown when no valid key is known for a token's key ID
+     */
+    private static final class UnknownSigningKeyException extends JwtException {
         
-        // Fallback: try all valid keys
-        var validKeys = jwtKeyRotationService.getValidVerificationKeys();
-        
-        for (JwksKey key : validKeys) {
-            try {
-                SecretKey secretKey = jwtKeyRotationService.getSecretKey(key);
-                return Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            } catch (Exception e) {
-                log.debug("Failed to parse token with key {}: {}", key.getKid(), e.getMessage());
-            }
+        UnknownSigningKeyException(String message) {
+            super(message);
         }
-        
-        throw new RuntimeException("Unable to parse token with any available key");
     }
     
     private String extractKeyIdFromHeader(String token) {
@@ -1,5 +1,7 @@
 package com.bharatshop.shared.service;
 
+import com.bharatshop.shared.cache.CacheGenerations;
+import com.bharatshop.shared.cache.CacheGroups;
 import com.bharatshop.shared.entity.NotificationTemplate;
 import com.bharatshop.shared.repository.NotificationTemplateRepository;
 import lombok.RequiredArgsConstructor;
@@ -8,12 +10,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Service for managing notification templates with tenant and locale support.
+ * Template lookups are cached per tenant, event type, channel and locale,
+ * including misses, and invalidated on every node when a template is saved
+ * or deactivated.
  */
 @Service
 @RequiredArgsConstructor
@@ -22,44 +31,58 @@ public class NotificationTemplateService {
     
     private static final Logger log = LoggerFactory.getLogger(NotificationTemplateService.class);
     private final NotificationTemplateRepository templateRepository;
+    private final CacheGenerations cacheGenerations;
     private static final String DEFAULT_LOCALE = "en_US";
+    private static final int MAX_CACHED_LOOKUPS = 10000;
+    
+    private final ConcurrentMap<TemplateKey, CachedLookup> cachedLookups = new ConcurrentHashMap<>();
     
     /**
      * Find template with locale fallback support
      */
     public Optional<NotificationTemplate> findTemplate(String tenantId, String eventType, 
                                                       String channel, String locale) {
+        long generation = cacheGenerations.current(null, CacheGroups.NOTIFICATION_TEMPLATES);
+        TemplateKey key = new TemplateKey(tenantId, eventType, channel, locale);
+        CachedLookup cached = cachedLookups.get(key);
+        if (cached != null && cached.generation() >= generation) {
+            return cached.template();
+        }
+        
+        Optional<NotificationTemplate> template = loadTemplate(tenantId, eventType, channel, locale);
+        if (cachedLookups.size() >= MAX_CACHED_LOOKUPS) {
+            cachedLookups.clear();
+        }
+        cachedLookups.put(key, new CachedLookup(generation, template));
+        return template;
+    }
+    
+    /**
+     * Load a template, preferring the exact locale and falling back to the default
+     * locale, in a single query
+     */
+    private Optional<NotificationTemplate> loadTemplate(String tenantId, String eventType, 
+                                                        String channel, String locale) {
         log.debug("Finding template for tenant: {}, event: {}, channel: {}, locale: {}", 
                  tenantId, eventType, channel, locale);
         
-        // First try to find exact match
-        Optional<NotificationTemplate> template = templateRepository
-                .findByTenantIdAndEventTypeAndChannelAndLocaleAndIsActiveTrue(
+        List<NotificationTemplate> templates = templateRepository
+                .findByTenantIdAndEventTypeAndChannelWithLocaleFallback(
                         tenantId, eventType, channel, locale);
         
-        if (template.isPresent()) {
-            log.debug("Found exact template match for locale: {}", locale);
-            return template;
+        if (templates.isEmpty()) {
+            log.warn("No template found for tenant: {}, event: {}, channel: {}, locale: {} (with fallback)", 
+                    tenantId, eventType, channel, locale);
+            return Optional.empty();
         }
         
-        // Fallback to default locale if specific locale not found
-        if (!DEFAULT_LOCALE.equals(locale)) {
-            log.debug("Template not found for locale: {}, falling back to default locale: {}", 
-                     locale, DEFAULT_LOCALE);
-            
-            template = templateRepository
-                    .findByTenantIdAndEventTypeAndChannelAndLocaleAndIsActiveTrue(
-                            tenantId, eventType, channel, DEFAULT_LOCALE);
-            
-            if (template.isPresent()) {
-                log.debug("Found template with default locale fallback");
-                return template;
-            }
+        NotificationTemplate template = templates.get(0);
+        if (template.getLocale().equals(locale)) {
+            log.debug("Found exact template match for locale: {}", locale);
+        } else {
+            log.debug("Template not found for locale: {}, using default locale: {}", locale, DEFAULT_LOCALE);
         }
-        
-        log.warn("No template found for tenant: {}, event: {}, channel: {}, locale: {} (with fallback)", 
-                tenantId, eventType, channel, locale);
-        return Optional.empty();
+        return Optional.of(template);
     }
     
     /**
@@ -83,7 +106,14 @@ public class NotificationTemplateService {
                 template.getTenantId(), template.getEventType(), 
                 template.getChannel(), template.getLocale());
         
-        return templateRepository.save(template);
+        // A new version makes cached compiled forms of this template stale
+        if (template.getId() != null) {
+            template.setVersion(template.getVersion() != null ? template.getVersion() + 1 : 1);
+        }
+        
+        NotificationTemplate savedTemplate = templateRepository.save(template);
+        invalidateLookupsAfterCommit();
+        return savedTemplate;
     }
     
     /**
@@ -96,6 +126,7 @@ public class NotificationTemplateService {
             NotificationTemplate t = template.get();
             t.setIsActive(false);
             templateRepository.save(t);
+            invalidateLookupsAfterCommit();
             log.info("Deactivated template ID: {}", templateId);
         } else {
             log.warn("Template not found for deactivation: {}", templateId);
@@ -146,9 +177,28 @@ public class NotificationTemplateService {
         // Create default SMS templates for each event type
         createDefaultSmsTemplates(tenantId);
         
+        invalidateLookupsAfterCommit();
+        
         log.info("Default templates created for tenant: {}", tenantId);
     }
     
+    /**
+     * Invalidate cached template lookups on all nodes once the change is committed,
+     * so no node can cache the pre-commit state under the new generation
+     */
+    private void invalidateLookupsAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cacheGenerations.bump(null, CacheGroups.NOTIFICATION_TEMPLATES);
+                }
+            });
+        } else {
+            cacheGenerations.bump(null, CacheGroups.NOTIFICATION_TEMPLATES);
+        }
+    }
+    
     private void createDefaultEmailTemplates(String tenantId) {
         // Order Placed Email Template
         NotificationTemplate orderPlacedEmail = new NotificationTemplate();
@@ -184,4 +234,10 @@ public class NotificationTemplateService {
         
         // Add other default SMS templates...
     }
+    
+    private record TemplateKey(String tenantId, String eventType, String channel, String locale) {
+    }
+    
+    private record CachedLookup(long generation, Optional<NotificationTemplate> template) {
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.bharatshop.shared.service;
 
+import com.bharatshop.shared.cache.CacheGenerations;
+import com.bharatshop.shared.cache.CacheGroups;
 import com.bharatshop.shared.entity.Product;
 import com.bharatshop.shared.entity.TaxRate;
 import com.bharatshop.shared.repository.TaxRateRepository;
@@ -9,10 +11,19 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Service for calculating prices with GST tax components
+ *
+ * Tax rates are looked up in a per-tenant {@link TaxTable} held in memory and
+ * replaced whenever the tenant's rates change, so pricing does not query the
+ * database. Changes made on another node are picked up through the
+ * tenant's tax-rate cache generation.
  */
 @Service
 @RequiredArgsConstructor
@@ -21,7 +32,12 @@ public class PriceCalculationService {
     
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(PriceCalculationService.class);
 
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
     private final TaxRateRepository taxRateRepository;
+    private final CacheGenerations cacheGenerations;
+
+    private final ConcurrentMap<Long, TaxTable> taxTables = new ConcurrentHashMap<>();
 
     /**
      * Calculate price breakdown with tax components
@@ -29,19 +45,44 @@ public class PriceCalculationService {
     public PriceBreakdown calculatePrice(Product product, BigDecimal basePrice, 
                                        String customerStateCode, String merchantStateCode, 
                                        Long tenantId) {
+        return calculatePrice(taxTable(tenantId), product, basePrice, customerStateCode, merchantStateCode);
+    }
+
+    /**
+     * Calculate price breakdowns for several lines sharing the same tenant and
+     * states; the tenant's tax table is resolved once for the whole batch
+     *
+     * @return One breakdown per line, in line order
+     */
+    public List<PriceBreakdown> calculatePrices(List<PriceLine> lines,
+                                                String customerStateCode, String merchantStateCode,
+                                                Long tenantId) {
+        TaxTable taxTable = taxTable(tenantId);
+        List<PriceBreakdown> breakdowns = new ArrayList<>(lines.size());
+        for (PriceLine line : lines) {
+            breakdowns.add(calculatePrice(taxTable, line.product(), line.basePrice(),
+                    customerStateCode, merchantStateCode));
+        }
+        return breakdowns;
+    }
+
+    /**
+     * Rebuild a tenant's tax table after its rates were created, updated or
+     * imported, and invalidate the copies held by other nodes
+     */
+    public void refreshTaxRates(Long tenantId) {
+        long generation = cacheGenerations.bump(tenantId, CacheGroups.TAX_RATES);
+        TaxTable taxTable = loadTaxTable(tenantId, generation);
+        taxTables.merge(tenantId, taxTable,
+                (current, loaded) -> loaded.generation() >= current.generation() ? loaded : current);
+        log.info("Refreshed tax table for tenant {}: {} active rates", tenantId, taxTable.size());
+    }
+
+    private PriceBreakdown calculatePrice(TaxTable taxTable, Product product, BigDecimal basePrice,
+                                          String customerStateCode, String merchantStateCode) {
         
         if (product.getTaxPreference() == Product.TaxPreference.EXEMPT) {
-            return PriceBreakdown.builder()
-                    .basePrice(basePrice)
-                    .netPrice(basePrice)
-                    .cgstAmount(BigDecimal.ZERO)
-                    .sgstAmount(BigDecimal.ZERO)
-                    .igstAmount(BigDecimal.ZERO)
-                    .cessAmount(BigDecimal.ZERO)
-                    .totalTaxAmount(BigDecimal.ZERO)
-                    .totalPrice(basePrice)
-                    .taxType(TaxRate.TaxType.INTRA_STATE)
-                    .build();
+            return untaxed(basePrice, TaxRate.TaxType.INTRA_STATE);
         }
 
         // Determine tax type based on state codes
@@ -50,61 +91,73 @@ public class PriceCalculationService {
                 : TaxRate.TaxType.INTER_STATE;
 
         // Find applicable tax rate
-        Optional<TaxRate> taxRateOpt = taxRateRepository.findByTenantIdAndHsnCodeAndStateCodeAndTaxTypeAndStatus(
-                tenantId, product.getHsnCode(), customerStateCode, taxType, TaxRate.TaxRateStatus.ACTIVE);
+        Optional<TaxTable.Rate> rateOpt = taxTable.find(product.getHsnCode(), customerStateCode, taxType);
 
-        if (taxRateOpt.isEmpty()) {
+        if (rateOpt.isEmpty()) {
             log.warn("No tax rate found for HSN: {}, State: {}, Type: {}", 
                     product.getHsnCode(), customerStateCode, taxType);
             // Return without tax if no rate found
-            return PriceBreakdown.builder()
-                    .basePrice(basePrice)
-                    .netPrice(basePrice)
-                    .cgstAmount(BigDecimal.ZERO)
-                    .sgstAmount(BigDecimal.ZERO)
-                    .igstAmount(BigDecimal.ZERO)
-                    .cessAmount(BigDecimal.ZERO)
-                    .totalTaxAmount(BigDecimal.ZERO)
-                    .totalPrice(basePrice)
-                    .taxType(taxType)
-                    .build();
+            return untaxed(basePrice, taxType);
         }
 
-        TaxRate taxRate = taxRateOpt.get();
+        TaxTable.Rate rate = rateOpt.get();
         
         // Calculate based on tax inclusive/exclusive
         if (product.getIsTaxInclusive()) {
-            return calculateTaxInclusivePrice(basePrice, taxRate, taxType);
+            return calculateTaxInclusivePrice(basePrice, rate, taxType);
         } else {
-            return calculateTaxExclusivePrice(basePrice, taxRate, taxType);
+            return calculateTaxExclusivePrice(basePrice, rate, taxType);
         }
     }
 
-    private PriceBreakdown calculateTaxInclusivePrice(BigDecimal totalPrice, TaxRate taxRate, TaxRate.TaxType taxType) {
-        BigDecimal totalTaxRate = taxRate.getTotalTaxRate();
-        BigDecimal divisor = BigDecimal.valueOf(100).add(totalTaxRate);
-        
+    private TaxTable taxTable(Long tenantId) {
+        long generation = cacheGenerations.current(tenantId, CacheGroups.TAX_RATES);
+        TaxTable taxTable = taxTables.get(tenantId);
+        if (taxTable != null && taxTable.generation() >= generation) {
+            return taxTable;
+        }
+        return taxTables.compute(tenantId, (id, current) ->
+                current != null && current.generation() >= generation ? current : loadTaxTable(id, generation));
+    }
+
+    private TaxTable loadTaxTable(Long tenantId, long generation) {
+        return TaxTable.of(generation, taxRateRepository.findByTenantIdAndStatusAndDeletedAtIsNull(
+                tenantId, TaxRate.TaxRateStatus.ACTIVE));
+    }
+
+    private static PriceBreakdown untaxed(BigDecimal basePrice, TaxRate.TaxType taxType) {
+        return PriceBreakdown.builder()
+                .basePrice(basePrice)
+                .netPrice(basePrice)
+                .cgstAmount(BigDecimal.ZERO)
+                .sgstAmount(BigDecimal.ZERO)
+                .igstAmount(BigDecimal.ZERO)
+                .cessAmount(BigDecimal.ZERO)
+                .totalTaxAmount(BigDecimal.ZERO)
+                .totalPrice(basePrice)
+                .taxType(taxType)
+                .build();
+    }
+
+    private PriceBreakdown calculateTaxInclusivePrice(BigDecimal totalPrice, TaxTable.Rate rate, TaxRate.TaxType taxType) {
         // Net price = Total price / (1 + tax rate)
-        BigDecimal netPrice = totalPrice.multiply(BigDecimal.valueOf(100))
-                .divide(divisor, 2, RoundingMode.HALF_UP);
+        BigDecimal netPrice = totalPrice.multiply(HUNDRED)
+                .divide(rate.inclusiveDivisor(), 2, RoundingMode.HALF_UP);
         
-        return calculateTaxComponents(netPrice, totalPrice, taxRate, taxType);
+        return calculateTaxComponents(netPrice, totalPrice, rate, taxType);
     }
 
-    private PriceBreakdown calculateTaxExclusivePrice(BigDecimal netPrice, TaxRate taxRate, TaxRate.TaxType taxType) {
-        BigDecimal totalTaxRate = taxRate.getTotalTaxRate();
-        
-        // Total tax amount = Net price * (tax rate / 100)
-        BigDecimal totalTaxAmount = netPrice.multiply(totalTaxRate)
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+    private PriceBreakdown calculateTaxExclusivePrice(BigDecimal netPrice, TaxTable.Rate rate, TaxRate.TaxType taxType) {
+        // Total tax amount = Net price * tax rate
+        BigDecimal totalTaxAmount = percentOf(netPrice, rate.totalFraction());
         
         BigDecimal totalPrice = netPrice.add(totalTaxAmount);
         
-        return calculateTaxComponents(netPrice, totalPrice, taxRate, taxType);
+        return calculateTaxComponents(netPrice, totalPrice, rate, taxType);
     }
 
     private PriceBreakdown calculateTaxComponents(BigDecimal netPrice, BigDecimal totalPrice, 
-                                                TaxRate taxRate, TaxRate.TaxType taxType) {
+                                                TaxTable.Rate rate, TaxRate.TaxType taxType) {
         
         BigDecimal cgstAmount = BigDecimal.ZERO;
         BigDecimal sgstAmount = BigDecimal.ZERO;
@@ -112,24 +165,20 @@ public class PriceCalculationService {
         BigDecimal cessAmount = BigDecimal.ZERO;
 
         if (taxType == TaxRate.TaxType.INTRA_STATE) {
-            if (taxRate.getCgstRate() != null) {
-                cgstAmount = netPrice.multiply(taxRate.getCgstRate())
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            if (rate.cgstFraction() != null) {
+                cgstAmount = percentOf(netPrice, rate.cgstFraction());
             }
-            if (taxRate.getSgstRate() != null) {
-                sgstAmount = netPrice.multiply(taxRate.getSgstRate())
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            if (rate.sgstFraction() != null) {
+                sgstAmount = percentOf(netPrice, rate.sgstFraction());
             }
         } else {
-            if (taxRate.getIgstRate() != null) {
-                igstAmount = netPrice.multiply(taxRate.getIgstRate())
-                        .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            if (rate.igstFraction() != null) {
+                igstAmount = percentOf(netPrice, rate.igstFraction());
             }
         }
 
-        if (taxRate.getCessRate() != null) {
-            cessAmount = netPrice.multiply(taxRate.getCessRate())
-                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        if (rate.cessFraction() != null) {
+            cessAmount = percentOf(netPrice, rate.cessFraction());
         }
 
         BigDecimal totalTaxAmount = cgstAmount.add(sgstAmount).add(igstAmount).add(cessAmount);
@@ -147,6 +196,20 @@ public class PriceCalculationService {
                 .build();
     }
 
+    /**
+     * Amount times a compiled rate fraction, rounded to paise; equal to
+     * multiplying by the percentage and dividing by 100
+     */
+    private static BigDecimal percentOf(BigDecimal amount, BigDecimal fraction) {
+        return amount.multiply(fraction).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * One line to price in a batch
+     */
+    public record PriceLine(Product product, BigDecimal basePrice) {
+    }
+
     /**
      * Price breakdown result
      */
@@ -263,10 +326,9 @@ public class PriceCalculationService {
                 : TaxRate.TaxType.INTER_STATE;
 
         // Find applicable tax rate
-        Optional<TaxRate> taxRateOpt = taxRateRepository.findByTenantIdAndHsnCodeAndStateCodeAndTaxTypeAndStatus(
-                tenantId, hsnCode, sellerStateCode, taxType, TaxRate.TaxRateStatus.ACTIVE);
+        Optional<TaxTable.Rate> rateOpt = taxTable(tenantId).find(hsnCode, sellerStateCode, taxType);
 
-        if (taxRateOpt.isEmpty()) {
+        if (rateOpt.isEmpty()) {
             log.warn("No tax rate found for HSN: {}, State: {}, Type: {}", 
                     hsnCode, sellerStateCode, taxType);
             // Return response with zero tax
@@ -276,22 +338,22 @@ public class PriceCalculationService {
                     BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
         }
 
-        TaxRate taxRate = taxRateOpt.get();
+        TaxTable.Rate rate = rateOpt.get();
         
         // Calculate based on tax inclusive/exclusive
         PriceBreakdown breakdown;
         if (isTaxInclusive) {
-            breakdown = calculateTaxInclusivePrice(amount, taxRate, taxType);
+            breakdown = calculateTaxInclusivePrice(amount, rate, taxType);
         } else {
-            breakdown = calculateTaxExclusivePrice(amount, taxRate, taxType);
+            breakdown = calculateTaxExclusivePrice(amount, rate, taxType);
         }
 
         // Convert to TaxCalculationResponse
         return com.bharatshop.shared.dto.TaxCalculationResponse.create(
                 hsnCode, sellerStateCode, buyerStateCode, amount, isTaxInclusive,
                 breakdown.getNetPrice(), 
-                taxRate.getCgstRate(), taxRate.getSgstRate(), 
-                taxRate.getIgstRate(), taxRate.getCessRate(),
+                rate.cgstRate(), rate.sgstRate(), 
+                rate.igstRate(), rate.cessRate(),
                 breakdown.getCgstAmount(), breakdown.getSgstAmount(),
                 breakdown.getIgstAmount(), breakdown.getCessAmount());
     }
@@ -1,17 +1,25 @@
 package com.bharatshop.shared.service;
 
-import com.bharatshop.shared.entity.ProductVariant;
 import com.bharatshop.shared.entity.Reservation;
 import com.bharatshop.shared.repository.ProductVariantRepository;
 import com.bharatshop.shared.repository.ReservationRepository;
+import com.bharatshop.shared.scheduler.ReservationExpiryTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -26,13 +34,23 @@ public class ReservationService {
 
     private final ReservationRepository reservationRepository;
     private final ProductVariantRepository productVariantRepository;
+    private final StockLedger stockLedger;
+    private final ReservationExpiryTracker reservationExpiryTracker;
+    private final ReservationWriter reservationWriter;
     
     // Default reservation timeout in minutes
     private static final int DEFAULT_RESERVATION_TIMEOUT_MINUTES = 15;
     
+    // Reservations released per statement by the expiry and stale sweeps
+    public static final int RELEASE_BATCH_SIZE = 500;
+    
     /**
      * Reserve stock for a product variant atomically
      * 
+     * The reservation commits in a short transaction of its own, so the
+     * variant row is not held locked for the rest of the caller's transaction.
+     * If that transaction rolls back, the reservation is released again.
+     * 
      * @param tenantId The tenant ID
      * @param productVariantId The product variant ID
      * @param quantity The quantity to reserve
@@ -40,7 +58,6 @@ public class ReservationService {
      * @return The created reservation
      * @throws IllegalArgumentException if insufficient stock available
      */
-    @Transactional
     public Reservation reserveStock(Long tenantId, Long productVariantId, Integer quantity, Integer timeoutMinutes) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be positive");
@@ -48,48 +65,11 @@ public class ReservationService {
         
         int timeout = timeoutMinutes != null ? timeoutMinutes : DEFAULT_RESERVATION_TIMEOUT_MINUTES;
         LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(timeout);
-        LocalDateTime now = LocalDateTime.now();
-        
-        // Get product variant
-        Optional<ProductVariant> variantOpt = productVariantRepository.findByIdAndDeletedAtIsNull(productVariantId);
-        if (variantOpt.isEmpty()) {
-            throw new IllegalArgumentException("Product variant not found: " + productVariantId);
-        }
-        
-        ProductVariant variant = variantOpt.get();
-        if (!variant.getTenantId().equals(tenantId)) {
-            throw new IllegalArgumentException("Product variant does not belong to tenant");
-        }
-        
-        // Check if variant is available for reservation
-        if (variant.getStatus() != ProductVariant.VariantStatus.ACTIVE) {
-            throw new IllegalArgumentException("Product variant is not available for reservation");
-        }
-        
-        // Get current reserved quantity with lock
-        Integer currentReserved = reservationRepository.getTotalReservedQuantity(tenantId, productVariantId, now);
-        if (currentReserved == null) {
-            currentReserved = 0;
-        }
-        
-        // Check if sufficient stock is available (stock - reserved >= requested quantity)
-        int availableStock = variant.getStock() - currentReserved;
-        if (availableStock < quantity) {
-            throw new IllegalArgumentException(
-                String.format("Insufficient stock. Available: %d, Requested: %d", availableStock, quantity)
-            );
-        }
         
-        // Create and save reservation
-        Reservation reservation = Reservation.builder()
-                .tenantId(tenantId)
-                .productVariantId(productVariantId)
-                .quantity(quantity)
-                .expiresAt(expiresAt)
-                .status(Reservation.ReservationStatus.ACTIVE)
-                .build();
-        
-        reservation = reservationRepository.save(reservation);
+        // Conditionally add the quantity to the variant's reserved stock and record the reservation
+        Reservation reservation = reservationWriter.reserve(tenantId, productVariantId, quantity, expiresAt);
+        reservationExpiryTracker.track(tenantId, productVariantId, expiresAt);
+        afterRollback(() -> reservationWriter.release(tenantId, List.of(reservation)));
         
         log.info("Reserved {} units of variant {} for tenant {} (expires at {})", 
                 quantity, productVariantId, tenantId, expiresAt);
@@ -100,11 +80,92 @@ public class ReservationService {
     /**
      * Reserve stock with default timeout
      */
-    @Transactional
     public Reservation reserveStock(Long tenantId, Long productVariantId, Integer quantity) {
         return reserveStock(tenantId, productVariantId, quantity, null);
     }
     
+    /**
+     * Reserve stock for all lines of an order in one all-or-nothing step
+     * 
+     * Quantities for the same variant are merged, the ledger reserves every
+     * line with a conditional update in variant ID order, and the reservation
+     * rows are written with a single JDBC batch. All of this commits in a short
+     * transaction of its own; if the caller's transaction rolls back, the
+     * order's reservations are released again.
+     * 
+     * @param tenantId The tenant ID
+     * @param orderId The order the reservations belong to
+     * @param quantities Quantity to reserve per product variant ID
+     * @param timeoutMinutes Reservation timeout in minutes (optional)
+     * @return Number of reservations created
+     * @throws IllegalArgumentException if any line cannot be reserved
+     */
+    public int reserveStockBatch(Long tenantId, Long orderId, Map<Long, Integer> quantities, Integer timeoutMinutes) {
+        SortedMap<Long, Integer> lines = new TreeMap<>();
+        quantities.forEach((variantId, quantity) -> {
+            if (quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            lines.merge(variantId, quantity, Integer::sum);
+        });
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        
+        int timeout = timeoutMinutes != null ? timeoutMinutes : DEFAULT_RESERVATION_TIMEOUT_MINUTES;
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusMinutes(timeout);
+        
+        reservationWriter.reserveAll(tenantId, orderId, lines, now, expiresAt);
+        lines.keySet().forEach(variantId -> reservationExpiryTracker.track(tenantId, variantId, expiresAt));
+        afterRollback(() -> reservationWriter.releaseOrder(tenantId, orderId));
+        
+        log.info("Reserved {} lines for order {} of tenant {} (expires at {})",
+                lines.size(), orderId, tenantId, expiresAt);
+        
+        return lines.size();
+    }
+    
+    /**
+     * Commit all active reservations of an order in one step
+     * 
+     * The reservations are marked committed with a single statement, then
+     * every variant's stock and reserved stock are decremented with
+     * conditional updates in variant ID order.
+     * 
+     * @throws IllegalStateException if a reservation was released concurrently
+     *         or any variant is missing or would go negative
+     */
+    @Transactional
+    public void commitReservationsBatch(Long tenantId, Long orderId) {
+        List<Reservation> reservations = reservationRepository.findByOrderIdAndTenantId(orderId, tenantId);
+        
+        List<Long> reservationIds = new ArrayList<>();
+        SortedMap<Long, Integer> quantities = new TreeMap<>();
+        for (Reservation reservation : reservations) {
+            if (!reservation.isActive()) {
+                if (reservation.getStatus() == Reservation.ReservationStatus.ACTIVE) {
+                    log.warn("Skipping expired reservation {} of order {}", reservation.getId(), orderId);
+                }
+                continue;
+            }
+            reservationIds.add(reservation.getId());
+            quantities.merge(reservation.getProductVariantId(), reservation.getQuantity(), Integer::sum);
+        }
+        if (reservationIds.isEmpty()) {
+            return;
+        }
+        
+        int committed = reservationRepository.markCommitted(reservationIds, LocalDateTime.now());
+        if (committed != reservationIds.size()) {
+            throw new IllegalStateException("Reservations of order " + orderId + " were released concurrently");
+        }
+        stockLedger.commitAll(tenantId, quantities);
+        
+        log.info("Committed {} reservations across {} variants for order {}", 
+                reservationIds.size(), quantities.size(), orderId);
+    }
+    
     /**
      * Commit all reservations for an order
      */
@@ -145,33 +206,18 @@ public class ReservationService {
                 continue;
             }
             
-            // Get product variant
-            Optional<ProductVariant> variantOpt = productVariantRepository.findByIdAndDeletedAtIsNull(reservation.getProductVariantId());
-            if (variantOpt.isEmpty()) {
-                log.error("Product variant not found for reservation: {}", reservationId);
+            // Mark reservation as committed unless it was released meanwhile
+            if (reservationRepository.commitReservation(reservationId, orderId, LocalDateTime.now()) == 0) {
+                log.warn("Reservation {} was released before it could be committed", reservationId);
                 continue;
             }
             
-            ProductVariant variant = variantOpt.get();
-            
-            // Decrement actual stock
-            int newStock = variant.getStock() - reservation.getQuantity();
-            if (newStock < 0) {
-                log.error("Stock would go negative for variant {}: current={}, reserved={}", 
-                         variant.getId(), variant.getStock(), reservation.getQuantity());
-                throw new IllegalStateException("Insufficient stock to commit reservation");
-            }
-            
-            variant.setStock(newStock);
-            productVariantRepository.save(variant);
-            
-            // Mark reservation as committed
-            reservation.setOrderId(orderId);
-            reservation.markAsCommitted();
-            reservationRepository.save(reservation);
+            // Decrement actual stock together with the reserved stock
+            SortedMap<Long, Integer> quantity = new TreeMap<>();
+            quantity.put(reservation.getProductVariantId(), reservation.getQuantity());
+            stockLedger.commitAll(tenantId, quantity);
             
-            log.info("Committed reservation {} for variant {} (new stock: {})", 
-                    reservationId, variant.getId(), newStock);
+            log.info("Committed reservation {} for variant {}", reservationId, reservation.getProductVariantId());
         }
     }
     
@@ -194,8 +240,11 @@ public class ReservationService {
             return;
         }
         
-        reservation.markAsReleased();
-        reservationRepository.save(reservation);
+        if (reservationRepository.releaseReservation(reservationId, LocalDateTime.now()) == 0) {
+            log.warn("Reservation {} was committed or released concurrently", reservationId);
+            return;
+        }
+        stockLedger.release(tenantId, reservation.getProductVariantId(), reservation.getQuantity());
         
         log.info("Released reservation {} for variant {}", reservationId, reservation.getProductVariantId());
     }
@@ -208,9 +257,9 @@ public class ReservationService {
         List<Reservation> reservations = reservationRepository.findByOrderIdAndTenantId(orderId, tenantId);
         
         for (Reservation reservation : reservations) {
-            if (reservation.getStatus() == Reservation.ReservationStatus.ACTIVE) {
-                reservation.markAsReleased();
-                reservationRepository.save(reservation);
+            if (reservation.getStatus() == Reservation.ReservationStatus.ACTIVE
+                    && reservationRepository.releaseReservation(reservation.getId(), LocalDateTime.now()) > 0) {
+                stockLedger.release(tenantId, reservation.getProductVariantId(), reservation.getQuantity());
                 
                 log.info("Released reservation {} for cancelled order {}", reservation.getId(), orderId);
             }
@@ -218,12 +267,17 @@ public class ReservationService {
     }
     
     /**
-     * Clean up expired reservations (called by scheduled job)
+     * Release every expired reservation, e.g. on request of an administrator.
+     * Each batch commits on its own, so locks are held for one batch at a time.
      */
-    @Transactional
     public int cleanupExpiredReservations() {
         LocalDateTime now = LocalDateTime.now();
-        int releasedCount = reservationRepository.releaseExpiredReservations(now);
+        int releasedCount = 0;
+        int released;
+        do {
+            released = reservationWriter.releaseExpiredBatch(now, RELEASE_BATCH_SIZE);
+            releasedCount += released;
+        } while (released == RELEASE_BATCH_SIZE);
         
         if (releasedCount > 0) {
             log.info("Released {} expired reservations", releasedCount);
@@ -233,27 +287,137 @@ public class ReservationService {
     }
     
     /**
-     * Get available stock for a product variant (total stock - active reservations)
+     * Release one batch of reservations that expired before the given time
+     * (called by the fallback sweep, which repeats while batches come back full)
+     * 
+     * @param expiredBefore Only reservations expiring at or before this are released
+     * @return Number of reservations released, at most {@link #RELEASE_BATCH_SIZE}
      */
-    @Transactional(readOnly = true)
-    public int getAvailableStock(Long tenantId, Long productVariantId) {
-        Optional<ProductVariant> variantOpt = productVariantRepository.findActiveByIdAndTenantId(productVariantId, tenantId);
-        if (variantOpt.isEmpty()) {
-            return 0;
+    public int releaseOverdueReservations(LocalDateTime expiredBefore) {
+        int releasedCount = reservationWriter.releaseExpiredBatch(expiredBefore, RELEASE_BATCH_SIZE);
+        
+        if (releasedCount > 0) {
+            log.info("Released {} overdue reservations", releasedCount);
         }
         
-        ProductVariant variant = variantOpt.get();
-        if (!variant.getTenantId().equals(tenantId)) {
+        return releasedCount;
+    }
+    
+    /**
+     * Release reservations whose expiry deadline has just passed
+     * 
+     * Only the expired reservations of the variants whose deadlines came due
+     * are locked and released, one committed batch at a time.
+     * 
+     * @param due Expiries reported by the expiry tracker
+     * @return Number of reservations released
+     */
+    public int releaseDueReservations(List<ReservationExpiryTracker.Expiry> due) {
+        Set<Long> variantIds = new TreeSet<>();
+        for (ReservationExpiryTracker.Expiry expiry : due) {
+            variantIds.add(expiry.productVariantId());
+        }
+        if (variantIds.isEmpty()) {
             return 0;
         }
         
         LocalDateTime now = LocalDateTime.now();
-        Integer reserved = reservationRepository.getTotalReservedQuantity(tenantId, productVariantId, now);
-        if (reserved == null) {
-            reserved = 0;
+        int releasedCount = 0;
+        int released;
+        do {
+            released = reservationWriter.releaseExpiredBatch(variantIds, now, RELEASE_BATCH_SIZE);
+            releasedCount += released;
+        } while (released == RELEASE_BATCH_SIZE);
+        
+        return releasedCount;
+    }
+    
+    /**
+     * Release all reservations created more than thresholdMinutes ago, one
+     * committed batch at a time
+     * 
+     * @return Number of reservations released
+     */
+    public int releaseStaleReservations(int thresholdMinutes) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime threshold = now.minusMinutes(thresholdMinutes);
+        int releasedCount = 0;
+        int released;
+        do {
+            released = reservationWriter.releaseStaleBatch(threshold, RELEASE_BATCH_SIZE);
+            releasedCount += released;
+        } while (released == RELEASE_BATCH_SIZE);
+        
+        if (releasedCount > 0) {
+            log.info("Released {} stale reservations", releasedCount);
         }
         
-        return Math.max(0, variant.getStock() - reserved);
+        return releasedCount;
+    }
+    
+    /**
+     * Reset reserved stock to the sum of active reservations wherever the two
+     * differ, e.g. after reservations were changed outside this service.
+     * An operator action: each variant is corrected in a short transaction of
+     * its own, so no table-wide lock is taken.
+     * 
+     * @return Number of variants corrected
+     */
+    public int reconcileReservedStock() {
+        int corrected = 0;
+        for (Long variantId : productVariantRepository.findIdsWithUnreconciledReservedStock()) {
+            corrected += reservationWriter.reconcileReservedStock(variantId);
+        }
+        if (corrected > 0) {
+            log.warn("Corrected reserved stock of {} variants", corrected);
+            stockLedger.invalidateAll();
+        }
+        return corrected;
+    }
+    
+    /**
+     * Run a compensating action if the caller's transaction rolls back. Should
+     * it fail, the reservation is released once it expires.
+     */
+    private static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    action.run();
+                } catch (Exception e) {
+                    log.error("Failed to release reservations of a rolled back transaction; they are released on expiry", e);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Start tracking the expiry of every active reservation, e.g. after a restart
+     * 
+     * @return Number of reservations tracked
+     */
+    @Transactional(readOnly = true)
+    public int trackActiveReservations() {
+        List<Object[]> rows = reservationRepository.findActiveReservationExpiries();
+        for (Object[] row : rows) {
+            reservationExpiryTracker.track((Long) row[0], (Long) row[1], (LocalDateTime) row[2]);
+        }
+        return rows.size();
+    }
+    
+    /**
+     * Get available stock for a product variant (total stock - reserved stock)
+     */
+    @Transactional(readOnly = true)
+    public int getAvailableStock(Long tenantId, Long productVariantId) {
+        return stockLedger.getAvailable(tenantId, productVariantId);
     }
     
     /**
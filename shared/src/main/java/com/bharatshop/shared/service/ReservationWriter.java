@@ -0,0 +1,177 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.entity.Reservation;
+import com.bharatshop.shared.repository.ProductVariantRepository;
+import com.bharatshop.shared.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Reservation changes that commit in short transactions of their own,
+ * independent of the caller's transaction, so the variant rows they lock are
+ * released as soon as each change is done.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReservationWriter {
+
+    private static final String INSERT_RESERVATION_SQL =
+            "INSERT INTO reservations (tenant_id, product_variant_id, quantity, order_id, expires_at, status, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, 'ACTIVE', ?, ?)";
+
+    private final ReservationRepository reservationRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final StockLedger stockLedger;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserve units of one variant and record the reservation
+     *
+     * @throws IllegalArgumentException if the variant cannot be reserved or
+     *         too little stock is available
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Reservation reserve(Long tenantId, Long productVariantId, int quantity, LocalDateTime expiresAt) {
+        stockLedger.reserve(tenantId, productVariantId, quantity);
+        return reservationRepository.save(Reservation.builder()
+                .tenantId(tenantId)
+                .productVariantId(productVariantId)
+                .quantity(quantity)
+                .expiresAt(expiresAt)
+                .status(Reservation.ReservationStatus.ACTIVE)
+                .build());
+    }
+
+    /**
+     * Reserve the lines of an order in variant ID order and record them with a
+     * single JDBC batch. Either every line is reserved or none is.
+     *
+     * @throws IllegalArgumentException if any line cannot be reserved
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void reserveAll(Long tenantId, Long orderId, SortedMap<Long, Integer> lines,
+                           LocalDateTime createdAt, LocalDateTime expiresAt) {
+        stockLedger.reserveAll(tenantId, lines);
+
+        Timestamp created = Timestamp.valueOf(createdAt);
+        Timestamp expires = Timestamp.valueOf(expiresAt);
+        List<Object[]> rows = new ArrayList<>(lines.size());
+        lines.forEach((variantId, quantity) ->
+                rows.add(new Object[] {tenantId, variantId, quantity, orderId, expires, created, created}));
+        jdbcTemplate.batchUpdate(INSERT_RESERVATION_SQL, rows);
+    }
+
+    /**
+     * Release the given reservations that are still active and return their units
+     *
+     * @return Number of reservations released
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int release(Long tenantId, List<Reservation> reservations) {
+        int released = 0;
+        LocalDateTime now = LocalDateTime.now();
+        for (Reservation reservation : reservations) {
+            if (reservation.getStatus() == Reservation.ReservationStatus.ACTIVE
+                    && reservationRepository.releaseReservation(reservation.getId(), now) > 0) {
+                stockLedger.release(tenantId, reservation.getProductVariantId(), reservation.getQuantity());
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Release the active reservations of an order and return their units
+     *
+     * @return Number of reservations released
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int releaseOrder(Long tenantId, Long orderId) {
+        return release(tenantId, reservationRepository.findByOrderIdAndTenantId(orderId, tenantId));
+    }
+
+    /**
+     * Release up to {@code limit} reservations that expired at or before the given time
+     *
+     * @return Number of reservations released
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int releaseExpiredBatch(LocalDateTime expiredBefore, int limit) {
+        return releaseLocked(reservationRepository.findExpiredForRelease(expiredBefore, limit));
+    }
+
+    /**
+     * Release up to {@code limit} expired reservations of the given variants
+     *
+     * @return Number of reservations released
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int releaseExpiredBatch(Collection<Long> productVariantIds, LocalDateTime expiredBefore, int limit) {
+        return releaseLocked(reservationRepository.findExpiredForRelease(productVariantIds, expiredBefore, limit));
+    }
+
+    /**
+     * Release up to {@code limit} reservations created at or before the given time
+     *
+     * @return Number of reservations released
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int releaseStaleBatch(LocalDateTime createdBefore, int limit) {
+        return releaseLocked(reservationRepository.findStaleForRelease(createdBefore, limit));
+    }
+
+    /**
+     * Reset a variant's reserved stock to the sum of its active reservations.
+     * The variant row is locked first, so reservations of the variant that are
+     * being committed are waited for and counted.
+     *
+     * @return 1 if the reserved stock was corrected, otherwise 0
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int reconcileReservedStock(Long productVariantId) {
+        if (productVariantRepository.findByIdAndDeletedAtIsNull(productVariantId).isEmpty()) {
+            return 0;
+        }
+        return productVariantRepository.reconcileReservedStock(productVariantId);
+    }
+
+    /**
+     * Release reservations locked by a find-for-release query and return their
+     * units, one conditional update per variant in variant ID order
+     *
+     * @param rows Rows of [id, tenant_id, product_variant_id, quantity]
+     * @return Number of reservations released
+     */
+    private int releaseLocked(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Long> reservationIds = new ArrayList<>(rows.size());
+        SortedMap<Long, Long> tenantByVariant = new TreeMap<>();
+        Map<Long, Integer> quantityByVariant = new HashMap<>();
+        for (Object[] row : rows) {
+            Long variantId = ((Number) row[2]).longValue();
+            reservationIds.add(((Number) row[0]).longValue());
+            tenantByVariant.put(variantId, ((Number) row[1]).longValue());
+            quantityByVariant.merge(variantId, ((Number) row[3]).intValue(), Integer::sum);
+        }
+
+        int released = reservationRepository.releaseReservations(reservationIds, LocalDateTime.now());
+        tenantByVariant.forEach((variantId, tenantId) ->
+                stockLedger.release(tenantId, variantId, quantityByVariant.get(variantId)));
+        return released;
+    }
+}
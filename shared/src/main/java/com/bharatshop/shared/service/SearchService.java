@@ -1,5 +1,10 @@
 package com.bharatshop.shared.service;
 
+import com.bharatshop.shared.service.search.AutocompleteService;
+import com.bharatshop.shared.service.search.FacetSummary;
+import com.bharatshop.shared.service.search.ProductSearchIndexService;
+import com.bharatshop.shared.tenant.TenantContext;
+import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -13,8 +18,15 @@ import java.util.stream.Collectors;
  * Service for handling product search with advanced filtering capabilities
  */
 @Service
+@RequiredArgsConstructor
 public class SearchService {
     
+    private static final int MAX_FACET_VALUES = 50;
+    private static final int PRICE_HISTOGRAM_BUCKETS = 10;
+    
+    private final ProductSearchIndexService productSearchIndexService;
+    private final AutocompleteService autocompleteService;
+    
     /**
      * Search criteria for filtering products
      */
@@ -223,6 +235,18 @@ public class SearchService {
         }
     }
     
+    /**
+     * Run search criteria against the tenant's in-memory product index
+     * @param tenantId Tenant whose catalog is searched
+     * @param criteria Search criteria
+     * @param page Zero-based page number
+     * @param size Page size
+     * @return Page of matching product ids in result order
+     */
+    public SearchResult<Long> searchProductIds(Long tenantId, SearchCriteria criteria, int page, int size) {
+        return productSearchIndexService.search(tenantId, criteria, page, size);
+    }
+    
     /**
      * Build search query from criteria
      * @param criteria Search criteria
@@ -316,72 +340,113 @@ public class SearchService {
     }
     
     /**
-     * Generate search suggestions based on query
+     * Generate search suggestions for the current tenant based on query
      * @param query The search query
      * @param maxSuggestions Maximum number of suggestions
      * @return List of search suggestions
      */
     public List<String> generateSuggestions(String query, int maxSuggestions) {
-        List<String> suggestions = new ArrayList<>();
-        
+        Long tenantId = TenantContext.getCurrentTenant();
+        return tenantId != null ? generateSuggestions(tenantId, query, maxSuggestions) : new ArrayList<>();
+    }
+    
+    /**
+     * Generate search suggestions from the tenant's autocomplete trie of product
+     * names, category names and popular queries
+     * @param tenantId Tenant whose suggestions are used
+     * @param query The search query
+     * @param maxSuggestions Maximum number of suggestions
+     * @return List of search suggestions, most popular first
+     */
+    public List<String> generateSuggestions(Long tenantId, String query, int maxSuggestions) {
         if (!StringUtils.hasText(query) || query.length() < 2) {
-            return suggestions;
+            return new ArrayList<>();
         }
-        
-        // This would typically query a suggestion index or database
-        // For now, return some mock suggestions
-        String lowerQuery = query.toLowerCase();
-        
-        // Mock suggestions - in real implementation, this would query a suggestions database
-        List<String> mockSuggestions = Arrays.asList(
-            "smartphone", "laptop", "headphones", "camera", "tablet",
-            "watch", "shoes", "clothing", "books", "electronics",
-            "home decor", "kitchen appliances", "sports equipment",
-            "beauty products", "jewelry", "toys", "games"
-        );
-        
-        suggestions = mockSuggestions.stream()
-            .filter(suggestion -> suggestion.toLowerCase().contains(lowerQuery))
-            .limit(maxSuggestions)
-            .collect(Collectors.toList());
-        
-        return suggestions;
+        return autocompleteService.suggest(tenantId, query, maxSuggestions);
     }
     
     /**
-     * Get available filter options for faceted search
+     * Record a search that returned results so its query gains popularity in suggestions
+     * @param tenantId Tenant the search ran in
+     * @param query The search query
+     */
+    public void recordSuccessfulQuery(Long tenantId, String query) {
+        autocompleteService.recordQuery(tenantId, query);
+    }
+    
+    /**
+     * Get available filter options for faceted search in the current tenant
      * @param criteria Current search criteria
-     * @return Map of filter options
+     * @return Map of filter options, most frequent values first
      */
     public Map<String, List<String>> getFilterOptions(SearchCriteria criteria) {
-        Map<String, List<String>> filterOptions = new HashMap<>();
-        
-        // This would typically query the search index to get available facets
-        // For now, return some mock filter options
-        
-        filterOptions.put("brands", Arrays.asList("Apple", "Samsung", "Sony", "LG", "Nike", "Adidas"));
-        filterOptions.put("categories", Arrays.asList("Electronics", "Clothing", "Books", "Home & Garden", "Sports"));
-        filterOptions.put("colors", Arrays.asList("Red", "Blue", "Green", "Black", "White", "Yellow"));
-        filterOptions.put("sizes", Arrays.asList("XS", "S", "M", "L", "XL", "XXL"));
-        filterOptions.put("materials", Arrays.asList("Cotton", "Polyester", "Leather", "Metal", "Plastic", "Wood"));
-        
+        Long tenantId = TenantContext.getCurrentTenant();
+        return tenantId != null ? getFilterOptions(tenantId, criteria) : new HashMap<>();
+    }
+    
+    /**
+     * Get available filter options for faceted search
+     * @param tenantId Tenant whose catalog is searched
+     * @param criteria Current search criteria
+     * @return Map of filter options, most frequent values first
+     */
+    public Map<String, List<String>> getFilterOptions(Long tenantId, SearchCriteria criteria) {
+        Map<String, List<String>> filterOptions = new LinkedHashMap<>();
+        getFacetCounts(tenantId, criteria).forEach((facet, counts) ->
+            filterOptions.put(facet, new ArrayList<>(counts.keySet())));
         return filterOptions;
     }
     
     /**
-     * Get price range statistics for current search
+     * Get product counts per facet value, computed from the tenant's facet bitmaps.
+     * Counts for a facet ignore that facet's own selections so alternatives stay visible.
+     * @param tenantId Tenant whose catalog is searched
+     * @param criteria Current search criteria
+     * @return Map of facet name to value counts
+     */
+    public Map<String, Map<String, Long>> getFacetCounts(Long tenantId, SearchCriteria criteria) {
+        return getFacetSummary(tenantId, criteria).facets();
+    }
+    
+    /**
+     * Get facet counts, price statistics and price histogram in one pass
+     * @param tenantId Tenant whose catalog is searched
+     * @param criteria Current search criteria
+     * @return Facet summary
+     */
+    public FacetSummary getFacetSummary(Long tenantId, SearchCriteria criteria) {
+        return productSearchIndexService.facets(tenantId, criteria, MAX_FACET_VALUES, PRICE_HISTOGRAM_BUCKETS);
+    }
+    
+    /**
+     * Get price range statistics for current search in the current tenant
      * @param criteria Search criteria
      * @return Price range information
      */
     public Map<String, BigDecimal> getPriceRange(SearchCriteria criteria) {
+        Long tenantId = TenantContext.getCurrentTenant();
+        if (tenantId == null) {
+            Map<String, BigDecimal> priceRange = new HashMap<>();
+            priceRange.put("min", BigDecimal.ZERO);
+            priceRange.put("max", BigDecimal.ZERO);
+            priceRange.put("avg", BigDecimal.ZERO);
+            return priceRange;
+        }
+        return getPriceRange(tenantId, criteria);
+    }
+    
+    /**
+     * Get price range statistics for current search
+     * @param tenantId Tenant whose catalog is searched
+     * @param criteria Search criteria
+     * @return Price range information
+     */
+    public Map<String, BigDecimal> getPriceRange(Long tenantId, SearchCriteria criteria) {
+        FacetSummary summary = getFacetSummary(tenantId, criteria);
         Map<String, BigDecimal> priceRange = new HashMap<>();
-        
-        // This would typically query the search index for price statistics
-        // For now, return mock data
-        priceRange.put("min", new BigDecimal("10.00"));
-        priceRange.put("max", new BigDecimal("50000.00"));
-        priceRange.put("avg", new BigDecimal("2500.00"));
-        
+        priceRange.put("min", summary.minPrice());
+        priceRange.put("max", summary.maxPrice());
+        priceRange.put("avg", summary.avgPrice());
         return priceRange;
     }
     
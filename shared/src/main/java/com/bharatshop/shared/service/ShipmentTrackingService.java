@@ -6,14 +6,17 @@ import com.bharatshop.shared.entity.ShipmentTracking;
 import com.bharatshop.shared.repository.OrderRepository;
 import com.bharatshop.shared.repository.ShipmentRepository;
 import com.bharatshop.shared.repository.ShipmentTrackingRepository;
+import com.bharatshop.shared.scheduler.ShipmentPollSchedule;
 // import com.bharatshop.shared.service.ShippingValidationService; // Removed due to Mockito compatibility issues
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -21,6 +24,13 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -42,6 +52,7 @@ public class ShipmentTrackingService {
     private final OrderRepository orderRepository;
     private final NotificationService notificationService;
     private final RestTemplate restTemplate;
+    private final ShipmentPollSchedule pollSchedule;
     // Removed ShippingValidationService due to Mockito compatibility issues
     
     @Value("${bharatshop.tracking.carriers.delhivery.api-key:}")
@@ -59,15 +70,33 @@ public class ShipmentTrackingService {
     @Value("${bharatshop.tracking.webhook.retry-attempts:3}")
     private int webhookRetryAttempts;
 
+    @Value("${bharatshop.tracking.carriers.delhivery.bulk-size:50}")
+    private int delhiveryBulkSize;
+
+    @Value("${bharatshop.tracking.carriers.delhivery.requests-per-second:5}")
+    private double delhiveryRequestsPerSecond;
+
+    @Value("${bharatshop.tracking.carriers.delhivery.max-concurrency:4}")
+    private int delhiveryMaxConcurrency;
+
+    @Value("${bharatshop.tracking.carriers.bluedart.bulk-size:25}")
+    private int bluedartBulkSize;
+
+    @Value("${bharatshop.tracking.carriers.bluedart.requests-per-second:2}")
+    private double bluedartRequestsPerSecond;
+
+    @Value("${bharatshop.tracking.carriers.bluedart.max-concurrency:2}")
+    private int bluedartMaxConcurrency;
+
     /**
-     * Get active shipments that need tracking updates
+     * Get active shipments whose next poll, as set by {@link ShipmentPollSchedule}, is due
      */
     public List<Shipment> getActiveShipmentsForPolling(int batchSize) {
-        return shipmentRepository.findActiveShipmentsForPolling(
+        return shipmentRepository.findShipmentsDueForPolling(
                 List.of(Shipment.ShipmentStatus.PICKED_UP, Shipment.ShipmentStatus.IN_TRANSIT, 
-                       Shipment.ShipmentStatus.OUT_FOR_DELIVERY),
-                LocalDateTime.now().minusHours(1), // Only poll if last update was more than 1 hour ago
-                batchSize
+                       Shipment.ShipmentStatus.OUT_FOR_DELIVERY, Shipment.ShipmentStatus.DELIVERY_FAILED),
+                LocalDateTime.now(),
+                PageRequest.of(0, batchSize)
         );
     }
 
@@ -80,25 +109,9 @@ public class ShipmentTrackingService {
             log.debug("Polling tracking for shipment: {} with carrier: {}", 
                     shipment.getTrackingNumber(), shipment.getCarrierName());
             
-            List<TrackingEvent> events = fetchTrackingFromCarrier(shipment);
-            
-            // Update last polled timestamp regardless of events
-            shipment.setLastTrackingUpdate(LocalDateTime.now());
-            shipmentRepository.save(shipment);
-            
-            if (events.isEmpty()) {
-                log.debug("No new tracking events for shipment: {}", shipment.getTrackingNumber());
-                return false;
-            }
-            
-            boolean hasUpdates = false;
-            for (TrackingEvent event : events) {
-                if (processTrackingEvent(shipment, event)) {
-                    hasUpdates = true;
-                }
-            }
-            
-            return hasUpdates;
+            List<TrackingEvent> events = fetchCarrierTracking(shipment.getCarrierName(),
+                    List.of(shipment.getTrackingNumber())).getOrDefault(shipment.getTrackingNumber(), List.of());
+            return applyCarrierTracking(shipment, events);
             
         } catch (Exception e) {
             log.error("Failed to poll tracking for shipment {}: {}", 
@@ -108,89 +121,228 @@ public class ShipmentTrackingService {
     }
 
     /**
-     * Fetch tracking information from carrier API
+     * Record the events fetched for a shipment, mark it as polled and schedule its next poll
+     */
+    @Transactional
+    public boolean applyCarrierTracking(Shipment shipment, List<TrackingEvent> events) {
+        // Update last polled timestamp regardless of events
+        shipment.setLastTrackingUpdate(LocalDateTime.now());
+        
+        boolean hasUpdates = false;
+        LocalDateTime lastMilestoneAt = null;
+        for (TrackingEvent event : events) {
+            if (processTrackingEvent(shipment, event)) {
+                hasUpdates = true;
+            }
+            if (event.isMilestone() && event.getEventDate() != null
+                    && (lastMilestoneAt == null || event.getEventDate().isAfter(lastMilestoneAt))) {
+                lastMilestoneAt = event.getEventDate();
+            }
+        }
+        
+        scheduleNextPoll(shipment, lastMilestoneAt);
+        shipmentRepository.save(shipment);
+        
+        if (!hasUpdates) {
+            log.debug("No new tracking events for shipment: {}", shipment.getTrackingNumber());
+        }
+        return hasUpdates;
+    }
+
+    /**
+     * Set when the carrier should next be polled for a shipment. Looks up the
+     * latest recorded milestone when none was just received.
      */
-    private List<TrackingEvent> fetchTrackingFromCarrier(Shipment shipment) {
-        switch (shipment.getCarrierName().toLowerCase()) {
+    private void scheduleNextPoll(Shipment shipment, LocalDateTime lastMilestoneAt) {
+        if (lastMilestoneAt == null && shipment.getId() != null) {
+            lastMilestoneAt = shipmentTrackingRepository.findLatestMilestoneByShipmentId(shipment.getId())
+                    .map(ShipmentTracking::getEventDate)
+                    .orElse(null);
+        }
+        shipment.setNextPollAt(pollSchedule.nextPollAt(shipment, lastMilestoneAt, LocalDateTime.now()));
+    }
+
+    /**
+     * Fetch tracking for up to {@link CarrierPolicy#bulkSize()} shipments of one carrier
+     * in a single API call. Returns events keyed by tracking number; numbers the
+     * carrier did not report on are absent.
+     *
+     * @throws CarrierTrackingException if the carrier API could not be queried, so
+     *         the shipments are not marked as polled
+     */
+    public Map<String, List<TrackingEvent>> fetchCarrierTracking(String carrierName, List<String> trackingNumbers) {
+        switch (carrierName.toLowerCase()) {
             case "delhivery":
-                return fetchDelhiveryTracking(shipment.getTrackingNumber());
+                return fetchDelhiveryTracking(trackingNumbers);
             case "bluedart":
-                return fetchBluedartTracking(shipment.getTrackingNumber());
+                return fetchBluedartTracking(trackingNumbers);
             case "dtdc":
-                return fetchDTDCTracking(shipment.getTrackingNumber());
+                return fetchDTDCTracking(trackingNumbers);
             default:
-                log.warn("Unsupported carrier for tracking: {}", shipment.getCarrierName());
-                return List.of();
+                log.warn("Unsupported carrier for tracking: {}", carrierName);
+                return Map.of();
         }
     }
 
     /**
-     * Fetch tracking from Delhivery API
+     * Batch size, request rate and concurrency allowed for a carrier's tracking API
      */
-    private List<TrackingEvent> fetchDelhiveryTracking(String trackingNumber) {
+    public CarrierPolicy getCarrierPolicy(String carrierName) {
+        return switch (carrierName.toLowerCase()) {
+            case "delhivery" -> new CarrierPolicy("delhivery", delhiveryBulkSize, delhiveryRequestsPerSecond, delhiveryMaxConcurrency);
+            case "bluedart" -> new CarrierPolicy("bluedart", bluedartBulkSize, bluedartRequestsPerSecond, bluedartMaxConcurrency);
+            default -> new CarrierPolicy(carrierName.toLowerCase(), 1, 1, 1);
+        };
+    }
+
+    /**
+     * Fetch tracking from Delhivery API, which accepts comma-separated waybills
+     */
+    private Map<String, List<TrackingEvent>> fetchDelhiveryTracking(List<String> trackingNumbers) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Token " + delhiveryApiKey);
             
-            String url = delhiveryBaseUrl + "/packages/json/?waybill=" + trackingNumber;
+            String url = delhiveryBaseUrl + "/packages/json/?waybill=" + String.join(",", trackingNumbers);
             
             HttpEntity<String> entity = new HttpEntity<>(headers);
             ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
             
             return parseDelhiveryResponse(response.getBody());
             
-        } catch (Exception e) {
-            log.error("Failed to fetch Delhivery tracking for {}: {}", trackingNumber, e.getMessage());
-            return List.of();
+        } catch (RestClientException e) {
+            throw new CarrierTrackingException("Delhivery tracking request for " + trackingNumbers.size()
+                    + " waybills failed: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Fetch tracking from BlueDart API
+     * Fetch tracking from BlueDart API, which accepts comma-separated AWB numbers
      */
-    private List<TrackingEvent> fetchBluedartTracking(String trackingNumber) {
+    private Map<String, List<TrackingEvent>> fetchBluedartTracking(List<String> trackingNumbers) {
         try {
             HttpHeaders headers = new HttpHeaders();
             headers.set("Authorization", "Bearer " + bluedartApiKey);
             
-            String url = bluedartBaseUrl + "/tracking/" + trackingNumber;
+            String url = bluedartBaseUrl + "/tracking?awb=" + String.join(",", trackingNumbers);
             
             HttpEntity<String> entity = new HttpEntity<>(headers);
             ResponseEntity<Map> response = restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
             
             return parseBluedartResponse(response.getBody());
             
-        } catch (Exception e) {
-            log.error("Failed to fetch BlueDart tracking for {}: {}", trackingNumber, e.getMessage());
-            return List.of();
+        } catch (RestClientException e) {
+            throw new CarrierTrackingException("BlueDart tracking request for " + trackingNumbers.size()
+                    + " AWBs failed: " + e.getMessage(), e);
         }
     }
 
     /**
      * Fetch tracking from DTDC API (placeholder)
      */
-    private List<TrackingEvent> fetchDTDCTracking(String trackingNumber) {
+    private Map<String, List<TrackingEvent>> fetchDTDCTracking(List<String> trackingNumbers) {
         // Placeholder for DTDC API integration
-        log.debug("DTDC tracking integration not implemented yet for: {}", trackingNumber);
-        return List.of();
+        log.debug("DTDC tracking integration not implemented yet for: {}", trackingNumbers);
+        return Map.of();
+    }
+
+    /**
+     * Parse Delhivery API response:
+     * {"ShipmentData": [{"Shipment": {"AWB": ..., "Scans": [{"ScanDetail": {...}}]}}]}
+     */
+    private Map<String, List<TrackingEvent>> parseDelhiveryResponse(Map<String, Object> response) {
+        Map<String, List<TrackingEvent>> eventsByWaybill = new HashMap<>();
+        if (response == null || !(response.get("ShipmentData") instanceof List<?> shipments)) {
+            return eventsByWaybill;
+        }
+        for (Object entry : shipments) {
+            if (!(entry instanceof Map<?, ?> wrapper) || !(wrapper.get("Shipment") instanceof Map<?, ?> shipment)) {
+                continue;
+            }
+            List<TrackingEvent> events = new ArrayList<>();
+            if (shipment.get("Scans") instanceof List<?> scans) {
+                for (Object scan : scans) {
+                    if (scan instanceof Map<?, ?> scanWrapper && scanWrapper.get("ScanDetail") instanceof Map<?, ?> detail) {
+                        addTrackingEvent(events, detail, "Scan", "ScanDateTime", "ScannedLocation", "Instructions", "StatusCode");
+                    }
+                }
+            }
+            eventsByWaybill.put(String.valueOf(shipment.get("AWB")), events);
+        }
+        return eventsByWaybill;
+    }
+
+    /**
+     * Parse BlueDart API response:
+     * {"shipments": [{"awbNumber": ..., "scans": [{"status": ..., "scanDateTime": ...}]}]}
+     */
+    private Map<String, List<TrackingEvent>> parseBluedartResponse(Map<String, Object> response) {
+        Map<String, List<TrackingEvent>> eventsByAwb = new HashMap<>();
+        if (response == null || !(response.get("shipments") instanceof List<?> shipments)) {
+            return eventsByAwb;
+        }
+        for (Object entry : shipments) {
+            if (!(entry instanceof Map<?, ?> shipment)) {
+                continue;
+            }
+            List<TrackingEvent> events = new ArrayList<>();
+            if (shipment.get("scans") instanceof List<?> scans) {
+                for (Object scan : scans) {
+                    if (scan instanceof Map<?, ?> detail) {
+                        addTrackingEvent(events, detail, "status", "scanDateTime", "location", "remarks", "statusCode");
+                    }
+                }
+            }
+            eventsByAwb.put(String.valueOf(shipment.get("awbNumber")), events);
+        }
+        return eventsByAwb;
     }
 
     /**
-     * Parse Delhivery API response
+     * Add a carrier scan to the events. Scans without a usable date are skipped,
+     * since the date identifies the event when it is fetched again.
      */
-    private List<TrackingEvent> parseDelhiveryResponse(Map<String, Object> response) {
-        // Implementation depends on Delhivery API response format
-        // This is a simplified version
-        return List.of();
+    private void addTrackingEvent(List<TrackingEvent> events, Map<?, ?> scan, String statusKey, String dateKey,
+                                  String locationKey, String descriptionKey, String codeKey) {
+        Object eventDate = scan.get(dateKey);
+        LocalDateTime parsedDate = eventDate != null ? parseEventDate(eventDate.toString()) : null;
+        if (parsedDate == null) {
+            log.warn("Skipping carrier scan without a valid {}: {}", dateKey, eventDate);
+            return;
+        }
+        events.add(toTrackingEvent(scan, parsedDate, statusKey, locationKey, descriptionKey, codeKey));
     }
 
     /**
-     * Parse BlueDart API response
+     * Parse an ISO date-time, with or without offset, into local time. Returns
+     * null if it cannot be parsed.
      */
-    private List<TrackingEvent> parseBluedartResponse(Map<String, Object> response) {
-        // Implementation depends on BlueDart API response format
-        // This is a simplified version
-        return List.of();
+    private static LocalDateTime parseEventDate(String text) {
+        try {
+            TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parseBest(text, OffsetDateTime::from, LocalDateTime::from);
+            if (parsed instanceof OffsetDateTime offsetDateTime) {
+                return offsetDateTime.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+            }
+            return (LocalDateTime) parsed;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private TrackingEvent toTrackingEvent(Map<?, ?> scan, LocalDateTime eventDate, String statusKey,
+                                          String locationKey, String descriptionKey, String codeKey) {
+        TrackingEvent event = new TrackingEvent();
+        event.status = (String) scan.get(statusKey);
+        event.eventDate = eventDate;
+        event.location = (String) scan.get(locationKey);
+        event.description = (String) scan.get(descriptionKey);
+        event.carrierEventCode = (String) scan.get(codeKey);
+        event.eventType = "API_POLL";
+        event.isMilestone = event.status != null && mapEventStatusToShipmentStatus(event.status) != null;
+        event.isException = event.isMilestone
+                && mapEventStatusToShipmentStatus(event.status) == Shipment.ShipmentStatus.DELIVERY_FAILED;
+        event.rawData = scan.toString();
+        return event;
     }
 
     /**
@@ -216,6 +368,8 @@ public class ShipmentTrackingService {
                 return false;
             }
             
+            boolean fromWebhook = "WEBHOOK".equals(event.getEventType());
+            
             // Create new tracking record
             ShipmentTracking tracking = ShipmentTracking.builder()
                     .shipmentId(shipment.getId())
@@ -225,7 +379,9 @@ public class ShipmentTrackingService {
                     .description(event.getDescription())
                     .carrierStatusCode(event.getCarrierEventCode())
                     .eventType(event.getEventType())
-                    .source("API_POLL")
+                    .isMilestone(event.isMilestone())
+                    .isException(event.isException())
+                    .source(fromWebhook ? "WEBHOOK" : "API_POLL")
                     .rawData(event.getRawData())
                     .build();
             
@@ -243,6 +399,13 @@ public class ShipmentTrackingService {
                 updateShipmentStatus(shipment, event.getStatus(), event.getEventDate());
             }
             
+            // A fresh webhook pushes the next poll back
+            if (fromWebhook) {
+                shipment.setLastWebhookAt(LocalDateTime.now());
+                scheduleNextPoll(shipment, event.isMilestone() ? event.getEventDate() : null);
+                shipmentRepository.save(shipment);
+            }
+            
             log.debug("Created tracking event for shipment: {} - Status: {}", 
                     shipment.getTrackingNumber(), event.getStatus());
             
@@ -478,6 +641,22 @@ public class ShipmentTrackingService {
     }
 
     // Helper classes
+
+    /**
+     * Tracking API limits for one carrier: how many tracking numbers fit in one
+     * request, and how many requests may be made per second and at once
+     */
+    public record CarrierPolicy(String carrier, int bulkSize, double requestsPerSecond, int maxConcurrency) {
+    }
+
+    /**
+     * A carrier tracking API request failed
+     */
+    public static class CarrierTrackingException extends RuntimeException {
+        public CarrierTrackingException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
     
     public static class TrackingEvent {
         public String status;
@@ -32,6 +32,9 @@ public class SignedUrlService {
     @Value("${app.signed-url.default-expiry:3600}") // 1 hour
     private long defaultExpirySeconds;
 
+    @Value("${app.signed-url.image-expiry:172800}") // 48 hours, outliving the 24 hour image-variants cache
+    private long imageExpirySeconds;
+
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
@@ -39,6 +42,8 @@ public class SignedUrlService {
     private static final String SIGNATURE_PARAM = "signature";
     private static final String EXPIRES_PARAM = "expires";
     private static final String TENANT_PARAM = "tenant";
+    private static final String SIZE_PARAM = "size";
+    private static final String FORMAT_PARAM = "format";
 
     /**
      * Generate a signed URL for a private asset
@@ -51,6 +56,13 @@ public class SignedUrlService {
      * Generate a signed URL with custom expiry time
      */
     public String generateSignedUrl(String resourcePath, long expirySeconds) {
+        return generateSignedUrl(resourcePath, expirySeconds, Map.of());
+    }
+
+    /**
+     * Generate a signed URL whose signature also covers the given query parameters
+     */
+    private String generateSignedUrl(String resourcePath, long expirySeconds, Map<String, String> signedParams) {
         try {
             Long tenantId = TenantContext.getCurrentTenant();
             long expiresAt = Instant.now().getEpochSecond() + expirySeconds;
@@ -59,7 +71,7 @@ public class SignedUrlService {
             String baseResourceUrl = baseUrl + "/api/assets" + resourcePath;
             
             // Create parameters map
-            Map<String, String> params = new HashMap<>();
+            Map<String, String> params = new HashMap<>(signedParams);
             params.put(EXPIRES_PARAM, String.valueOf(expiresAt));
             if (tenantId != null) {
                 params.put(TENANT_PARAM, tenantId.toString());
@@ -84,10 +96,7 @@ public class SignedUrlService {
                 first = false;
             }
             
-            String signedUrl = urlBuilder.toString();
-            System.out.println("Generated signed URL for resource: " + resourcePath + " (expires: " + expiresAt + ")");
-            
-            return signedUrl;
+            return urlBuilder.toString();
             
         } catch (Exception e) {
             System.out.println("Error generating signed URL for resource: " + resourcePath + ", " + e.getMessage());
@@ -140,7 +149,6 @@ public class SignedUrlService {
                 return ValidationResult.invalid("Invalid signature");
             }
             
-            System.out.println("Successfully validated signed URL for resource: " + resourcePath);
             return ValidationResult.valid();
             
         } catch (NumberFormatException e) {
@@ -155,10 +163,22 @@ public class SignedUrlService {
      * Generate signed URL for image with specific size
      */
     public String generateImageSignedUrl(String filename, Integer size) {
-        String resourcePath = size != null ? 
-            "/images/" + filename + "?size=" + size :
-            "/images/" + filename;
-        return generateSignedUrl(resourcePath);
+        return generateImageSignedUrl(filename, size, null);
+    }
+
+    /**
+     * Generate signed URL for an image variant with specific size and format.
+     * Size and format are signed so clients cannot request arbitrary renders.
+     */
+    public String generateImageSignedUrl(String filename, Integer size, String format) {
+        Map<String, String> params = new HashMap<>();
+        if (size != null) {
+            params.put(SIZE_PARAM, size.toString());
+        }
+        if (format != null) {
+            params.put(FORMAT_PARAM, format);
+        }
+        return generateSignedUrl("/images/" + filename, imageExpirySeconds, params);
     }
 
     /**
@@ -0,0 +1,211 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.entity.ProductVariant;
+import com.bharatshop.shared.repository.ProductVariantRepository;
+import com.bharatshop.shared.service.search.ProductSearchIndexService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reservable stock per (tenant, variant).
+ *
+ * The reserved_stock column of product_variants is the shared count of units
+ * held by active reservations. Reserving is one conditional UPDATE that only
+ * succeeds while stock minus reserved stock covers the quantity, so checkouts
+ * on any number of nodes cannot oversell; releasing and committing decrement
+ * the same column. Multi-variant operations update their variants in
+ * ascending ID order, so they cannot deadlock with each other.
+ *
+ * Availability reads are served from a per-node cache of stock minus reserved
+ * stock. Entries are dropped once this node changes a variant and all of them
+ * are dropped on reconciliation, so a read may lag changes made on other nodes
+ * by up to the reconciliation interval. The cache never decides a reservation.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockLedger {
+
+    private final ProductVariantRepository productVariantRepository;
+    private final ProductSearchIndexService productSearchIndexService;
+
+    private final ConcurrentMap<VariantKey, Integer> available = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Reserve {@code quantity} units of a variant. The units are returned if
+     * the surrounding transaction rolls back.
+     *
+     * @throws IllegalArgumentException if the variant cannot be reserved or
+     *         too little stock is available
+     */
+    @Transactional
+    public void reserve(Long tenantId, Long productVariantId, int quantity) {
+        if (productVariantRepository.reserveStock(tenantId, productVariantId, quantity) == 0) {
+            throw rejection(tenantId, productVariantId, quantity);
+        }
+        invalidate(tenantId, productVariantId);
+    }
+
+    /**
+     * Reserve the given quantities of several variants at once, in ascending
+     * variant ID order. Either every quantity is reserved or, once the
+     * transaction rolls back, none is.
+     *
+     * @param quantities quantity per product variant ID
+     * @throws IllegalArgumentException if any variant cannot be reserved or has
+     *         too little stock available
+     */
+    @Transactional
+    public void reserveAll(Long tenantId, SortedMap<Long, Integer> quantities) {
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            reserve(tenantId, line.getKey(), line.getValue());
+        }
+    }
+
+    /**
+     * Return the units of a released reservation.
+     */
+    @Transactional
+    public void release(Long tenantId, Long productVariantId, int quantity) {
+        productVariantRepository.releaseReservedStock(productVariantId, quantity);
+        invalidate(tenantId, productVariantId);
+    }
+
+    /**
+     * Take the units of committed reservations out of stock, in ascending
+     * variant ID order.
+     *
+     * @param quantities quantity per product variant ID
+     * @throws IllegalStateException if any variant is missing or its stock
+     *         would go negative
+     */
+    @Transactional
+    public void commitAll(Long tenantId, SortedMap<Long, Integer> quantities) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            if (productVariantRepository.commitReservedStock(line.getKey(), line.getValue(), now) == 0) {
+                log.error("Stock would go negative for variant {}: reserved={}", line.getKey(), line.getValue());
+                throw new IllegalStateException("Insufficient stock to commit reservation");
+            }
+            invalidate(tenantId, line.getKey());
+        }
+    }
+
+    /**
+     * Stock currently available for new reservations, or 0 if the variant
+     * cannot be reserved.
+     */
+    public int getAvailable(Long tenantId, Long productVariantId) {
+        VariantKey key = new VariantKey(tenantId, productVariantId);
+        Integer cached = available.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = invalidations.get();
+        int loaded = productVariantRepository.findById(productVariantId)
+                .filter(variant -> !variant.isDeleted() && isReservable(variant, tenantId))
+                .map(ProductVariant::getAvailableStock)
+                .orElse(0);
+        available.put(key, loaded);
+        if (invalidations.get() != generation) {
+            // Invalidated while loading; the value may predate the change
+            available.remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Drop a variant's cached availability once the current transaction
+     * completes, e.g. after its stock or status was edited, and have the
+     * search index refresh its product's in-stock flag.
+     */
+    public void invalidate(Long tenantId, Long productVariantId) {
+        VariantKey key = new VariantKey(tenantId, productVariantId);
+        afterCompletion(() -> {
+            invalidations.incrementAndGet();
+            available.remove(key);
+            productSearchIndexService.onStockChanged(tenantId, productVariantId);
+        });
+    }
+
+    /**
+     * Drop all cached availability once the current transaction completes.
+     */
+    public void invalidateAll() {
+        afterCompletion(this::clear);
+    }
+
+    /**
+     * Drop all cached availability so it is reloaded on next use. This bounds
+     * how long reservations made on other nodes go unseen.
+     */
+    public void reconcile() {
+        int dropped = available.size();
+        clear();
+        log.debug("Reconciled stock ledger: {} cached entries dropped", dropped);
+    }
+
+    public int size() {
+        return available.size();
+    }
+
+    private void clear() {
+        invalidations.incrementAndGet();
+        available.clear();
+    }
+
+    /**
+     * Explain why a conditional reservation updated no row.
+     */
+    private IllegalArgumentException rejection(Long tenantId, Long productVariantId, int quantity) {
+        ProductVariant variant = productVariantRepository.findById(productVariantId)
+                .filter(v -> !v.isDeleted())
+                .orElse(null);
+        if (variant == null) {
+            return new IllegalArgumentException("Product variant not found: " + productVariantId);
+        }
+        if (!variant.getTenantId().equals(tenantId)) {
+            return new IllegalArgumentException("Product variant does not belong to tenant");
+        }
+        if (variant.getStatus() != ProductVariant.VariantStatus.ACTIVE) {
+            return new IllegalArgumentException("Product variant is not available for reservation");
+        }
+        return new IllegalArgumentException(
+            String.format("Insufficient stock. Available: %d, Requested: %d", variant.getAvailableStock(), quantity)
+        );
+    }
+
+    private static boolean isReservable(ProductVariant variant, Long tenantId) {
+        return variant.getTenantId().equals(tenantId)
+                && variant.getStatus() == ProductVariant.VariantStatus.ACTIVE;
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record VariantKey(Long tenantId, Long productVariantId) {
+    }
+}
@@ -0,0 +1,97 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.entity.TaxRate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable snapshot of a tenant's active tax rates, keyed by
+ * (HSN code, state code, tax type).
+ *
+ * Rates are compiled once when the table is built: percentages are turned
+ * into fractions so each tax component is a multiply and a rounding instead
+ * of a division by 100. A table is never modified; when rates change a new
+ * table is built and swapped in.
+ */
+public final class TaxTable {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private final long generation;
+    private final Map<Key, Rate> rates;
+
+    private TaxTable(long generation, Map<Key, Rate> rates) {
+        this.generation = generation;
+        this.rates = rates;
+    }
+
+    /**
+     * Build a table from a tenant's active rates.
+     *
+     * @param generation tax-rate generation the rates were loaded at
+     */
+    public static TaxTable of(long generation, List<TaxRate> taxRates) {
+        Map<Key, Rate> rates = new HashMap<>();
+        for (TaxRate taxRate : taxRates) {
+            rates.put(new Key(taxRate.getHsnCode(), taxRate.getStateCode(), taxRate.getTaxType()),
+                    Rate.compile(taxRate));
+        }
+        return new TaxTable(generation, Map.copyOf(rates));
+    }
+
+    public Optional<Rate> find(String hsnCode, String stateCode, TaxRate.TaxType taxType) {
+        return Optional.ofNullable(rates.get(new Key(hsnCode, stateCode, taxType)));
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    public int size() {
+        return rates.size();
+    }
+
+    private record Key(String hsnCode, String stateCode, TaxRate.TaxType taxType) {
+    }
+
+    /**
+     * One compiled tax rate. The percentage fields keep the configured rates
+     * for reporting; the fraction fields are what calculations use, and are
+     * {@code null} where no rate is configured.
+     */
+    public record Rate(
+            BigDecimal cgstRate,
+            BigDecimal sgstRate,
+            BigDecimal igstRate,
+            BigDecimal cessRate,
+            BigDecimal cgstFraction,
+            BigDecimal sgstFraction,
+            BigDecimal igstFraction,
+            BigDecimal cessFraction,
+            BigDecimal totalFraction,
+            BigDecimal inclusiveDivisor) {
+
+        static Rate compile(TaxRate taxRate) {
+            BigDecimal totalTaxRate = taxRate.getTotalTaxRate();
+            return new Rate(
+                    taxRate.getCgstRate(),
+                    taxRate.getSgstRate(),
+                    taxRate.getIgstRate(),
+                    taxRate.getCessRate(),
+                    fraction(taxRate.getCgstRate()),
+                    fraction(taxRate.getSgstRate()),
+                    fraction(taxRate.getIgstRate()),
+                    fraction(taxRate.getCessRate()),
+                    fraction(totalTaxRate),
+                    HUNDRED.add(totalTaxRate));
+        }
+
+        private static BigDecimal fraction(BigDecimal percentage) {
+            return percentage != null ? percentage.movePointLeft(2) : null;
+        }
+    }
+}
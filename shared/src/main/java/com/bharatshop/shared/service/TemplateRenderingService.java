@@ -5,32 +5,40 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Service for rendering notification templates with dynamic variables.
  * Supports variable substitution using {{variableName}} syntax.
+ * Templates are compiled once and cached by template ID and version, so a
+ * saved template (which gets a new version) is recompiled on its next use.
+ * Only the latest version of each template is kept, so no explicit eviction
+ * is needed.
  */
 @Service
 @Slf4j
 public class TemplateRenderingService {
     
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(TemplateRenderingService.class);
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{([^}]+)\\}\\}");
+    private static final int MAX_COMPILED_STRINGS = 1024;
+    
+    private final ConcurrentMap<Long, CompiledNotificationTemplate> compiledTemplates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CompiledTemplate> compiledStrings = new ConcurrentHashMap<>();
     
     /**
      * Render template subject with provided variables
      */
     public String renderSubject(NotificationTemplate template, Map<String, Object> variables) {
-        return renderTemplate(template.getSubject(), variables);
+        return render(compiled(template).subject(), variables);
     }
     
     /**
      * Render template body with provided variables
      */
     public String renderBody(NotificationTemplate template, Map<String, Object> variables) {
-        return renderTemplate(template.getBody(), variables);
+        return render(compiled(template).body(), variables);
     }
     
     /**
@@ -40,89 +48,80 @@ public class TemplateRenderingService {
         if (template.getHtmlBody() == null || template.getHtmlBody().trim().isEmpty()) {
             return null;
         }
-        return renderTemplate(template.getHtmlBody(), variables);
+        return render(compiled(template).htmlBody(), variables);
     }
     
     /**
      * Render a template string with provided variables
      */
-    private String renderTemplate(String template, Map<String, Object> variables) {
+    public String renderTemplate(String template, Map<String, Object> variables) {
         if (template == null || template.trim().isEmpty()) {
             return template;
         }
         
-        if (variables == null || variables.isEmpty()) {
-            log.warn("No variables provided for template rendering");
-            return template;
+        CompiledTemplate compiled = compiledStrings.get(template);
+        if (compiled == null) {
+            if (compiledStrings.size() >= MAX_COMPILED_STRINGS) {
+                compiledStrings.clear();
+            }
+            compiled = compiledStrings.computeIfAbsent(template, CompiledTemplate::compile);
+        }
+        return render(compiled, variables);
+    }
+    
+    private String render(CompiledTemplate template, Map<String, Object> variables) {
+        if (template == null || template.source().trim().isEmpty()) {
+            return template != null ? template.source() : null;
         }
         
-        StringBuffer result = new StringBuffer();
-        Matcher matcher = VARIABLE_PATTERN.matcher(template);
-        
-        while (matcher.find()) {
-            String variableName = matcher.group(1).trim();
-            Object value = getVariableValue(variables, variableName);
-            String replacement = value != null ? value.toString() : "";
-            
-            // Escape special regex characters in replacement
-            replacement = Matcher.quoteReplacement(replacement);
-            matcher.appendReplacement(result, replacement);
+        if (variables == null || variables.isEmpty()) {
+            log.warn("No variables provided for template rendering");
+            return template.source();
         }
         
-        matcher.appendTail(result);
-        return result.toString();
+        return template.render(variables);
     }
     
     /**
-     * Get variable value with support for nested properties using dot notation
+     * Compiled form of a template, reusing the cached one while the version matches
      */
-    private Object getVariableValue(Map<String, Object> variables, String variableName) {
-        if (variableName.contains(".")) {
-            // Handle nested properties like "customer.name"
-            String[] parts = variableName.split("\\.", 2);
-            String rootKey = parts[0];
-            String nestedKey = parts[1];
-            
-            Object rootValue = variables.get(rootKey);
-            if (rootValue instanceof Map) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> nestedMap = (Map<String, Object>) rootValue;
-                return getVariableValue(nestedMap, nestedKey);
-            }
-            
-            log.warn("Cannot resolve nested variable: {} (root value is not a map)", variableName);
-            return null;
+    private CompiledNotificationTemplate compiled(NotificationTemplate template) {
+        if (template.getId() == null) {
+            return CompiledNotificationTemplate.of(template);
         }
         
-        Object value = variables.get(variableName);
-        if (value == null) {
-            log.warn("Variable '{}' not found in template variables", variableName);
+        CompiledNotificationTemplate cached = compiledTemplates.get(template.getId());
+        if (cached != null && Objects.equals(cached.version(), template.getVersion())) {
+            return cached;
         }
         
-        return value;
+        CompiledNotificationTemplate compiled = CompiledNotificationTemplate.of(template);
+        compiledTemplates.put(template.getId(), compiled);
+        return compiled;
     }
     
     /**
      * Validate that all required variables are present in the template
      */
     public boolean validateTemplate(NotificationTemplate template, Map<String, Object> variables) {
+        CompiledNotificationTemplate compiled = compiled(template);
         boolean isValid = true;
         
         // Check subject
-        if (!validateTemplateString(template.getSubject(), variables)) {
+        if (!validateTemplateString(compiled.subject(), variables)) {
             log.error("Missing variables in template subject for template ID: {}", template.getId());
             isValid = false;
         }
         
         // Check body
-        if (!validateTemplateString(template.getBody(), variables)) {
+        if (!validateTemplateString(compiled.body(), variables)) {
             log.error("Missing variables in template body for template ID: {}", template.getId());
             isValid = false;
         }
         
         // Check HTML body if present
         if (template.getHtmlBody() != null && !template.getHtmlBody().trim().isEmpty()) {
-            if (!validateTemplateString(template.getHtmlBody(), variables)) {
+            if (!validateTemplateString(compiled.htmlBody(), variables)) {
                 log.error("Missing variables in template HTML body for template ID: {}", template.getId());
                 isValid = false;
             }
@@ -134,19 +133,29 @@ public class TemplateRenderingService {
     /**
      * Validate that all variables in a template string are available
      */
-    private boolean validateTemplateString(String template, Map<String, Object> variables) {
+    private boolean validateTemplateString(CompiledTemplate template, Map<String, Object> variables) {
         if (template == null || variables == null) {
             return true;
         }
         
-        Matcher matcher = VARIABLE_PATTERN.matcher(template);
-        while (matcher.find()) {
-            String variableName = matcher.group(1).trim();
-            if (getVariableValue(variables, variableName) == null) {
-                return false;
-            }
+        return template.isSatisfiedBy(variables);
+    }
+    
+    /**
+     * Compiled subject, body and HTML body of one template version
+     */
+    private record CompiledNotificationTemplate(Integer version, CompiledTemplate subject,
+                                                CompiledTemplate body, CompiledTemplate htmlBody) {
+        
+        static CompiledNotificationTemplate of(NotificationTemplate template) {
+            return new CompiledNotificationTemplate(template.getVersion(),
+                    compileNullable(template.getSubject()),
+                    compileNullable(template.getBody()),
+                    compileNullable(template.getHtmlBody()));
         }
         
-        return true;
+        private static CompiledTemplate compileNullable(String source) {
+            return source != null ? CompiledTemplate.compile(source) : null;
+        }
     }
-}
\ No newline at end of file
+}
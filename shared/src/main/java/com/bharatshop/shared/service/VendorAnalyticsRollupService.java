@@ -0,0 +1,62 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.repository.VendorDailyCustomerRollupRepository;
+import com.bharatshop.shared.repository.VendorDailyOrderRollupRepository;
+import com.bharatshop.shared.repository.VendorDailyProductRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Maintains the daily vendor analytics rollups: orders and revenue by status,
+ * sales per product and paid orders per customer, per tenant and day.
+ *
+ * A day is always rebuilt whole from the orders placed on it, so refreshing
+ * it again is harmless and a missed change is repaired by the next refresh of
+ * that day.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VendorAnalyticsRollupService {
+
+    private final VendorDailyOrderRollupRepository orderRollupRepository;
+    private final VendorDailyProductRollupRepository productRollupRepository;
+    private final VendorDailyCustomerRollupRepository customerRollupRepository;
+
+    /**
+     * Rebuild one tenant's rollups for the orders placed on the given day
+     */
+    @Transactional
+    public void refreshDay(Long tenantId, LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+
+        orderRollupRepository.deleteDay(tenantId, day);
+        orderRollupRepository.insertDay(tenantId, day, start, end);
+        productRollupRepository.deleteDay(tenantId, day);
+        productRollupRepository.insertDay(tenantId, day, start, end);
+        customerRollupRepository.deleteDay(tenantId, day);
+        customerRollupRepository.insertDay(tenantId, day, start, end);
+    }
+
+    /**
+     * Rebuild all rollups from the full order history, grouping every day at once
+     */
+    @Transactional
+    public void rebuildAll() {
+        orderRollupRepository.deleteAllRollups();
+        int orderRows = orderRollupRepository.insertAll();
+        productRollupRepository.deleteAllRollups();
+        int productRows = productRollupRepository.insertAll();
+        customerRollupRepository.deleteAllRollups();
+        int customerRows = customerRollupRepository.insertAll();
+
+        log.info("Rebuilt vendor analytics rollups: {} order, {} product and {} customer rows",
+                orderRows, productRows, customerRows);
+    }
+}
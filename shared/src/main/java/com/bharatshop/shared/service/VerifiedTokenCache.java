@@ -0,0 +1,112 @@
+package com.bharatshop.shared.service;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of verified JWTs, keyed by a SHA-256 digest of the token so
+ * bearer tokens themselves are not kept in memory.
+ *
+ * An entry lives until its token expires or it is evicted as least recently
+ * used. Keys are spread over independently locked segments, each an
+ * access-ordered {@link LinkedHashMap}, so concurrent requests rarely contend.
+ */
+final class VerifiedTokenCache {
+
+    /**
+     * Claims of a verified token and the key that verified it
+     */
+    record VerifiedToken(Claims claims, String kid, long expiresAtMillis) {
+    }
+
+    private final Segment[] segments;
+
+    VerifiedTokenCache(int maxEntries, int segmentCount) {
+        if (maxEntries <= 0 || segmentCount <= 0) {
+            throw new IllegalArgumentException("maxEntries and segmentCount must be positive");
+        }
+        this.segments = new Segment[segmentCount];
+        int capacity = Math.max(1, maxEntries / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(capacity);
+        }
+    }
+
+    /**
+     * Cached token for a digest, or null when absent or expired
+     */
+    VerifiedToken get(String digest, long nowMillis) {
+        return segmentFor(digest).get(digest, nowMillis);
+    }
+
+    void put(String digest, VerifiedToken token) {
+        segmentFor(digest).put(digest, token);
+    }
+
+    void remove(String digest) {
+        segmentFor(digest).remove(digest);
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Segment segmentFor(String digest) {
+        int hash = digest.hashCode();
+        return segments[((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static final class Segment {
+
+        private final Map<String, VerifiedToken> entries;
+
+        Segment(int capacity) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized VerifiedToken get(String digest, long nowMillis) {
+            VerifiedToken token = entries.get(digest);
+            if (token != null && token.expiresAtMillis() <= nowMillis) {
+                entries.remove(digest);
+                return null;
+            }
+            return token;
+        }
+
+        synchronized void put(String digest, VerifiedToken token) {
+            entries.put(digest, token);
+        }
+
+        synchronized void remove(String digest) {
+            entries.remove(digest);
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.entity.WebhookDelivery;
+import com.bharatshop.shared.entity.WebhookDelivery.DeliveryStatus;
+import com.bharatshop.shared.repository.WebhookDeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers webhooks from the persistent webhook_deliveries queue.
+ *
+ * Each endpoint gets its own lane: a bounded number of requests in flight and
+ * a circuit breaker, so a slow or failing merchant endpoint only delays its own
+ * deliveries. Requests are sent with the non-blocking JDK HttpClient, failed
+ * attempts are rescheduled in the database with exponential backoff instead of
+ * sleeping, and a sweep picks up due retries and deliveries lost by a crashed
+ * node once their lease runs out. Outcomes are written by the engine's own
+ * threads, never by the HttpClient's or a committing caller's.
+ */
+@Component
+public class WebhookDeliveryEngine {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(WebhookDeliveryEngine.class);
+
+    private static final int MAX_QUEUED_PER_ENDPOINT = 1000;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final WebhookDeliveryRepository deliveryRepository;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final int maxAttempts;
+    private final int endpointConcurrency;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final int sweepBatchSize;
+    private final ExecutorService outcomeExecutor;
+
+    private final ConcurrentMap<String, EndpointLane> lanes = new ConcurrentHashMap<>();
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Counter> outcomeCounters = new ConcurrentHashMap<>();
+
+    public WebhookDeliveryEngine(WebhookDeliveryRepository deliveryRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${bharatshop.webhooks.timeout:5000}") long timeoutMillis,
+                                 @Value("${bharatshop.webhooks.retry.max-attempts:3}") int maxAttempts,
+                                 @Value("${bharatshop.webhooks.retry.initial-backoff-ms:2000}") long initialBackoffMillis,
+                                 @Value("${bharatshop.webhooks.retry.max-backoff-ms:3600000}") long maxBackoffMillis,
+                                 @Value("${bharatshop.webhooks.endpoint-concurrency:4}") int endpointConcurrency,
+                                 @Value("${bharatshop.webhooks.circuit.failure-threshold:5}") int failureThreshold,
+                                 @Value("${bharatshop.webhooks.circuit.open-seconds:30}") long openSeconds,
+                                 @Value("${bharatshop.webhooks.lease-seconds:300}") long leaseSeconds,
+                                 @Value("${bharatshop.webhooks.sweep-batch-size:100}") int sweepBatchSize,
+                                 @Value("${bharatshop.webhooks.outcome-threads:2}") int outcomeThreads) {
+        this.deliveryRepository = deliveryRepository;
+        this.meterRegistry = meterRegistry;
+        this.requestTimeout = Duration.ofMillis(timeoutMillis);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMillis);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMillis);
+        this.endpointConcurrency = endpointConcurrency;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = Duration.ofSeconds(openSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.sweepBatchSize = sweepBatchSize;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(requestTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        // Unbounded queue: pending outcomes are bounded by the deliveries in flight
+        AtomicInteger threadCount = new AtomicInteger();
+        this.outcomeExecutor = new ThreadPoolExecutor(outcomeThreads, outcomeThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "webhook-outcomes-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("bharatshop.webhooks.in-flight", inFlight, Set::size)
+                .description("Webhook deliveries currently being sent by this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Persist one delivery per endpoint and start sending once the current
+     * transaction commits. The payload is serialized and signed once by the caller.
+     */
+    public List<WebhookDelivery> enqueue(List<String> endpoints, String eventType, String eventId,
+                                         String payload, String signature) {
+        LocalDateTime now = LocalDateTime.now();
+        List<WebhookDelivery> deliveries = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints) {
+            deliveries.add(WebhookDelivery.builder()
+                    .endpoint(endpoint)
+                    .eventType(eventType)
+                    .eventId(eventId)
+                    .payload(payload)
+                    .signature(signature)
+                    .status(DeliveryStatus.SENDING)
+                    .attempts(0)
+                    .nextAttemptAt(now.plus(lease))
+                    .build());
+        }
+
+        List<WebhookDelivery> saved = deliveryRepository.saveAll(deliveries);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    saved.forEach(WebhookDeliveryEngine.this::submit);
+                }
+            });
+        } else {
+            saved.forEach(this::submit);
+        }
+        return saved;
+    }
+
+    /**
+     * Pick up retries that are due and deliveries whose lease expired without an outcome
+     */
+    @Scheduled(fixedDelayString = "${bharatshop.webhooks.sweep-interval:1000}")
+    public void sweepDueDeliveries() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> due = new ArrayList<>();
+            for (Long id : deliveryRepository.findDueDeliveryIds(now, PageRequest.of(0, sweepBatchSize))) {
+                if (!inFlight.contains(id)) {
+                    due.add(id);
+                }
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+            String claimToken = UUID.randomUUID().toString();
+            if (deliveryRepository.claimAll(due, claimToken, now, now.plus(lease)) > 0) {
+                List<WebhookDelivery> claimed = deliveryRepository.findByIdInAndClaimToken(due, claimToken);
+                log.debug("Claimed {} due webhook deliveries", claimed.size());
+                claimed.forEach(this::submit);
+            }
+        } catch (Exception e) {
+            log.error("Failed to sweep due webhook deliveries: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queue a claimed delivery on its endpoint's lane. When the lane is full the
+     * delivery is handed back to the retry sweep after a short backoff.
+     */
+    void submit(WebhookDelivery delivery) {
+        if (!inFlight.add(delivery.getId())) {
+            return;
+        }
+        EndpointLane lane = lanes.computeIfAbsent(delivery.getEndpoint(), EndpointLane::new);
+        if (!lane.offer(delivery)) {
+            log.warn("Webhook lane for {} is full, delivery {} left for the retry sweep",
+                    delivery.getEndpoint(), delivery.getId());
+            defer(delivery, Duration.ZERO, "rejected");
+            return;
+        }
+        lane.drain();
+    }
+
+    /**
+     * Delivery counts by status, for monitoring
+     */
+    public Map<DeliveryStatus, Long> getStatusCounts() {
+        Map<DeliveryStatus, Long> counts = new EnumMap<>(DeliveryStatus.class);
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            counts.put(status, deliveryRepository.countByStatus(status));
+        }
+        return counts;
+    }
+
+    /**
+     * Whether the circuit for an endpoint is currently open
+     */
+    public boolean isCircuitOpen(String endpoint) {
+        EndpointLane lane = lanes.get(endpoint);
+        return lane != null && lane.isOpen(System.currentTimeMillis());
+    }
+
+    private CompletableFuture<Void> send(EndpointLane lane, WebhookDelivery delivery) {
+        long nowMillis = System.currentTimeMillis();
+        if (!lane.allowRequest(nowMillis)) {
+            defer(delivery, Duration.ofMillis(lane.openUntil - nowMillis), "deferred");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(delivery.getEndpoint()))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("User-Agent", "BharatShop-Webhooks/1.0")
+                    .header("X-Bharatshop-Event", delivery.getEventType())
+                    .header("X-Bharatshop-Event-Id", delivery.getEventId())
+                    .header("X-Bharatshop-Signature", delivery.getSignature())
+                    .header("X-Bharatshop-Timestamp", String.valueOf(nowMillis))
+                    .POST(HttpRequest.BodyPublishers.ofString(delivery.getPayload()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            // A malformed endpoint will never succeed
+            complete(lane, delivery, null, e, Timer.start(meterRegistry), true);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    complete(lane, delivery, response, error, sample, false);
+                    return null;
+                });
+    }
+
+    private void complete(EndpointLane lane, WebhookDelivery delivery, HttpResponse<?> response,
+                          Throwable error, Timer.Sample sample, boolean permanent) {
+        boolean delivered = error == null && response.statusCode() / 100 == 2;
+        sample.stop(Timer.builder("bharatshop.webhooks.delivery.latency")
+                .description("Time from sending a webhook to the endpoint's response")
+                .tag("outcome", delivered ? "success" : "failure")
+                .register(meterRegistry));
+
+        LocalDateTime now = LocalDateTime.now();
+        delivery.setAttempts(delivery.getAttempts() + 1);
+        delivery.setLastStatusCode(response != null ? response.statusCode() : null);
+
+        if (delivered) {
+            lane.recordSuccess();
+            delivery.setStatus(DeliveryStatus.DELIVERED);
+            delivery.setDeliveredAt(now);
+            delivery.setLastError(null);
+            log.debug("Webhook {} delivered to {} (attempt {})",
+                    delivery.getEventType(), delivery.getEndpoint(), delivery.getAttempts());
+        } else {
+            lane.recordFailure(System.currentTimeMillis());
+            String reason = error != null ? describe(error) : "Endpoint returned status " + response.statusCode();
+            delivery.setLastError(reason.length() > MAX_ERROR_LENGTH ? reason.substring(0, MAX_ERROR_LENGTH) : reason);
+            if (permanent || delivery.getAttempts() >= maxAttempts) {
+                delivery.setStatus(DeliveryStatus.DEAD);
+                log.error("Webhook {} to {} failed after {} attempts: {}",
+                        delivery.getEventType(), delivery.getEndpoint(), delivery.getAttempts(), reason);
+            } else {
+                delivery.setStatus(DeliveryStatus.RETRY);
+                delivery.setNextAttemptAt(now.plus(backoff(delivery.getAttempts())));
+                log.warn("Webhook attempt {} to {} failed, retrying at {}: {}",
+                        delivery.getAttempts(), delivery.getEndpoint(), delivery.getNextAttemptAt(), reason);
+            }
+        }
+        outcome(delivery.getStatus().name().toLowerCase()).increment();
+        save(delivery);
+    }
+
+    /**
+     * Put a delivery back without counting an attempt, e.g. while its endpoint's
+     * circuit is open. It is retried after {@code delay} but no sooner than the
+     * initial backoff, so a half-open circuit does not spin the sweep.
+     */
+    private void defer(WebhookDelivery delivery, Duration delay, String reason) {
+        delivery.setStatus(DeliveryStatus.RETRY);
+        delivery.setNextAttemptAt(LocalDateTime.now().plus(delay.compareTo(initialBackoff) < 0 ? initialBackoff : delay));
+        outcome(reason).increment();
+        save(delivery);
+    }
+
+    /**
+     * Record an outcome on the engine's executor, outside the caller's thread and transaction
+     */
+    private void save(WebhookDelivery delivery) {
+        try {
+            outcomeExecutor.execute(() -> persist(delivery));
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the lease lets the sweep retry the delivery
+            inFlight.remove(delivery.getId());
+        }
+    }
+
+    private void persist(WebhookDelivery delivery) {
+        try {
+            deliveryRepository.save(delivery);
+        } catch (Exception e) {
+            // The lease lets the sweep retry the delivery
+            log.error("Failed to record outcome of webhook delivery {}: {}", delivery.getId(), e.getMessage(), e);
+        } finally {
+            inFlight.remove(delivery.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        outcomeExecutor.shutdown();
+    }
+
+    Duration backoff(int attempts) {
+        long millis = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        return Duration.ofMillis(Math.min(millis, maxBackoff.toMillis()));
+    }
+
+    private Counter outcome(String outcome) {
+        return outcomeCounters.computeIfAbsent(outcome, key -> Counter.builder("bharatshop.webhooks.deliveries")
+                .description("Webhook delivery attempts by outcome")
+                .tag("outcome", key)
+                .register(meterRegistry));
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        return cause.getClass().getSimpleName() + (cause.getMessage() != null ? ": " + cause.getMessage() : "");
+    }
+
+    /**
+     * Deliveries waiting for one endpoint, with its concurrency limit and circuit breaker.
+     * The circuit opens after failureThreshold consecutive failures; once openDuration
+     * has passed a single probe request is let through to decide whether it closes.
+     */
+    private final class EndpointLane {
+        private final String endpoint;
+        private final Queue<WebhookDelivery> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Semaphore permits = new Semaphore(endpointConcurrency);
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicBoolean probing = new AtomicBoolean();
+        private volatile long openUntil;
+
+        EndpointLane(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        boolean offer(WebhookDelivery delivery) {
+            if (queued.incrementAndGet() > MAX_QUEUED_PER_ENDPOINT) {
+                queued.decrementAndGet();
+                return false;
+            }
+            queue.add(delivery);
+            return true;
+        }
+
+        void drain() {
+            while (!queue.isEmpty() && permits.tryAcquire()) {
+                WebhookDelivery delivery = queue.poll();
+                if (delivery == null) {
+                    permits.release();
+                    continue;
+                }
+                queued.decrementAndGet();
+                CompletableFuture<Void> sent;
+                try {
+                    sent = send(this, delivery);
+                } catch (Exception e) {
+                    log.error("Failed to send webhook delivery {} to {}: {}", delivery.getId(), endpoint, e.getMessage(), e);
+                    // Counts as a failed attempt, which also ends a probe this request may have held
+                    recordFailure(System.currentTimeMillis());
+                    inFlight.remove(delivery.getId());
+                    sent = CompletableFuture.completedFuture(null);
+                }
+                if (sent.isDone()) {
+                    permits.release();
+                    continue;
+                }
+                sent.whenComplete((ignored, error) -> {
+                    permits.release();
+                    drain();
+                });
+            }
+        }
+
+        boolean isOpen(long nowMillis) {
+            return consecutiveFailures.get() >= failureThreshold && nowMillis < openUntil;
+        }
+
+        boolean allowRequest(long nowMillis) {
+            if (consecutiveFailures.get() < failureThreshold) {
+                return true;
+            }
+            return nowMillis >= openUntil && probing.compareAndSet(false, true);
+        }
+
+        void recordSuccess() {
+            consecutiveFailures.set(0);
+            probing.set(false);
+        }
+
+        void recordFailure(long nowMillis) {
+            if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                openUntil = nowMillis + openDuration.toMillis();
+                if (probing.getAndSet(false) || consecutiveFailures.get() == failureThreshold) {
+                    log.warn("Opening webhook circuit for {} for {}s", endpoint, openDuration.toSeconds());
+                }
+            }
+        }
+    }
+}
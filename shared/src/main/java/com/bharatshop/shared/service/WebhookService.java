@@ -10,10 +10,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
-import org.springframework.http.*;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -28,7 +26,8 @@ import java.util.Map;
 
 /**
  * Service for handling webhooks and external notifications for order events.
- * Supports multiple webhook endpoints with retry logic and signature verification.
+ * Supports multiple webhook endpoints with signature verification; deliveries are
+ * persisted and retried by {@link WebhookDeliveryEngine}.
  */
 @Service
 @RequiredArgsConstructor
@@ -37,7 +36,7 @@ public class WebhookService {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(WebhookService.class);
     
-    private final RestTemplate restTemplate;
+    private final WebhookDeliveryEngine deliveryEngine;
     private final ObjectMapper objectMapper;
     
     @Value("${bharatshop.webhooks.enabled:true}")
@@ -46,12 +45,6 @@ public class WebhookService {
     @Value("${bharatshop.webhooks.secret}")
     private String webhookSecret;
     
-    @Value("${bharatshop.webhooks.timeout:5000}")
-    private int webhookTimeout;
-    
-    @Value("${bharatshop.webhooks.retry.max-attempts:3}")
-    private int maxRetryAttempts;
-    
     @Value("${bharatshop.webhooks.endpoints}")
     private List<String> webhookEndpoints;
 
@@ -110,73 +103,23 @@ public class WebhookService {
     }
 
     /**
-     * Send webhook to all configured endpoints
+     * Serialize and sign the payload once, then queue a delivery for every
+     * configured endpoint. Sending and retries happen in the delivery engine.
      */
     private void sendWebhookToAllEndpoints(WebhookPayload payload, String eventType) {
-        for (String endpoint : webhookEndpoints) {
-            try {
-                sendWebhookWithRetry(endpoint, payload, eventType, 1);
-            } catch (Exception e) {
-                log.error("Failed to send webhook to endpoint {} after all retries: {}", 
-                        endpoint, e.getMessage(), e);
-            }
-        }
-    }
-
-    /**
-     * Send webhook with retry logic
-     */
-    private void sendWebhookWithRetry(String endpoint, WebhookPayload payload, String eventType, int attempt) {
-        try {
-            sendWebhook(endpoint, payload, eventType);
-            log.info("Webhook sent successfully to {} for event {} (attempt {})", 
-                    endpoint, eventType, attempt);
-        } catch (Exception e) {
-            log.warn("Webhook attempt {} failed for endpoint {}: {}", attempt, endpoint, e.getMessage());
-            
-            if (attempt < maxRetryAttempts) {
-                // Exponential backoff: wait 2^attempt seconds
-                try {
-                    Thread.sleep((long) Math.pow(2, attempt) * 1000);
-                    sendWebhookWithRetry(endpoint, payload, eventType, attempt + 1);
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException("Webhook retry interrupted", ie);
-                }
-            } else {
-                throw new RuntimeException("Max retry attempts exceeded for webhook", e);
-            }
+        List<String> endpoints = webhookEndpoints.stream()
+                .filter(endpoint -> endpoint != null && !endpoint.isBlank())
+                .toList();
+        if (endpoints.isEmpty()) {
+            log.debug("No webhook endpoints configured for event {}", eventType);
+            return;
         }
-    }
 
-    /**
-     * Send individual webhook
-     */
-    private void sendWebhook(String endpoint, WebhookPayload payload, String eventType) {
         try {
             String jsonPayload = objectMapper.writeValueAsString(payload);
-            String signature = generateSignature(jsonPayload);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("X-Bharatshop-Event", eventType);
-            headers.set("X-Bharatshop-Signature", signature);
-            headers.set("X-Bharatshop-Timestamp", String.valueOf(System.currentTimeMillis()));
-            headers.set("User-Agent", "BharatShop-Webhooks/1.0");
-            
-            HttpEntity<String> request = new HttpEntity<>(jsonPayload, headers);
-            
-            ResponseEntity<String> response = restTemplate.exchange(
-                    endpoint, HttpMethod.POST, request, String.class);
-            
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                throw new RuntimeException("Webhook endpoint returned non-2xx status: " + 
-                        response.getStatusCode());
-            }
-            
+            deliveryEngine.enqueue(endpoints, eventType, payload.getEventId(), jsonPayload, generateSignature(jsonPayload));
         } catch (Exception e) {
-            log.error("Failed to send webhook to {}: {}", endpoint, e.getMessage());
-            throw new RuntimeException("Webhook sending failed", e);
+            log.error("Failed to queue webhook {} for {} endpoints: {}", eventType, endpoints.size(), e.getMessage(), e);
         }
     }
 
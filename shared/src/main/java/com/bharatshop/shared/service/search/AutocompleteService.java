@@ -0,0 +1,299 @@
+package com.bharatshop.shared.service.search;
+
+import com.bharatshop.shared.entity.Category;
+import com.bharatshop.shared.entity.Product;
+import com.bharatshop.shared.repository.CategoryRepository;
+import com.bharatshop.shared.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Per-tenant type-ahead suggestions over product names, category names and
+ * popular search queries.
+ *
+ * A tenant's trie is built from the database on the first suggest call and is
+ * then updated incrementally: product and category writes adjust their
+ * entries after commit, and successful storefront searches add popularity to
+ * the query text. Product and category writes that commit while the trie is
+ * being built are replayed onto it before it is used. Query popularity lives in memory only and starts again from
+ * zero after a restart. Each tenant keeps at most {@value #MAX_POPULAR_QUERIES}
+ * queries; the least recently searched one is dropped, with its popularity,
+ * to make room for a new one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AutocompleteService {
+
+    static final long PRODUCT_WEIGHT = 10;
+    static final long CATEGORY_WEIGHT = 20;
+    static final long QUERY_WEIGHT = 1;
+
+    private static final int MAX_COMPLETIONS_PER_NODE = 10;
+    private static final int MAX_QUERY_LENGTH = 64;
+    static final int MAX_POPULAR_QUERIES = 10_000;
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+
+    private final ConcurrentMap<Long, TenantSuggestions> suggestions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, PendingBuild> builds = new ConcurrentHashMap<>();
+
+    /**
+     * Suggestions for a typed prefix, most popular first.
+     */
+    public List<String> suggest(Long tenantId, String prefix, int limit) {
+        if (!StringUtils.hasText(prefix)) {
+            return List.of();
+        }
+        return getSuggestions(tenantId).trie.suggest(prefix, limit).stream()
+                .map(SuggestionTrie.Completion::text)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Count a search that returned results towards the popularity of its query.
+     */
+    public void recordQuery(Long tenantId, String query) {
+        if (tenantId == null || !StringUtils.hasText(query) || query.length() > MAX_QUERY_LENGTH) {
+            return;
+        }
+        getSuggestions(tenantId).recordQuery(query);
+    }
+
+    /**
+     * Add or rename a product's suggestion after the current transaction commits.
+     * Inactive or deleted products are removed.
+     */
+    public void onProductSaved(Product product) {
+        if (product == null || product.getId() == null || product.getTenantId() == null) {
+            return;
+        }
+        Long tenantId = product.getTenantId();
+        Long productId = product.getId();
+        String name = product.getStatus() == Product.ProductStatus.ACTIVE && !product.isDeleted()
+                ? product.getName() : null;
+        afterCommit(() -> apply(tenantId,
+                tenant -> tenant.replace(tenant.productNames, productId, name, PRODUCT_WEIGHT)));
+    }
+
+    /**
+     * Reflect products whose transaction has already committed, e.g. from an
+     * after-commit callback. Applied immediately.
+     */
+    public void onProductsCommitted(List<Product> products) {
+        for (Product product : products) {
+            if (product.getId() == null || product.getTenantId() == null) {
+                continue;
+            }
+            Long productId = product.getId();
+            String name = product.getStatus() == Product.ProductStatus.ACTIVE && !product.isDeleted()
+                    ? product.getName() : null;
+            apply(product.getTenantId(),
+                    tenant -> tenant.replace(tenant.productNames, productId, name, PRODUCT_WEIGHT));
+        }
+    }
+
+    public void onProductDeleted(Long tenantId, Long productId) {
+        afterCommit(() -> apply(tenantId,
+                tenant -> tenant.replace(tenant.productNames, productId, null, PRODUCT_WEIGHT)));
+    }
+
+    /**
+     * Add or rename a category's suggestion after the current transaction commits.
+     */
+    public void onCategorySaved(Category category) {
+        if (category == null || category.getId() == null || category.getTenantId() == null) {
+            return;
+        }
+        Long tenantId = category.getTenantId();
+        Long categoryId = category.getId();
+        String name = Boolean.TRUE.equals(category.getIsActive()) && !category.isDeleted()
+                ? category.getName() : null;
+        afterCommit(() -> apply(tenantId,
+                tenant -> tenant.replace(tenant.categoryNames, categoryId, name, CATEGORY_WEIGHT)));
+    }
+
+    public void onCategoryDeleted(Long tenantId, Long categoryId) {
+        afterCommit(() -> apply(tenantId,
+                tenant -> tenant.replace(tenant.categoryNames, categoryId, null, CATEGORY_WEIGHT)));
+    }
+
+    /**
+     * Get the tenant's suggestions, building them outside the map on first use
+     * so a slow build does not block other tenants. Concurrent callers wait for
+     * the running build.
+     */
+    private TenantSuggestions getSuggestions(Long tenantId) {
+        TenantSuggestions current = suggestions.get(tenantId);
+        if (current != null) {
+            return current;
+        }
+        PendingBuild build = new PendingBuild();
+        PendingBuild running = builds.putIfAbsent(tenantId, build);
+        if (running != null) {
+            return running.await();
+        }
+        try {
+            // Re-check: a build may have been published between the two lookups
+            current = suggestions.get(tenantId);
+            if (current != null) {
+                build.complete(current);
+                return current;
+            }
+            TenantSuggestions built = build(tenantId);
+            build.publish(tenantId, built);
+            return built;
+        } catch (RuntimeException e) {
+            build.fail(e);
+            throw e;
+        } finally {
+            builds.remove(tenantId, build);
+        }
+    }
+
+    /**
+     * Apply an entity change to the tenant's suggestions, and to suggestions
+     * being built for the tenant once they are ready. Changes must be idempotent.
+     */
+    private void apply(Long tenantId, Consumer<TenantSuggestions> change) {
+        PendingBuild build = builds.get(tenantId);
+        if (build != null) {
+            build.buffer(change);
+        }
+        TenantSuggestions current = suggestions.get(tenantId);
+        if (current != null) {
+            change.accept(current);
+        }
+    }
+
+    private TenantSuggestions build(Long tenantId) {
+        long start = System.currentTimeMillis();
+        TenantSuggestions tenant = new TenantSuggestions(new SuggestionTrie(MAX_COMPLETIONS_PER_NODE));
+
+        for (Product product : productRepository.findByTenantIdAndStatusAndDeletedAtIsNull(
+                tenantId, Product.ProductStatus.ACTIVE)) {
+            tenant.replace(tenant.productNames, product.getId(), product.getName(), PRODUCT_WEIGHT);
+        }
+        for (Category category : categoryRepository.findByTenantIdAndIsActiveAndDeletedAtIsNullOrderBySortOrderAsc(
+                tenantId, true)) {
+            tenant.replace(tenant.categoryNames, category.getId(), category.getName(), CATEGORY_WEIGHT);
+        }
+
+        log.info("Built autocomplete trie for tenant: {} with {} products and {} categories in {} ms",
+                tenantId, tenant.productNames.size(), tenant.categoryNames.size(),
+                System.currentTimeMillis() - start);
+        return tenant;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Suggestions being built for a tenant. Entity changes committed meanwhile
+     * are buffered and replayed onto them before they are published.
+     */
+    private final class PendingBuild {
+        private final CompletableFuture<TenantSuggestions> result = new CompletableFuture<>();
+        private final List<Consumer<TenantSuggestions>> changes = new ArrayList<>();
+        private boolean published;
+
+        synchronized void buffer(Consumer<TenantSuggestions> change) {
+            if (!published) {
+                changes.add(change);
+            }
+        }
+
+        synchronized void publish(Long tenantId, TenantSuggestions tenant) {
+            changes.forEach(change -> change.accept(tenant));
+            changes.clear();
+            suggestions.put(tenantId, tenant);
+            complete(tenant);
+        }
+
+        synchronized void complete(TenantSuggestions tenant) {
+            published = true;
+            result.complete(tenant);
+        }
+
+        void fail(RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        TenantSuggestions await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+    }
+
+    /**
+     * A tenant's trie plus the names currently contributed by each entity, so
+     * renames can withdraw the old name's weight.
+     */
+    private static final class TenantSuggestions {
+        final SuggestionTrie trie;
+        final Map<Long, String> productNames = new ConcurrentHashMap<>();
+        final Map<Long, String> categoryNames = new ConcurrentHashMap<>();
+        // Popularity contributed per normalised query, least recently searched first
+        private final Map<String, Long> queryCounts = new LinkedHashMap<>(16, 0.75f, true);
+
+        TenantSuggestions(SuggestionTrie trie) {
+            this.trie = trie;
+        }
+
+        synchronized void recordQuery(String query) {
+            String key = SuggestionTrie.normalise(query);
+            if (key.isEmpty()) {
+                return;
+            }
+            queryCounts.merge(key, QUERY_WEIGHT, Long::sum);
+            trie.adjust(query, QUERY_WEIGHT, false);
+            if (queryCounts.size() > MAX_POPULAR_QUERIES) {
+                Iterator<Map.Entry<String, Long>> eldest = queryCounts.entrySet().iterator();
+                Map.Entry<String, Long> evicted = eldest.next();
+                eldest.remove();
+                trie.adjust(evicted.getKey(), -evicted.getValue(), false);
+            }
+        }
+
+        synchronized void replace(Map<Long, String> names, Long id, String newName, long weight) {
+            String oldName = names.remove(id);
+            if (oldName != null) {
+                trie.adjust(oldName, -weight, false);
+            }
+            if (StringUtils.hasText(newName)) {
+                names.put(id, newName);
+                trie.adjust(newName, weight, true);
+            }
+        }
+    }
+}
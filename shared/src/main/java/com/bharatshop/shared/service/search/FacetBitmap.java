@@ -0,0 +1,123 @@
+package com.bharatshop.shared.service.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Set of document ordinals for one facet value.
+ *
+ * Uses the same idea as Roaring bitmap containers: values that only a few
+ * products carry are kept as a sorted int array, and the set switches to a
+ * dense bitmap once it grows past {@link #ARRAY_LIMIT}. Long-tail attribute
+ * values therefore cost a few bytes each instead of a bit per product.
+ */
+final class FacetBitmap {
+
+    static final int ARRAY_LIMIT = 4096;
+
+    private int[] array = new int[4];
+    private int size;
+    private long[] words;
+
+    void add(int ord) {
+        if (words != null) {
+            ensureWordCapacity(ord);
+            if ((words[ord >>> 6] & (1L << ord)) == 0) {
+                words[ord >>> 6] |= 1L << ord;
+                size++;
+            }
+            return;
+        }
+        int pos = Arrays.binarySearch(array, 0, size, ord);
+        if (pos >= 0) {
+            return;
+        }
+        if (size == ARRAY_LIMIT) {
+            convertToWords();
+            add(ord);
+            return;
+        }
+        int insertAt = -pos - 1;
+        if (size == array.length) {
+            array = Arrays.copyOf(array, Math.min(size * 2, ARRAY_LIMIT));
+        }
+        System.arraycopy(array, insertAt, array, insertAt + 1, size - insertAt);
+        array[insertAt] = ord;
+        size++;
+    }
+
+    void remove(int ord) {
+        if (words != null) {
+            int index = ord >>> 6;
+            if (index < words.length && (words[index] & (1L << ord)) != 0) {
+                words[index] &= ~(1L << ord);
+                size--;
+            }
+            return;
+        }
+        int pos = Arrays.binarySearch(array, 0, size, ord);
+        if (pos >= 0) {
+            System.arraycopy(array, pos + 1, array, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    int cardinality() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Count ordinals present both here and in {@code scope}, given as the
+     * result of {@link BitSet#toLongArray()}.
+     */
+    int andCardinality(long[] scope) {
+        int count = 0;
+        if (words != null) {
+            int limit = Math.min(words.length, scope.length);
+            for (int i = 0; i < limit; i++) {
+                count += Long.bitCount(words[i] & scope[i]);
+            }
+            return count;
+        }
+        for (int i = 0; i < size; i++) {
+            int ord = array[i];
+            int index = ord >>> 6;
+            if (index < scope.length && (scope[index] & (1L << ord)) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Add every ordinal in this set to {@code target}.
+     */
+    void orInto(BitSet target) {
+        if (words != null) {
+            target.or(BitSet.valueOf(words));
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            target.set(array[i]);
+        }
+    }
+
+    private void convertToWords() {
+        words = new long[(array[size - 1] >>> 6) + 1];
+        for (int i = 0; i < size; i++) {
+            words[array[i] >>> 6] |= 1L << array[i];
+        }
+        array = null;
+    }
+
+    private void ensureWordCapacity(int ord) {
+        int index = ord >>> 6;
+        if (index >= words.length) {
+            words = Arrays.copyOf(words, Math.max(index + 1, words.length * 2));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.bharatshop.shared.service.search;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts and price statistics for one set of search criteria.
+ *
+ * Counts are disjunctive: the counts for a facet ignore the selections made
+ * in that same facet, so a sidebar can show how many products each
+ * alternative value would add.
+ */
+public record FacetSummary(
+        long totalMatches,
+        Map<String, Map<String, Long>> facets,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        BigDecimal avgPrice,
+        List<PriceBucket> priceHistogram
+) {
+
+    /**
+     * Products priced in [{@code from}, {@code to}); the last bucket includes {@code to}.
+     */
+    public record PriceBucket(BigDecimal from, BigDecimal to, long count) {
+    }
+}
@@ -0,0 +1,42 @@
+package com.bharatshop.shared.service.search;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the product fields held by the in-memory search index.
+ * Attribute names and values are stored lower-cased so filters are case-insensitive.
+ */
+public record IndexedProduct(
+        Long productId,
+        Long tenantId,
+        String name,
+        String description,
+        List<String> tags,
+        String brand,
+        Set<Long> categoryIds,
+        Map<String, Set<String>> attributes,
+        BigDecimal price,
+        boolean inStock,
+        LocalDateTime createdAt
+) {
+
+    public IndexedProduct {
+        tags = tags != null ? List.copyOf(tags) : List.of();
+        categoryIds = categoryIds != null ? Set.copyOf(categoryIds) : Set.of();
+        attributes = attributes != null ? Map.copyOf(attributes) : Map.of();
+    }
+
+    public IndexedProduct withInStock(boolean inStock) {
+        return inStock == this.inStock ? this : new IndexedProduct(productId, tenantId, name, description, tags,
+                brand, categoryIds, attributes, price, inStock, createdAt);
+    }
+
+    public boolean hasAttributeValue(String attributeName, String value) {
+        Set<String> values = attributes.get(attributeName.toLowerCase());
+        return values != null && values.contains(value.toLowerCase());
+    }
+}
@@ -0,0 +1,611 @@
+package com.bharatshop.shared.service.search;
+
+import com.bharatshop.shared.service.SearchService.SearchCriteria;
+import com.bharatshop.shared.service.SearchService.SearchResult;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over the active products of a single tenant.
+ *
+ * Every indexed version of a product gets a new dense ordinal; postings are
+ * therefore append-only and stay sorted by ordinal. Updates tombstone the
+ * previous ordinal and the index compacts itself once tombstones outnumber
+ * live documents. Reads take a shared lock, writes an exclusive one.
+ *
+ * Categories, brands and attribute values additionally keep a
+ * {@link FacetBitmap} of the ordinals carrying them, so facet filters and
+ * facet counts are bitmap intersections rather than per-product checks.
+ */
+public class ProductSearchIndex {
+
+    static final float NAME_BOOST = 3.0f;
+    static final float TAG_BOOST = 2.0f;
+    static final float ATTRIBUTE_BOOST = 1.5f;
+    static final float DESCRIPTION_BOOST = 1.0f;
+
+    /** Score factor applied to terms that only match the last query token as a prefix. */
+    static final float PREFIX_MATCH_FACTOR = 0.5f;
+
+    public static final String CATEGORY_FACET = "categories";
+    public static final String BRAND_FACET = "brands";
+
+    private static final float BM25_K1 = 1.2f;
+    private static final int MIN_TOMBSTONES_FOR_COMPACTION = 1024;
+
+    private final Long tenantId;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<IndexedProduct> documents = new ArrayList<>();
+    private final List<String[]> documentTerms = new ArrayList<>();
+    private final Map<Long, Integer> ordinalsByProductId = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<String, Map<String, FacetBitmap>> facetBitmaps = new HashMap<>();
+    private int tombstones;
+
+    public ProductSearchIndex(Long tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public Long getTenantId() {
+        return tenantId;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalsByProductId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace a product in the index.
+     */
+    public void index(IndexedProduct product) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(product.productId());
+            addInternal(product);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a batch of products, used when the index is first built from the database.
+     */
+    public void indexAll(Iterable<IndexedProduct> products) {
+        lock.writeLock().lock();
+        try {
+            for (IndexedProduct product : products) {
+                removeInternal(product.productId());
+                addInternal(product);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index. Unknown ids are ignored.
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Update a product's in-stock flag in place. It is a document filter
+     * rather than a posting, so no re-indexing is needed. Unknown ids are ignored.
+     */
+    public void setInStock(Long productId, boolean inStock) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsByProductId.get(productId);
+            if (ordinal != null) {
+                documents.set(ordinal, documents.get(ordinal).withInStock(inStock));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Run the given criteria against the index and return one page of product ids.
+     */
+    public SearchResult<Long> search(SearchCriteria criteria, int page, int size) {
+        lock.readLock().lock();
+        try {
+            int pageSize = Math.max(size, 1);
+            List<String> queryTokens = criteria != null ? tokenize(criteria.getQuery()) : List.of();
+            float[] scores = new float[documents.size()];
+
+            BitSet candidates = baseMatches(criteria, queryTokens, scores);
+            facetMasks(criteria).values().forEach(candidates::and);
+
+            List<Integer> matches = new ArrayList<>(candidates.cardinality());
+            for (int ord = candidates.nextSetBit(0); ord >= 0; ord = candidates.nextSetBit(ord + 1)) {
+                matches.add(ord);
+            }
+            matches.sort(comparatorFor(criteria, scores, !queryTokens.isEmpty()));
+
+            int from = Math.min(Math.max(page, 0) * pageSize, matches.size());
+            int to = Math.min(from + pageSize, matches.size());
+            List<Long> productIds = new ArrayList<>(to - from);
+            for (Integer ord : matches.subList(from, to)) {
+                productIds.add(documents.get(ord).productId());
+            }
+            return new SearchResult<>(productIds, matches.size(), Math.max(page, 0), pageSize);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compute facet counts and price statistics for the given criteria.
+     *
+     * @param maxValuesPerFacet most frequent values returned per facet
+     * @param histogramBuckets number of equal-width price buckets
+     */
+    public FacetSummary facets(SearchCriteria criteria, int maxValuesPerFacet, int histogramBuckets) {
+        lock.readLock().lock();
+        try {
+            List<String> queryTokens = criteria != null ? tokenize(criteria.getQuery()) : List.of();
+            BitSet base = baseMatches(criteria, queryTokens, new float[documents.size()]);
+            Map<String, BitSet> masks = facetMasks(criteria);
+
+            Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, Map<String, FacetBitmap>> facet : facetBitmaps.entrySet()) {
+                BitSet scope = (BitSet) base.clone();
+                for (Map.Entry<String, BitSet> mask : masks.entrySet()) {
+                    if (!mask.getKey().equals(facet.getKey())) {
+                        scope.and(mask.getValue());
+                    }
+                }
+                long[] scopeWords = scope.toLongArray();
+
+                List<Map.Entry<String, Long>> valueCounts = new ArrayList<>();
+                for (Map.Entry<String, FacetBitmap> value : facet.getValue().entrySet()) {
+                    int count = value.getValue().andCardinality(scopeWords);
+                    if (count > 0) {
+                        valueCounts.add(Map.entry(value.getKey(), (long) count));
+                    }
+                }
+                if (valueCounts.isEmpty()) {
+                    continue;
+                }
+                valueCounts.sort(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.<String, Long>comparingByKey()));
+                Map<String, Long> topValues = new LinkedHashMap<>();
+                valueCounts.stream().limit(Math.max(maxValuesPerFacet, 1))
+                        .forEach(entry -> topValues.put(entry.getKey(), entry.getValue()));
+                counts.put(facet.getKey(), topValues);
+            }
+
+            BitSet matches = base;
+            masks.values().forEach(matches::and);
+            return summarisePrices(matches, counts, histogramBuckets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ========== Query evaluation ==========
+
+    /**
+     * Every query token must match (AND semantics). The last token is also
+     * expanded as a prefix so partially typed words still find products.
+     */
+    private BitSet matchQuery(List<String> queryTokens, float[] scores) {
+        int liveCount = ordinalsByProductId.size();
+        int[] hits = new int[documents.size()];
+        float[] best = new float[documents.size()];
+        BitSet touched = new BitSet(documents.size());
+
+        for (int i = 0; i < queryTokens.size(); i++) {
+            String token = queryTokens.get(i);
+            Map<String, Float> expansions = new LinkedHashMap<>();
+            expansions.put(token, 1.0f);
+            if (i == queryTokens.size() - 1) {
+                for (String term : postings.subMap(token, false, token + Character.MAX_VALUE, false).keySet()) {
+                    expansions.put(term, PREFIX_MATCH_FACTOR);
+                }
+            }
+
+            touched.clear();
+            for (Map.Entry<String, Float> expansion : expansions.entrySet()) {
+                PostingList postingList = postings.get(expansion.getKey());
+                if (postingList == null || postingList.liveCount == 0) {
+                    continue;
+                }
+                float idf = idf(liveCount, postingList.liveCount);
+                for (int p = 0; p < postingList.size; p++) {
+                    int ord = postingList.docs[p];
+                    if (!live.get(ord)) {
+                        continue;
+                    }
+                    float weight = postingList.weights[p];
+                    float termScore = idf * (weight * (BM25_K1 + 1)) / (weight + BM25_K1) * expansion.getValue();
+                    best[ord] = Math.max(best[ord], termScore);
+                    touched.set(ord);
+                }
+            }
+
+            for (int ord = touched.nextSetBit(0); ord >= 0; ord = touched.nextSetBit(ord + 1)) {
+                scores[ord] += best[ord];
+                hits[ord]++;
+                best[ord] = 0f;
+            }
+        }
+
+        BitSet matched = new BitSet(documents.size());
+        for (int ord = 0; ord < hits.length; ord++) {
+            if (hits[ord] == queryTokens.size()) {
+                matched.set(ord);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Documents matching the text query and the non-facet filters (price,
+     * stock, tags). Facet selections are applied separately as bitmap masks.
+     */
+    private BitSet baseMatches(SearchCriteria criteria, List<String> queryTokens, float[] scores) {
+        BitSet candidates = queryTokens.isEmpty()
+                ? (BitSet) live.clone()
+                : matchQuery(queryTokens, scores);
+        if (criteria == null || !hasDocumentFilters(criteria)) {
+            return candidates;
+        }
+        for (int ord = candidates.nextSetBit(0); ord >= 0; ord = candidates.nextSetBit(ord + 1)) {
+            if (!matchesDocumentFilters(documents.get(ord), criteria)) {
+                candidates.clear(ord);
+            }
+        }
+        return candidates;
+    }
+
+    private boolean hasDocumentFilters(SearchCriteria criteria) {
+        return criteria.getMinPrice() != null
+                || criteria.getMaxPrice() != null
+                || criteria.getInStock() != null
+                || (criteria.getTags() != null && !criteria.getTags().isEmpty());
+    }
+
+    private boolean matchesDocumentFilters(IndexedProduct doc, SearchCriteria criteria) {
+        if (criteria.getMinPrice() != null
+                && (doc.price() == null || doc.price().compareTo(criteria.getMinPrice()) < 0)) {
+            return false;
+        }
+        if (criteria.getMaxPrice() != null
+                && (doc.price() == null || doc.price().compareTo(criteria.getMaxPrice()) > 0)) {
+            return false;
+        }
+        if (criteria.getInStock() != null && criteria.getInStock() != doc.inStock()) {
+            return false;
+        }
+        if (criteria.getTags() != null && !criteria.getTags().isEmpty()
+                && criteria.getTags().stream().noneMatch(tag -> doc.tags().contains(tag.toLowerCase(Locale.ROOT)))) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * One mask per facet with a selection: the union of the bitmaps of the
+     * selected values. Values within a facet are OR-ed, facets are AND-ed.
+     */
+    private Map<String, BitSet> facetMasks(SearchCriteria criteria) {
+        Map<String, BitSet> masks = new HashMap<>();
+        if (criteria == null) {
+            return masks;
+        }
+        if (criteria.getCategoryIds() != null && !criteria.getCategoryIds().isEmpty()) {
+            masks.put(CATEGORY_FACET, unionOf(CATEGORY_FACET,
+                    criteria.getCategoryIds().stream().map(String::valueOf).collect(Collectors.toList())));
+        }
+        if (criteria.getBrands() != null && !criteria.getBrands().isEmpty()) {
+            masks.put(BRAND_FACET, unionOf(BRAND_FACET, criteria.getBrands()));
+        }
+        if (criteria.getAttributeFilters() != null) {
+            for (Map.Entry<String, List<String>> filter : criteria.getAttributeFilters().entrySet()) {
+                if (filter.getValue() == null || filter.getValue().isEmpty()) {
+                    continue;
+                }
+                String facet = attributeFacet(filter.getKey());
+                BitSet mask = unionOf(facet, filter.getValue());
+                masks.merge(facet, mask, (existing, added) -> {
+                    existing.and(added);
+                    return existing;
+                });
+            }
+        }
+        return masks;
+    }
+
+    private BitSet unionOf(String facet, Iterable<String> values) {
+        BitSet union = new BitSet(documents.size());
+        Map<String, FacetBitmap> bitmaps = facetBitmaps.getOrDefault(facet, Map.of());
+        for (String value : values) {
+            FacetBitmap bitmap = value != null ? bitmaps.get(value.trim().toLowerCase(Locale.ROOT)) : null;
+            if (bitmap != null) {
+                bitmap.orInto(union);
+            }
+        }
+        return union;
+    }
+
+    private FacetSummary summarisePrices(BitSet matches, Map<String, Map<String, Long>> counts, int histogramBuckets) {
+        BigDecimal min = null;
+        BigDecimal max = null;
+        BigDecimal sum = BigDecimal.ZERO;
+        int priced = 0;
+        for (int ord = matches.nextSetBit(0); ord >= 0; ord = matches.nextSetBit(ord + 1)) {
+            BigDecimal price = documents.get(ord).price();
+            if (price == null) {
+                continue;
+            }
+            min = min == null || price.compareTo(min) < 0 ? price : min;
+            max = max == null || price.compareTo(max) > 0 ? price : max;
+            sum = sum.add(price);
+            priced++;
+        }
+        if (priced == 0) {
+            return new FacetSummary(matches.cardinality(), counts,
+                    BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, List.of());
+        }
+
+        int bucketCount = Math.max(histogramBuckets, 1);
+        double low = min.doubleValue();
+        double width = (max.doubleValue() - low) / bucketCount;
+        long[] bucketTotals = new long[bucketCount];
+        for (int ord = matches.nextSetBit(0); ord >= 0; ord = matches.nextSetBit(ord + 1)) {
+            BigDecimal price = documents.get(ord).price();
+            if (price != null) {
+                int bucket = width > 0 ? (int) ((price.doubleValue() - low) / width) : 0;
+                bucketTotals[Math.min(bucket, bucketCount - 1)]++;
+            }
+        }
+        List<FacetSummary.PriceBucket> histogram = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            BigDecimal from = BigDecimal.valueOf(low + width * i).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal to = i == bucketCount - 1 ? max : BigDecimal.valueOf(low + width * (i + 1)).setScale(2, RoundingMode.HALF_UP);
+            histogram.add(new FacetSummary.PriceBucket(from, to, bucketTotals[i]));
+        }
+
+        BigDecimal avg = sum.divide(BigDecimal.valueOf(priced), 2, RoundingMode.HALF_UP);
+        return new FacetSummary(matches.cardinality(), counts, min, max, avg, histogram);
+    }
+
+    private static String attributeFacet(String attributeName) {
+        String facet = attributeName.trim().toLowerCase(Locale.ROOT);
+        return facet.equals("brand") ? BRAND_FACET : facet;
+    }
+
+    private Comparator<Integer> comparatorFor(SearchCriteria criteria, float[] scores, boolean hasQuery) {
+        Comparator<Integer> newestFirst = Comparator.comparing(
+                (Integer ord) -> documents.get(ord).createdAt(),
+                Comparator.nullsLast(Comparator.reverseOrder()));
+        Comparator<Integer> byRelevance = Comparator.<Integer>comparingDouble(ord -> scores[ord]).reversed()
+                .thenComparing(newestFirst);
+
+        String sortBy = criteria != null && StringUtils.hasText(criteria.getSortBy())
+                ? criteria.getSortBy().toLowerCase(Locale.ROOT) : "relevance";
+        boolean ascending = criteria != null && "asc".equalsIgnoreCase(criteria.getSortDirection());
+
+        Comparator<Integer> byPrice = Comparator.comparing(
+                (Integer ord) -> documents.get(ord).price(), Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder()));
+        Comparator<Integer> byName = Comparator.comparing(
+                (Integer ord) -> documents.get(ord).name(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+
+        switch (sortBy) {
+            case "price":
+                return ascending ? byPrice : byPrice.reversed();
+            case "price_asc":
+                return byPrice;
+            case "price_desc":
+                return byPrice.reversed();
+            case "name":
+                return ascending ? byName : byName.reversed();
+            case "name_asc":
+                return byName;
+            case "name_desc":
+                return byName.reversed();
+            case "created":
+                return ascending ? newestFirst.reversed() : newestFirst;
+            case "created_asc":
+                return newestFirst.reversed();
+            case "created_desc":
+                return newestFirst;
+            case "relevance":
+            default:
+                // Rating and popularity are not tracked yet; fall back to relevance
+                return hasQuery ? byRelevance : newestFirst;
+        }
+    }
+
+    private static float idf(int documentCount, int documentFrequency) {
+        return (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    // ========== Index maintenance ==========
+
+    private void addInternal(IndexedProduct product) {
+        int ord = documents.size();
+        documents.add(product);
+        ordinalsByProductId.put(product.productId(), ord);
+        live.set(ord);
+
+        Map<String, Float> termWeights = new HashMap<>();
+        accumulate(termWeights, tokenize(product.name()), NAME_BOOST);
+        accumulate(termWeights, tokenize(String.join(" ", product.tags())), TAG_BOOST);
+        accumulate(termWeights, tokenize(product.brand()), ATTRIBUTE_BOOST);
+        for (Map.Entry<String, Set<String>> attribute : product.attributes().entrySet()) {
+            accumulate(termWeights, tokenize(String.join(" ", attribute.getValue())), ATTRIBUTE_BOOST);
+        }
+        accumulate(termWeights, tokenize(product.description()), DESCRIPTION_BOOST);
+
+        for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new PostingList()).add(ord, entry.getValue());
+        }
+        documentTerms.add(termWeights.keySet().toArray(new String[0]));
+
+        forEachFacetValue(product, (facet, value) -> facetBitmaps
+                .computeIfAbsent(facet, key -> new HashMap<>())
+                .computeIfAbsent(value, key -> new FacetBitmap())
+                .add(ord));
+    }
+
+    /**
+     * Adds boost-weighted term frequencies for one field, normalised by the
+     * square root of the field length so long descriptions do not dominate.
+     */
+    private static void accumulate(Map<String, Float> termWeights, List<String> tokens, float boost) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        float norm = (float) (boost / Math.sqrt(tokens.size()));
+        for (String token : tokens) {
+            termWeights.merge(token, norm, Float::sum);
+        }
+    }
+
+    private void removeInternal(Long productId) {
+        Integer ord = ordinalsByProductId.remove(productId);
+        if (ord == null) {
+            return;
+        }
+        live.clear(ord);
+        tombstones++;
+        for (String term : documentTerms.get(ord)) {
+            postings.get(term).liveCount--;
+        }
+        forEachFacetValue(documents.get(ord), (facet, value) -> {
+            Map<String, FacetBitmap> values = facetBitmaps.get(facet);
+            FacetBitmap bitmap = values != null ? values.get(value) : null;
+            if (bitmap != null) {
+                bitmap.remove(ord);
+                if (bitmap.isEmpty()) {
+                    values.remove(value);
+                }
+            }
+        });
+    }
+
+    private void compactIfNeeded() {
+        if (tombstones < MIN_TOMBSTONES_FOR_COMPACTION || tombstones < ordinalsByProductId.size()) {
+            return;
+        }
+        List<IndexedProduct> liveDocuments = new ArrayList<>(ordinalsByProductId.size());
+        for (int ord = live.nextSetBit(0); ord >= 0; ord = live.nextSetBit(ord + 1)) {
+            liveDocuments.add(documents.get(ord));
+        }
+        documents.clear();
+        documentTerms.clear();
+        ordinalsByProductId.clear();
+        live.clear();
+        postings.clear();
+        facetBitmaps.clear();
+        tombstones = 0;
+        liveDocuments.forEach(this::addInternal);
+    }
+
+    /**
+     * Visit every (facet, value) pair a product contributes to. The brand
+     * attribute is exposed as the brands facet rather than as an attribute.
+     */
+    private static void forEachFacetValue(IndexedProduct product, BiConsumer<String, String> visitor) {
+        for (Long categoryId : product.categoryIds()) {
+            visitor.accept(CATEGORY_FACET, String.valueOf(categoryId));
+        }
+        if (StringUtils.hasText(product.brand())) {
+            visitor.accept(BRAND_FACET, product.brand().trim().toLowerCase(Locale.ROOT));
+        }
+        for (Map.Entry<String, Set<String>> attribute : product.attributes().entrySet()) {
+            String facet = attributeFacet(attribute.getKey());
+            if (facet.equals(CATEGORY_FACET) || facet.equals(BRAND_FACET)) {
+                continue;
+            }
+            for (String value : attribute.getValue()) {
+                visitor.accept(facet, value.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+    }
+
+    /**
+     * Lower-cases and splits text on anything that is not a letter or digit.
+     * Works for Devanagari and other scripts as well as Latin text.
+     */
+    static List<String> tokenize(String text) {
+        if (!StringUtils.hasText(text)) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            boolean wordChar = Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK
+                    || Character.getType(c) == Character.COMBINING_SPACING_MARK;
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(lower.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * Append-only list of (ordinal, weight) pairs for one term.
+     */
+    private static final class PostingList {
+        private int[] docs = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+        private int liveCount;
+
+        void add(int ord, float weight) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = ord;
+            weights[size] = weight;
+            size++;
+            liveCount++;
+        }
+    }
+}
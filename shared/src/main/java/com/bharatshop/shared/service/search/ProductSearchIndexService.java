@@ -0,0 +1,494 @@
+package com.bharatshop.shared.service.search;
+
+import com.bharatshop.shared.entity.Product;
+import com.bharatshop.shared.repository.ProductRepository;
+import com.bharatshop.shared.repository.ProductVariantRepository;
+import com.bharatshop.shared.service.SearchService.SearchCriteria;
+import com.bharatshop.shared.service.SearchService.SearchResult;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the per-tenant {@link ProductSearchIndex} instances.
+ *
+ * A tenant's index is built from the database on its first search and is then
+ * kept current by product writes, which are applied once the surrounding
+ * transaction commits so rolled-back edits never become searchable. Writes
+ * that commit while an index is being built are replayed onto it before it
+ * is published. Stock and reservation changes only move the in-stock flag;
+ * they are collected per variant and applied in batches by {@link #refreshStock()}.
+ *
+ * Product writes are announced on {@link #CHANNEL}, and other nodes reload
+ * the announced products from the database. Since pub/sub delivery is not
+ * guaranteed, an index older than {@code app.search.index-max-age-ms} is
+ * also rebuilt on its next search, while searches keep using the old index.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndexService {
+
+    /** Attribute key that carries the brand inside {@link Product#getAttributes()}. */
+    public static final String BRAND_ATTRIBUTE = "brand";
+
+    /** Redis pub/sub channel carrying {@code node|tenant|id,id,...} product change notifications. */
+    public static final String CHANNEL = "bharatshop:search:products";
+
+    private static final int STOCK_REFRESH_BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ProductVariantRepository productVariantRepository;
+    private final ObjectMapper objectMapper;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.search.index-max-age-ms:600000}")
+    private long indexMaxAgeMillis;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<Long, TenantIndex> indexes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, PendingBuild> builds = new ConcurrentHashMap<>();
+    private final Set<VariantKey> stockChanges = ConcurrentHashMap.newKeySet();
+    private final Set<ProductKey> productChanges = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Search the tenant's active products.
+     */
+    public SearchResult<Long> search(Long tenantId, SearchCriteria criteria, int page, int size) {
+        return getIndex(tenantId).search(criteria, page, size);
+    }
+
+    /**
+     * Facet counts and price statistics for the tenant's active products.
+     */
+    public FacetSummary facets(Long tenantId, SearchCriteria criteria, int maxValuesPerFacet, int histogramBuckets) {
+        return getIndex(tenantId).facets(criteria, maxValuesPerFacet, histogramBuckets);
+    }
+
+    /**
+     * Get the index for a tenant, building it from the database if it is
+     * missing or too old. One build runs per tenant at a time; concurrent
+     * callers wait for it, or keep using the old index while it is replaced.
+     */
+    public ProductSearchIndex getIndex(Long tenantId) {
+        TenantIndex current = indexes.get(tenantId);
+        if (current != null && System.currentTimeMillis() - current.builtAt() < indexMaxAgeMillis) {
+            return current.index();
+        }
+
+        PendingBuild build = new PendingBuild();
+        PendingBuild running = builds.putIfAbsent(tenantId, build);
+        if (running != null) {
+            return current != null ? current.index() : running.await();
+        }
+        // Built outside the map so a slow build does not block other tenants
+        try {
+            ProductSearchIndex built = buildIndex(tenantId);
+            build.publish(tenantId, built);
+            return built;
+        } catch (RuntimeException e) {
+            build.fail(e);
+            throw e;
+        } finally {
+            builds.remove(tenantId, build);
+        }
+    }
+
+    /**
+     * Reflect a saved product in the index after the current transaction commits.
+     * Products that are not active or are soft-deleted are removed instead.
+     */
+    public void onProductSaved(Product product) {
+        if (product == null || product.getId() == null || product.getTenantId() == null) {
+            return;
+        }
+        Long tenantId = product.getTenantId();
+        Long productId = product.getId();
+        if (!isSearchable(product)) {
+            afterCommit(() -> removeFromIndex(tenantId, productId));
+            return;
+        }
+        // Snapshot now, while the persistence context is still open
+        IndexedProduct snapshot = toIndexedProduct(product);
+        afterCommit(() -> {
+            apply(tenantId, index -> index.index(snapshot));
+            announce(tenantId, List.of(productId));
+        });
+    }
+
+    /**
+     * Reflect products whose transaction has already committed, e.g. from an
+     * after-commit callback. Applied immediately.
+     */
+    public void onProductsCommitted(List<Product> products) {
+        Map<Long, List<Long>> changedByTenant = new HashMap<>();
+        for (Product product : products) {
+            if (product.getId() == null || product.getTenantId() == null) {
+                continue;
+            }
+            if (isSearchable(product)) {
+                IndexedProduct snapshot = toIndexedProduct(product);
+                apply(product.getTenantId(), index -> index.index(snapshot));
+            } else {
+                Long productId = product.getId();
+                apply(product.getTenantId(), index -> index.remove(productId));
+            }
+            changedByTenant.computeIfAbsent(product.getTenantId(), id -> new ArrayList<>()).add(product.getId());
+        }
+        changedByTenant.forEach(this::announce);
+    }
+
+    /**
+     * Remove a product from the index after the current transaction commits.
+     */
+    public void onProductDeleted(Long tenantId, Long productId) {
+        if (tenantId == null || productId == null) {
+            return;
+        }
+        afterCommit(() -> removeFromIndex(tenantId, productId));
+    }
+
+    /**
+     * Note that a variant's stock or reserved stock changed. The owning
+     * product's in-stock flag is refreshed by the next {@link #refreshStock()}.
+     */
+    public void onStockChanged(Long tenantId, Long productVariantId) {
+        if (tenantId != null && productVariantId != null && isIndexed(tenantId)) {
+            stockChanges.add(new VariantKey(tenantId, productVariantId));
+        }
+    }
+
+    /**
+     * Apply a product change announced by another node. The products are
+     * reloaded by the next {@link #refreshStock()}.
+     */
+    public void onRemoteChange(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        try {
+            Long tenantId = Long.valueOf(parts[1]);
+            if (!isIndexed(tenantId)) {
+                return;
+            }
+            for (String productId : parts[2].split(",")) {
+                productChanges.add(new ProductKey(tenantId, Long.valueOf(productId)));
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed search index message: {}", message);
+        }
+    }
+
+    /**
+     * Re-read available stock for the products of changed variants and update
+     * their in-stock flags, one query per batch of variants. Products changed
+     * on other nodes are reloaded the same way.
+     */
+    @Scheduled(fixedDelayString = "${app.search.stock-refresh-interval-ms:5000}")
+    public void refreshStock() {
+        refreshChangedProducts();
+        if (stockChanges.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Long>> variantsByTenant = new HashMap<>();
+        for (Iterator<VariantKey> changes = stockChanges.iterator(); changes.hasNext(); ) {
+            VariantKey change = changes.next();
+            changes.remove();
+            variantsByTenant.computeIfAbsent(change.tenantId(), id -> new ArrayList<>()).add(change.productVariantId());
+        }
+
+        for (Map.Entry<Long, List<Long>> tenant : variantsByTenant.entrySet()) {
+            Long tenantId = tenant.getKey();
+            List<Long> variantIds = tenant.getValue();
+            try {
+                for (int from = 0; from < variantIds.size(); from += STOCK_REFRESH_BATCH_SIZE) {
+                    List<Long> batch = variantIds.subList(from, Math.min(from + STOCK_REFRESH_BATCH_SIZE, variantIds.size()));
+                    for (Object[] row : productVariantRepository.sumAvailableStockOfProductsWithVariants(batch)) {
+                        long productId = ((Number) row[0]).longValue();
+                        boolean inStock = row[1] != null && ((Number) row[1]).longValue() > 0;
+                        apply(tenantId, index -> index.setInStock(productId, inStock));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Could not refresh stock of {} variants in search index for tenant: {}",
+                        variantIds.size(), tenantId, e);
+            }
+        }
+    }
+
+    /**
+     * Drop a tenant's index; it is rebuilt on the next search.
+     */
+    public void invalidateTenant(Long tenantId) {
+        indexes.remove(tenantId);
+        log.debug("Dropped search index for tenant: {}", tenantId);
+    }
+
+    /**
+     * Reload products announced by other nodes, one query per batch
+     */
+    private void refreshChangedProducts() {
+        if (productChanges.isEmpty()) {
+            return;
+        }
+        Map<Long, List<Long>> productsByTenant = new HashMap<>();
+        for (Iterator<ProductKey> changes = productChanges.iterator(); changes.hasNext(); ) {
+            ProductKey change = changes.next();
+            changes.remove();
+            productsByTenant.computeIfAbsent(change.tenantId(), id -> new ArrayList<>()).add(change.productId());
+        }
+
+        for (Map.Entry<Long, List<Long>> tenant : productsByTenant.entrySet()) {
+            Long tenantId = tenant.getKey();
+            List<Long> productIds = tenant.getValue();
+            try {
+                for (int from = 0; from < productIds.size(); from += STOCK_REFRESH_BATCH_SIZE) {
+                    List<Long> batch = productIds.subList(from, Math.min(from + STOCK_REFRESH_BATCH_SIZE, productIds.size()));
+                    reloadProducts(tenantId, batch);
+                }
+            } catch (Exception e) {
+                log.warn("Could not reload {} changed products into search index for tenant: {}",
+                        productIds.size(), tenantId, e);
+            }
+        }
+    }
+
+    private void reloadProducts(Long tenantId, List<Long> productIds) {
+        Map<Long, Set<Long>> categoryIds = new HashMap<>();
+        for (Object[] row : productRepository.findCategoryIdsByTenantIdAndIdIn(tenantId, productIds)) {
+            categoryIds.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+        Set<Long> missing = new HashSet<>(productIds);
+        for (Product product : productRepository.findWithVariantsByTenantIdAndIdIn(tenantId, productIds)) {
+            if (isSearchable(product)) {
+                missing.remove(product.getId());
+                IndexedProduct snapshot = toIndexedProduct(product, categoryIds.getOrDefault(product.getId(), Set.of()));
+                apply(tenantId, index -> index.index(snapshot));
+            }
+        }
+        for (Long productId : missing) {
+            apply(tenantId, index -> index.remove(productId));
+        }
+    }
+
+    /**
+     * Apply a change to the tenant's index, and to an index being built for
+     * the tenant once it is ready. Changes must be idempotent.
+     */
+    private void apply(Long tenantId, Consumer<ProductSearchIndex> change) {
+        PendingBuild build = builds.get(tenantId);
+        if (build != null) {
+            build.buffer(change);
+        }
+        TenantIndex current = indexes.get(tenantId);
+        if (current != null) {
+            change.accept(current.index());
+        }
+    }
+
+    private boolean isIndexed(Long tenantId) {
+        return indexes.containsKey(tenantId) || builds.containsKey(tenantId);
+    }
+
+    private void removeFromIndex(Long tenantId, Long productId) {
+        apply(tenantId, index -> index.remove(productId));
+        announce(tenantId, List.of(productId));
+    }
+
+    /**
+     * Tell other nodes which products changed
+     */
+    private void announce(Long tenantId, List<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        String ids = productIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + tenantId + "|" + ids);
+        } catch (Exception e) {
+            log.debug("Could not announce search index changes for tenant {}: {}", tenantId, e.getMessage());
+        }
+    }
+
+    private ProductSearchIndex buildIndex(Long tenantId) {
+        long start = System.currentTimeMillis();
+        // Variants are fetched with the products and categories in a second
+        // query, so the build touches no lazy association
+        List<Product> products = productRepository.findWithVariantsByTenantIdAndStatus(
+                tenantId, Product.ProductStatus.ACTIVE);
+        Map<Long, Set<Long>> categoryIds = new HashMap<>();
+        for (Object[] row : productRepository.findCategoryIdsByTenantIdAndStatus(tenantId, Product.ProductStatus.ACTIVE)) {
+            categoryIds.computeIfAbsent((Long) row[0], id -> new HashSet<>()).add((Long) row[1]);
+        }
+
+        ProductSearchIndex index = new ProductSearchIndex(tenantId);
+        index.indexAll(products.stream()
+                .map(product -> toIndexedProduct(product, categoryIds.getOrDefault(product.getId(), Set.of())))
+                .collect(Collectors.toList()));
+
+        log.info("Built search index for tenant: {} with {} products in {} ms",
+                tenantId, index.size(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private boolean isSearchable(Product product) {
+        return product.getStatus() == Product.ProductStatus.ACTIVE && !product.isDeleted();
+    }
+
+    IndexedProduct toIndexedProduct(Product product) {
+        return toIndexedProduct(product,
+                product.getCategories() != null ? new HashSet<>(product.getCategories()) : Set.of());
+    }
+
+    private IndexedProduct toIndexedProduct(Product product, Set<Long> categoryIds) {
+        Map<String, Set<String>> attributes = parseAttributes(product.getAttributes());
+        Set<String> brands = attributes.getOrDefault(BRAND_ATTRIBUTE, Set.of());
+
+        return new IndexedProduct(
+                product.getId(),
+                product.getTenantId(),
+                product.getName(),
+                product.getDescription(),
+                parseTags(product.getMetaKeywords()),
+                brands.isEmpty() ? null : brands.iterator().next(),
+                categoryIds,
+                attributes,
+                product.getEffectivePrice(),
+                product.getTotalStock() > 0,
+                product.getCreatedAt());
+    }
+
+    /**
+     * Flatten the product attributes JSON into lower-cased name -> values.
+     * Scalar values and arrays of scalars are kept; nested objects are skipped.
+     */
+    private Map<String, Set<String>> parseAttributes(String attributesJson) {
+        Map<String, Set<String>> attributes = new HashMap<>();
+        if (!StringUtils.hasText(attributesJson)) {
+            return attributes;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(attributesJson);
+            if (root == null || !root.isObject()) {
+                return attributes;
+            }
+            Iterator<Map.Entry<String, JsonNode>> fields = root.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                Set<String> values = new HashSet<>();
+                if (field.getValue().isArray()) {
+                    field.getValue().forEach(element -> addScalar(values, element));
+                } else {
+                    addScalar(values, field.getValue());
+                }
+                if (!values.isEmpty()) {
+                    attributes.put(field.getKey().toLowerCase(Locale.ROOT), values);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring unparseable product attributes: {}", e.getMessage());
+        }
+        return attributes;
+    }
+
+    private void addScalar(Set<String> values, JsonNode node) {
+        if (node.isValueNode() && !node.isNull() && StringUtils.hasText(node.asText())) {
+            values.add(node.asText().trim().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private List<String> parseTags(String metaKeywords) {
+        if (!StringUtils.hasText(metaKeywords)) {
+            return List.of();
+        }
+        return Arrays.stream(metaKeywords.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(tag -> tag.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+    }
+
+    private record VariantKey(Long tenantId, Long productVariantId) {
+    }
+
+    private record ProductKey(Long tenantId, Long productId) {
+    }
+
+    private record TenantIndex(ProductSearchIndex index, long builtAt) {
+    }
+
+    /**
+     * An index being built for a tenant. Changes committed meanwhile are
+     * buffered and replayed onto the index before it is published.
+     */
+    private final class PendingBuild {
+        private final CompletableFuture<ProductSearchIndex> result = new CompletableFuture<>();
+        private final List<Consumer<ProductSearchIndex>> changes = new ArrayList<>();
+        private boolean published;
+
+        synchronized void buffer(Consumer<ProductSearchIndex> change) {
+            if (!published) {
+                changes.add(change);
+            }
+        }
+
+        synchronized void publish(Long tenantId, ProductSearchIndex index) {
+            changes.forEach(change -> change.accept(index));
+            changes.clear();
+            indexes.put(tenantId, new TenantIndex(index, System.currentTimeMillis()));
+            published = true;
+            result.complete(index);
+        }
+
+        void fail(RuntimeException e) {
+            result.completeExceptionally(e);
+        }
+
+        ProductSearchIndex await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
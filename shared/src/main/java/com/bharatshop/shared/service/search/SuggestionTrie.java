@@ -0,0 +1,183 @@
+package com.bharatshop.shared.service.search;
+
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Weighted prefix trie for type-ahead suggestions.
+ *
+ * Each node stores its outgoing edges as a sorted char array with a parallel
+ * child array, and caches the top completions of its whole subtree. A lookup
+ * is therefore one walk down the prefix followed by an array copy, with no
+ * subtree traversal. Writers are serialised and rebuild the caches along the
+ * touched path; readers never lock because edges and caches are replaced as
+ * immutable snapshots.
+ */
+public class SuggestionTrie {
+
+    private static final Comparator<Completion> BY_WEIGHT = Comparator
+            .comparingLong(Completion::weight).reversed()
+            .thenComparing(Completion::text);
+
+    private final int maxCompletionsPerNode;
+    private final Node root = new Node();
+
+    public SuggestionTrie(int maxCompletionsPerNode) {
+        this.maxCompletionsPerNode = maxCompletionsPerNode;
+    }
+
+    /**
+     * A suggestion and its accumulated popularity.
+     */
+    public record Completion(String text, long weight) {
+    }
+
+    /**
+     * Adjust the weight of a suggestion, creating it when missing. A suggestion
+     * whose weight drops to zero or below is removed.
+     *
+     * @param text display text; its normalised form is the trie key
+     * @param delta weight to add (negative to remove)
+     * @param preferredDisplay whether {@code text} should replace an existing display form
+     */
+    public synchronized void adjust(String text, long delta, boolean preferredDisplay) {
+        String key = normalise(text);
+        if (key.isEmpty() || delta == 0) {
+            return;
+        }
+
+        Node[] path = new Node[key.length() + 1];
+        path[0] = root;
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.child(key.charAt(i));
+            if (child == null) {
+                if (delta < 0) {
+                    return;
+                }
+                child = new Node();
+                node.addChild(key.charAt(i), child);
+            }
+            node = child;
+            path[i + 1] = node;
+        }
+
+        node.weight += delta;
+        if (node.weight <= 0) {
+            node.weight = 0;
+            node.display = null;
+        } else if (node.display == null || (preferredDisplay && delta > 0)) {
+            node.display = text.trim().replaceAll("\\s+", " ");
+        }
+
+        for (int i = key.length(); i >= 0; i--) {
+            Node current = path[i];
+            if (i > 0 && current.weight == 0 && current.edges.keys.length == 0) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+                continue;
+            }
+            current.top = computeTop(current);
+        }
+    }
+
+    /**
+     * Best completions for a prefix, most popular first.
+     */
+    public List<Completion> suggest(String prefix, int limit) {
+        String key = normalise(prefix);
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Completion[] top = node.top;
+        return List.of(Arrays.copyOf(top, Math.min(Math.max(limit, 0), top.length)));
+    }
+
+    /**
+     * Merge the node's own entry with the cached tops of its children.
+     */
+    private Completion[] computeTop(Node node) {
+        List<Completion> candidates = new ArrayList<>();
+        if (node.weight > 0 && node.display != null) {
+            candidates.add(new Completion(node.display, node.weight));
+        }
+        for (Node child : node.edges.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(BY_WEIGHT);
+        return candidates.subList(0, Math.min(maxCompletionsPerNode, candidates.size()))
+                .toArray(new Completion[0]);
+    }
+
+    static String normalise(String text) {
+        if (!StringUtils.hasText(text)) {
+            return "";
+        }
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable edge snapshot so readers always see matching keys and children.
+     */
+    private static final class Edges {
+        static final Edges EMPTY = new Edges(new char[0], new Node[0]);
+
+        final char[] keys;
+        final Node[] children;
+
+        Edges(char[] keys, Node[] children) {
+            this.keys = keys;
+            this.children = children;
+        }
+    }
+
+    private static final class Node {
+        volatile Edges edges = Edges.EMPTY;
+        volatile Completion[] top = new Completion[0];
+        String display;
+        long weight;
+
+        Node child(char c) {
+            Edges current = edges;
+            int pos = Arrays.binarySearch(current.keys, c);
+            return pos >= 0 ? current.children[pos] : null;
+        }
+
+        void addChild(char c, Node child) {
+            Edges current = edges;
+            int insertAt = -Arrays.binarySearch(current.keys, c) - 1;
+            char[] keys = new char[current.keys.length + 1];
+            Node[] children = new Node[current.children.length + 1];
+            System.arraycopy(current.keys, 0, keys, 0, insertAt);
+            System.arraycopy(current.children, 0, children, 0, insertAt);
+            keys[insertAt] = c;
+            children[insertAt] = child;
+            System.arraycopy(current.keys, insertAt, keys, insertAt + 1, current.keys.length - insertAt);
+            System.arraycopy(current.children, insertAt, children, insertAt + 1, current.children.length - insertAt);
+            edges = new Edges(keys, children);
+        }
+
+        void removeChild(char c) {
+            Edges current = edges;
+            int pos = Arrays.binarySearch(current.keys, c);
+            if (pos < 0) {
+                return;
+            }
+            char[] keys = new char[current.keys.length - 1];
+            Node[] children = new Node[current.children.length - 1];
+            System.arraycopy(current.keys, 0, keys, 0, pos);
+            System.arraycopy(current.children, 0, children, 0, pos);
+            System.arraycopy(current.keys, pos + 1, keys, pos, keys.length - pos);
+            System.arraycopy(current.children, pos + 1, children, pos, children.length - pos);
+            edges = new Edges(keys, children);
+        }
+    }
+}
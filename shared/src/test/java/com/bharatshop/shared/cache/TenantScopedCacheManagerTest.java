@@ -0,0 +1,114 @@
+package com.bharatshop.shared.cache;
+
+import com.bharatshop.shared.tenant.TenantContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TenantScopedCacheManager
+ * Tests tenant isolation of cached entries and per-tenant generation invalidation
+ */
+@ExtendWith(MockitoExtension.class)
+class TenantScopedCacheManagerTest {
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    private final Map<String, Long> counters = new HashMap<>();
+
+    private TenantScopedCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(cacheGenerations.current(any(), anyString()))
+                .thenAnswer(invocation -> counters.getOrDefault(counterKey(invocation.getArgument(0), invocation.getArgument(1)), 0L));
+        lenient().when(cacheGenerations.bump(any(), anyString()))
+                .thenAnswer(invocation -> counters.merge(counterKey(invocation.getArgument(0), invocation.getArgument(1)), 1L, Long::sum));
+        cacheManager = new TenantScopedCacheManager(new ConcurrentMapCacheManager(), cacheGenerations);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TenantContext.clear();
+    }
+
+    @Test
+    @DisplayName("Should keep entries of different tenants apart")
+    void shouldKeepTenantsApart() {
+        Cache cache = cacheManager.getCache("product");
+
+        TenantContext.setCurrentTenant(1L);
+        cache.put("slug_shirt", "tenant-1-shirt");
+        TenantContext.setCurrentTenant(2L);
+        cache.put("slug_shirt", "tenant-2-shirt");
+
+        assertThat(cache.get("slug_shirt").get()).isEqualTo("tenant-2-shirt");
+        TenantContext.setCurrentTenant(1L);
+        assertThat(cache.get("slug_shirt").get()).isEqualTo("tenant-1-shirt");
+    }
+
+    @Test
+    @DisplayName("Should invalidate only the current tenant when a cache is cleared")
+    void shouldClearOnlyCurrentTenant() {
+        Cache cache = cacheManager.getCache("storefront:products");
+        TenantContext.setCurrentTenant(1L);
+        cache.put("page_0", "tenant-1-page");
+        TenantContext.setCurrentTenant(2L);
+        cache.put("page_0", "tenant-2-page");
+
+        cache.clear();
+
+        assertThat(cache.get("page_0")).isNull();
+        TenantContext.setCurrentTenant(1L);
+        assertThat(cache.get("page_0").get()).isEqualTo("tenant-1-page");
+        verify(cacheGenerations).bump(2L, CacheGroups.PRODUCTS);
+    }
+
+    @Test
+    @DisplayName("Should invalidate every cache in a group with one bump")
+    void shouldInvalidateGroupWithOneBump() {
+        TenantContext.setCurrentTenant(1L);
+        Cache products = cacheManager.getCache("storefront:products");
+        Cache categories = cacheManager.getCache("storefront:categories");
+        Cache pages = cacheManager.getCache("pages");
+        products.put("page_0", "products");
+        categories.put("all", "categories");
+        pages.put("all", "pages");
+
+        cacheGenerations.bump(1L, CacheGroups.PRODUCTS);
+
+        assertThat(products.get("page_0")).isNull();
+        assertThat(categories.get("all")).isNull();
+        assertThat(pages.get("all").get()).isEqualTo("pages");
+    }
+
+    @Test
+    @DisplayName("Should not scope platform-wide caches")
+    void shouldNotScopeGlobalCaches() {
+        Cache tenants = cacheManager.getCache("tenants");
+        TenantContext.setCurrentTenant(1L);
+        tenants.put(7L, "tenant-7");
+        TenantContext.setCurrentTenant(2L);
+
+        assertThat(tenants.get(7L).get()).isEqualTo("tenant-7");
+        verifyNoInteractions(cacheGenerations);
+    }
+
+    private static String counterKey(Long tenantId, String group) {
+        return tenantId + ":" + group;
+    }
+}
@@ -0,0 +1,250 @@
+package com.bharatshop.shared.scheduler;
+
+import com.bharatshop.shared.entity.Shipment;
+import com.bharatshop.shared.repository.OrderRepository;
+import com.bharatshop.shared.repository.ShipmentRepository;
+import com.bharatshop.shared.repository.ShipmentTrackingRepository;
+import com.bharatshop.shared.service.NotificationService;
+import com.bharatshop.shared.service.ShipmentTrackingService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CarrierTrackingPoller
+ * Tests bulk requests, per-carrier concurrency and rate limits, and polling order against stub carrier APIs
+ */
+@ExtendWith(MockitoExtension.class)
+class CarrierTrackingPollerTest {
+
+    @Mock
+    private ShipmentRepository shipmentRepository;
+
+    @Mock
+    private ShipmentTrackingRepository shipmentTrackingRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private NotificationService notificationService;
+
+    private StubCarriers carriers;
+    private ShipmentTrackingService trackingService;
+    private CarrierTrackingPoller poller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        carriers = new StubCarriers();
+        trackingService = new ShipmentTrackingService(shipmentRepository, shipmentTrackingRepository,
+                orderRepository, notificationService, new RestTemplate(), new ShipmentPollSchedule(Duration.ofMinutes(30),
+                        Duration.ofHours(2), Duration.ofHours(12), Duration.ofHours(2), Duration.ofHours(12), 5));
+        ReflectionTestUtils.setField(trackingService, "delhiveryBaseUrl", carriers.url("/delhivery"));
+        ReflectionTestUtils.setField(trackingService, "bluedartBaseUrl", carriers.url("/bluedart"));
+        carrierPolicy("delhivery", 50, 100, 2);
+        carrierPolicy("bluedart", 25, 100, 2);
+        poller = new CarrierTrackingPoller(trackingService, 8, 30000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        poller.shutdown();
+        carriers.close();
+    }
+
+    @Test
+    @DisplayName("Should poll each carrier in bulk requests within its concurrency cap")
+    void shouldBatchPerCarrier() {
+        List<Shipment> shipments = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            shipments.add(shipment("delhivery", "DL" + i, Shipment.ShipmentStatus.IN_TRANSIT, null));
+        }
+        for (int i = 0; i < 3; i++) {
+            shipments.add(shipment("BlueDart", "BD" + i, Shipment.ShipmentStatus.IN_TRANSIT, null));
+        }
+
+        CarrierTrackingPoller.PollResult result = poller.poll(shipments);
+
+        assertThat(result.requests()).isEqualTo(4);
+        assertThat(result.updated()).isEqualTo(123);
+        assertThat(result.errors()).isZero();
+        assertThat(result.skipped()).isZero();
+        assertThat(carriers.requests("/delhivery")).hasSize(3);
+        assertThat(carriers.requests("/bluedart")).containsExactly("BD0,BD1,BD2");
+        assertThat(carriers.maxInFlight("/delhivery")).isLessThanOrEqualTo(2);
+        assertThat(shipments).allSatisfy(shipment -> {
+            assertThat(shipment.getLastTrackingUpdate()).isNotNull();
+            assertThat(shipment.getNextPollAt()).isAfter(LocalDateTime.now());
+        });
+        verify(shipmentTrackingRepository, times(123)).save(any());
+    }
+
+    @Test
+    @DisplayName("Should count a failed carrier request as errors and leave its shipments unpolled")
+    void shouldNotMarkShipmentsPolledWhenCarrierFails() {
+        ReflectionTestUtils.setField(trackingService, "delhiveryBaseUrl", carriers.url("/unavailable"));
+        List<Shipment> shipments = List.of(
+                shipment("delhivery", "DL1", Shipment.ShipmentStatus.IN_TRANSIT, null),
+                shipment("delhivery", "DL2", Shipment.ShipmentStatus.IN_TRANSIT, null),
+                shipment("bluedart", "BD1", Shipment.ShipmentStatus.IN_TRANSIT, null));
+
+        CarrierTrackingPoller.PollResult result = poller.poll(shipments);
+
+        assertThat(result.errors()).isEqualTo(2);
+        assertThat(result.updated()).isEqualTo(1);
+        assertThat(shipments.get(0).getLastTrackingUpdate()).isNull();
+        assertThat(shipments.get(0).getNextPollAt()).isNull();
+        assertThat(shipments.get(2).getLastTrackingUpdate()).isNotNull();
+        verify(shipmentTrackingRepository, times(1)).save(any());
+    }
+
+    @Test
+    @DisplayName("Should poll the most overdue shipments first")
+    void shouldPollMostOverdueFirst() {
+        carrierPolicy("delhivery", 1, 100, 1);
+        LocalDateTime twoHoursAgo = LocalDateTime.now().minusHours(2);
+
+        poller.poll(List.of(
+                shipment("delhivery", "IN-TRANSIT", Shipment.ShipmentStatus.IN_TRANSIT, twoHoursAgo),
+                shipment("delhivery", "OUT-FOR-DELIVERY", Shipment.ShipmentStatus.OUT_FOR_DELIVERY, twoHoursAgo),
+                shipment("delhivery", "NEVER-POLLED", Shipment.ShipmentStatus.PICKED_UP, null)));
+
+        assertThat(carriers.requests("/delhivery")).containsExactly("NEVER-POLLED", "OUT-FOR-DELIVERY", "IN-TRANSIT");
+    }
+
+    @Test
+    @DisplayName("Should keep to the carrier's request rate")
+    void shouldRespectRateLimit() {
+        carrierPolicy("delhivery", 1, 5, 4);
+        List<Shipment> shipments = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            shipments.add(shipment("delhivery", "DL" + i, Shipment.ShipmentStatus.IN_TRANSIT, null));
+        }
+
+        long start = System.nanoTime();
+        CarrierTrackingPoller.PollResult result = poller.poll(shipments);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // A burst of five, then one request every 200ms
+        assertThat(result.requests()).isEqualTo(10);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(900);
+    }
+
+    private void carrierPolicy(String carrier, int bulkSize, double requestsPerSecond, int maxConcurrency) {
+        ReflectionTestUtils.setField(trackingService, carrier + "BulkSize", bulkSize);
+        ReflectionTestUtils.setField(trackingService, carrier + "RequestsPerSecond", requestsPerSecond);
+        ReflectionTestUtils.setField(trackingService, carrier + "MaxConcurrency", maxConcurrency);
+    }
+
+    private Shipment shipment(String carrier, String trackingNumber, Shipment.ShipmentStatus status,
+                              LocalDateTime lastTrackingUpdate) {
+        Shipment shipment = new Shipment();
+        shipment.setId((long) trackingNumber.hashCode());
+        shipment.setOrderId(1L);
+        shipment.setCarrierName(carrier);
+        shipment.setTrackingNumber(trackingNumber);
+        shipment.setStatus(status);
+        shipment.setLastTrackingUpdate(lastTrackingUpdate);
+        return shipment;
+    }
+
+    /**
+     * Local Delhivery and BlueDart tracking APIs answering one "In Transit" scan per
+     * tracking number, with a short delay so concurrent requests overlap. Delhivery
+     * adds a scan without a date; BlueDart dates carry an offset
+     */
+    private static final class StubCarriers implements AutoCloseable {
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final List<String[]> received = new CopyOnWriteArrayList<>();
+        private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+
+        StubCarriers() throws IOException {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/delhivery/packages/json/", exchange -> handle(exchange, "/delhivery", "waybill",
+                    number -> "{\"Shipment\":{\"AWB\":\"" + number + "\",\"Scans\":[{\"ScanDetail\":{"
+                            + "\"Scan\":\"In Transit\",\"ScanDateTime\":\"2024-01-10T10:15:00\","
+                            + "\"ScannedLocation\":\"Delhi_Hub\",\"Instructions\":\"Shipment in transit\","
+                            + "\"StatusCode\":\"X-DLL2F\"}},{\"ScanDetail\":{\"Scan\":\"Manifested\"}}]}}",
+                    "ShipmentData"));
+            server.createContext("/bluedart/tracking", exchange -> handle(exchange, "/bluedart", "awb",
+                    number -> "{\"awbNumber\":\"" + number + "\",\"scans\":[{\"status\":\"In Transit\","
+                            + "\"scanDateTime\":\"2024-01-10T11:00:00+05:30\",\"location\":\"Mumbai\","
+                            + "\"remarks\":\"Shipment in transit\",\"statusCode\":\"IT\"}]}",
+                    "shipments"));
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        String url(String path) {
+            return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+        }
+
+        List<String> requests(String carrier) {
+            return received.stream().filter(request -> request[0].equals(carrier)).map(request -> request[1]).toList();
+        }
+
+        int maxInFlight(String carrier) {
+            return maxInFlight.getOrDefault(carrier, new AtomicInteger()).get();
+        }
+
+        private void handle(HttpExchange exchange, String carrier, String parameter,
+                            Function<String, String> shipmentJson, String listField) throws IOException {
+            int current = inFlight.computeIfAbsent(carrier, key -> new AtomicInteger()).incrementAndGet();
+            maxInFlight.computeIfAbsent(carrier, key -> new AtomicInteger()).accumulateAndGet(current, Math::max);
+            try {
+                String numbers = exchange.getRequestURI().getQuery().replaceFirst("^" + parameter + "=", "");
+                received.add(new String[]{carrier, numbers});
+                Thread.sleep(50);
+
+                String body = "{\"" + listField + "\":[" + List.of(numbers.split(",")).stream()
+                        .map(shipmentJson).collect(Collectors.joining(",")) + "]}";
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.get(carrier).decrementAndGet();
+                exchange.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
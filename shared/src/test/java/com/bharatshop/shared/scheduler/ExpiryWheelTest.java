@@ -0,0 +1,50 @@
+package com.bharatshop.shared.scheduler;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ExpiryWheel
+ * Tests deadline rounding, multi-revolution deadlines and catching up after a stall
+ */
+class ExpiryWheelTest {
+
+    @Test
+    @DisplayName("Should return items no earlier than their deadline and within one tick")
+    void shouldReturnItemsAtDeadline() {
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(1000, 8, 0);
+        wheel.schedule("a", 2500);
+        wheel.schedule("b", 3000);
+
+        assertThat(wheel.advance(2999)).isEmpty();
+        assertThat(wheel.advance(3000)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hold deadlines more than one revolution away")
+    void shouldHoldDeadlinesBeyondOneRevolution() {
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(1000, 4, 0);
+        wheel.schedule("later", 10_000);
+
+        for (long now = 1000; now < 10_000; now += 1000) {
+            assertThat(wheel.advance(now)).isEmpty();
+        }
+        assertThat(wheel.advance(10_000)).containsExactly("later");
+    }
+
+    @Test
+    @DisplayName("Should release everything due after falling behind a full revolution")
+    void shouldCatchUpAfterStall() {
+        ExpiryWheel<String> wheel = new ExpiryWheel<>(1000, 4, 0);
+        wheel.schedule("past", -5000);
+        wheel.schedule("soon", 3000);
+        wheel.schedule("due", 20_000);
+        wheel.schedule("future", 30_000);
+
+        assertThat(wheel.advance(25_000)).containsExactlyInAnyOrder("past", "soon", "due");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+}
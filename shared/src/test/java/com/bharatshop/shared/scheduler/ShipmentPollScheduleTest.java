@@ -0,0 +1,116 @@
+package com.bharatshop.shared.scheduler;
+
+import com.bharatshop.shared.entity.Shipment;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ShipmentPollSchedule
+ * Tests next-poll times by tracking state, delivery date and webhook freshness,
+ * and the number of polls over a simulated journey
+ */
+class ShipmentPollScheduleTest {
+
+    private ShipmentPollSchedule schedule;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        schedule = new ShipmentPollSchedule(Duration.ofMinutes(30), Duration.ofHours(2), Duration.ofHours(12),
+                Duration.ofHours(2), Duration.ofHours(12), 5);
+        now = LocalDateTime.of(2024, 1, 10, 12, 0);
+    }
+
+    @Test
+    @DisplayName("Should poll parcels out for delivery often and stop once delivered")
+    void shouldScheduleByStatus() {
+        Shipment shipment = shipment(Shipment.ShipmentStatus.OUT_FOR_DELIVERY);
+
+        assertThat(schedule.nextPollAt(shipment, now.minusHours(2), now))
+                .isBetween(now.plusMinutes(30), now.plusMinutes(33));
+
+        shipment.setStatus(Shipment.ShipmentStatus.DELIVERED);
+        assertThat(schedule.nextPollAt(shipment, now, now)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should back off for parcels without recent progress until delivery is near")
+    void shouldBackOffInTransit() {
+        Shipment shipment = shipment(Shipment.ShipmentStatus.IN_TRANSIT);
+
+        assertThat(schedule.nextPollAt(shipment, now.minusHours(2), now))
+                .isBetween(now.plusHours(2), now.plusMinutes(132));
+        assertThat(schedule.nextPollAt(shipment, now.minusDays(3), now))
+                .isBetween(now.plusHours(12), now.plusHours(13));
+
+        shipment.setEstimatedDeliveryDate(now.plusHours(3));
+        assertThat(schedule.nextPollAt(shipment, now.minusDays(3), now))
+                .isBetween(now.plusHours(2), now.plusMinutes(132));
+    }
+
+    @Test
+    @DisplayName("Should only poll as a safety net while webhooks are arriving")
+    void shouldDeferToWebhooks() {
+        Shipment shipment = shipment(Shipment.ShipmentStatus.OUT_FOR_DELIVERY);
+        shipment.setLastWebhookAt(now.minusHours(1));
+
+        assertThat(schedule.nextPollAt(shipment, now.minusHours(1), now)).isEqualTo(now.plusHours(11));
+    }
+
+    @Test
+    @DisplayName("Should poll an order of magnitude less than a fixed 15 minute cadence without missing milestones")
+    void shouldReduceCarrierCalls() {
+        LocalDateTime pickedUp = now;
+        Shipment shipment = shipment(Shipment.ShipmentStatus.PICKED_UP);
+        shipment.setShippedDate(pickedUp);
+        shipment.setEstimatedDeliveryDate(pickedUp.plusDays(4));
+
+        List<Milestone> journey = List.of(
+                new Milestone(pickedUp, Shipment.ShipmentStatus.PICKED_UP),
+                new Milestone(pickedUp.plusHours(6), Shipment.ShipmentStatus.IN_TRANSIT),
+                new Milestone(pickedUp.plusHours(30), Shipment.ShipmentStatus.IN_TRANSIT),
+                new Milestone(pickedUp.plusHours(60), Shipment.ShipmentStatus.IN_TRANSIT),
+                new Milestone(pickedUp.plusHours(84), Shipment.ShipmentStatus.OUT_FOR_DELIVERY),
+                new Milestone(pickedUp.plusHours(90), Shipment.ShipmentStatus.DELIVERED));
+
+        List<Duration> detectionDelays = new ArrayList<>();
+        LocalDateTime pollAt = pickedUp;
+        LocalDateTime lastMilestoneAt = null;
+        int polls = 0;
+        int seen = 0;
+        while (pollAt != null) {
+            polls++;
+            while (seen < journey.size() && !journey.get(seen).at().isAfter(pollAt)) {
+                Milestone milestone = journey.get(seen++);
+                detectionDelays.add(Duration.between(milestone.at(), pollAt));
+                shipment.setStatus(milestone.status());
+                lastMilestoneAt = milestone.at();
+            }
+            pollAt = schedule.nextPollAt(shipment, lastMilestoneAt, pollAt);
+        }
+
+        int fixedCadencePolls = (int) Duration.ofHours(90).toMinutes() / 15;
+        assertThat(polls).isLessThanOrEqualTo(fixedCadencePolls / 10);
+        assertThat(detectionDelays).hasSize(journey.size());
+        assertThat(detectionDelays).allSatisfy(delay -> assertThat(delay).isLessThanOrEqualTo(Duration.ofHours(12)));
+        assertThat(detectionDelays.get(detectionDelays.size() - 1)).isLessThanOrEqualTo(Duration.ofMinutes(33));
+    }
+
+    private Shipment shipment(Shipment.ShipmentStatus status) {
+        Shipment shipment = new Shipment();
+        shipment.setId(7L);
+        shipment.setStatus(status);
+        return shipment;
+    }
+
+    private record Milestone(LocalDateTime at, Shipment.ShipmentStatus status) {
+    }
+}
@@ -0,0 +1,155 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.dto.NotificationRequest;
+import com.bharatshop.shared.dto.NotificationResponse;
+import com.bharatshop.shared.entity.CustomerNotificationPreference;
+import com.bharatshop.shared.entity.NotificationTemplate;
+import com.bharatshop.shared.provider.EmailProvider;
+import com.bharatshop.shared.provider.NotificationProvider;
+import com.bharatshop.shared.repository.CustomerNotificationPreferenceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for BulkNotificationService
+ * Tests chunked preference loading, provider batching, partial-failure reporting and per-recipient counts
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkNotificationServiceTest {
+
+    @Mock
+    private CustomerNotificationPreferenceRepository preferenceRepository;
+
+    @Mock
+    private NotificationTemplateService templateService;
+
+    @Mock
+    private ObjectProvider<NotificationProvider> notificationProviders;
+
+    @Mock
+    private EmailProvider emailProvider;
+
+    private BulkNotificationService bulkNotificationService;
+
+    private final String tenantId = "tenant-1";
+    private final String eventType = "AbandonedCart";
+
+    @BeforeEach
+    void setUp() {
+        bulkNotificationService = new BulkNotificationService(
+                preferenceRepository, templateService, new TemplateRenderingService(), notificationProviders);
+        ReflectionTestUtils.setField(bulkNotificationService, "chunkSize", 2);
+        ReflectionTestUtils.setField(bulkNotificationService, "providerBatchSize", 1);
+        ReflectionTestUtils.setField(bulkNotificationService, "providerConcurrency", 1);
+
+        NotificationTemplate template = NotificationTemplate.builder()
+                .id(5L)
+                .subject("Still thinking, {{name}}?")
+                .body("Your cart is waiting")
+                .version(1)
+                .build();
+        when(templateService.findTemplate(eq(tenantId), eq(eventType), anyString(), eq("en_US")))
+                .thenReturn(Optional.of(template));
+
+        List<CustomerNotificationPreference> preferences = List.of(
+                preference("c1", "EMAIL", "asha@example.com"),
+                preference("c2", "EMAIL", "full@example.com"),
+                preference("c3", "SMS", "+919800000000"));
+        when(preferenceRepository.findEnabledPreferencesForCustomers(eq(tenantId), eq(eventType), anyList()))
+                .thenAnswer(invocation -> {
+                    List<String> customerIds = invocation.getArgument(2);
+                    return preferences.stream().filter(p -> customerIds.contains(p.getCustomerId())).toList();
+                });
+
+        when(notificationProviders.orderedStream()).thenReturn(Stream.of(emailProvider));
+        when(emailProvider.isAvailable()).thenReturn(true);
+        when(emailProvider.getSupportedChannel()).thenReturn("EMAIL");
+        when(emailProvider.getProviderName()).thenReturn("TEST_EMAIL");
+        when(emailProvider.canHandle(any())).thenReturn(true);
+        when(emailProvider.sendBulkEmails(anyList())).thenAnswer(invocation -> {
+            List<NotificationRequest> requests = invocation.getArgument(0);
+            // Answer out of request order; responses are matched by notification ID
+            List<NotificationResponse> responses = new ArrayList<>(requests.stream().map(this::deliver).toList());
+            Collections.reverse(responses);
+            return CompletableFuture.completedFuture(responses);
+        });
+    }
+
+    @Test
+    @DisplayName("Should send in chunks and report failed messages without stopping the batch")
+    void shouldReportPartialFailures() {
+        BulkNotificationService.BulkNotificationResult result = bulkNotificationService.sendBulk(tenantId, eventType, List.of(
+                new BulkNotificationService.BulkRecipient("c1", Map.of("name", "Asha")),
+                new BulkNotificationService.BulkRecipient("c2", Map.of("name", "Ravi")),
+                new BulkNotificationService.BulkRecipient("c3", Map.of("name", "Meera"))));
+
+        assertThat(result.recipients()).isEqualTo(3);
+        assertThat(result.sent()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.failures()).containsExactlyInAnyOrder(
+                new BulkNotificationService.Failure("c2", "EMAIL", "Mailbox full"),
+                new BulkNotificationService.Failure("c3", "SMS", "Provider not available for channel: SMS"));
+        verify(preferenceRepository, times(2)).findEnabledPreferencesForCustomers(eq(tenantId), eq(eventType), anyList());
+        verify(emailProvider, times(2)).sendBulkEmails(argThat(requests -> requests.size() == 1));
+    }
+
+    @Test
+    @DisplayName("Should count every recipient once and match responses by notification ID")
+    void shouldAccountForEveryRecipient() {
+        ReflectionTestUtils.setField(bulkNotificationService, "chunkSize", 10);
+        ReflectionTestUtils.setField(bulkNotificationService, "providerBatchSize", 10);
+
+        BulkNotificationService.BulkNotificationResult result = bulkNotificationService.sendBulk(tenantId, eventType, List.of(
+                new BulkNotificationService.BulkRecipient("c1", Map.of("name", "Asha")),
+                new BulkNotificationService.BulkRecipient("c2", Map.of("name", "Ravi")),
+                new BulkNotificationService.BulkRecipient("c3", Map.of("name", "Meera")),
+                new BulkNotificationService.BulkRecipient("c4", Map.of("name", "Kiran"))));
+
+        assertThat(result.recipients()).isEqualTo(4);
+        assertThat(result.sent() + result.failed() + result.skipped()).isEqualTo(result.recipients());
+        assertThat(result.sent()).isEqualTo(1);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.skipped()).isEqualTo(1);
+        assertThat(result.failures()).contains(new BulkNotificationService.Failure("c2", "EMAIL", "Mailbox full"));
+        verify(emailProvider).sendBulkEmails(argThat(requests -> requests.size() == 2));
+    }
+
+    private NotificationResponse deliver(NotificationRequest request) {
+        boolean full = request.getRecipient().startsWith("full");
+        return NotificationResponse.builder()
+                .notificationId(request.getNotificationId())
+                .status(full ? NotificationResponse.NotificationStatus.FAILED : NotificationResponse.NotificationStatus.SENT)
+                .errorMessage(full ? "Mailbox full" : null)
+                .build();
+    }
+
+    private CustomerNotificationPreference preference(String customerId, String channel, String contactInfo) {
+        CustomerNotificationPreference preference = new CustomerNotificationPreference();
+        preference.setTenantId(tenantId);
+        preference.setCustomerId(customerId);
+        preference.setEventType(eventType);
+        preference.setChannel(channel);
+        preference.setContactInfo(contactInfo);
+        preference.setIsEnabled(true);
+        preference.setLocale("en_US");
+        return preference;
+    }
+}
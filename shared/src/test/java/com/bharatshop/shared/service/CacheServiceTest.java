@@ -1,5 +1,8 @@
 package com.bharatshop.shared.service;
 
+import com.bharatshop.shared.cache.CacheGenerations;
+import com.bharatshop.shared.cache.CacheGroups;
+import com.bharatshop.shared.cache.TenantScopedCacheManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,10 +12,15 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 
-import java.util.Collection;
-import java.util.Set;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -20,7 +28,7 @@ import static org.mockito.Mockito.*;
 
 /**
  * Unit tests for CacheService
- * Tests caching operations, tenant-aware keys, and cache invalidation
+ * Tests caching operations, tenant-aware keys, generation-based, per-product and pattern-based cache invalidation
  */
 @ExtendWith(MockitoExtension.class)
 class CacheServiceTest {
@@ -31,6 +39,9 @@ class CacheServiceTest {
     @Mock
     private RedisTemplate<String, Object> redisTemplate;
 
+    @Mock
+    private CacheGenerations cacheGenerations;
+
     @Mock
     private Cache cache;
 
@@ -44,7 +55,7 @@ class CacheServiceTest {
     @BeforeEach
     void setUp() {
         // Mock TenantContext if needed
-        when(cacheManager.getCache(anyString())).thenReturn(cache);
+        lenient().when(cacheManager.getCache(anyString())).thenReturn(cache);
     }
 
     @Test
@@ -114,8 +125,8 @@ class CacheServiceTest {
         cacheService.invalidateProductCaches();
         
         // Then
-        verify(cacheManager, times(2)).getCache(anyString());
-        verify(cache, times(2)).clear();
+        verify(cacheGenerations).bump(null, CacheGroups.PRODUCTS);
+        verify(cache, never()).clear();
     }
 
     @Test
@@ -125,8 +136,8 @@ class CacheServiceTest {
         cacheService.invalidateCategoryCaches();
         
         // Then
-        verify(cacheManager, times(2)).getCache(anyString());
-        verify(cache, times(2)).clear();
+        verify(cacheGenerations).bump(null, CacheGroups.CATEGORIES);
+        verify(cache, never()).clear();
     }
 
     @Test
@@ -136,8 +147,8 @@ class CacheServiceTest {
         cacheService.invalidatePageCaches();
         
         // Then
-        verify(cacheManager, times(2)).getCache(anyString());
-        verify(cache, times(2)).clear();
+        verify(cacheGenerations).bump(null, CacheGroups.PAGES);
+        verify(cache, never()).clear();
     }
 
     @Test
@@ -147,8 +158,8 @@ class CacheServiceTest {
         cacheService.invalidateImageCaches();
         
         // Then
-        verify(cacheManager, times(2)).getCache(anyString());
-        verify(cache, times(2)).clear();
+        verify(cacheGenerations).bump(null, CacheGroups.IMAGES);
+        verify(cache, never()).clear();
     }
 
     @Test
@@ -158,55 +169,42 @@ class CacheServiceTest {
         cacheService.invalidateAllCaches();
         
         // Then
-        // Should call all individual invalidation methods
-        verify(cacheManager, atLeast(8)).getCache(anyString());
-        verify(cache, atLeast(8)).clear();
+        // A single tenant-wide generation bump covers every group
+        verify(cacheGenerations).bump(null, CacheGroups.ALL);
+        verify(cache, never()).clear();
     }
 
     @Test
-    @DisplayName("Should invalidate caches by pattern")
+    @DisplayName("Should invalidate caches by pattern using SCAN")
     void shouldInvalidateCachesByPattern() {
         // Given
         String pattern = "product:*";
-        Set<String> keys = Set.of("tenant-123:product:1", "tenant-123:product:2");
-        when(redisTemplate.keys(anyString())).thenReturn(keys);
-        
-        // When
-        cacheService.invalidateByPattern(pattern);
-        
-        // Then
-        verify(redisTemplate).keys(anyString());
-        verify(redisTemplate).delete((Collection<String>) keys);
-    }
-
-    @Test
-    @DisplayName("Should handle empty keys when invalidating by pattern")
-    void shouldHandleEmptyKeysWhenInvalidatingByPattern() {
-        // Given
-        String pattern = "nonexistent:*";
-        when(redisTemplate.keys(anyString())).thenReturn(Set.of());
+        Cursor<String> cursor = cursorOf("global:product:1", "global:product:2");
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
         
         // When
         cacheService.invalidateByPattern(pattern);
         
         // Then
-        verify(redisTemplate).keys(anyString());
-        verify(redisTemplate, never()).delete((Collection<String>) any());
+        verify(redisTemplate, never()).keys(anyString());
+        verify(redisTemplate).unlink(List.of("global:product:1", "global:product:2"));
+        verify(cursor).close();
     }
 
     @Test
-    @DisplayName("Should handle null keys when invalidating by pattern")
-    void shouldHandleNullKeysWhenInvalidatingByPattern() {
+    @DisplayName("Should handle empty scan when invalidating by pattern")
+    void shouldHandleEmptyScanWhenInvalidatingByPattern() {
         // Given
         String pattern = "nonexistent:*";
-        when(redisTemplate.keys(anyString())).thenReturn(null);
+        Cursor<String> cursor = cursorOf();
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
         
         // When
         cacheService.invalidateByPattern(pattern);
         
         // Then
-        verify(redisTemplate).keys(anyString());
-        verify(redisTemplate, never()).delete((Collection<String>) any());
+        verify(redisTemplate, never()).unlink(anyCollection());
+        verify(cursor).close();
     }
 
     @Test
@@ -214,10 +212,56 @@ class CacheServiceTest {
     void shouldHandleExceptionsWhenInvalidatingByPattern() {
         // Given
         String pattern = "error:*";
-        when(redisTemplate.keys(anyString())).thenThrow(new RuntimeException("Redis error"));
+        when(redisTemplate.scan(any(ScanOptions.class))).thenThrow(new RuntimeException("Redis error"));
         
         // When & Then
         assertThatCode(() -> cacheService.invalidateByPattern(pattern))
                 .doesNotThrowAnyException();
     }
+
+    @Test
+    @DisplayName("Should evict only the updated product's entries and the product listings")
+    void shouldEvictOnlyUpdatedProduct() {
+        // Given
+        Map<String, Long> counters = new HashMap<>();
+        when(cacheGenerations.current(any(), anyString()))
+                .thenAnswer(invocation -> counters.getOrDefault(invocation.getArgument(1), 0L));
+        when(cacheGenerations.bump(any(), anyString()))
+                .thenAnswer(invocation -> counters.merge(invocation.getArgument(1), 1L, Long::sum));
+        CacheManager scopedCacheManager = new TenantScopedCacheManager(new ConcurrentMapCacheManager(), cacheGenerations);
+        CacheService service = new CacheService(scopedCacheManager, redisTemplate, cacheGenerations);
+
+        Cache products = scopedCacheManager.getCache(CacheService.PRODUCT_CACHE);
+        Cache storefrontProducts = scopedCacheManager.getCache(CacheService.STOREFRONT_PRODUCT_CACHE);
+        Cache listings = scopedCacheManager.getCache(CacheService.PRODUCTS_CACHE);
+        products.put(1L, "product-1");
+        products.put("slug_shirt", "product-1");
+        storefrontProducts.put("slug_shirt", "product-1");
+        products.put(2L, "product-2");
+        products.put("slug_jeans", "product-2");
+        storefrontProducts.put("slug_jeans", "product-2");
+        listings.put("null_null_null_null_0_20", "page-1");
+
+        // When
+        service.invalidateProduct(1L, "shirt");
+
+        // Then
+        assertThat(products.get(1L)).isNull();
+        assertThat(products.get("slug_shirt")).isNull();
+        assertThat(storefrontProducts.get("slug_shirt")).isNull();
+        assertThat(listings.get("null_null_null_null_0_20")).isNull();
+        assertThat(products.get(2L).get()).isEqualTo("product-2");
+        assertThat(products.get("slug_jeans").get()).isEqualTo("product-2");
+        assertThat(storefrontProducts.get("slug_jeans").get()).isEqualTo("product-2");
+        verify(cacheGenerations, never()).bump(any(), eq(CacheGroups.PRODUCTS));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Cursor<T> cursorOf(T... values) {
+        Iterator<T> iterator = List.of(values).iterator();
+        Cursor<T> cursor = mock(Cursor.class);
+        lenient().when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        lenient().when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return cursor;
+    }
 }
\ No newline at end of file
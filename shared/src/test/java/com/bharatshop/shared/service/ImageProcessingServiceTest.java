@@ -1,13 +1,15 @@
 package com.bharatshop.shared.service;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -16,6 +18,7 @@ import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -34,10 +37,12 @@ class ImageProcessingServiceTest {
     @Mock
     private CacheService cacheService;
 
+    @Mock
+    private SignedUrlService signedUrlService;
+
     @Mock
     private MultipartFile multipartFile;
 
-    @InjectMocks
     private ImageProcessingService imageProcessingService;
 
     @TempDir
@@ -48,12 +53,21 @@ class ImageProcessingServiceTest {
     private static final long MAX_FILE_SIZE = 10485760L; // 10MB
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
+        imageProcessingService = new ImageProcessingService(cacheService, signedUrlService,
+                new ImageVariantCache(tempDir.resolve("variants").toString(), 10_000_000L), 2, 2, 10);
+        ReflectionTestUtils.setField(imageProcessingService, "maxPixels", 100_000_000L);
+        ReflectionTestUtils.setField(imageProcessingService, "maxDecodedPixels", 16_000_000L);
         ReflectionTestUtils.setField(imageProcessingService, "uploadDir", tempDir.toString());
         ReflectionTestUtils.setField(imageProcessingService, "baseUrl", BASE_URL);
         ReflectionTestUtils.setField(imageProcessingService, "maxFileSize", MAX_FILE_SIZE);
     }
 
+    @AfterEach
+    void tearDown() {
+        imageProcessingService.shutdown();
+    }
+
     // Commented out - isValidImageFile method not implemented in ImageProcessingService
     /*
     @Test
@@ -293,6 +307,60 @@ class ImageProcessingServiceTest {
                 .hasCauseInstanceOf(IOException.class);
     }
 
+    @Test
+    @DisplayName("Should render variants only when first requested")
+    void shouldRenderVariantsOnDemand() throws Exception {
+        // Given
+        BufferedImage photo = new BufferedImage(3000, 2000, BufferedImage.TYPE_INT_RGB);
+        java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
+        ImageIO.write(photo, "jpg", baos);
+        MockMultipartFile upload = new MockMultipartFile("file", "photo.jpg", "image/jpeg", baos.toByteArray());
+        when(signedUrlService.generateImageSignedUrl(anyString(), anyInt()))
+                .thenAnswer(invocation -> "signed:" + invocation.getArgument(0) + ":" + invocation.getArgument(1));
+        
+        // When
+        ImageProcessingService.ImageProcessingResult result =
+                imageProcessingService.processImage(upload, "images").get();
+        
+        // Then
+        assertThat(result.getOriginalWidth()).isEqualTo(3000);
+        assertThat(result.getOriginalHeight()).isEqualTo(2000);
+        assertThat(result.getThumbnails())
+                .containsEntry(400, "signed:images/" + result.getFilename() + ":400")
+                .containsOnlyKeys(400, 800, 1200);
+        try (var files = Files.list(tempDir.resolve("variants"))) {
+            assertThat(files).isEmpty();
+        }
+        
+        for (int size : new int[]{400, 800, 1200}) {
+            Resource variantFile = imageProcessingService.getVariant("images", result.getFilename(), size, null).orElseThrow();
+            BufferedImage variant;
+            try (var content = variantFile.getInputStream()) {
+                variant = ImageIO.read(content);
+            }
+            assertThat(variantFile.getFilename()).isEqualTo(size + ".jpeg");
+            assertThat(variant.getWidth()).isEqualTo(size);
+            assertThat(variant.getHeight()).isCloseTo(size * 2 / 3, within(1));
+        }
+        try (var files = Files.list(tempDir.resolve("variants"))) {
+            assertThat(files).hasSize(3);
+        }
+        assertThat(imageProcessingService.getVariant("images", "../secret.jpg", 400, null)).isEmpty();
+        assertThatThrownBy(() -> imageProcessingService.getVariant("images", result.getFilename(), 401, null))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should subsample only as far as the largest variant and memory budget allow")
+    void shouldChooseSubsampling() {
+        // 20 MP photo: halving still leaves twice the 1200px variant
+        assertThat(ImageProcessingService.subsamplingFor(5472, 3648, 1200, 16_000_000L)).isEqualTo(2);
+        // Already small enough
+        assertThat(ImageProcessingService.subsamplingFor(1920, 1080, 1200, 16_000_000L)).isEqualTo(1);
+        // Memory budget wins over resolution
+        assertThat(ImageProcessingService.subsamplingFor(5472, 3648, 1200, 2_000_000L)).isEqualTo(4);
+    }
+
     private ImageProcessingService.ImageProcessingResult createMockResult() {
         return ImageProcessingService.ImageProcessingResult.builder()
                 .originalUrl(BASE_URL + "/uploads/images/test-image.jpg")
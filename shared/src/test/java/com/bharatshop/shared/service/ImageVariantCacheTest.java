@@ -0,0 +1,132 @@
+package com.bharatshop.shared.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ImageVariantCache
+ * Tests render coalescing, LRU eviction within the size budget, file naming, reading evicted
+ * variants and reloading the index from disk
+ */
+class ImageVariantCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should render a missing variant once for concurrent requests")
+    void shouldCoalesceConcurrentRenders() throws Exception {
+        ImageVariantCache cache = new ImageVariantCache(tempDir.toString(), 1_000_000L);
+        AtomicInteger renders = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Path>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("global/images/a.jpg", "400.jpeg", target -> {
+                        renders.incrementAndGet();
+                        sleep(200);
+                        Files.write(target, new byte[100]);
+                    });
+                }));
+            }
+            start.countDown();
+
+            for (Future<Path> request : requests) {
+                assertThat(request.get(5, TimeUnit.SECONDS))
+                        .hasFileName(ImageVariantCache.fileName("global/images/a.jpg", "400.jpeg")).exists();
+            }
+            assertThat(renders).hasValue(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should evict least recently used variants once over budget")
+    void shouldEvictLeastRecentlyUsed() throws Exception {
+        ImageVariantCache cache = new ImageVariantCache(tempDir.toString(), 250L);
+        Path first = cache.get("global/images/a.jpg", "400.jpeg", target -> Files.write(target, new byte[100]));
+        Path second = cache.get("global/images/b.jpg", "400.jpeg", target -> Files.write(target, new byte[100]));
+        // Touch the first so the second becomes least recently used
+        cache.get("global/images/a.jpg", "400.jpeg", target -> fail("Should be cached"));
+
+        Path third = cache.get("global/images/c.jpg", "400.jpeg", target -> Files.write(target, new byte[100]));
+
+        assertThat(first).exists();
+        assertThat(second).doesNotExist();
+        assertThat(third).exists();
+        assertThat(cache.getTotalBytes()).isEqualTo(200L);
+
+        cache.evict("global/images/a.jpg");
+        assertThat(first).doesNotExist();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should keep sources that differ only in punctuation apart")
+    void shouldNotShareFilesBetweenSources() throws Exception {
+        ImageVariantCache cache = new ImageVariantCache(tempDir.toString(), 1_000L);
+
+        Path slashed = cache.get("tenant-1/images/a.jpg", "400.jpeg", target -> Files.write(target, new byte[10]));
+        Path underscored = cache.get("tenant-1_images/a.jpg", "400.jpeg", target -> Files.write(target, new byte[20]));
+
+        assertThat(slashed).isNotEqualTo(underscored);
+        assertThat(Files.size(slashed)).isEqualTo(10L);
+        assertThat(Files.size(underscored)).isEqualTo(20L);
+        assertThat(slashed.getFileName().toString()).endsWith("@400.jpeg");
+    }
+
+    @Test
+    @DisplayName("Should keep an opened variant readable after it is evicted")
+    void shouldReadOpenedVariantAfterEviction() throws Exception {
+        ImageVariantCache cache = new ImageVariantCache(tempDir.toString(), 1_000L);
+
+        try (FileChannel channel = cache.open("global/images/a.jpg", "400.jpeg",
+                target -> Files.write(target, new byte[100]))) {
+            cache.evict("global/images/a.jpg");
+
+            assertThat(cache.size()).isZero();
+            assertThat(Channels.newInputStream(channel).readAllBytes()).hasSize(100);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep serving variants cached before a restart")
+    void shouldReloadIndexFromDisk() throws Exception {
+        ImageVariantCache cache = new ImageVariantCache(tempDir.toString(), 1_000L);
+        cache.get("global/images/a.jpg", "800.png", target -> Files.write(target, new byte[300]));
+
+        ImageVariantCache restarted = new ImageVariantCache(tempDir.toString(), 1_000L);
+
+        assertThat(restarted.contains("global/images/a.jpg", "800.png")).isTrue();
+        assertThat(restarted.getTotalBytes()).isEqualTo(300L);
+        assertThat(restarted.get("global/images/a.jpg", "800.png", target -> fail("Should be cached"))).exists();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -85,11 +85,12 @@ class JwtKeyRotationServiceTest {
     }
     
     @Test
-    @DisplayName("Should get key by kid")
+    @DisplayName("Should get key by kid from the key ring")
     void shouldGetKeyByKid() {
         // Given
-        String kid = "key-test-123";
-        when(jwksKeyRepository.findByKid(kid)).thenReturn(Optional.of(activeKey));
+        String kid = "key-active-123";
+        when(jwksKeyRepository.findValidVerificationKeys(any(LocalDateTime.class)))
+            .thenReturn(List.of(activeKey, rotatedKey));
         
         // When
         Optional<JwksKey> result = jwtKeyRotationService.getKeyByKid(kid);
@@ -97,7 +98,31 @@ class JwtKeyRotationServiceTest {
         // Then
         assertThat(result).isPresent();
         assertThat(result.get()).isEqualTo(activeKey);
-        verify(jwksKeyRepository).findByKid(kid);
+        verify(jwksKeyRepository, never()).findByKid(anyString());
+    }
+    
+    @Test
+    @DisplayName("Should serve keys from memory until the key ring changes")
+    void shouldServeKeysFromMemoryUntilKeyRingChanges() {
+        // Given
+        ReflectionTestUtils.setField(jwtKeyRotationService, "keyRingRefreshMs", 60_000L);
+        when(jwksKeyRepository.findValidVerificationKeys(any(LocalDateTime.class)))
+            .thenReturn(List.of(activeKey))
+            .thenReturn(List.of(activeKey, rotatedKey));
+        when(jwksKeyRepository.existsByKid(anyString())).thenReturn(false);
+        when(jwksKeyRepository.save(any(JwksKey.class))).thenReturn(rotatedKey);
+        
+        // When
+        for (int i = 0; i < 100; i++) {
+            assertThat(jwtKeyRotationService.getKeyByKid("key-active-123")).contains(activeKey);
+        }
+        // Unknown key IDs reload the ring at most once a second
+        assertThat(jwtKeyRotationService.getKeyByKid("key-rotated-456")).isEmpty();
+        jwtKeyRotationService.createNewSigningKey();
+        
+        // Then
+        assertThat(jwtKeyRotationService.getKeyByKid("key-rotated-456")).contains(rotatedKey);
+        verify(jwksKeyRepository, times(2)).findValidVerificationKeys(any(LocalDateTime.class));
     }
     
     @Test
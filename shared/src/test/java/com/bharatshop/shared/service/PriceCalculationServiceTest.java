@@ -0,0 +1,130 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.cache.CacheGenerations;
+import com.bharatshop.shared.cache.CacheGroups;
+import com.bharatshop.shared.entity.Product;
+import com.bharatshop.shared.entity.TaxRate;
+import com.bharatshop.shared.repository.TaxRateRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for PriceCalculationService
+ * Tests GST breakdowns, batch pricing and tax table refresh
+ */
+@ExtendWith(MockitoExtension.class)
+class PriceCalculationServiceTest {
+
+    @Mock
+    private TaxRateRepository taxRateRepository;
+
+    @Mock
+    private CacheGenerations cacheGenerations;
+
+    @InjectMocks
+    private PriceCalculationService priceCalculationService;
+
+    private final Long tenantId = 1L;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = Product.builder()
+                .hsnCode("6109")
+                .taxPreference(Product.TaxPreference.TAXABLE)
+                .isTaxInclusive(false)
+                .build();
+        when(cacheGenerations.current(tenantId, CacheGroups.TAX_RATES)).thenReturn(0L);
+        when(taxRateRepository.findByTenantIdAndStatusAndDeletedAtIsNull(tenantId, TaxRate.TaxRateStatus.ACTIVE))
+                .thenReturn(List.of(
+                        rate("MH", TaxRate.TaxType.INTRA_STATE, "6.00", "6.00", null, "1.00"),
+                        rate("KA", TaxRate.TaxType.INTER_STATE, null, null, "12.00", null)));
+    }
+
+    @Test
+    @DisplayName("Should split intra-state tax into CGST, SGST and cess")
+    void shouldCalculateIntraStateBreakdown() {
+        PriceCalculationService.PriceBreakdown breakdown = priceCalculationService.calculatePrice(
+                product, new BigDecimal("999.99"), "MH", "MH", tenantId);
+
+        assertThat(breakdown.getCgstAmount()).isEqualByComparingTo("60.00");
+        assertThat(breakdown.getSgstAmount()).isEqualByComparingTo("60.00");
+        assertThat(breakdown.getCessAmount()).isEqualByComparingTo("10.00");
+        assertThat(breakdown.getIgstAmount()).isEqualByComparingTo("0");
+        assertThat(breakdown.getTotalPrice()).isEqualByComparingTo("1129.99");
+    }
+
+    @Test
+    @DisplayName("Should back tax out of tax-inclusive inter-state prices")
+    void shouldCalculateInclusiveInterStateBreakdown() {
+        product.setIsTaxInclusive(true);
+
+        PriceCalculationService.PriceBreakdown breakdown = priceCalculationService.calculatePrice(
+                product, new BigDecimal("1120.00"), "KA", "MH", tenantId);
+
+        assertThat(breakdown.getNetPrice()).isEqualByComparingTo("1000.00");
+        assertThat(breakdown.getIgstAmount()).isEqualByComparingTo("120.00");
+        assertThat(breakdown.getTaxType()).isEqualTo(TaxRate.TaxType.INTER_STATE);
+    }
+
+    @Test
+    @DisplayName("Should price a whole batch from one tax table load")
+    void shouldPriceBatchWithSingleLoad() {
+        List<PriceCalculationService.PriceLine> lines = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            lines.add(new PriceCalculationService.PriceLine(product, BigDecimal.valueOf(i * 100L)));
+        }
+
+        List<PriceCalculationService.PriceBreakdown> breakdowns =
+                priceCalculationService.calculatePrices(lines, "MH", "MH", tenantId);
+        priceCalculationService.calculatePrice(product, BigDecimal.TEN, "MH", "MH", tenantId);
+
+        assertThat(breakdowns).hasSize(50);
+        assertThat(breakdowns.get(49).getTotalTaxAmount()).isEqualByComparingTo("650.00");
+        verify(taxRateRepository, times(1)).findByTenantIdAndStatusAndDeletedAtIsNull(tenantId, TaxRate.TaxRateStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("Should rebuild the tax table when rates are refreshed")
+    void shouldRebuildTableOnRefresh() {
+        priceCalculationService.calculatePrice(product, BigDecimal.TEN, "MH", "MH", tenantId);
+        when(cacheGenerations.bump(tenantId, CacheGroups.TAX_RATES)).thenReturn(1L);
+        when(cacheGenerations.current(tenantId, CacheGroups.TAX_RATES)).thenReturn(1L);
+        when(taxRateRepository.findByTenantIdAndStatusAndDeletedAtIsNull(tenantId, TaxRate.TaxRateStatus.ACTIVE))
+                .thenReturn(List.of(rate("MH", TaxRate.TaxType.INTRA_STATE, "9.00", "9.00", null, null)));
+
+        priceCalculationService.refreshTaxRates(tenantId);
+        PriceCalculationService.PriceBreakdown breakdown = priceCalculationService.calculatePrice(
+                product, new BigDecimal("100.00"), "MH", "MH", tenantId);
+
+        assertThat(breakdown.getTotalTaxAmount()).isEqualByComparingTo("18.00");
+        verify(taxRateRepository, times(2)).findByTenantIdAndStatusAndDeletedAtIsNull(tenantId, TaxRate.TaxRateStatus.ACTIVE);
+    }
+
+    private TaxRate rate(String stateCode, TaxRate.TaxType taxType,
+                         String cgst, String sgst, String igst, String cess) {
+        return TaxRate.builder()
+                .tenantId(tenantId)
+                .hsnCode("6109")
+                .stateCode(stateCode)
+                .taxType(taxType)
+                .cgstRate(cgst != null ? new BigDecimal(cgst) : null)
+                .sgstRate(sgst != null ? new BigDecimal(sgst) : null)
+                .igstRate(igst != null ? new BigDecimal(igst) : null)
+                .cessRate(cess != null ? new BigDecimal(cess) : null)
+                .status(TaxRate.TaxRateStatus.ACTIVE)
+                .build();
+    }
+}
@@ -4,12 +4,16 @@ import com.bharatshop.shared.entity.ProductVariant;
 import com.bharatshop.shared.entity.Reservation;
 import com.bharatshop.shared.repository.ProductVariantRepository;
 import com.bharatshop.shared.repository.ReservationRepository;
+import com.bharatshop.shared.scheduler.ReservationExpiryTracker;
+import com.bharatshop.shared.service.search.ProductSearchIndexService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,6 +44,12 @@ class ReservationServiceConcurrencyTest {
     @Mock
     private ProductVariantRepository productVariantRepository;
 
+    @Mock
+    private ProductSearchIndexService productSearchIndexService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     private ReservationService reservationService;
 
     private Long tenantId;
@@ -48,7 +58,10 @@ class ReservationServiceConcurrencyTest {
 
     @BeforeEach
     void setUp() {
-        reservationService = new ReservationService(reservationRepository, productVariantRepository);
+        StockLedger stockLedger = new StockLedger(productVariantRepository, productSearchIndexService);
+        reservationService = new ReservationService(reservationRepository, productVariantRepository, stockLedger,
+                new ReservationExpiryTracker(new SimpleMeterRegistry()),
+                new ReservationWriter(reservationRepository, productVariantRepository, stockLedger, jdbcTemplate));
         tenantId = 1L;
         productVariantId = 1L;
         
@@ -63,20 +76,12 @@ class ReservationServiceConcurrencyTest {
     @Test
     void testConcurrentReservationsPreventsOversell() throws InterruptedException {
         // Setup: Product has 10 items in stock
-        when(productVariantRepository.findByIdAndDeletedAtIsNull(productVariantId))
-                .thenReturn(Optional.of(productVariant));
-        
-        // Mock repository to simulate concurrent access
+        // Mock repository to simulate the conditional reserved stock update
         AtomicInteger totalReserved = new AtomicInteger(0);
-        when(reservationRepository.getTotalReservedQuantity(eq(tenantId), eq(productVariantId), any()))
-                .thenAnswer(invocation -> totalReserved.get());
+        simulateReservedStock(productVariant, totalReserved);
         
         when(reservationRepository.save(any(Reservation.class)))
-                .thenAnswer(invocation -> {
-                    Reservation reservation = invocation.getArgument(0);
-                    totalReserved.addAndGet(reservation.getQuantity());
-                    return reservation;
-                });
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Test: 20 concurrent threads trying to reserve 1 item each
         int numberOfThreads = 20;
@@ -139,27 +144,23 @@ class ReservationServiceConcurrencyTest {
     void testConcurrentReservationAndRelease() throws InterruptedException {
         // Setup: Product has 5 items in stock
         productVariant.setStock(5);
-        when(productVariantRepository.findByIdAndDeletedAtIsNull(productVariantId))
-                .thenReturn(Optional.of(productVariant));
         
         AtomicInteger totalReserved = new AtomicInteger(0);
         List<Reservation> activeReservations = new ArrayList<>();
-        
-        when(reservationRepository.getTotalReservedQuantity(eq(tenantId), eq(productVariantId), any()))
-                .thenAnswer(invocation -> totalReserved.get());
+        simulateReservedStock(productVariant, totalReserved);
         
         when(reservationRepository.save(any(Reservation.class)))
                 .thenAnswer(invocation -> {
                     Reservation reservation = invocation.getArgument(0);
-                    if (reservation.getStatus() == Reservation.ReservationStatus.ACTIVE) {
-                        totalReserved.addAndGet(reservation.getQuantity());
-                        synchronized (activeReservations) {
-                            activeReservations.add(reservation);
-                        }
+                    synchronized (activeReservations) {
+                        activeReservations.add(reservation);
                     }
                     return reservation;
                 });
         
+        lenient().when(reservationRepository.releaseReservation(any(), any()))
+                .thenReturn(1);
+        
         when(reservationRepository.findByOrderIdAndTenantId(anyLong(), eq(tenantId)))
                 .thenAnswer(invocation -> {
                     Long orderId = invocation.getArgument(0);
@@ -196,10 +197,8 @@ class ReservationServiceConcurrencyTest {
                         try {
                             Long orderId = (long) (operationId - 1);
                             reservationService.releaseOrderReservations(tenantId, orderId);
-                            // Simulate releasing reserved stock
                             synchronized (activeReservations) {
                                 activeReservations.removeIf(r -> orderId.equals(r.getOrderId()));
-                                totalReserved.decrementAndGet();
                             }
                         } catch (Exception e) {
                             // May fail if no reservation to release
@@ -229,31 +228,35 @@ class ReservationServiceConcurrencyTest {
     void testReservationExpiryUnderConcurrency() throws InterruptedException {
         // Setup: Product with limited stock
         productVariant.setStock(3);
-        when(productVariantRepository.findByIdAndDeletedAtIsNull(productVariantId))
-                .thenReturn(Optional.of(productVariant));
         
         List<Reservation> expiredReservations = new ArrayList<>();
         AtomicInteger totalReserved = new AtomicInteger(0);
-        
-        when(reservationRepository.getTotalReservedQuantity(eq(tenantId), eq(productVariantId), any()))
-                .thenAnswer(invocation -> totalReserved.get());
+        AtomicInteger reservationIds = new AtomicInteger(0);
+        simulateReservedStock(productVariant, totalReserved);
         
         when(reservationRepository.save(any(Reservation.class)))
                 .thenAnswer(invocation -> {
                     Reservation reservation = invocation.getArgument(0);
-                    totalReserved.addAndGet(reservation.getQuantity());
+                    reservation.setId((long) reservationIds.incrementAndGet());
                     return reservation;
                 });
         
-        when(reservationRepository.findExpiredReservations(any()))
-                .thenReturn(expiredReservations);
+        when(reservationRepository.findExpiredForRelease(any(), anyInt()))
+                .thenAnswer(invocation -> {
+                    synchronized (expiredReservations) {
+                        return expiredReservations.stream()
+                                .map(r -> new Object[] {r.getId(), r.getTenantId(), r.getProductVariantId(), r.getQuantity()})
+                                .toList();
+                    }
+                });
         
-        when(reservationRepository.releaseExpiredReservations(any()))
+        when(reservationRepository.releaseReservations(anyCollection(), any()))
                 .thenAnswer(invocation -> {
-                    int releasedCount = expiredReservations.size();
-                    totalReserved.addAndGet(-releasedCount);
-                    expiredReservations.clear();
-                    return releasedCount;
+                    synchronized (expiredReservations) {
+                        int releasedCount = expiredReservations.size();
+                        expiredReservations.clear();
+                        return releasedCount;
+                    }
                 });
 
         // Test: Create reservations that will expire
@@ -270,7 +273,9 @@ class ReservationServiceConcurrencyTest {
                     
                     // Simulate expired reservation
                     reservation.setExpiresAt(LocalDateTime.now().minusMinutes(1));
-                    expiredReservations.add(reservation);
+                    synchronized (expiredReservations) {
+                        expiredReservations.add(reservation);
+                    }
                     
                 } catch (Exception e) {
                     // Handle any reservation failures
@@ -315,19 +320,12 @@ class ReservationServiceConcurrencyTest {
     void testHighConcurrencyStressTest() throws InterruptedException {
         // Setup: Product with moderate stock
         productVariant.setStock(50);
-        when(productVariantRepository.findByIdAndDeletedAtIsNull(productVariantId))
-                .thenReturn(Optional.of(productVariant));
         
         AtomicInteger totalReserved = new AtomicInteger(0);
-        when(reservationRepository.getTotalReservedQuantity(eq(tenantId), eq(productVariantId), any()))
-                .thenAnswer(invocation -> totalReserved.get());
+        simulateReservedStock(productVariant, totalReserved);
         
         when(reservationRepository.save(any(Reservation.class)))
-                .thenAnswer(invocation -> {
-                    Reservation reservation = invocation.getArgument(0);
-                    totalReserved.addAndGet(reservation.getQuantity());
-                    return reservation;
-                });
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Test: High concurrency with 100 threads
         int numberOfThreads = 100;
@@ -396,29 +394,13 @@ class ReservationServiceConcurrencyTest {
                 .reservedStock(0)
                 .build();
         
-        when(productVariantRepository.findByIdAndDeletedAtIsNull(productVariantId))
-                .thenReturn(Optional.of(productVariant));
-        when(productVariantRepository.findByIdAndDeletedAtIsNull(productVariantId2))
-                .thenReturn(Optional.of(productVariant2));
-        
         AtomicInteger totalReserved1 = new AtomicInteger(0);
         AtomicInteger totalReserved2 = new AtomicInteger(0);
-        
-        when(reservationRepository.getTotalReservedQuantity(eq(tenantId), eq(productVariantId), any()))
-                .thenAnswer(invocation -> totalReserved1.get());
-        when(reservationRepository.getTotalReservedQuantity(eq(tenantId), eq(productVariantId2), any()))
-                .thenAnswer(invocation -> totalReserved2.get());
+        simulateReservedStock(productVariant, totalReserved1);
+        simulateReservedStock(productVariant2, totalReserved2);
         
         when(reservationRepository.save(any(Reservation.class)))
-                .thenAnswer(invocation -> {
-                    Reservation reservation = invocation.getArgument(0);
-                    if (reservation.getProductVariantId().equals(productVariantId)) {
-                        totalReserved1.addAndGet(reservation.getQuantity());
-                    } else {
-                        totalReserved2.addAndGet(reservation.getQuantity());
-                    }
-                    return reservation;
-                });
+                .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Test: Concurrent operations on different products to test deadlock prevention
         ExecutorService executor = Executors.newFixedThreadPool(10);
@@ -457,4 +439,31 @@ class ReservationServiceConcurrencyTest {
         assertTrue(completed, "All operations should complete without deadlock");
         assertTrue(completedOperations.get() > 0, "Some operations should succeed");
     }
-}
\ No newline at end of file
+
+    /**
+     * Simulate the conditional reserved_stock updates of a variant against an
+     * in-memory counter, the way the database applies them atomically
+     */
+    private void simulateReservedStock(ProductVariant variant, AtomicInteger reserved) {
+        lenient().when(productVariantRepository.findById(variant.getId()))
+                .thenReturn(Optional.of(variant));
+        lenient().when(productVariantRepository.reserveStock(eq(tenantId), eq(variant.getId()), anyInt()))
+                .thenAnswer(invocation -> {
+                    int quantity = invocation.getArgument(2);
+                    int current;
+                    do {
+                        current = reserved.get();
+                        if (variant.getStock() - current < quantity) {
+                            return 0;
+                        }
+                    } while (!reserved.compareAndSet(current, current + quantity));
+                    return 1;
+                });
+        lenient().when(productVariantRepository.releaseReservedStock(eq(variant.getId()), anyInt()))
+                .thenAnswer(invocation -> {
+                    int quantity = invocation.getArgument(1);
+                    reserved.updateAndGet(current -> Math.max(0, current - quantity));
+                    return 1;
+                });
+    }
+}
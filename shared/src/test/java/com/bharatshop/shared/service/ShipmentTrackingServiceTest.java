@@ -5,6 +5,7 @@ import com.bharatshop.shared.entity.ShipmentTracking;
 import com.bharatshop.shared.repository.OrderRepository;
 import com.bharatshop.shared.repository.ShipmentRepository;
 import com.bharatshop.shared.repository.ShipmentTrackingRepository;
+import com.bharatshop.shared.scheduler.ShipmentPollSchedule;
 import com.bharatshop.shared.service.NotificationService;
 import org.springframework.web.client.RestTemplate;
 import org.junit.jupiter.api.BeforeEach;
@@ -46,6 +47,9 @@ class ShipmentTrackingServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private ShipmentPollSchedule pollSchedule;
+
     @Mock
     private ShippingValidationService validationService;
 
@@ -0,0 +1,138 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.entity.ProductVariant;
+import com.bharatshop.shared.repository.ProductVariantRepository;
+import com.bharatshop.shared.service.search.ProductSearchIndexService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for StockLedger
+ * Tests conditional reservation updates, rejection reasons and the availability cache
+ */
+@ExtendWith(MockitoExtension.class)
+class StockLedgerTest {
+
+    @Mock
+    private ProductVariantRepository productVariantRepository;
+
+    @Mock
+    private ProductSearchIndexService productSearchIndexService;
+
+    private StockLedger stockLedger;
+    private ProductVariant variant;
+
+    private final Long tenantId = 1L;
+    private final Long variantId = 10L;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(productVariantRepository, productSearchIndexService);
+        variant = ProductVariant.builder()
+                .id(variantId)
+                .tenantId(tenantId)
+                .stock(5)
+                .reservedStock(4)
+                .build();
+        variant.setStatus(ProductVariant.VariantStatus.ACTIVE);
+        lenient().when(productVariantRepository.findById(variantId)).thenReturn(Optional.of(variant));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a reservation when the conditional update matches no row")
+    void shouldRejectOversell() {
+        when(productVariantRepository.reserveStock(tenantId, variantId, 3)).thenReturn(1);
+        when(productVariantRepository.reserveStock(tenantId, variantId, 2)).thenReturn(0);
+
+        stockLedger.reserve(tenantId, variantId, 3);
+
+        assertThatThrownBy(() -> stockLedger.reserve(tenantId, variantId, 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Insufficient stock. Available: 1, Requested: 2");
+    }
+
+    @Test
+    @DisplayName("Should reserve batch lines in variant ID order and stop at the first short line")
+    void shouldReserveBatchInOrder() {
+        Long otherVariantId = 11L;
+        when(productVariantRepository.reserveStock(tenantId, variantId, 1)).thenReturn(1);
+        when(productVariantRepository.reserveStock(tenantId, otherVariantId, 3)).thenReturn(0);
+        when(productVariantRepository.findById(otherVariantId)).thenReturn(Optional.empty());
+
+        TreeMap<Long, Integer> lines = new TreeMap<>();
+        lines.put(otherVariantId, 3);
+        lines.put(variantId, 1);
+        assertThatThrownBy(() -> stockLedger.reserveAll(tenantId, lines))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product variant not found: " + otherVariantId);
+
+        InOrder inOrder = inOrder(productVariantRepository);
+        inOrder.verify(productVariantRepository).reserveStock(tenantId, variantId, 1);
+        inOrder.verify(productVariantRepository).reserveStock(tenantId, otherVariantId, 3);
+    }
+
+    @Test
+    @DisplayName("Should serve availability from cache until the reserving transaction completes")
+    void shouldReloadAvailabilityAfterCompletion() {
+        assertThat(stockLedger.getAvailable(tenantId, variantId)).isEqualTo(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        stockLedger.release(tenantId, variantId, 4);
+        variant.setReservedStock(0);
+        assertThat(stockLedger.getAvailable(tenantId, variantId)).isEqualTo(1);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+
+        assertThat(stockLedger.getAvailable(tenantId, variantId)).isEqualTo(5);
+        verify(productVariantRepository).releaseReservedStock(variantId, 4);
+        verify(productVariantRepository, times(2)).findById(variantId);
+    }
+
+    @Test
+    @DisplayName("Should refuse to commit when stock would go negative")
+    void shouldRejectNegativeCommit() {
+        when(productVariantRepository.commitReservedStock(eq(variantId), eq(6), any())).thenReturn(0);
+
+        TreeMap<Long, Integer> lines = new TreeMap<>();
+        lines.put(variantId, 6);
+        assertThatThrownBy(() -> stockLedger.commitAll(tenantId, lines))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Insufficient stock to commit reservation");
+    }
+
+    @Test
+    @DisplayName("Should treat unknown or inactive variants as unavailable")
+    void shouldRejectInactiveVariant() {
+        variant.setStatus(ProductVariant.VariantStatus.INACTIVE);
+        when(productVariantRepository.reserveStock(tenantId, variantId, 1)).thenReturn(0);
+
+        assertThat(stockLedger.getAvailable(tenantId, variantId)).isZero();
+        assertThatThrownBy(() -> stockLedger.reserve(tenantId, variantId, 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Product variant is not available for reservation");
+    }
+}
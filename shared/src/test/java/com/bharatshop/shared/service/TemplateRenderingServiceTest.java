@@ -0,0 +1,65 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.entity.NotificationTemplate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for TemplateRenderingService
+ * Tests placeholder substitution, nested variables and recompilation on new template versions
+ */
+class TemplateRenderingServiceTest {
+
+    private TemplateRenderingService templateRenderingService;
+    private NotificationTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        templateRenderingService = new TemplateRenderingService();
+        template = NotificationTemplate.builder()
+                .id(1L)
+                .subject("Order #{{orderId}}")
+                .body("Hi {{ customer.name }}, you paid {{amount}} {{currency}}")
+                .version(1)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should substitute plain and nested variables")
+    void shouldRenderVariables() {
+        Map<String, Object> variables = Map.of(
+                "orderId", 42,
+                "customer", Map.of("name", "Asha"),
+                "amount", "$100");
+
+        assertThat(templateRenderingService.renderSubject(template, variables)).isEqualTo("Order #42");
+        assertThat(templateRenderingService.renderBody(template, variables)).isEqualTo("Hi Asha, you paid $100 ");
+        assertThat(templateRenderingService.validateTemplate(template, variables)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should leave malformed placeholders as literal text")
+    void shouldKeepMalformedPlaceholders() {
+        String rendered = templateRenderingService.renderTemplate("{{}} {{a} {{{a}}", Map.of("a", "x", "{a", "y"));
+
+        assertThat(rendered).isEqualTo("{{}} {{a} y");
+    }
+
+    @Test
+    @DisplayName("Should recompile a template when its version changes")
+    void shouldRecompileNewVersion() {
+        Map<String, Object> variables = Map.of("orderId", 7);
+        assertThat(templateRenderingService.renderSubject(template, variables)).isEqualTo("Order #7");
+
+        template.setSubject("Your order {{orderId}} is confirmed");
+        assertThat(templateRenderingService.renderSubject(template, variables)).isEqualTo("Order #7");
+
+        template.setVersion(2);
+        assertThat(templateRenderingService.renderSubject(template, variables)).isEqualTo("Your order 7 is confirmed");
+    }
+}
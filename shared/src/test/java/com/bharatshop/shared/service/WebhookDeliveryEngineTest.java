@@ -0,0 +1,198 @@
+package com.bharatshop.shared.service;
+
+import com.bharatshop.shared.entity.WebhookDelivery;
+import com.bharatshop.shared.entity.WebhookDelivery.DeliveryStatus;
+import com.bharatshop.shared.repository.WebhookDeliveryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WebhookDeliveryEngine
+ * Tests async delivery against a local stub endpoint, retry scheduling, circuit breaking and endpoint isolation
+ */
+@ExtendWith(MockitoExtension.class)
+class WebhookDeliveryEngineTest {
+
+    @Mock
+    private WebhookDeliveryRepository deliveryRepository;
+
+    private WebhookStubServer stub;
+    private SimpleMeterRegistry meterRegistry;
+    private WebhookDeliveryEngine engine;
+    private final BlockingQueue<WebhookDelivery> outcomes = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new WebhookStubServer();
+        meterRegistry = new SimpleMeterRegistry();
+        engine = new WebhookDeliveryEngine(deliveryRepository, meterRegistry,
+                2000, 3, 2000, 60000, 1, 2, 30, 300, 100, 2);
+
+        AtomicLong ids = new AtomicLong();
+        lenient().when(deliveryRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<WebhookDelivery> deliveries = invocation.getArgument(0);
+            deliveries.forEach(delivery -> delivery.setId(ids.incrementAndGet()));
+            return deliveries;
+        });
+        lenient().when(deliveryRepository.save(any(WebhookDelivery.class))).thenAnswer(invocation -> {
+            WebhookDelivery delivery = invocation.getArgument(0);
+            outcomes.add(copy(delivery));
+            return delivery;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("Should deliver the signed payload and record latency")
+    void shouldDeliverToEndpoint() throws Exception {
+        engine.enqueue(List.of(stub.url("/hooks")), "order.status.changed", "evt_1", "{\"order_id\":1}", "sha256=abc");
+
+        WebhookDelivery outcome = outcomes.poll(5, TimeUnit.SECONDS);
+        assertThat(outcome).isNotNull();
+        assertThat(outcome.getStatus()).isEqualTo(DeliveryStatus.DELIVERED);
+        assertThat(outcome.getAttempts()).isEqualTo(1);
+        assertThat(outcome.getLastStatusCode()).isEqualTo(200);
+
+        assertThat(stub.received("/hooks")).singleElement().satisfies(request -> {
+            assertThat(request.event()).isEqualTo("order.status.changed");
+            assertThat(request.signature()).isEqualTo("sha256=abc");
+            assertThat(request.body()).isEqualTo("{\"order_id\":1}");
+        });
+        assertThat(meterRegistry.get("bharatshop.webhooks.delivery.latency").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reschedule failed attempts and open the circuit after repeated failures")
+    void shouldBackOffAndOpenCircuit() throws Exception {
+        stub.respond("/down", 503, 0);
+        LocalDateTime before = LocalDateTime.now();
+
+        engine.enqueue(List.of(stub.url("/down")), "return.created", "evt_1", "{}", "sig");
+        WebhookDelivery first = outcomes.poll(5, TimeUnit.SECONDS);
+        engine.enqueue(List.of(stub.url("/down")), "return.created", "evt_2", "{}", "sig");
+        WebhookDelivery second = outcomes.poll(5, TimeUnit.SECONDS);
+        engine.enqueue(List.of(stub.url("/down")), "return.created", "evt_3", "{}", "sig");
+        WebhookDelivery third = outcomes.poll(5, TimeUnit.SECONDS);
+
+        assertThat(first.getStatus()).isEqualTo(DeliveryStatus.RETRY);
+        assertThat(first.getAttempts()).isEqualTo(1);
+        assertThat(first.getLastStatusCode()).isEqualTo(503);
+        assertThat(first.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(2));
+        assertThat(second.getStatus()).isEqualTo(DeliveryStatus.RETRY);
+
+        // Circuit is open: the third delivery is deferred without being sent or counted
+        assertThat(engine.isCircuitOpen(stub.url("/down"))).isTrue();
+        assertThat(third.getStatus()).isEqualTo(DeliveryStatus.RETRY);
+        assertThat(third.getAttempts()).isZero();
+        assertThat(third.getNextAttemptAt()).isAfter(LocalDateTime.now().plusSeconds(20));
+        assertThat(stub.received("/down")).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should defer by at least the initial backoff while a half-open probe is in flight")
+    void shouldNotSpinWhileProbing() throws Exception {
+        engine.shutdown();
+        engine = new WebhookDeliveryEngine(deliveryRepository, meterRegistry,
+                2000, 3, 2000, 60000, 2, 1, 0, 300, 100, 2);
+        stub.respond("/flaky", 503, 0);
+        engine.enqueue(List.of(stub.url("/flaky")), "order.status.changed", "evt_1", "{}", "sig");
+        assertThat(outcomes.poll(5, TimeUnit.SECONDS).getStatus()).isEqualTo(DeliveryStatus.RETRY);
+
+        // The circuit is half-open at once: the first delivery probes, the second is deferred
+        stub.respond("/flaky", 200, 1000);
+        LocalDateTime before = LocalDateTime.now();
+        engine.enqueue(List.of(stub.url("/flaky"), stub.url("/flaky")), "order.status.changed", "evt_2", "{}", "sig");
+
+        WebhookDelivery deferred = outcomes.poll(5, TimeUnit.SECONDS);
+        assertThat(deferred.getStatus()).isEqualTo(DeliveryStatus.RETRY);
+        assertThat(deferred.getAttempts()).isZero();
+        assertThat(deferred.getNextAttemptAt()).isAfterOrEqualTo(before.plusSeconds(2));
+        assertThat(outcomes.poll(5, TimeUnit.SECONDS).getStatus()).isEqualTo(DeliveryStatus.DELIVERED);
+    }
+
+    @Test
+    @DisplayName("Should not hold up other endpoints behind a slow one")
+    void shouldIsolateSlowEndpoint() throws Exception {
+        stub.respond("/slow", 200, 1500);
+
+        engine.enqueue(List.of(stub.url("/slow"), stub.url("/fast")), "order.status.changed", "evt_1", "{}", "sig");
+
+        WebhookDelivery firstOutcome = outcomes.poll(5, TimeUnit.SECONDS);
+        assertThat(firstOutcome.getEndpoint()).isEqualTo(stub.url("/fast"));
+        assertThat(firstOutcome.getStatus()).isEqualTo(DeliveryStatus.DELIVERED);
+        assertThat(outcomes.poll(5, TimeUnit.SECONDS).getEndpoint()).isEqualTo(stub.url("/slow"));
+    }
+
+    @Test
+    @DisplayName("Should give up after the maximum number of attempts")
+    void shouldMarkDeadAfterMaxAttempts() throws Exception {
+        stub.respond("/gone", 410, 0);
+        WebhookDelivery delivery = WebhookDelivery.builder()
+                .id(42L)
+                .endpoint(stub.url("/gone"))
+                .eventType("return.completed")
+                .eventId("evt_9")
+                .payload("{}")
+                .signature("sig")
+                .status(DeliveryStatus.SENDING)
+                .attempts(2)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+        when(deliveryRepository.findDueDeliveryIds(any(), any())).thenReturn(List.of(42L));
+        when(deliveryRepository.claimAll(eq(List.of(42L)), anyString(), any(), any())).thenReturn(1);
+        when(deliveryRepository.findByIdInAndClaimToken(eq(List.of(42L)), anyString())).thenReturn(List.of(delivery));
+
+        engine.sweepDueDeliveries();
+
+        WebhookDelivery outcome = outcomes.poll(5, TimeUnit.SECONDS);
+        assertThat(outcome.getStatus()).isEqualTo(DeliveryStatus.DEAD);
+        assertThat(outcome.getAttempts()).isEqualTo(3);
+        assertThat(outcome.getLastError()).isEqualTo("Endpoint returned status 410");
+        assertThat(meterRegistry.get("bharatshop.webhooks.deliveries").tag("outcome", "dead").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should double the backoff per attempt up to the cap")
+    void shouldCapBackoff() {
+        assertThat(engine.backoff(1).toMillis()).isEqualTo(2000);
+        assertThat(engine.backoff(3).toMillis()).isEqualTo(8000);
+        assertThat(engine.backoff(10).toMillis()).isEqualTo(60000);
+    }
+
+    private static WebhookDelivery copy(WebhookDelivery delivery) {
+        return WebhookDelivery.builder()
+                .id(delivery.getId())
+                .endpoint(delivery.getEndpoint())
+                .status(delivery.getStatus())
+                .attempts(delivery.getAttempts())
+                .nextAttemptAt(delivery.getNextAttemptAt())
+                .lastStatusCode(delivery.getLastStatusCode())
+                .lastError(delivery.getLastError())
+                .deliveredAt(delivery.getDeliveredAt())
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.bharatshop.shared.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP endpoint for webhook tests. Each path answers with a configurable
+ * status after an optional delay and records the requests it received.
+ */
+class WebhookStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Response> responses = new ConcurrentHashMap<>();
+    private final List<Received> received = new CopyOnWriteArrayList<>();
+
+    WebhookStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Make a path answer with the given status after delayMillis
+     */
+    WebhookStubServer respond(String path, int status, long delayMillis) {
+        responses.put(path, new Response(status, delayMillis));
+        return this;
+    }
+
+    String url(String path) {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + path;
+    }
+
+    List<Received> received(String path) {
+        return received.stream().filter(request -> request.path().equals(path)).toList();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        received.add(new Received(path, exchange.getRequestHeaders().getFirst("X-Bharatshop-Event"),
+                exchange.getRequestHeaders().getFirst("X-Bharatshop-Signature"), body));
+
+        Response response = responses.getOrDefault(path, new Response(200, 0));
+        try {
+            if (response.delayMillis() > 0) {
+                Thread.sleep(response.delayMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.sendResponseHeaders(response.status(), -1);
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    record Received(String path, String event, String signature, String body) {
+    }
+
+    private record Response(int status, long delayMillis) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.bharatshop.shared.service.search;
+
+import com.bharatshop.shared.entity.Product;
+import com.bharatshop.shared.repository.CategoryRepository;
+import com.bharatshop.shared.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AutocompleteService
+ * Tests the bounds on recorded search queries and the trie build
+ */
+@ExtendWith(MockitoExtension.class)
+class AutocompleteServiceTest {
+
+    private static final Long TENANT_ID = 1L;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    private AutocompleteService autocompleteService;
+
+    @BeforeEach
+    void setUp() {
+        autocompleteService = new AutocompleteService(productRepository, categoryRepository);
+    }
+
+    @Test
+    @DisplayName("Should drop the least recently searched query once the tenant's limit is reached")
+    void shouldEvictLeastRecentlySearchedQuery() {
+        autocompleteService.recordQuery(TENANT_ID, "cotton saree");
+        autocompleteService.recordQuery(TENANT_ID, "copper bottle");
+        for (int i = 0; i < AutocompleteService.MAX_POPULAR_QUERIES - 2; i++) {
+            autocompleteService.recordQuery(TENANT_ID, "query " + i);
+        }
+        autocompleteService.recordQuery(TENANT_ID, "cotton saree");
+
+        autocompleteService.recordQuery(TENANT_ID, "new query");
+
+        assertThat(autocompleteService.suggest(TENANT_ID, "cotton", 5)).containsExactly("cotton saree");
+        assertThat(autocompleteService.suggest(TENANT_ID, "copper", 5)).isEmpty();
+        assertThat(autocompleteService.suggest(TENANT_ID, "new", 5)).containsExactly("new query");
+    }
+
+    @Test
+    @DisplayName("Should ignore queries longer than the length limit")
+    void shouldIgnoreOverlongQueries() {
+        autocompleteService.recordQuery(TENANT_ID, "shirt " + "x".repeat(100));
+
+        assertThat(autocompleteService.suggest(TENANT_ID, "shirt", 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep a product committed while the trie is being built")
+    void shouldReplayProductCommittedDuringBuild() {
+        Product committed = Product.builder()
+                .name("Copper lamp")
+                .status(Product.ProductStatus.ACTIVE)
+                .build();
+        committed.setId(7L);
+        committed.setTenantId(TENANT_ID);
+        when(productRepository.findByTenantIdAndStatusAndDeletedAtIsNull(TENANT_ID, Product.ProductStatus.ACTIVE))
+                .thenAnswer(invocation -> {
+                    autocompleteService.onProductsCommitted(List.of(committed));
+                    return List.of();
+                });
+
+        assertThat(autocompleteService.suggest(TENANT_ID, "copper", 5)).containsExactly("Copper lamp");
+        assertThat(autocompleteService.suggest(TENANT_ID, "copper", 5)).containsExactly("Copper lamp");
+        verify(productRepository, times(1)).findByTenantIdAndStatusAndDeletedAtIsNull(TENANT_ID, Product.ProductStatus.ACTIVE);
+    }
+}
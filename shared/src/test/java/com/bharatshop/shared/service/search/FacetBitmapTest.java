@@ -0,0 +1,54 @@
+package com.bharatshop.shared.service.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for FacetBitmap
+ * Tests sparse and dense representations give the same answers
+ */
+class FacetBitmapTest {
+
+    @Test
+    @DisplayName("Should intersect sparse bitmap with a scope")
+    void shouldIntersectSparseBitmap() {
+        FacetBitmap bitmap = new FacetBitmap();
+        bitmap.add(3);
+        bitmap.add(70);
+        bitmap.add(5);
+        bitmap.add(70);
+
+        BitSet scope = new BitSet();
+        scope.set(3);
+        scope.set(70);
+
+        assertThat(bitmap.cardinality()).isEqualTo(3);
+        assertThat(bitmap.andCardinality(scope.toLongArray())).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should keep counts when switching to the dense representation")
+    void shouldKeepCountsWhenSwitchingToDense() {
+        FacetBitmap bitmap = new FacetBitmap();
+        BitSet scope = new BitSet();
+        for (int ord = 0; ord < FacetBitmap.ARRAY_LIMIT * 3; ord += 2) {
+            bitmap.add(ord);
+            if (ord % 4 == 0) {
+                scope.set(ord);
+            }
+        }
+        bitmap.remove(0);
+
+        BitSet union = new BitSet();
+        bitmap.orInto(union);
+
+        assertThat(bitmap.cardinality()).isEqualTo(FacetBitmap.ARRAY_LIMIT * 3 / 2 - 1);
+        assertThat(bitmap.andCardinality(scope.toLongArray())).isEqualTo(scope.cardinality() - 1);
+        assertThat(union.cardinality()).isEqualTo(bitmap.cardinality());
+        assertThat(union.get(0)).isFalse();
+    }
+}
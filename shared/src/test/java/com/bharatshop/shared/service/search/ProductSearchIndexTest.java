@@ -0,0 +1,181 @@
+package com.bharatshop.shared.service.search;
+
+import com.bharatshop.shared.service.SearchService.SearchCriteria;
+import com.bharatshop.shared.service.SearchService.SearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for ProductSearchIndex
+ * Tests text matching, relevance ordering, filters, paging, incremental and stock updates and facet counts
+ */
+class ProductSearchIndexTest {
+
+    private static final Long TENANT_ID = 1L;
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(TENANT_ID);
+        index.indexAll(List.of(
+                product(1L, "Red Cotton Shirt", "Soft cotton shirt for summer", "Acme", 10L, "799.00", true, "red", 1),
+                product(2L, "Blue Denim Jeans", "Slim fit denim with a cotton blend", "Acme", 20L, "1499.00", true, "blue", 2),
+                product(3L, "Cotton Bedsheet", "King size bedsheet", "HomeCo", 30L, "999.00", false, "white", 3),
+                product(4L, "Leather Wallet", "Genuine leather", "Urban", 40L, "599.00", true, "brown", 4)
+        ));
+    }
+
+    @Test
+    @DisplayName("Should rank name matches above description matches")
+    void shouldRankNameMatchesAboveDescriptionMatches() {
+        SearchResult<Long> result = index.search(criteria("cotton"), 0, 10);
+
+        assertThat(result.getTotalElements()).isEqualTo(3);
+        assertThat(result.getItems()).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(result.getItems().get(2)).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Should require every query term to match")
+    void shouldRequireEveryQueryTermToMatch() {
+        SearchResult<Long> result = index.search(criteria("cotton shirt"), 0, 10);
+
+        assertThat(result.getItems()).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should match the last query term as a prefix")
+    void shouldMatchLastQueryTermAsPrefix() {
+        SearchResult<Long> result = index.search(criteria("leath"), 0, 10);
+
+        assertThat(result.getItems()).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Should apply brand, price, stock and attribute filters")
+    void shouldApplyFilters() {
+        SearchCriteria byBrand = criteria(null);
+        byBrand.addBrand("acme");
+        assertThat(index.search(byBrand, 0, 10).getItems()).containsExactlyInAnyOrder(1L, 2L);
+
+        SearchCriteria byPrice = criteria(null);
+        byPrice.setMinPrice(new BigDecimal("700"));
+        byPrice.setMaxPrice(new BigDecimal("1000"));
+        assertThat(index.search(byPrice, 0, 10).getItems()).containsExactlyInAnyOrder(1L, 3L);
+
+        SearchCriteria inStock = criteria("cotton");
+        inStock.setInStock(true);
+        assertThat(index.search(inStock, 0, 10).getItems()).doesNotContain(3L);
+
+        SearchCriteria byColour = criteria(null);
+        byColour.addAttributeFilter("Color", "Brown");
+        assertThat(index.search(byColour, 0, 10).getItems()).containsExactly(4L);
+
+        SearchCriteria byCategory = criteria(null);
+        byCategory.addCategoryId(20L);
+        assertThat(index.search(byCategory, 0, 10).getItems()).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Should sort by price and page results")
+    void shouldSortByPriceAndPage() {
+        SearchCriteria criteria = criteria(null);
+        criteria.setSortBy("price_asc");
+
+        SearchResult<Long> firstPage = index.search(criteria, 0, 2);
+        SearchResult<Long> secondPage = index.search(criteria, 1, 2);
+
+        assertThat(firstPage.getItems()).containsExactly(4L, 1L);
+        assertThat(secondPage.getItems()).containsExactly(3L, 2L);
+        assertThat(firstPage.getTotalPages()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reflect updates and removals")
+    void shouldReflectUpdatesAndRemovals() {
+        index.index(product(4L, "Leather Belt", "Genuine leather", "Urban", 40L, "499.00", true, "black", 4));
+        index.remove(1L);
+
+        assertThat(index.search(criteria("wallet"), 0, 10).getItems()).isEmpty();
+        assertThat(index.search(criteria("belt"), 0, 10).getItems()).containsExactly(4L);
+        assertThat(index.search(criteria("shirt"), 0, 10).getItems()).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should update the in-stock flag without re-indexing")
+    void shouldUpdateInStockInPlace() {
+        SearchCriteria inStock = criteria("cotton");
+        inStock.setInStock(true);
+
+        index.setInStock(3L, true);
+        index.setInStock(1L, false);
+        index.setInStock(99L, true);
+
+        assertThat(index.search(inStock, 0, 10).getItems()).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.search(criteria("shirt"), 0, 10).getItems()).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should count facets disjunctively within the text matches")
+    void shouldCountFacetsDisjunctively() {
+        SearchCriteria criteria = criteria("cotton");
+        criteria.addBrand("Acme");
+
+        FacetSummary summary = index.facets(criteria, 10, 2);
+
+        assertThat(summary.totalMatches()).isEqualTo(2);
+        assertThat(summary.facets().get(ProductSearchIndex.BRAND_FACET))
+                .containsEntry("acme", 2L)
+                .containsEntry("homeco", 1L)
+                .doesNotContainKey("urban");
+        assertThat(summary.facets().get("color")).containsOnlyKeys("red", "blue");
+        assertThat(summary.minPrice()).isEqualByComparingTo("799.00");
+        assertThat(summary.maxPrice()).isEqualByComparingTo("1499.00");
+        assertThat(summary.priceHistogram()).extracting(FacetSummary.PriceBucket::count).containsExactly(1L, 1L);
+    }
+
+    @Test
+    @DisplayName("Should drop facet values when their last product is removed")
+    void shouldDropFacetValuesOnRemoval() {
+        index.remove(4L);
+
+        FacetSummary summary = index.facets(criteria(null), 10, 1);
+
+        assertThat(summary.facets().get(ProductSearchIndex.BRAND_FACET)).doesNotContainKey("urban");
+        assertThat(summary.facets().get(ProductSearchIndex.CATEGORY_FACET)).doesNotContainKey("40");
+    }
+
+    private SearchCriteria criteria(String query) {
+        SearchCriteria criteria = new SearchCriteria();
+        criteria.setQuery(query);
+        return criteria;
+    }
+
+    private IndexedProduct product(Long id, String name, String description, String brand, Long categoryId,
+                                   String price, boolean inStock, String color, int ageDays) {
+        return new IndexedProduct(
+                id,
+                TENANT_ID,
+                name,
+                description,
+                List.of(),
+                brand.toLowerCase(),
+                Set.of(categoryId),
+                Map.of("brand", Set.of(brand.toLowerCase()), "color", Set.of(color)),
+                new BigDecimal(price),
+                inStock,
+                LocalDateTime.now().minusDays(ageDays));
+    }
+}
@@ -0,0 +1,65 @@
+package com.bharatshop.shared.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Unit tests for SuggestionTrie
+ * Tests prefix lookup, popularity ranking, display forms and removal
+ */
+class SuggestionTrieTest {
+
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new SuggestionTrie(5);
+        trie.adjust("Cotton Shirt", 10, true);
+        trie.adjust("Cotton Saree", 10, true);
+        trie.adjust("Copper Bottle", 10, true);
+        trie.adjust("Shoes", 20, true);
+    }
+
+    @Test
+    @DisplayName("Should return completions for a prefix ranked by weight")
+    void shouldReturnCompletionsRankedByWeight() {
+        trie.adjust("cotton saree", 5, false);
+
+        assertThat(trie.suggest("co", 10))
+                .extracting(SuggestionTrie.Completion::text)
+                .containsExactly("Cotton Saree", "Copper Bottle", "Cotton Shirt");
+        assertThat(trie.suggest("COTTON S", 1))
+                .extracting(SuggestionTrie.Completion::weight)
+                .containsExactly(15L);
+    }
+
+    @Test
+    @DisplayName("Should return nothing for unknown prefixes")
+    void shouldReturnNothingForUnknownPrefix() {
+        assertThat(trie.suggest("xyz", 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should drop a suggestion once its weight reaches zero")
+    void shouldDropSuggestionWhenWeightReachesZero() {
+        trie.adjust("Cotton Shirt", -10, false);
+
+        assertThat(trie.suggest("cotton", 5))
+                .extracting(SuggestionTrie.Completion::text)
+                .containsExactly("Cotton Saree");
+        assertThat(trie.suggest("cotton sh", 5)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep the product display form when a query adds popularity")
+    void shouldKeepPreferredDisplayForm() {
+        trie.adjust("shoes", 3, false);
+
+        assertThat(trie.suggest("sh", 5))
+                .extracting(SuggestionTrie.Completion::text)
+                .containsExactly("Shoes");
+    }
+}
@@ -21,13 +21,16 @@ import java.util.concurrent.Executor;
 public class OutboxConfiguration {
     
     /**
-     * Task executor for async outbox event processing
+     * Task executor for async outbox event processing.
+     * Runs the per-aggregate dispatch tasks; the core size covers the default
+     * dispatch concurrency since the pool only grows past it once the queue is full.
      */
     @Bean("outboxTaskExecutor")
     public Executor outboxTaskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
+        executor.setCorePoolSize(8);
         executor.setMaxPoolSize(10);
+        executor.setAllowCoreThreadTimeOut(true);
         executor.setQueueCapacity(100);
         executor.setThreadNamePrefix("outbox-");
         executor.setWaitForTasksToCompleteOnShutdown(true);
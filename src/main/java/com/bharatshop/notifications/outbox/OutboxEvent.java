@@ -91,6 +91,9 @@ public class OutboxEvent {
     @Column
     private String processingInstanceId;
     
+    @Column
+    private LocalDateTime leaseExpiresAt;
+    
     @Version
     private Long version;
     
@@ -138,6 +141,7 @@ public class OutboxEvent {
         this.errorMessage = errorMessage;
         this.errorStackTrace = stackTrace;
         this.processingInstanceId = null;
+        this.leaseExpiresAt = null;
         
         if (canRetry()) {
             // Exponential backoff: 1min, 5min, 15min
@@ -152,6 +156,7 @@ public class OutboxEvent {
     public void markAsDeadLetter() {
         this.status = OutboxEventStatus.DEAD_LETTER;
         this.processingInstanceId = null;
+        this.leaseExpiresAt = null;
     }
     
     /**
@@ -164,6 +169,7 @@ public class OutboxEvent {
         this.errorMessage = null;
         this.errorStackTrace = null;
         this.processingInstanceId = null;
+        this.leaseExpiresAt = null;
     }
     
     public enum OutboxEventStatus {
@@ -1,34 +1,55 @@
 package com.bharatshop.notifications.outbox;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Processes outbox events asynchronously with retry mechanism.
  * Handles event publishing, error recovery, and cleanup operations.
+ * Claimed events are partitioned by aggregate: events of one aggregate are
+ * published in order, different aggregates are published concurrently. When
+ * an event fails, the aggregate's later events wait until it has been retried.
+ * A dispatcher thread wakes as soon as an event is committed on this node and
+ * otherwise polls adaptively, backing off exponentially while the outbox is idle.
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class OutboxEventProcessor {
     
     private final OutboxEventService outboxEventService;
     private final ApplicationEventPublisher eventPublisher;
+    private final Executor outboxTaskExecutor;
+    private final OutboxWakeup outboxWakeup;
+    
+    @Value("${bharatshop.outbox.processor.min-poll-interval:100}")
+    private long minPollInterval;
+    
+    @Value("${bharatshop.outbox.processor.poll-interval:30000}")
+    private long maxPollInterval;
     
     @Value("${bharatshop.outbox.processor.batch-size:50}")
     private int batchSize;
@@ -36,6 +57,12 @@ public class OutboxEventProcessor {
     @Value("${bharatshop.outbox.processor.processing-timeout-minutes:30}")
     private int processingTimeoutMinutes;
     
+    @Value("${bharatshop.outbox.processor.lease-seconds:300}")
+    private int leaseSeconds;
+    
+    @Value("${bharatshop.outbox.processor.dispatch-concurrency:8}")
+    private int dispatchConcurrency;
+    
     @Value("${bharatshop.outbox.processor.cleanup-days:7}")
     private int cleanupDays;
     
@@ -44,98 +71,229 @@ public class OutboxEventProcessor {
     
     private final AtomicBoolean isProcessing = new AtomicBoolean(false);
     private String instanceId;
+    private Semaphore dispatchPermits;
+    private Thread dispatcher;
+    private volatile boolean running;
+    private volatile long pollInterval;
+    private long lastStuckResetAt;
+    
+    // Written out so the qualifier reaches the constructor parameter
+    public OutboxEventProcessor(OutboxEventService outboxEventService,
+                                ApplicationEventPublisher eventPublisher,
+                                @Qualifier("outboxTaskExecutor") Executor outboxTaskExecutor,
+                                OutboxWakeup outboxWakeup) {
+        this.outboxEventService = outboxEventService;
+        this.eventPublisher = eventPublisher;
+        this.outboxTaskExecutor = outboxTaskExecutor;
+        this.outboxWakeup = outboxWakeup;
+    }
     
     @PostConstruct
     public void init() {
         this.instanceId = outboxEventService.generateInstanceId();
+        this.dispatchPermits = new Semaphore(dispatchConcurrency);
+        this.pollInterval = minPollInterval;
         log.info("Outbox event processor initialized with instance ID: {}", instanceId);
+        
+        if (processorEnabled) {
+            running = true;
+            dispatcher = new Thread(this::runDispatchLoop, "outbox-dispatcher");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
     }
     
     @PreDestroy
     public void shutdown() {
         log.info("Shutting down outbox event processor: {}", instanceId);
+        running = false;
+        if (dispatcher != null) {
+            outboxWakeup.signal();
+            try {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Dispatcher loop: process on every wakeup signal, otherwise poll, doubling the
+     * wait after each idle poll up to the poll interval and resetting it once work shows up
+     */
+    private void runDispatchLoop() {
+        while (running) {
+            try {
+                boolean signalled = outboxWakeup.await(pollInterval);
+                if (!running) {
+                    break;
+                }
+                
+                int claimedCount = processPendingEvents();
+                pollInterval = signalled || claimedCount > 0
+                    ? minPollInterval
+                    : Math.min(pollInterval * 2, maxPollInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Unexpected error in outbox dispatcher loop", e);
+            }
+        }
     }
     
     /**
-     * Scheduled method to process pending outbox events
+     * Process pending outbox events
+     *
+     * @return number of events claimed by this cycle
      */
-    @Scheduled(fixedDelayString = "${bharatshop.outbox.processor.poll-interval:5000}")
-    public void processPendingEvents() {
+    public int processPendingEvents() {
         if (!processorEnabled) {
-            return;
+            return 0;
         }
         
         if (!isProcessing.compareAndSet(false, true)) {
             log.debug("Outbox processor already running, skipping this cycle");
-            return;
+            return 0;
         }
         
+        int claimedCount = 0;
         try {
             log.debug("Starting outbox event processing cycle");
             
-            // Reset stuck processing events first
-            resetStuckEvents();
-            
-            // Process pending events
-            List<OutboxEvent> events = outboxEventService.getEventsReadyForProcessing(batchSize);
-            
-            if (!events.isEmpty()) {
-                log.info("Processing {} outbox events", events.size());
-                processEventsBatch(events);
-            } else {
-                log.debug("No events ready for processing");
+            // Reset stuck processing events, at most once per poll interval
+            long now = System.currentTimeMillis();
+            if (now - lastStuckResetAt >= maxPollInterval) {
+                lastStuckResetAt = now;
+                resetStuckEvents();
             }
             
+            // Claim and process pending events; keep going while full batches come back
+            // so a burst is drained in one cycle instead of one batch per poll
+            List<OutboxEvent> events;
+            do {
+                events = outboxEventService.claimEventsForProcessing(
+                    instanceId, batchSize, Duration.ofSeconds(leaseSeconds));
+                
+                if (!events.isEmpty()) {
+                    log.info("Processing {} claimed outbox events", events.size());
+                    claimedCount += events.size();
+                    processEventsBatch(events);
+                } else {
+                    log.debug("No events ready for processing");
+                }
+            } while (events.size() >= batchSize);
+            
         } catch (Exception e) {
             log.error("Error during outbox event processing cycle", e);
         } finally {
             isProcessing.set(false);
         }
+        return claimedCount;
     }
     
     /**
-     * Process a batch of events
+     * Process a batch of claimed events and mark the successful ones as processed together.
+     * Each aggregate's events are dispatched as one task on the outbox executor; at most
+     * dispatch-concurrency tasks are in flight, beyond that the caller waits for a slot.
      */
     private void processEventsBatch(List<OutboxEvent> events) {
+        Queue<String> processedIds = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> dispatches = new ArrayList<>();
+        
+        for (List<OutboxEvent> partition : partitionByAggregate(events).values()) {
+            dispatchPermits.acquireUninterruptibly();
+            try {
+                dispatches.add(CompletableFuture
+                    .runAsync(() -> processPartition(partition, processedIds), outboxTaskExecutor)
+                    .whenComplete((ignored, error) -> dispatchPermits.release()));
+            } catch (RejectedExecutionException e) {
+                dispatchPermits.release();
+                log.debug("Outbox executor rejected dispatch, processing on caller thread");
+                processPartition(partition, processedIds);
+            }
+        }
+        
+        CompletableFuture.allOf(dispatches.toArray(new CompletableFuture[0])).join();
+        markEventsProcessed(new ArrayList<>(processedIds));
+    }
+    
+    /**
+     * Group events by aggregate, keeping claim (creation) order within each group
+     */
+    private Map<String, List<OutboxEvent>> partitionByAggregate(List<OutboxEvent> events) {
+        Map<String, List<OutboxEvent>> partitions = new LinkedHashMap<>();
         for (OutboxEvent event : events) {
+            partitions.computeIfAbsent(event.getAggregateType() + ":" + event.getAggregateId(),
+                key -> new ArrayList<>()).add(event);
+        }
+        return partitions;
+    }
+    
+    /**
+     * Publish one aggregate's events in order. At the first failure the rest of
+     * the aggregate's events are handed back unpublished; they are not claimed
+     * again until the failed event has been retried
+     */
+    private void processPartition(List<OutboxEvent> partition, Queue<String> processedIds) {
+        for (int i = 0; i < partition.size(); i++) {
+            OutboxEvent event = partition.get(i);
             try {
                 processEvent(event);
+                processedIds.add(event.getId());
             } catch (Exception e) {
                 log.error("Failed to process event: {}", event.getId(), e);
                 handleEventProcessingError(event, e);
+                releaseRemaining(partition.subList(i + 1, partition.size()));
+                return;
             }
         }
     }
     
     /**
-     * Process a single event
+     * Release the leases of events left behind a failed event of their aggregate
+     */
+    private void releaseRemaining(List<OutboxEvent> remaining) {
+        if (remaining.isEmpty()) {
+            return;
+        }
+        List<String> eventIds = remaining.stream().map(OutboxEvent::getId).toList();
+        try {
+            outboxEventService.releaseClaims(eventIds, instanceId);
+        } catch (Exception e) {
+            // The leases expire on their own and the events are reset as stuck
+            log.error("Failed to release {} events behind a failed event", eventIds.size(), e);
+        }
+    }
+    
+    /**
+     * Publish a single claimed event
      */
-    @Transactional
     public void processEvent(OutboxEvent event) {
         log.debug("Processing outbox event: {} of type: {}", event.getId(), event.getEventType());
         
-        // Mark as processing
-        if (!outboxEventService.markAsProcessing(event.getId(), instanceId)) {
-            log.warn("Failed to mark event {} as processing, skipping", event.getId());
+        // Create domain event based on event type
+        Object domainEvent = createDomainEvent(event);
+        
+        // Publish the domain event
+        eventPublisher.publishEvent(domainEvent);
+        
+        log.debug("Successfully published outbox event: {}", event.getId());
+    }
+    
+    /**
+     * Mark published events as processed. Events whose lease expired meanwhile
+     * may have been claimed again and will be delivered a second time
+     */
+    private void markEventsProcessed(List<String> eventIds) {
+        if (eventIds.isEmpty()) {
             return;
         }
         
-        try {
-            // Create domain event based on event type
-            Object domainEvent = createDomainEvent(event);
-            
-            // Publish the domain event
-            eventPublisher.publishEvent(domainEvent);
-            
-            // Mark as processed
-            outboxEventService.markAsProcessed(event.getId());
-            
-            log.debug("Successfully processed outbox event: {}", event.getId());
-            
-        } catch (Exception e) {
-            log.error("Error processing outbox event: {}", event.getId(), e);
-            handleEventProcessingError(event, e);
-            throw e;
+        int processedCount = outboxEventService.markAsProcessed(eventIds, instanceId);
+        if (processedCount < eventIds.size()) {
+            log.warn("{} of {} published events lost their lease before completion",
+                    eventIds.size() - processedCount, eventIds.size());
         }
     }
     
@@ -205,7 +363,7 @@ public class OutboxEventProcessor {
     }
     
     /**
-     * Process events asynchronously
+     * Process claimed events asynchronously
      */
     @Async("outboxTaskExecutor")
     public CompletableFuture<Void> processEventsAsync(List<OutboxEvent> events) {
@@ -221,7 +379,7 @@ public class OutboxEventProcessor {
     public void triggerProcessing() {
         if (processorEnabled) {
             log.info("Manually triggering outbox event processing");
-            processPendingEvents();
+            outboxWakeup.signal();
         } else {
             log.warn("Outbox processor is disabled, cannot trigger processing");
         }
@@ -236,6 +394,9 @@ public class OutboxEventProcessor {
             .enabled(processorEnabled)
             .processing(isProcessing.get())
             .batchSize(batchSize)
+            .leaseSeconds(leaseSeconds)
+            .dispatchConcurrency(dispatchConcurrency)
+            .pollIntervalMillis(pollInterval)
             .processingTimeoutMinutes(processingTimeoutMinutes)
             .cleanupDays(cleanupDays)
             .build();
@@ -261,6 +422,9 @@ public class OutboxEventProcessor {
         private boolean enabled;
         private boolean processing;
         private int batchSize;
+        private int leaseSeconds;
+        private int dispatchConcurrency;
+        private long pollIntervalMillis;
         private int processingTimeoutMinutes;
         private int cleanupDays;
     }
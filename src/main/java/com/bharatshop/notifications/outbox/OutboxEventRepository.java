@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +30,126 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, String
            "ORDER BY e.createdAt ASC")
     List<OutboxEvent> findEventsReadyForProcessing(@Param("now") LocalDateTime now, Pageable pageable);
     
+    /**
+     * Lock the IDs of events ready for processing, skipping rows already locked
+     * by another instance (Postgres and MySQL 8). Only the earliest unfinished
+     * event of each aggregate is returned: an event queued behind any earlier
+     * event of its aggregate that is not yet processed or dead-lettered,
+     * including a pending one another instance may be about to claim, is not
+     * ready, so each aggregate is published in order
+     */
+    @Query(value = "SELECT id FROM outbox_events e WHERE " +
+           "(e.status = 'PENDING' OR " +
+           "(e.status = 'FAILED' AND e.retry_count < e.max_retries AND " +
+           "(e.next_retry_at IS NULL OR e.next_retry_at <= :now))) " +
+           "AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE " +
+           "p.aggregate_type = e.aggregate_type AND p.aggregate_id = e.aggregate_id AND " +
+           "p.created_at < e.created_at AND p.status NOT IN ('PROCESSED', 'DEAD_LETTER')) " +
+           "ORDER BY e.created_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> lockEventIdsReadyForProcessing(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    /**
+     * Find the IDs of events ready for processing without locking them: the
+     * earliest unfinished event of each aggregate, if it is ready
+     */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE " +
+           "(e.status = 'PENDING' OR " +
+           "(e.status = 'FAILED' AND e.retryCount < e.maxRetries AND " +
+           "(e.nextRetryAt IS NULL OR e.nextRetryAt <= :now))) " +
+           "AND NOT EXISTS (SELECT p FROM OutboxEvent p WHERE " +
+           "p.aggregateType = e.aggregateType AND p.aggregateId = e.aggregateId AND " +
+           "p.createdAt < e.createdAt AND p.status <> 'PROCESSED' AND p.status <> 'DEAD_LETTER') " +
+           "ORDER BY e.createdAt ASC")
+    List<String> findEventIdsReadyForProcessing(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Find the IDs of pending events queued behind events an instance holds a
+     * lease on, in order. No other instance can claim these while the earlier
+     * event is leased, so they may be claimed along with it
+     */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = 'PENDING' AND " +
+           "EXISTS (SELECT h FROM OutboxEvent h WHERE h.id IN :headIds AND " +
+           "h.status = 'PROCESSING' AND h.processingInstanceId = :instanceId AND " +
+           "h.aggregateType = e.aggregateType AND h.aggregateId = e.aggregateId AND " +
+           "h.createdAt < e.createdAt) AND " +
+           "NOT EXISTS (SELECT p FROM OutboxEvent p WHERE " +
+           "p.aggregateType = e.aggregateType AND p.aggregateId = e.aggregateId AND " +
+           "p.createdAt < e.createdAt AND p.status = 'FAILED') " +
+           "ORDER BY e.createdAt ASC")
+    List<String> findEventIdsQueuedBehind(@Param("headIds") Collection<String> headIds,
+                                          @Param("instanceId") String instanceId,
+                                          Pageable pageable);
+    
+    /**
+     * Lease events to a processing instance. Only events that are still ready
+     * for processing are claimed, so concurrent instances never claim the same event
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET " +
+           "e.status = 'PROCESSING', " +
+           "e.processingInstanceId = :instanceId, " +
+           "e.lastAttemptAt = :now, " +
+           "e.leaseExpiresAt = :leaseExpiresAt, " +
+           "e.updatedAt = :now, " +
+           "e.version = e.version + 1 " +
+           "WHERE e.id IN :ids AND " +
+           "(e.status = 'PENDING' OR " +
+           "(e.status = 'FAILED' AND e.retryCount < e.maxRetries AND " +
+           "(e.nextRetryAt IS NULL OR e.nextRetryAt <= :now)))")
+    int claimEvents(@Param("ids") Collection<String> ids,
+                    @Param("instanceId") String instanceId,
+                    @Param("now") LocalDateTime now,
+                    @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+    
+    /**
+     * Load the events an instance holds a lease on, with their metadata
+     */
+    @Query("SELECT DISTINCT e FROM OutboxEvent e LEFT JOIN FETCH e.metadata WHERE " +
+           "e.id IN :ids AND " +
+           "e.status = 'PROCESSING' AND " +
+           "e.processingInstanceId = :instanceId " +
+           "ORDER BY e.createdAt ASC")
+    List<OutboxEvent> findClaimedEvents(@Param("ids") Collection<String> ids,
+                                        @Param("instanceId") String instanceId);
+    
+    /**
+     * Mark leased events as processed. Events whose lease was lost to another
+     * instance are left alone
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET " +
+           "e.status = 'PROCESSED', " +
+           "e.processedAt = :now, " +
+           "e.errorMessage = null, " +
+           "e.errorStackTrace = null, " +
+           "e.leaseExpiresAt = null, " +
+           "e.updatedAt = :now, " +
+           "e.version = e.version + 1 " +
+           "WHERE e.id IN :ids AND " +
+           "e.status = 'PROCESSING' AND " +
+           "e.processingInstanceId = :instanceId")
+    int markProcessed(@Param("ids") Collection<String> ids,
+                      @Param("instanceId") String instanceId,
+                      @Param("now") LocalDateTime now);
+    
+    /**
+     * Return leased events to pending without counting an attempt, e.g. events
+     * queued behind a failed event of the same aggregate
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET " +
+           "e.status = 'PENDING', " +
+           "e.processingInstanceId = null, " +
+           "e.leaseExpiresAt = null, " +
+           "e.updatedAt = :now, " +
+           "e.version = e.version + 1 " +
+           "WHERE e.id IN :ids AND " +
+           "e.status = 'PROCESSING' AND " +
+           "e.processingInstanceId = :instanceId")
+    int releaseClaims(@Param("ids") Collection<String> ids,
+                      @Param("instanceId") String instanceId,
+                      @Param("now") LocalDateTime now);
+    
     /**
      * Find events by status
      */
@@ -111,15 +232,18 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, String
     int deleteProcessedEventsOlderThan(@Param("cutoffDate") LocalDateTime cutoffDate);
     
     /**
-     * Reset stuck processing events to pending
+     * Reset stuck processing events to pending: events whose lease has expired,
+     * or that were claimed without a lease before the cutoff time
      */
     @Modifying
     @Query("UPDATE OutboxEvent e SET " +
            "e.status = 'PENDING', " +
            "e.processingInstanceId = null, " +
+           "e.leaseExpiresAt = null, " +
            "e.updatedAt = :now " +
            "WHERE e.status = 'PROCESSING' AND " +
-           "e.lastAttemptAt < :cutoffTime")
+           "(e.leaseExpiresAt < :now OR " +
+           "(e.leaseExpiresAt IS NULL AND e.lastAttemptAt < :cutoffTime))")
     int resetStuckProcessingEvents(@Param("cutoffTime") LocalDateTime cutoffTime, 
                                   @Param("now") LocalDateTime now);
     
@@ -4,13 +4,16 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -27,10 +30,14 @@ public class OutboxEventService {
     
     private final OutboxEventRepository outboxEventRepository;
     private final ObjectMapper objectMapper;
+    private final OutboxWakeup outboxWakeup;
     
     private static final int DEFAULT_BATCH_SIZE = 100;
     private static final int DEFAULT_CLEANUP_BATCH_SIZE = 1000;
     
+    @Value("${bharatshop.outbox.processor.skip-locked:true}")
+    private boolean skipLocked;
+    
     /**
      * Create and save an outbox event
      */
@@ -53,6 +60,7 @@ public class OutboxEventService {
                 .build();
             
             OutboxEvent savedEvent = outboxEventRepository.save(event);
+            outboxWakeup.signalAfterCommit();
             log.debug("Created outbox event: {} for tenant: {}, eventType: {}", 
                      savedEvent.getId(), tenantId, eventType);
             
@@ -81,6 +89,48 @@ public class OutboxEventService {
         return getEventsReadyForProcessing(DEFAULT_BATCH_SIZE);
     }
     
+    /**
+     * Claim up to batchSize events ready for processing and lease them to the
+     * given instance. The earliest unfinished event of each aggregate is
+     * claimed first; pending events queued behind a claimed one are then
+     * claimed with it, since no other instance can take them meanwhile. With
+     * skip-locked enabled, rows being claimed by another instance are skipped
+     * instead of waited on; otherwise the conditional claim update alone keeps
+     * instances from claiming the same event.
+     */
+    @Transactional
+    public List<OutboxEvent> claimEventsForProcessing(String instanceId, int batchSize, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> eventIds = skipLocked
+            ? outboxEventRepository.lockEventIdsReadyForProcessing(now, batchSize)
+            : outboxEventRepository.findEventIdsReadyForProcessing(now, PageRequest.of(0, batchSize));
+        if (eventIds.isEmpty()) {
+            return List.of();
+        }
+        
+        int claimedCount = outboxEventRepository.claimEvents(eventIds, instanceId, now, now.plus(lease));
+        if (claimedCount < eventIds.size()) {
+            log.debug("Claimed {} of {} ready events, the rest were taken by other instances",
+                     claimedCount, eventIds.size());
+        }
+        if (claimedCount == 0) {
+            return List.of();
+        }
+        
+        int remaining = batchSize - claimedCount;
+        if (remaining > 0) {
+            List<String> queuedIds = outboxEventRepository.findEventIdsQueuedBehind(
+                eventIds, instanceId, PageRequest.of(0, remaining));
+            if (!queuedIds.isEmpty()) {
+                outboxEventRepository.claimEvents(queuedIds, instanceId, now, now.plus(lease));
+                eventIds = new ArrayList<>(eventIds);
+                eventIds.addAll(queuedIds);
+            }
+        }
+        
+        return outboxEventRepository.findClaimedEvents(eventIds, instanceId);
+    }
+    
     /**
      * Mark event as processing
      */
@@ -124,6 +174,35 @@ public class OutboxEventService {
         log.debug("Marked event {} as processed", eventId);
     }
     
+    /**
+     * Mark events leased to the given instance as processed in one update
+     */
+    @Transactional
+    public int markAsProcessed(List<String> eventIds, String instanceId) {
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        
+        int processedCount = outboxEventRepository.markProcessed(eventIds, instanceId, LocalDateTime.now());
+        log.debug("Marked {} events as processed by instance: {}", processedCount, instanceId);
+        return processedCount;
+    }
+    
+    /**
+     * Return events leased to the given instance to pending so they are claimed
+     * again, in order, once the events ahead of them have been processed
+     */
+    @Transactional
+    public int releaseClaims(List<String> eventIds, String instanceId) {
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+        
+        int releasedCount = outboxEventRepository.releaseClaims(eventIds, instanceId, LocalDateTime.now());
+        log.debug("Released {} claimed events of instance: {}", releasedCount, instanceId);
+        return releasedCount;
+    }
+    
     /**
      * Mark event as failed
      */
@@ -200,6 +279,7 @@ public class OutboxEventService {
         
         event.resetForRetry();
         outboxEventRepository.save(event);
+        outboxWakeup.signalAfterCommit();
         
         log.info("Reset dead letter event {} for retry", eventId);
         return true;
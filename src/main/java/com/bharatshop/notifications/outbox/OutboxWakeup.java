@@ -0,0 +1,64 @@
+package com.bharatshop.notifications.outbox;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wakes the outbox processor when new events are committed on this node,
+ * so they are dispatched straight away instead of on the next poll.
+ */
+@Component
+public class OutboxWakeup {
+
+    private final Object monitor = new Object();
+    private boolean signalled;
+
+    /**
+     * Signal once the current transaction commits, or immediately when there is none
+     */
+    public void signalAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    signal();
+                }
+            });
+        } else {
+            signal();
+        }
+    }
+
+    /**
+     * Wake the processor
+     */
+    public void signal() {
+        synchronized (monitor) {
+            signalled = true;
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Wait up to the given time for a signal, consuming it
+     *
+     * @return true if signalled, false if the wait timed out
+     */
+    public boolean await(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (monitor) {
+            while (!signalled) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+            }
+            signalled = false;
+            return true;
+        }
+    }
+}
@@ -253,8 +253,11 @@ public class NotificationOrchestrator {
     
     /**
      * Process bulk notifications
+     * Not transactional: each request reads through its own short transactions, so a large
+     * batch does not hold a connection open. Campaign-sized fan-out goes through
+     * POST /api/platform/notifications/campaigns, backed by the shared BulkNotificationService,
+     * which loads preferences per chunk and uses provider batch APIs.
      */
-    @Transactional
     public List<NotificationResponse> processBulkNotifications(List<NotificationRequest> requests) {
         log.info("Processing {} bulk notifications", requests.size());
         
@@ -0,0 +1,93 @@
+package com.bharatshop.notifications.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for OutboxEventProcessor
+ * Tests per-aggregate ordering when publishing an event fails
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxEventProcessorTest {
+
+    private static final String INSTANCE_ID = "instance-1";
+
+    @Mock
+    private OutboxEventService outboxEventService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private OutboxWakeup outboxWakeup;
+
+    private OutboxEventProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new OutboxEventProcessor(outboxEventService, eventPublisher, Runnable::run, outboxWakeup);
+        ReflectionTestUtils.setField(processor, "instanceId", INSTANCE_ID);
+        ReflectionTestUtils.setField(processor, "dispatchPermits", new Semaphore(4));
+        ReflectionTestUtils.setField(processor, "processorEnabled", true);
+        ReflectionTestUtils.setField(processor, "batchSize", 10);
+        ReflectionTestUtils.setField(processor, "leaseSeconds", 300);
+        ReflectionTestUtils.setField(processor, "maxPollInterval", 30000L);
+    }
+
+    @Test
+    @DisplayName("Should not publish events queued behind a failed event of the same aggregate")
+    void shouldStopAggregateAtFirstFailure() {
+        OutboxEvent first = event("e1", "order-1");
+        OutboxEvent failing = event("e2", "order-1");
+        OutboxEvent behind = event("e3", "order-1");
+        OutboxEvent other = event("e4", "order-2");
+        when(outboxEventService.claimEventsForProcessing(eq(INSTANCE_ID), eq(10), any(Duration.class)))
+                .thenReturn(List.of(first, failing, behind, other));
+
+        List<String> published = new ArrayList<>();
+        doAnswer(invocation -> {
+            OutboxEventProcessor.ProcessedOutboxEvent domainEvent = invocation.getArgument(0);
+            if (domainEvent.getEventId().equals("e2")) {
+                throw new IllegalStateException("listener failed");
+            }
+            published.add(domainEvent.getEventId());
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+
+        int claimed = processor.processPendingEvents();
+
+        assertThat(claimed).isEqualTo(4);
+        assertThat(published).containsExactly("e1", "e4");
+        verify(outboxEventService).markAsFailed(eq("e2"), eq("listener failed"), anyString());
+        verify(outboxEventService).releaseClaims(List.of("e3"), INSTANCE_ID);
+        verify(outboxEventService).markAsProcessed(argThat((List<String> ids) ->
+                ids.size() == 2 && ids.containsAll(List.of("e1", "e4"))), eq(INSTANCE_ID));
+    }
+
+    private static OutboxEvent event(String id, String aggregateId) {
+        return OutboxEvent.builder()
+                .id(id)
+                .tenantId("tenant-1")
+                .eventType("ORDER_UPDATED")
+                .aggregateId(aggregateId)
+                .aggregateType("Order")
+                .eventData("{}")
+                .status(OutboxEvent.OutboxEventStatus.PROCESSING)
+                .build();
+    }
+}
@@ -99,6 +99,8 @@ public class StorefrontProductController {
             // Return with caching headers
             return httpCacheService.createCachedResponse(response, HttpCacheService.CacheConfig.shortTerm());
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error fetching products", e);
             return ResponseEntity.internalServerError()
@@ -213,6 +215,8 @@ public class StorefrontProductController {
             // Return with caching headers
             return httpCacheService.createCachedResponse(response, HttpCacheService.CacheConfig.shortTerm());
             
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error searching products", e);
             return ResponseEntity.internalServerError()
@@ -220,6 +224,34 @@ public class StorefrontProductController {
         }
     }
     
+    /**
+     * Type-ahead suggestions for the search box
+     * GET /store/search/suggestions?q=
+     */
+    @GetMapping("/search/suggestions")
+    @Operation(summary = "Search suggestions", description = "Autocomplete product names, categories and popular searches")
+    public ResponseEntity<ApiResponse<java.util.List<String>>> getSearchSuggestions(
+            @Parameter(description = "Text typed so far")
+            @RequestParam("q") String prefix,
+            
+            @Parameter(description = "Maximum number of suggestions")
+            @RequestParam(defaultValue = "8") int limit,
+            
+            @RequestHeader(value = "X-Tenant-Domain", required = false) String tenantDomain) {
+        
+        try {
+            java.util.List<String> suggestions = storefrontProductService.getSearchSuggestions(prefix, Math.min(limit, 10));
+            
+            // Suggestions change as shoppers search, so only allow brief caching
+            return httpCacheService.createCachedResponse(ApiResponse.success(suggestions), HttpCacheService.CacheConfig.shortTerm());
+            
+        } catch (Exception e) {
+            log.error("Error fetching search suggestions", e);
+            return ResponseEntity.internalServerError()
+                    .body(ApiResponse.error("Error fetching suggestions: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Get all available brands
      * GET /store/brands
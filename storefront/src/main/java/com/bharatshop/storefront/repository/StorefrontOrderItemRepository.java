@@ -1,10 +1,14 @@
 package com.bharatshop.storefront.repository;
 
 import com.bharatshop.shared.entity.OrderItem;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository("storefrontOrderItemRepository")
@@ -15,6 +19,11 @@ public interface StorefrontOrderItemRepository extends JpaRepository<OrderItem,
      */
     List<OrderItem> findByOrder_IdOrderByCreatedAtAsc(Long orderId);
     
+    /**
+     * Find the items of several orders at once
+     */
+    List<OrderItem> findByOrder_IdInOrderByCreatedAtAsc(Collection<Long> orderIds);
+    
     /**
      * Find order items by product ID and tenant (through order relationship)
      */
@@ -85,6 +94,22 @@ public interface StorefrontOrderItemRepository extends JpaRepository<OrderItem,
                                                                                                                      Long productId,
                                                                                                                      com.bharatshop.shared.entity.Orders.PaymentStatus paymentStatus);
     
+    /**
+     * Customer's most purchased products from paid orders: product ID, name,
+     * SKU, image URL, orders, units, amount spent and last purchase date
+     */
+    @Query(value = "SELECT oi.product_id, MAX(oi.product_name), MAX(oi.product_sku), MAX(oi.product_image_url), " +
+           "COUNT(DISTINCT o.id), SUM(oi.quantity), " +
+           "SUM(oi.price * oi.quantity - COALESCE(oi.discount_amount, 0)), MAX(o.created_at) " +
+           "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+           "WHERE o.customer_id = :customerId AND o.tenant_id = :tenantId AND o.payment_status = 'COMPLETED' " +
+           "GROUP BY oi.product_id " +
+           "ORDER BY COUNT(DISTINCT o.id) DESC, SUM(oi.price * oi.quantity - COALESCE(oi.discount_amount, 0)) DESC",
+           nativeQuery = true)
+    List<Object[]> findFavoriteProducts(@Param("customerId") Long customerId,
+                                        @Param("tenantId") Long tenantId,
+                                        Pageable pageable);
+    
     /**
      * Check if customer has purchased a specific product
      */
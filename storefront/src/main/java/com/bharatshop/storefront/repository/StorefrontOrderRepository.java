@@ -4,6 +4,8 @@ import com.bharatshop.shared.entity.Orders;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
@@ -89,6 +91,16 @@ public interface StorefrontOrderRepository extends JpaRepository<Orders, Long> {
      */
     Long countByCustomerIdAndTenantIdAndStatus(Long customerId, Long tenantId, Orders.OrderStatus status);
     
+    /**
+     * Customer order summary in one pass: per status, the order count, total
+     * amount and first and last order dates
+     */
+    @Query(value = "SELECT status, COUNT(*), COALESCE(SUM(total_amount), 0), MIN(created_at), MAX(created_at) " +
+           "FROM orders WHERE customer_id = :customerId AND tenant_id = :tenantId " +
+           "GROUP BY status", nativeQuery = true)
+    List<Object[]> summarizeCustomerOrdersByStatus(@Param("customerId") Long customerId,
+                                                   @Param("tenantId") Long tenantId);
+    
     /**
      * Count orders by status and tenant
      */
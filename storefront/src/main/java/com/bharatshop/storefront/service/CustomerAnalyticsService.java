@@ -9,17 +9,18 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 
 import java.util.stream.Collectors;
 
@@ -27,12 +28,19 @@ import java.util.stream.Collectors;
  * Service class for customer analytics and dashboard operations.
  * Provides methods to calculate customer-specific metrics including order history,
  * statistics, and behavioral data.
+ *
+ * Order counts, totals and dates come from one grouped query and favourite
+ * products from another, so the cost does not grow with the customer's order
+ * history.
  */
 @Service
 @RequiredArgsConstructor
 public class CustomerAnalyticsService {
     
     private static final Logger log = LoggerFactory.getLogger(CustomerAnalyticsService.class);
+    private static final int RECENT_ORDERS = 10;
+    private static final int FAVORITE_PRODUCTS = 5;
+    
     @Qualifier("storefrontOrderRepository")
     private final StorefrontOrderRepository orderRepository;
     @Qualifier("storefrontOrderItemRepository")
@@ -41,166 +49,150 @@ public class CustomerAnalyticsService {
     /**
      * Get comprehensive customer analytics for dashboard
      */
+    @Transactional(readOnly = true)
     public CustomerAnalyticsDto getCustomerAnalytics(Long customerId, String tenantId) {
         log.debug("Calculating customer analytics for customer: {} in tenant: {}", customerId, tenantId);
+        Long tenant = Long.parseLong(tenantId);
+        
+        OrderSummary summary = getOrderSummary(customerId, tenant);
+        LocalDateTime now = LocalDateTime.now();
         
         return CustomerAnalyticsDto.builder()
-                .totalOrders(getTotalOrders(customerId, tenantId))
-                .completedOrders(getCompletedOrders(customerId, tenantId))
-                .pendingOrders(getPendingOrders(customerId, tenantId))
-                .cancelledOrders(getCancelledOrders(customerId, tenantId))
-                .totalSpent(getTotalSpent(customerId, tenantId))
-                .averageOrderValue(getAverageOrderValue(customerId, tenantId))
-                .recentOrders(getRecentOrders(customerId, tenantId, 10))
-                .draftOrders(getOrdersByStatus(customerId, tenantId, Orders.OrderStatus.PENDING_PAYMENT))
-                .confirmedOrders(getOrdersByStatus(customerId, tenantId, Orders.OrderStatus.CONFIRMED))
-                .packedOrders(getOrdersByStatus(customerId, tenantId, Orders.OrderStatus.PACKED))
-                .shippedOrders(getOrdersByStatus(customerId, tenantId, Orders.OrderStatus.SHIPPED))
-                .deliveredOrders(getOrdersByStatus(customerId, tenantId, Orders.OrderStatus.DELIVERED))
-                .returnedOrders(getOrdersByStatus(customerId, tenantId, Orders.OrderStatus.RETURNED))
-                .lastOrderDate(getLastOrderDate(customerId, tenantId))
-                .firstOrderDate(getFirstOrderDate(customerId, tenantId))
-                .daysSinceLastOrder(getDaysSinceLastOrder(customerId, tenantId))
-                .totalOrderDays(getTotalOrderDays(customerId, tenantId))
+                .totalOrders(summary.totalOrders())
+                .completedOrders(summary.count(Orders.OrderStatus.DELIVERED))
+                .pendingOrders(summary.count(Orders.OrderStatus.PENDING_PAYMENT))
+                .cancelledOrders(summary.count(Orders.OrderStatus.CANCELLED))
+                .totalSpent(summary.totalSpent())
+                .averageOrderValue(getAverageOrderValue(summary))
+                .recentOrders(getRecentOrders(customerId, tenant, RECENT_ORDERS))
+                .draftOrders(summary.count(Orders.OrderStatus.PENDING_PAYMENT))
+                .confirmedOrders(summary.count(Orders.OrderStatus.CONFIRMED))
+                .packedOrders(summary.count(Orders.OrderStatus.PACKED))
+                .shippedOrders(summary.count(Orders.OrderStatus.SHIPPED))
+                .deliveredOrders(summary.count(Orders.OrderStatus.DELIVERED))
+                .returnedOrders(summary.count(Orders.OrderStatus.RETURNED))
+                .lastOrderDate(summary.lastOrderDate())
+                .firstOrderDate(summary.firstOrderDate())
+                .daysSinceLastOrder(daysSince(summary.lastOrderDate(), now))
+                .totalOrderDays(daysSince(summary.firstOrderDate(), now))
                 .totalWishlistItems(0L) // Placeholder for future wishlist feature
                 .recentWishlistItems(List.of()) // Placeholder for future wishlist feature
-                .favoriteProducts(getFavoriteProducts(customerId, tenantId, 5))
+                .favoriteProducts(getFavoriteProducts(customerId, tenant, FAVORITE_PRODUCTS))
                 .build();
     }
     
     /**
-     * Get total number of orders for customer
+     * Order counts by status, amount spent and first and last order dates
      */
-    private Long getTotalOrders(Long customerId, String tenantId) {
-        return orderRepository.countByCustomerIdAndTenantId(customerId, Long.parseLong(tenantId));
-    }
-    
-    /**
-     * Get number of completed orders for customer
-     */
-    private Long getCompletedOrders(Long customerId, String tenantId) {
-        return orderRepository.countByCustomerIdAndTenantIdAndStatus(customerId, Long.parseLong(tenantId), Orders.OrderStatus.DELIVERED);
-    }
-    
-    /**
-     * Get number of pending orders for customer
-     */
-    private Long getPendingOrders(Long customerId, String tenantId) {
-        return orderRepository.countByCustomerIdAndTenantIdAndStatus(customerId, Long.parseLong(tenantId), Orders.OrderStatus.PENDING_PAYMENT);
-    }
-    
-    /**
-     * Get number of cancelled orders for customer
-     */
-    private Long getCancelledOrders(Long customerId, String tenantId) {
-        return orderRepository.countByCustomerIdAndTenantIdAndStatus(customerId, Long.parseLong(tenantId), Orders.OrderStatus.CANCELLED);
+    private record OrderSummary(Map<Orders.OrderStatus, Long> countsByStatus, long totalOrders,
+                                BigDecimal totalSpent, LocalDateTime firstOrderDate, LocalDateTime lastOrderDate) {
+        
+        Long count(Orders.OrderStatus status) {
+            return countsByStatus.getOrDefault(status, 0L);
+        }
     }
     
     /**
-     * Get total amount spent by customer
+     * Summarize the customer's orders in one grouped query
      */
-    private BigDecimal getTotalSpent(Long customerId, String tenantId) {
-        Page<Orders> allOrdersPage = orderRepository.findByCustomerIdAndTenantIdOrderByCreatedAtDesc(
-                customerId, Long.parseLong(tenantId), Pageable.unpaged());
-        List<Orders> allOrders = allOrdersPage.getContent();
-        return allOrders.stream()
-                .map(Orders::getTotalAmount)
-                .filter(Objects::nonNull)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private OrderSummary getOrderSummary(Long customerId, Long tenantId) {
+        Map<Orders.OrderStatus, Long> countsByStatus = new EnumMap<>(Orders.OrderStatus.class);
+        long totalOrders = 0;
+        BigDecimal totalSpent = BigDecimal.ZERO;
+        LocalDateTime firstOrderDate = null;
+        LocalDateTime lastOrderDate = null;
+        
+        for (Object[] row : orderRepository.summarizeCustomerOrdersByStatus(customerId, tenantId)) {
+            long count = ((Number) row[1]).longValue();
+            countsByStatus.put(Orders.OrderStatus.valueOf((String) row[0]), count);
+            totalOrders += count;
+            totalSpent = totalSpent.add(toBigDecimal(row[2]));
+            
+            LocalDateTime first = toLocalDateTime(row[3]);
+            LocalDateTime last = toLocalDateTime(row[4]);
+            if (first != null && (firstOrderDate == null || first.isBefore(firstOrderDate))) {
+                firstOrderDate = first;
+            }
+            if (last != null && (lastOrderDate == null || last.isAfter(lastOrderDate))) {
+                lastOrderDate = last;
+            }
+        }
+        
+        return new OrderSummary(countsByStatus, totalOrders, totalSpent, firstOrderDate, lastOrderDate);
     }
     
     /**
      * Calculate average order value for customer
      */
-    private BigDecimal getAverageOrderValue(Long customerId, String tenantId) {
-        BigDecimal totalSpent = getTotalSpent(customerId, tenantId);
-        Long totalOrders = getTotalOrders(customerId, tenantId);
-        
-        if (totalOrders == 0 || totalSpent.equals(BigDecimal.ZERO)) {
+    private BigDecimal getAverageOrderValue(OrderSummary summary) {
+        if (summary.totalOrders() == 0 || summary.totalSpent().signum() == 0) {
             return BigDecimal.ZERO;
         }
         
-        return totalSpent.divide(BigDecimal.valueOf(totalOrders), 2, RoundingMode.HALF_UP);
+        return summary.totalSpent().divide(BigDecimal.valueOf(summary.totalOrders()), 2, RoundingMode.HALF_UP);
     }
     
     /**
-     * Get recent orders for customer
+     * Get recent orders for customer, loading their items in one query
      */
-    private List<CustomerAnalyticsDto.OrderHistoryData> getRecentOrders(Long customerId, String tenantId, int limit) {
-        Page<Orders> recentOrdersPage = orderRepository.findByCustomerIdAndTenantIdOrderByCreatedAtDesc(
-                customerId, Long.parseLong(tenantId), PageRequest.of(0, limit));
-        List<Orders> orders = recentOrdersPage.getContent();
+    private List<CustomerAnalyticsDto.OrderHistoryData> getRecentOrders(Long customerId, Long tenantId, int limit) {
+        List<Orders> orders = orderRepository.findByCustomerIdAndTenantIdOrderByCreatedAtDesc(
+                customerId, tenantId, PageRequest.of(0, limit)).getContent();
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, List<OrderItem>> itemsByOrder = orderItemRepository
+                .findByOrder_IdInOrderByCreatedAtAsc(orders.stream().map(Orders::getId).toList())
+                .stream()
+                .collect(Collectors.groupingBy(item -> item.getOrder().getId()));
         
         return orders.stream()
-                .map(this::convertToOrderHistoryData)
+                .map(order -> convertToOrderHistoryData(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
                 .collect(Collectors.toList());
     }
     
     /**
-     * Get number of orders by status
+     * Calculate whole days elapsed since a date
      */
-    private Long getOrdersByStatus(Long customerId, String tenantId, Orders.OrderStatus status) {
-        return orderRepository.countByCustomerIdAndTenantIdAndStatus(customerId, Long.parseLong(tenantId), status);
-    }
-    
-    /**
-     * Get last order date for customer
-     */
-    private LocalDateTime getLastOrderDate(Long customerId, String tenantId) {
-        Page<Orders> recentOrdersPage = orderRepository.findByCustomerIdAndTenantIdOrderByCreatedAtDesc(customerId, Long.parseLong(tenantId), PageRequest.of(0, 1));
-        List<Orders> recentOrders = recentOrdersPage.getContent();
-        return recentOrders.isEmpty() ? null : recentOrders.get(0).getCreatedAt();
-    }
-    
-    /**
-     * Get first order date for customer
-     */
-    private LocalDateTime getFirstOrderDate(Long customerId, String tenantId) {
-        // This would require a different query to get the oldest order
-        // For now, returning null as placeholder
-        return null;
-    }
-    
-    /**
-     * Calculate days since last order
-     */
-    private Integer getDaysSinceLastOrder(Long customerId, String tenantId) {
-        LocalDateTime lastOrderDate = getLastOrderDate(customerId, tenantId);
-        if (lastOrderDate == null) {
-            return null;
-        }
-        return (int) ChronoUnit.DAYS.between(lastOrderDate, LocalDateTime.now());
-    }
-    
-    /**
-     * Calculate total days as customer
-     */
-    private Integer getTotalOrderDays(Long customerId, String tenantId) {
-        LocalDateTime firstOrderDate = getFirstOrderDate(customerId, tenantId);
-        if (firstOrderDate == null) {
+    private Integer daysSince(LocalDateTime date, LocalDateTime now) {
+        if (date == null) {
             return null;
         }
-        return (int) ChronoUnit.DAYS.between(firstOrderDate, LocalDateTime.now());
+        return (int) ChronoUnit.DAYS.between(date, now);
     }
     
     /**
      * Get favorite products based on purchase frequency and amount
      */
-    private List<CustomerAnalyticsDto.FavoriteProductData> getFavoriteProducts(Long customerId, String tenantId, int limit) {
-        // This would require complex queries to analyze purchase patterns
-        // For now, returning empty list as placeholder
-        return List.of();
+    private List<CustomerAnalyticsDto.FavoriteProductData> getFavoriteProducts(Long customerId, Long tenantId, int limit) {
+        return orderItemRepository.findFavoriteProducts(customerId, tenantId, PageRequest.of(0, limit)).stream()
+                .map(row -> {
+                    long units = ((Number) row[5]).longValue();
+                    BigDecimal totalSpent = toBigDecimal(row[6]);
+                    return CustomerAnalyticsDto.FavoriteProductData.builder()
+                            .productId(((Number) row[0]).longValue())
+                            .productName((String) row[1])
+                            .productSku((String) row[2])
+                            .productImageUrl((String) row[3])
+                            .totalPurchases(((Number) row[4]).intValue())
+                            .totalSpent(totalSpent)
+                            .lastPurchaseDate(toLocalDateTime(row[7]))
+                            .averagePrice(units > 0
+                                    ? totalSpent.divide(BigDecimal.valueOf(units), 2, RoundingMode.HALF_UP)
+                                    : BigDecimal.ZERO)
+                            .build();
+                })
+                .collect(Collectors.toList());
     }
     
     /**
      * Convert Order entity to OrderHistoryData DTO
      */
-    private CustomerAnalyticsDto.OrderHistoryData convertToOrderHistoryData(Orders order) {
-        List<CustomerAnalyticsDto.OrderItemData> items = order.getItems() != null ?
-                order.getItems().stream()
-                        .map(this::convertToOrderItemData)
-                        .collect(Collectors.toList()) :
-                List.of();
+    private CustomerAnalyticsDto.OrderHistoryData convertToOrderHistoryData(Orders order, List<OrderItem> orderItems) {
+        List<CustomerAnalyticsDto.OrderItemData> items = orderItems.stream()
+                .map(this::convertToOrderItemData)
+                .collect(Collectors.toList());
         
         return CustomerAnalyticsDto.OrderHistoryData.builder()
                 .orderId(order.getId())
@@ -237,4 +229,19 @@ public class CustomerAnalyticsService {
                 .totalAmount(totalAmount)
                 .build();
     }
+    
+    // Native aggregates come back as different numeric and date types depending on the database
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+    
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
 }
\ No newline at end of file
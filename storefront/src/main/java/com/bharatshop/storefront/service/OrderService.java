@@ -4,7 +4,6 @@ import com.bharatshop.shared.entity.CustomerAddress;
 import com.bharatshop.shared.entity.Payment;
 import com.bharatshop.shared.entity.Product;
 import com.bharatshop.shared.entity.ProductVariant;
-import com.bharatshop.shared.entity.Reservation;
 import com.bharatshop.shared.repository.CustomerAddressRepository;
 import com.bharatshop.storefront.repository.StorefrontProductRepository;
 import com.bharatshop.shared.repository.ProductVariantRepository;
@@ -30,7 +29,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.slf4j.Logger;
@@ -127,36 +128,16 @@ public class OrderService {
         
         order = orderRepository.save(order);
         
-        // Create reservations for cart items (atomic stock reservation)
-        List<Reservation> reservations = new ArrayList<>();
-        
-        try {
-            for (CartItem cartItem : cart.getItems()) {
-                // Reserve stock for each cart item
-                if (cartItem.getVariantId() != null) {
-                    // Use variant-based reservation
-                    Reservation reservation = reservationService.reserveStock(
-                        tenantId,
-                        cartItem.getVariantId(), 
-                        cartItem.getQuantity()
-                    );
-                    reservations.add(reservation);
-                } else {
-                    // Fallback for legacy products without variants
-                    throw new RuntimeException("Product variants are required for checkout: " + cartItem.getProduct().getName());
-                }
-            }
-        } catch (Exception e) {
-            // Release any reservations that were created before the failure
-            for (Reservation reservation : reservations) {
-                try {
-                    reservationService.releaseReservation(tenantId, reservation.getId());
-                } catch (Exception releaseException) {
-                    log.error("Failed to release reservation {} during rollback", reservation.getId(), releaseException);
-                }
+        // Reserve stock for all cart items in one all-or-nothing step
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            if (cartItem.getVariantId() == null) {
+                // Legacy products without variants cannot be reserved
+                throw new RuntimeException("Product variants are required for checkout: " + cartItem.getProduct().getName());
             }
-            throw e;
+            quantities.merge(cartItem.getVariantId(), cartItem.getQuantity(), Integer::sum);
         }
+        reservationService.reserveStockBatch(tenantId, order.getId(), quantities, null);
         
         // Create order items from cart items
         List<OrderItem> orderItems = new ArrayList<>();
@@ -237,7 +218,7 @@ public class OrderService {
             
             // Commit reservations - convert to actual stock decrements
             try {
-                reservationService.commitReservations(order.getTenantId(), order.getId());
+                reservationService.commitReservationsBatch(order.getTenantId(), order.getId());
                 log.info("Reservations committed for order: {}", order.getOrderNumber());
             } catch (Exception e) {
                 log.error("Failed to commit reservations for order: {}", order.getOrderNumber(), e);
@@ -4,11 +4,16 @@ import com.bharatshop.storefront.dto.ProductResponseDto;
 import com.bharatshop.shared.entity.Product;
 import com.bharatshop.storefront.repository.StorefrontProductRepository;
 import com.bharatshop.shared.repository.ProductImageRepository;
+import com.bharatshop.shared.repository.CategoryRepository;
+import com.bharatshop.shared.entity.Category;
 import com.bharatshop.shared.entity.ProductImage;
 import com.bharatshop.shared.dto.ProductVariantDto;
 import com.bharatshop.shared.dto.ProductOptionDto;
 import com.bharatshop.platform.service.ProductVariantService;
 import com.bharatshop.platform.service.ProductOptionService;
+import com.bharatshop.shared.service.SearchService;
+import com.bharatshop.shared.service.search.ProductSearchIndex;
+import com.bharatshop.shared.tenant.TenantContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
@@ -16,12 +21,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -39,8 +50,10 @@ public class StorefrontProductService {
     
     private final StorefrontProductRepository productRepository;
     private final ProductImageRepository productImageRepository;
+    private final CategoryRepository categoryRepository;
     private final ProductVariantService productVariantService;
     private final ProductOptionService productOptionService;
+    private final SearchService searchService;
     
     // ========== Core Product Operations ==========
     
@@ -49,8 +62,7 @@ public class StorefrontProductService {
         log.debug("Fetching products with filters - category: {}, search: {}, minPrice: {}, maxPrice: {}", 
                 category, search, minPrice, maxPrice);
         
-        Page<Product> products = productRepository.findByStatusOrderByCreatedAtDesc(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(search, category, null, minPrice, maxPrice), pageable);
     }
     
     @Cacheable(value = "product", key = "#id")
@@ -90,8 +102,7 @@ public class StorefrontProductService {
         log.debug("Fetching customer products with filters - category: {}, search: {}, minPrice: {}, maxPrice: {}", 
                 category, search, minPrice, maxPrice);
         
-        Page<Product> products = productRepository.findByStatusOrderByCreatedAtDesc(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(search, category, null, minPrice, maxPrice), pageable);
     }
     
     @Cacheable(value = "storefront:product", key = "'slug_' + #slug")
@@ -109,32 +120,40 @@ public class StorefrontProductService {
     public Page<ProductResponseDto> searchProducts(String query, Pageable pageable) {
         log.debug("Searching products with query: {}", query);
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(query, null, null, null, null), pageable);
     }
     
     @Cacheable(value = "storefront:search", key = "#query + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
     public Page<ProductResponseDto> searchCustomerProducts(String query, Pageable pageable) {
         log.debug("Customer search for query: {}", query);
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(query, null, null, null, null), pageable);
     }
     
     @Cacheable(value = "productsByCategory", key = "#query + '_' + #category + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
     public Page<ProductResponseDto> searchProductsByCategory(String query, String category, Pageable pageable) {
         log.debug("Searching products with query: {} in category: {}", query, category);
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(query, category, null, null, null), pageable);
     }
     
     @Cacheable(value = "storefront:categorySearch", key = "#query + '_' + #category + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
     public Page<ProductResponseDto> searchCustomerProductsByCategory(String query, String category, Pageable pageable) {
         log.debug("Customer search for query: {} in category: {}", query, category);
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(query, category, null, null, null), pageable);
+    }
+    
+    /**
+     * Type-ahead suggestions for the current tenant's storefront.
+     * Not cached: the per-tenant trie answers faster than a cache lookup.
+     */
+    public List<String> getSearchSuggestions(String prefix, int limit) {
+        Long tenantId = TenantContext.getCurrentTenant();
+        if (tenantId == null) {
+            return new ArrayList<>();
+        }
+        return searchService.generateSuggestions(tenantId, prefix, limit);
     }
     
     // ========== Brand Operations ==========
@@ -143,28 +162,26 @@ public class StorefrontProductService {
     public Page<ProductResponseDto> searchProductsByBrand(String brand, String query, Pageable pageable) {
         log.debug("Searching products by brand: {} with query: {}", brand, query);
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(query, null, brand, null, null), pageable);
     }
     
     @Cacheable(value = "storefront:brandProducts", key = "#brand + '_' + #query + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
     public Page<ProductResponseDto> getCustomerProductsByBrand(String brand, String query, Pageable pageable) {
         log.debug("Customer products by brand: {} with query: {}", brand, query);
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(query, null, brand, null, null), pageable);
     }
     
     @Cacheable(value = "brands")
     public List<String> getBrands() {
         log.debug("Fetching all distinct brands");
-        return new ArrayList<>();
+        return facetValues(ProductSearchIndex.BRAND_FACET);
     }
     
     @Cacheable(value = "storefront:brands")
     public List<String> getCustomerBrands() {
         log.debug("Fetching customer brands");
-        return new ArrayList<>();
+        return facetValues(ProductSearchIndex.BRAND_FACET);
     }
     
     // ========== Price Range Operations ==========
@@ -173,16 +190,14 @@ public class StorefrontProductService {
     public Page<ProductResponseDto> searchProductsByPriceRange(Double minPrice, Double maxPrice, String query, Pageable pageable) {
         log.debug("Searching products in price range: {}-{} with query: {}", minPrice, maxPrice, query);
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(query, null, null, minPrice, maxPrice), pageable);
     }
     
     @Cacheable(value = "storefront:priceRangeProducts", key = "#minPrice + '_' + #maxPrice + '_' + #query + '_' + #pageable.pageNumber + '_' + #pageable.pageSize")
     public Page<ProductResponseDto> getCustomerProductsByPriceRange(Double minPrice, Double maxPrice, String query, Pageable pageable) {
         log.debug("Customer products in price range: {}-{} with query: {}", minPrice, maxPrice, query);
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        return searchIndexed(buildCriteria(query, null, null, minPrice, maxPrice), pageable);
     }
     
     // ========== Featured Products ==========
@@ -230,13 +245,13 @@ public class StorefrontProductService {
     @Cacheable(value = "categories")
     public List<Long> getCategories() {
         log.debug("Fetching all product categories");
-        return List.of();
+        return facetValues(ProductSearchIndex.CATEGORY_FACET).stream().map(Long::valueOf).collect(Collectors.toList());
     }
     
     @Cacheable(value = "storefront:categories")
     public List<Long> getCustomerCategories() {
         log.debug("Fetching customer categories");
-        return List.of();
+        return facetValues(ProductSearchIndex.CATEGORY_FACET).stream().map(Long::valueOf).collect(Collectors.toList());
     }
     
     // ========== Additional Customer Operations ==========
@@ -253,8 +268,9 @@ public class StorefrontProductService {
     public Page<ProductResponseDto> getCustomerInStockProducts(Pageable pageable) {
         log.debug("Fetching customer in-stock products");
         
-        Page<Product> products = productRepository.findByStatus(Product.ProductStatus.ACTIVE, pageable);
-        return products.map(this::mapToResponseDto);
+        SearchService.SearchCriteria criteria = buildCriteria(null, null, null, null, null);
+        criteria.setInStock(true);
+        return searchIndexed(criteria, pageable);
     }
     
     public boolean isProductAvailableForCustomer(String slug) {
@@ -269,6 +285,107 @@ public class StorefrontProductService {
         return products.map(this::mapToResponseDto);
     }
     
+    // ========== Index-backed Search ==========
+    
+    /**
+     * Run criteria against the tenant's in-memory search index and load the
+     * matching page of products in result order. Without a tenant context the
+     * index cannot be chosen, so the unfiltered listing is returned as before.
+     */
+    private Page<ProductResponseDto> searchIndexed(SearchService.SearchCriteria criteria, Pageable pageable) {
+        Long tenantId = TenantContext.getCurrentTenant();
+        if (tenantId == null) {
+            log.debug("No tenant context for search, falling back to status listing");
+            return productRepository.findByStatusOrderByCreatedAtDesc(Product.ProductStatus.ACTIVE, pageable)
+                    .map(this::mapToResponseDto);
+        }
+        
+        applySort(criteria, pageable.getSort());
+        SearchService.SearchResult<Long> result = searchService.searchProductIds(
+                tenantId, criteria, pageable.getPageNumber(), pageable.getPageSize());
+        if (pageable.getPageNumber() == 0 && result.getTotalElements() > 0) {
+            searchService.recordSuccessfulQuery(tenantId, criteria.getQuery());
+        }
+        
+        Map<Long, Product> productsById = productRepository.findAllById(result.getItems()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductResponseDto> content = result.getItems().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToResponseDto)
+                .collect(Collectors.toList());
+        
+        return new PageImpl<>(content, pageable, result.getTotalElements());
+    }
+    
+    /**
+     * Values present in a facet across the tenant's active catalog, most common first.
+     */
+    private List<String> facetValues(String facet) {
+        Long tenantId = TenantContext.getCurrentTenant();
+        if (tenantId == null) {
+            return new ArrayList<>();
+        }
+        return searchService.getFilterOptions(tenantId, new SearchService.SearchCriteria())
+                .getOrDefault(facet, new ArrayList<>());
+    }
+    
+    private SearchService.SearchCriteria buildCriteria(String query, String category, String brand,
+                                                       Double minPrice, Double maxPrice) {
+        SearchService.SearchCriteria criteria = new SearchService.SearchCriteria();
+        criteria.setQuery(query);
+        if (category != null && !category.isBlank()) {
+            criteria.addCategoryId(resolveCategoryId(category.trim()));
+        }
+        criteria.addBrand(brand);
+        criteria.setMinPrice(minPrice != null ? BigDecimal.valueOf(minPrice) : null);
+        criteria.setMaxPrice(maxPrice != null ? BigDecimal.valueOf(maxPrice) : null);
+        return criteria;
+    }
+    
+    /**
+     * Category filters take a category ID or the slug of one of the tenant's categories.
+     *
+     * @throws IllegalArgumentException if the slug matches no category
+     */
+    private Long resolveCategoryId(String category) {
+        try {
+            return Long.parseLong(category);
+        } catch (NumberFormatException e) {
+            return categoryRepository.findBySlugAndTenantIdAndDeletedAtIsNull(category, TenantContext.getCurrentTenant())
+                    .map(Category::getId)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown category: " + category));
+        }
+    }
+    
+    /**
+     * Translate the requested sort into index sort options. The controllers
+     * default to createdAt, which only applies when there is no text query;
+     * text searches keep relevance ordering unless another field is requested.
+     */
+    private void applySort(SearchService.SearchCriteria criteria, Sort sort) {
+        Sort.Order order = sort.stream().findFirst().orElse(null);
+        if (order == null) {
+            return;
+        }
+        String direction = order.isAscending() ? "asc" : "desc";
+        switch (order.getProperty()) {
+            case "price":
+                criteria.setSortBy("price_" + direction);
+                break;
+            case "name":
+                criteria.setSortBy("name_" + direction);
+                break;
+            case "createdAt":
+                if (criteria.getQuery() == null || criteria.getQuery().isBlank()) {
+                    criteria.setSortBy("created_" + direction);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+    
     // ========== Mapping Methods ==========
     
     private ProductResponseDto mapToResponseDto(Product product) {
@@ -0,0 +1,73 @@
+package com.bharatshop.storefront.service;
+
+import com.bharatshop.shared.dto.CustomerAnalyticsDto;
+import com.bharatshop.storefront.repository.StorefrontOrderItemRepository;
+import com.bharatshop.storefront.repository.StorefrontOrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for CustomerAnalyticsService
+ * Tests building customer analytics from the grouped order summary
+ */
+@ExtendWith(MockitoExtension.class)
+class CustomerAnalyticsServiceTest {
+
+    @Mock
+    private StorefrontOrderRepository orderRepository;
+
+    @Mock
+    private StorefrontOrderItemRepository orderItemRepository;
+
+    @InjectMocks
+    private CustomerAnalyticsService customerAnalyticsService;
+
+    @Test
+    void testGetCustomerAnalytics_GroupedSummary_Success() {
+        // Given
+        LocalDateTime firstOrder = LocalDateTime.now().minusDays(30);
+        LocalDateTime lastOrder = LocalDateTime.now().minusDays(2);
+        when(orderRepository.summarizeCustomerOrdersByStatus(7L, 1L)).thenReturn(List.of(
+                new Object[] {"DELIVERED", 2L, new BigDecimal("250.00"), Timestamp.valueOf(firstOrder), Timestamp.valueOf(lastOrder.minusDays(5))},
+                new Object[] {"CANCELLED", 1L, new BigDecimal("50.00"), Timestamp.valueOf(lastOrder), Timestamp.valueOf(lastOrder)}));
+        when(orderRepository.findByCustomerIdAndTenantIdOrderByCreatedAtDesc(eq(7L), eq(1L), any(Pageable.class)))
+                .thenReturn(Page.empty());
+        when(orderItemRepository.findFavoriteProducts(eq(7L), eq(1L), any(Pageable.class))).thenReturn(List.<Object[]>of(
+                new Object[] {11L, "Kurta", "KURTA", "kurta.jpg", 2L, 3L, new BigDecimal("150.00"), Timestamp.valueOf(lastOrder)}));
+
+        // When
+        CustomerAnalyticsDto analytics = customerAnalyticsService.getCustomerAnalytics(7L, "1");
+
+        // Then
+        assertEquals(3L, analytics.getTotalOrders());
+        assertEquals(2L, analytics.getCompletedOrders());
+        assertEquals(1L, analytics.getCancelledOrders());
+        assertEquals(0L, analytics.getPendingOrders());
+        assertEquals(0, new BigDecimal("300.00").compareTo(analytics.getTotalSpent()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(analytics.getAverageOrderValue()));
+        assertEquals(firstOrder, analytics.getFirstOrderDate());
+        assertEquals(lastOrder, analytics.getLastOrderDate());
+        assertEquals(30, analytics.getTotalOrderDays());
+        assertTrue(analytics.getRecentOrders().isEmpty());
+
+        CustomerAnalyticsDto.FavoriteProductData favorite = analytics.getFavoriteProducts().get(0);
+        assertEquals(11L, favorite.getProductId());
+        assertEquals(2, favorite.getTotalPurchases());
+        assertEquals(0, new BigDecimal("50.00").compareTo(favorite.getAveragePrice()));
+        verify(orderItemRepository, never()).findByOrder_IdInOrderByCreatedAtAsc(any());
+    }
+}